@@ -0,0 +1,207 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An immutable graph in compressed sparse row form.
+ *
+ * Vertices are numbered 0 to n - 1 in the order they first appear in the
+ * edges the graph is built from. The neighbors of vertex i are
+ * {@code getTarget(e)} for e in [{@code getOffset(i)},
+ * {@code getOffset(i + 1)}), in the order of the edges, with the weight
+ * {@code getWeight(e)}. That is the same order in which {@link Graph} lists
+ * them, so traversals visit vertices in the same order on both. Undirected
+ * edges are stored once in each direction, like in Graph.
+ *
+ * All edges live in three int arrays instead of one object per neighbor,
+ * so the graph takes about 8 bytes per neighbor plus the vertex dictionary,
+ * and following an edge is an array read instead of a hash lookup.
+ *
+ * @param <T> the data type of the vertices
+ * @author Karel Klein-Cardena
+ * @version 1.0
+ */
+public final class CsrGraph<T> {
+
+    private final Vertex<T>[] vertices;
+    private final Map<Vertex<T>, Integer> ids;
+    private final int[] offsets;
+    private final int[] targets;
+    private final int[] weights;
+    private final boolean directed;
+
+    /**
+     * Creates a CSR copy of a Graph.
+     *
+     * @throws IllegalArgumentException if the graph is null
+     * @param graph the graph to copy
+     */
+    public CsrGraph(Graph<T> graph) {
+        this(graph == null ? null : graph.getEdgeList());
+    }
+
+    /**
+     * Builds a graph from a sequence of edges, which is read once.
+     *
+     * @throws IllegalArgumentException if the edges or any edge is null
+     * @param edges the edges of the graph
+     */
+    @SuppressWarnings("unchecked")
+    public CsrGraph(Iterable<Edge<T>> edges) {
+        if (edges == null) {
+            throw new IllegalArgumentException("Cannot accept null edges.");
+        }
+        Map<Vertex<T>, Integer> idMap = new HashMap<>();
+        List<Vertex<T>> found = new ArrayList<>();
+        int[] sources = new int[16];
+        int[] ends = new int[16];
+        int[] costs = new int[16];
+        int count = 0;
+        boolean anyDirected = false;
+        for (Edge<T> edge : edges) {
+            if (edge == null) {
+                throw new IllegalArgumentException("Cannot accept null edge.");
+            }
+            if (count + 2 > sources.length) {
+                sources = Arrays.copyOf(sources, 2 * sources.length);
+                ends = Arrays.copyOf(ends, 2 * ends.length);
+                costs = Arrays.copyOf(costs, 2 * costs.length);
+            }
+            int u = intern(edge.getU(), idMap, found);
+            int v = intern(edge.getV(), idMap, found);
+            sources[count] = u;
+            ends[count] = v;
+            costs[count++] = edge.getWeight();
+            if (edge.isDirected()) {
+                anyDirected = true;
+            } else {
+                sources[count] = v;
+                ends[count] = u;
+                costs[count++] = edge.getWeight();
+            }
+        }
+
+        int n = idMap.size();
+        vertices = found.toArray((Vertex<T>[]) new Vertex<?>[n]);
+        ids = idMap;
+        directed = anyDirected;
+        // Counting sort of the edges by source, keeping their order.
+        offsets = new int[n + 1];
+        for (int i = 0; i < count; i++) {
+            offsets[sources[i] + 1]++;
+        }
+        for (int i = 0; i < n; i++) {
+            offsets[i + 1] += offsets[i];
+        }
+        int[] next = Arrays.copyOf(offsets, n);
+        targets = new int[count];
+        weights = new int[count];
+        for (int i = 0; i < count; i++) {
+            int slot = next[sources[i]]++;
+            targets[slot] = ends[i];
+            weights[slot] = costs[i];
+        }
+    }
+
+    /**
+     * Returns the number of a vertex, numbering it next if it is new.
+     *
+     * @param vertex the vertex
+     * @param ids the numbers of the vertices so far
+     * @param found the vertices so far, in the order they were numbered
+     * @param <T> the data type of the vertices
+     * @return the number of the vertex
+     */
+    private static <T> int intern(Vertex<T> vertex,
+                                  Map<Vertex<T>, Integer> ids,
+                                  List<Vertex<T>> found) {
+        Integer id = ids.putIfAbsent(vertex, found.size());
+        if (id == null) {
+            found.add(vertex);
+            return found.size() - 1;
+        }
+        return id;
+    }
+
+    /**
+     * Returns the number of vertices.
+     *
+     * @return the number of vertices
+     */
+    public int getVertexCount() {
+        return vertices.length;
+    }
+
+    /**
+     * Returns the number of stored edges, which counts undirected edges
+     * twice.
+     *
+     * @return the number of entries in the neighbor lists
+     */
+    public int getEdgeCount() {
+        return targets.length;
+    }
+
+    /**
+     * Returns the number of the vertex.
+     *
+     * @param vertex the vertex
+     * @return its number, or -1 if it is not in the graph
+     */
+    public int getId(Vertex<T> vertex) {
+        Integer id = ids.get(vertex);
+        return id == null ? -1 : id;
+    }
+
+    /**
+     * Returns the vertex with a number.
+     *
+     * @param id the number of the vertex
+     * @return the vertex
+     */
+    public Vertex<T> getVertex(int id) {
+        return vertices[id];
+    }
+
+    /**
+     * Returns where the neighbors of a vertex start in the edge arrays.
+     * Pass the vertex count to get the end of the last vertex's neighbors.
+     *
+     * @param id the number of the vertex, up to the vertex count
+     * @return the index of its first edge
+     */
+    public int getOffset(int id) {
+        return offsets[id];
+    }
+
+    /**
+     * Returns the vertex an edge leads to.
+     *
+     * @param edge the index of the edge
+     * @return the number of the vertex
+     */
+    public int getTarget(int edge) {
+        return targets[edge];
+    }
+
+    /**
+     * Returns the weight of an edge.
+     *
+     * @param edge the index of the edge
+     * @return the weight
+     */
+    public int getWeight(int edge) {
+        return weights[edge];
+    }
+
+    /**
+     * Gets whether or not the edges of this graph are directed.
+     *
+     * @return true if any edge it was built from is directed
+     */
+    public boolean isDirected() {
+        return directed;
+    }
+}
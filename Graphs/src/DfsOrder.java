@@ -0,0 +1,144 @@
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The orders in which a depth first search by
+ * {@link GraphAlgorithms#depthFirstOrder(CsrGraph)} discovered and finished
+ * the vertices of a {@link CsrGraph}, with the time of each.
+ *
+ * Discoveries and finishes share one clock that ticks once for each, so a
+ * vertex is a descendant of another in the search exactly when its
+ * interval from discovery to finish lies within the other's. The search
+ * also remembers the first cycle it came across.
+ *
+ * @param <T> the data type of the vertices
+ * @author Karel Klein-Cardena
+ * @version 1.0
+ */
+public final class DfsOrder<T> {
+
+    private final CsrGraph<T> graph;
+    private final int[] discovery;
+    private final int[] finish;
+    private final int[] preorder;
+    private final int[] postorder;
+    private final int[] cycle;
+
+    /**
+     * Wraps the result of a search.
+     *
+     * @param graph the graph searched
+     * @param discovery the time each vertex was discovered by number, or -1
+     *        if it was not reached
+     * @param finish the time each vertex was finished by number, or -1 if
+     *        it was not reached
+     * @param preorder the numbers of the reached vertices in the order they
+     *        were discovered
+     * @param postorder the numbers of the reached vertices in the order
+     *        they were finished
+     * @param cycle the numbers of the vertices of a cycle in the order of
+     *        its edges, or null if the search found none
+     */
+    DfsOrder(CsrGraph<T> graph, int[] discovery, int[] finish,
+             int[] preorder, int[] postorder, int[] cycle) {
+        this.graph = graph;
+        this.discovery = discovery;
+        this.finish = finish;
+        this.preorder = preorder;
+        this.postorder = postorder;
+        this.cycle = cycle;
+    }
+
+    /**
+     * Gets the reached vertices in the order they were discovered.
+     *
+     * @return the vertices in preorder
+     */
+    public List<Vertex<T>> getPreorder() {
+        return toVertices(preorder);
+    }
+
+    /**
+     * Gets the reached vertices in the order they were finished, each after
+     * all the vertices discovered from it.
+     *
+     * @return the vertices in postorder
+     */
+    public List<Vertex<T>> getPostorder() {
+        return toVertices(postorder);
+    }
+
+    /**
+     * Gets the time a vertex was discovered.
+     *
+     * @throws IllegalArgumentException if the vertex is not in the graph
+     * @param vertex the vertex
+     * @return the time, or -1 if the search did not reach it
+     */
+    public int getDiscoveryTime(Vertex<T> vertex) {
+        return discovery[idOf(vertex)];
+    }
+
+    /**
+     * Gets the time a vertex was finished, after all the vertices
+     * discovered from it.
+     *
+     * @throws IllegalArgumentException if the vertex is not in the graph
+     * @param vertex the vertex
+     * @return the time, or -1 if the search did not reach it
+     */
+    public int getFinishTime(Vertex<T> vertex) {
+        return finish[idOf(vertex)];
+    }
+
+    /**
+     * Checks whether the search found a cycle. A search of a whole graph
+     * finds one if the graph has any.
+     *
+     * @return true if it found a cycle
+     */
+    public boolean hasCycle() {
+        return cycle != null;
+    }
+
+    /**
+     * Gets the first cycle the search found.
+     *
+     * @return the vertices of the cycle, each with an edge to the next and
+     *         the last with one back to the first, or an empty list if the
+     *         search found none
+     */
+    public List<Vertex<T>> getCycle() {
+        return cycle == null ? new ArrayList<Vertex<T>>() : toVertices(cycle);
+    }
+
+    /**
+     * Looks up vertices by number.
+     *
+     * @param ids the numbers of the vertices
+     * @return the vertices
+     */
+    private List<Vertex<T>> toVertices(int[] ids) {
+        List<Vertex<T>> vertices = new ArrayList<Vertex<T>>(ids.length);
+        for (int id : ids) {
+            vertices.add(graph.getVertex(id));
+        }
+        return vertices;
+    }
+
+    /**
+     * Looks up the number of a vertex.
+     *
+     * @throws IllegalArgumentException if the vertex is not in the graph
+     * @param vertex the vertex
+     * @return its number
+     */
+    private int idOf(Vertex<T> vertex) {
+        int id = vertex == null ? -1 : graph.getId(vertex);
+        if (id < 0) {
+            throw new IllegalArgumentException(
+                    "The vertex is not in the graph.");
+        }
+        return id;
+    }
+}
@@ -1,4 +1,6 @@
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedList;
@@ -7,6 +9,11 @@ import java.util.Map;
 import java.util.PriorityQueue;
 import java.util.Queue;
 import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
 
 /**
  * Your implementations of various graph algorithms.
@@ -16,6 +23,32 @@ import java.util.Set;
  */
 public class GraphAlgorithms {
 
+    /**
+     * Frontiers of up to this many vertices, and bottom-up steps over up to
+     * this many vertices, are expanded by a single task of the parallel
+     * breadth first search.
+     */
+    private static final int BFS_GRAIN = 1 << 10;
+
+    /**
+     * The parallel breadth first search turns bottom-up once the edges out
+     * of the frontier outnumber the edges out of unvisited vertices divided
+     * by this.
+     */
+    private static final int BFS_ALPHA = 14;
+
+    /**
+     * The parallel breadth first search turns top-down again once the
+     * frontier holds fewer than the vertices divided by this.
+     */
+    private static final int BFS_BETA = 24;
+
+    /**
+     * Up to this many edges or vertices are handled by a single task of
+     * the parallel Boruvka's algorithm.
+     */
+    private static final int MST_GRAIN = 1 << 12;
+
     /**
      * Perform breadth first search on the given graph, starting at the start
      * Vertex.  You will return a List of the vertices in the order that
@@ -69,6 +102,102 @@ public class GraphAlgorithms {
         return bfsList;
     }
 
+    /**
+     * Performs breadth first search on a CSR graph, visiting vertices in the
+     * same order as {@link #breadthFirstSearch(Vertex, Graph)} does on the
+     * Graph it was built from. The queue is an int array and visited
+     * vertices are kept in a bitset, so the search allocates nothing per
+     * vertex besides the returned list.
+     *
+     * @throws IllegalArgumentException if any input is null, or if
+     *         {@code start} doesn't exist in the graph
+     * @param start the Vertex you are starting at
+     * @param graph the graph we are searching
+     * @param <T> the data type representing the vertices in the graph.
+     * @return a List of vertices in the order that you visited them
+     */
+    public static <T> List<Vertex<T>> breadthFirstSearch(Vertex<T> start,
+            CsrGraph<T> graph) {
+        int source = startId(start, graph);
+        long[] visited = new long[(graph.getVertexCount() + 63) >>> 6];
+        int[] queue = new int[graph.getVertexCount()];
+        int head = 0;
+        int tail = 0;
+        queue[tail++] = source;
+        visit(visited, source);
+        while (head < tail) {
+            int current = queue[head++];
+            int end = graph.getOffset(current + 1);
+            for (int edge = graph.getOffset(current); edge < end; edge++) {
+                int next = graph.getTarget(edge);
+                if (!isVisited(visited, next)) {
+                    visit(visited, next);
+                    queue[tail++] = next;
+                }
+            }
+        }
+        List<Vertex<T>> bfsList = new ArrayList<Vertex<T>>(tail);
+        for (int i = 0; i < tail; i++) {
+            bfsList.add(graph.getVertex(queue[i]));
+        }
+        return bfsList;
+    }
+
+    /**
+     * Performs a level synchronous breadth first search of a CSR graph on
+     * the common ForkJoinPool, like
+     * {@link #parallelBreadthFirstSearch(Vertex, CsrGraph, ForkJoinPool)}.
+     *
+     * @throws IllegalArgumentException if any input is null, or if
+     *         {@code start} doesn't exist in the graph
+     * @param start the Vertex you are starting at
+     * @param graph the graph we are searching
+     * @param <T> the data type representing the vertices in the graph.
+     * @return the depth of every vertex and the path to it
+     */
+    public static <T> ShortestPaths<T> parallelBreadthFirstSearch(
+            Vertex<T> start, CsrGraph<T> graph) {
+        return parallelBreadthFirstSearch(start, graph,
+                ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Performs a level synchronous breadth first search of a CSR graph on a
+     * ForkJoinPool. It reaches the same vertices as
+     * {@link #breadthFirstSearch(Vertex, CsrGraph)}, but the vertices of a
+     * level are visited in no particular order, so instead of a visiting
+     * order the result holds the depth of every vertex, as its distance,
+     * and a path to it through the vertex that discovered it.
+     *
+     * Each level is expanded in parallel from the one before, with visited
+     * vertices kept in an atomic bitset. On undirected graphs the search
+     * switches direction as the frontier changes size: a small frontier is
+     * expanded top-down, claiming the unvisited neighbors of its vertices,
+     * while once the frontier's edges outnumber those left unexplored, each
+     * unvisited vertex looks for a neighbor in the frontier instead and
+     * stops at the first one, which skips most of the edges of the middle
+     * levels of a low diameter graph. Directed graphs are always searched
+     * top-down, as a CsrGraph only lists the edges out of a vertex.
+     *
+     * @throws IllegalArgumentException if any input is null, or if
+     *         {@code start} doesn't exist in the graph
+     * @param start the Vertex you are starting at
+     * @param graph the graph we are searching
+     * @param pool the pool the search runs on
+     * @param <T> the data type representing the vertices in the graph.
+     * @return the depth of every vertex and the path to it
+     */
+    public static <T> ShortestPaths<T> parallelBreadthFirstSearch(
+            Vertex<T> start, CsrGraph<T> graph, ForkJoinPool pool) {
+        int source = startId(start, graph);
+        if (pool == null) {
+            throw new IllegalArgumentException("Cannot accept null pool.");
+        }
+        ParallelBfs bfs = new ParallelBfs(graph, source);
+        bfs.run(pool);
+        return new ShortestPaths<T>(graph, source, bfs.depth, bfs.parent);
+    }
+
     /**
      * Perform depth first search on the given graph, starting at the start
      * Vertex.  You will return a List of the vertices in the order that
@@ -81,13 +210,10 @@ public class GraphAlgorithms {
      *
      * The graph passed in may be directed or undirected, but never both.
      *
-     * You MUST implement this method recursively.
-     * Do not use any data structure as a stack to avoid recursion.
-     * Implementing it any other way WILL cause you to lose points!
-     *
-     * You may import/use {@code java.util.Set}, {@code java.util.Map},
-     * {@code java.util.List}, and any classes that implement the
-     * aforementioned interfaces.
+     * The search visits vertices in the order a recursive search would, but
+     * keeps the path to the current vertex in an array instead of on the
+     * call stack, along with the index of the next neighbor to try from
+     * each vertex on it, so it works on paths of any length.
      *
      * @throws IllegalArgumentException if any input is null, or if
      *         {@code start} doesn't exist in the graph
@@ -104,40 +230,230 @@ public class GraphAlgorithms {
                    + " start vertex or graph may be null,"
                    + " or the start vertex is not in the graph.");
         }
+        Map<Vertex<T>, List<VertexDistancePair<T>>> adjacencyList
+                = graph.getAdjacencyList();
         List<Vertex<T>> dfsList = new ArrayList<Vertex<T>>();
         Set<Vertex<T>> visited = new HashSet<Vertex<T>>();
+        List<List<VertexDistancePair<T>>> path =
+                new ArrayList<List<VertexDistancePair<T>>>();
+        int[] nextPair = new int[adjacencyList.size()];
         dfsList.add(start);
         visited.add(start);
-        return dfs(start, graph, dfsList, visited);
+        path.add(adjacencyList.get(start));
+        while (!path.isEmpty()) {
+            int depth = path.size() - 1;
+            List<VertexDistancePair<T>> pairs = path.get(depth);
+            int i = nextPair[depth];
+            while (i < pairs.size()
+                    && visited.contains(pairs.get(i).getVertex())) {
+                i++;
+            }
+            if (i == pairs.size()) {
+                path.remove(depth);
+                continue;
+            }
+            nextPair[depth] = i + 1;
+            Vertex<T> next = pairs.get(i).getVertex();
+            dfsList.add(next);
+            visited.add(next);
+            path.add(adjacencyList.get(next));
+            nextPair[depth + 1] = 0;
+        }
+        return dfsList;
     }
 
     /**
-     * Recursively perform a dfs through a graph from a start vertex
-     * @param current the vertex from which to start the dfs
-     * @param graph the graph to be searched
-     * @param dfsList the list of vertices in th order they are visited
-     * @param visited a set of vertices already visited
-     * @param <T> the data type representing the vertices in the graph
-     * @return a List of vertices in the order that they are visited
+     * Performs depth first search on a CSR graph, visiting vertices in the
+     * same order as {@link #depthFirstSearch(Vertex, Graph)} does on the
+     * Graph it was built from.
+     *
+     * Instead of recursing, the search keeps the path to the current vertex
+     * in an int array along with the next edge to try from each vertex on
+     * it, so it works on paths longer than the call stack allows. Visited
+     * vertices are kept in a bitset.
+     *
+     * @throws IllegalArgumentException if any input is null, or if
+     *         {@code start} doesn't exist in the graph
+     * @param start the Vertex you are starting at
+     * @param graph the graph we are searching
+     * @param <T> the data type representing the vertices in the graph.
+     * @return a List of vertices in the order that you visited them
      */
-    private static <T> List<Vertex<T>> dfs(Vertex<T> current,
-                                           Graph<T> graph,
-                                           List<Vertex<T>> dfsList,
-                                           Set<Vertex<T>> visited) {
+    public static <T> List<Vertex<T>> depthFirstSearch(Vertex<T> start,
+            CsrGraph<T> graph) {
+        int source = startId(start, graph);
+        long[] visited = new long[(graph.getVertexCount() + 63) >>> 6];
+        int[] path = new int[graph.getVertexCount()];
+        int[] nextEdge = new int[graph.getVertexCount()];
+        List<Vertex<T>> dfsList = new ArrayList<Vertex<T>>();
+        int depth = 0;
+        path[0] = source;
+        nextEdge[0] = graph.getOffset(source);
+        visit(visited, source);
+        dfsList.add(start);
+        while (depth >= 0) {
+            int current = path[depth];
+            int end = graph.getOffset(current + 1);
+            int edge = nextEdge[depth];
+            while (edge < end && isVisited(visited, graph.getTarget(edge))) {
+                edge++;
+            }
+            if (edge == end) {
+                depth--;
+                continue;
+            }
+            nextEdge[depth] = edge + 1;
+            int next = graph.getTarget(edge);
+            visit(visited, next);
+            dfsList.add(graph.getVertex(next));
+            depth++;
+            path[depth] = next;
+            nextEdge[depth] = graph.getOffset(next);
+        }
+        return dfsList;
+    }
 
-        Map<Vertex<T>, List<VertexDistancePair<T>>> adjacencyList
-                = graph.getAdjacencyList();
-        if (!adjacencyList.get(current).isEmpty()) {
-            for (VertexDistancePair<T> vertexPair
-                   : adjacencyList.get(current)) {
-                if (!visited.contains(vertexPair.getVertex())) {
-                    dfsList.add(vertexPair.getVertex());
-                    visited.add(vertexPair.getVertex());
-                    dfs(vertexPair.getVertex(), graph, dfsList, visited);
+    /**
+     * Performs depth first search on a CSR graph like
+     * {@link #depthFirstSearch(Vertex, CsrGraph)}, recording when each
+     * vertex is discovered and finished.
+     *
+     * @throws IllegalArgumentException if any input is null, or if
+     *         {@code start} doesn't exist in the graph
+     * @param start the Vertex you are starting at
+     * @param graph the graph we are searching
+     * @param <T> the data type representing the vertices in the graph.
+     * @return the orders and timestamps of the search
+     */
+    public static <T> DfsOrder<T> depthFirstOrder(Vertex<T> start,
+            CsrGraph<T> graph) {
+        return depthFirstOrder(graph, startId(start, graph));
+    }
+
+    /**
+     * Performs depth first search of a whole CSR graph, recording when each
+     * vertex is discovered and finished. A search like
+     * {@link #depthFirstSearch(Vertex, CsrGraph)} is started from each
+     * vertex not yet visited, in the order of their numbers.
+     *
+     * @throws IllegalArgumentException if the graph is null
+     * @param graph the graph we are searching
+     * @param <T> the data type representing the vertices in the graph.
+     * @return the orders and timestamps of the search
+     */
+    public static <T> DfsOrder<T> depthFirstOrder(CsrGraph<T> graph) {
+        if (graph == null) {
+            throw new IllegalArgumentException("Cannot accept null graph.");
+        }
+        return depthFirstOrder(graph, -1);
+    }
+
+    /**
+     * Sorts the vertices of a directed acyclic CSR graph so that every edge
+     * goes from a vertex to a later one, by reversing the postorder of
+     * {@link #depthFirstOrder(CsrGraph)}.
+     *
+     * @throws IllegalArgumentException if the graph is null or undirected
+     * @param graph the graph to sort
+     * @param <T> the data type representing the vertices in the graph.
+     * @return the vertices in topological order; null if the graph has a
+     *         cycle, so no such order exists
+     */
+    public static <T> List<Vertex<T>> topologicalSort(CsrGraph<T> graph) {
+        if (graph == null || !graph.isDirected()) {
+            throw new IllegalArgumentException(
+                    "Cannot sort a null or undirected graph.");
+        }
+        DfsOrder<T> order = depthFirstOrder(graph, -1);
+        if (order.hasCycle()) {
+            return null;
+        }
+        List<Vertex<T>> sorted = order.getPostorder();
+        Collections.reverse(sorted);
+        return sorted;
+    }
+
+    /**
+     * Runs depth first search on a CSR graph, keeping the path to the
+     * current vertex in an array along with the next edge to follow from
+     * each vertex on it, and ticking one clock for every discovery and
+     * finish, so that the interval of a vertex contains the intervals of
+     * its descendants.
+     *
+     * The first edge found to a vertex still on the path closes a cycle,
+     * which is recorded. On an undirected graph each vertex's first edge
+     * back to its parent is only the tree edge seen from the other side and
+     * is skipped, though a second one makes a cycle of two parallel edges.
+     *
+     * @param graph the graph
+     * @param root the number of the vertex to search from, or -1 to search
+     *        from every vertex not yet visited
+     * @param <T> the data type representing the vertices in the graph.
+     * @return the orders and timestamps of the search
+     */
+    private static <T> DfsOrder<T> depthFirstOrder(CsrGraph<T> graph,
+                                                   int root) {
+        int n = graph.getVertexCount();
+        int[] discovery = new int[n];
+        int[] finish = new int[n];
+        Arrays.fill(discovery, -1);
+        Arrays.fill(finish, -1);
+        int[] preorder = new int[n];
+        int[] postorder = new int[n];
+        int[] path = new int[n];
+        int[] nextEdge = new int[n];
+        boolean[] skippedParent = new boolean[n];
+        int[] cycle = null;
+        int visited = 0;
+        int finished = 0;
+        int clock = 0;
+        for (int first = Math.max(root, 0); first < n;
+                first = root < 0 ? first + 1 : n) {
+            if (discovery[first] >= 0) {
+                continue;
+            }
+            int depth = 0;
+            path[0] = first;
+            nextEdge[0] = graph.getOffset(first);
+            skippedParent[0] = false;
+            discovery[first] = clock++;
+            preorder[visited++] = first;
+            while (depth >= 0) {
+                int current = path[depth];
+                int edge = nextEdge[depth];
+                if (edge == graph.getOffset(current + 1)) {
+                    finish[current] = clock++;
+                    postorder[finished++] = current;
+                    depth--;
+                    continue;
+                }
+                nextEdge[depth] = edge + 1;
+                int next = graph.getTarget(edge);
+                if (discovery[next] < 0) {
+                    discovery[next] = clock++;
+                    preorder[visited++] = next;
+                    depth++;
+                    path[depth] = next;
+                    nextEdge[depth] = graph.getOffset(next);
+                    skippedParent[depth] = false;
+                } else if (finish[next] < 0 && cycle == null) {
+                    if (!graph.isDirected() && depth > 0
+                            && next == path[depth - 1]
+                            && !skippedParent[depth]) {
+                        skippedParent[depth] = true;
+                        continue;
+                    }
+                    int top = depth;
+                    while (path[top] != next) {
+                        top--;
+                    }
+                    cycle = Arrays.copyOfRange(path, top, depth + 1);
                 }
             }
         }
-        return dfsList;
+        return new DfsOrder<T>(graph, discovery, finish,
+                Arrays.copyOf(preorder, visited),
+                Arrays.copyOf(postorder, finished), cycle);
     }
 
     /**
@@ -176,45 +492,454 @@ public class GraphAlgorithms {
         }
         Map<Vertex<T>, List<VertexDistancePair<T>>> adjacencyList
                 = graph.getAdjacencyList();
-        List<Vertex<T>> vertexList = new
-                ArrayList<Vertex<T>>(adjacencyList.keySet());
         Map<Vertex<T>, Integer> dist = new HashMap<Vertex<T>, Integer>();
-
-        int infinity = Integer.MAX_VALUE;
-        for (Vertex<T> vertex : vertexList) {
-            dist.put(vertex, infinity);
+        for (Vertex<T> vertex : adjacencyList.keySet()) {
+            dist.put(vertex, Integer.MAX_VALUE);
         }
         dist.put(start, 0);
 
+        // Each queued pair holds a distance found for its vertex. A vertex
+        // is finished the first time it comes out; pairs with the longer
+        // distances found for it before are skipped when they come out.
+        Set<Vertex<T>> finished = new HashSet<Vertex<T>>();
         PriorityQueue<VertexDistancePair<T>> h = new
                 PriorityQueue<VertexDistancePair<T>>();
-        for (List<VertexDistancePair<T>> pairList : adjacencyList.values()) {
-            for (VertexDistancePair<T> pair : pairList) {
-                h.add(pair);
+        h.add(new VertexDistancePair<T>(start, 0));
+        while (!h.isEmpty() && finished.size() < adjacencyList.size()) {
+            VertexDistancePair<T> closest = h.remove();
+            Vertex<T> u = closest.getVertex();
+            if (!finished.add(u)) {
+                continue;
+            }
+            for (VertexDistancePair<T> vertexPair : adjacencyList.get(u)) {
+                Vertex<T> v = vertexPair.getVertex();
+                long l = (long) closest.getDistance()
+                        + vertexPair.getDistance();
+                if (l < dist.get(v)) {
+                    dist.put(v, (int) l);
+                    h.add(new VertexDistancePair<T>(v, (int) l));
+                }
             }
         }
-        h.add(new VertexDistancePair<T>(start, 0));
+        return dist;
+    }
+
+    /**
+     * Finds the shortest distances from the start vertex like
+     * {@link #dijkstras(Vertex, Graph)}, on a CSR graph, with the search of
+     * {@link #shortestPaths(Vertex, CsrGraph)}.
+     *
+     * @throws IllegalArgumentException if any input is null, or if
+     *         {@code start} doesn't exist in the graph
+     * @param start the Vertex you are starting at
+     * @param graph the graph we are searching
+     * @param <T> the data type representing the vertices in the graph.
+     * @return a map of the shortest distances from start to every other node
+     *         in the graph.
+     */
+    public static <T> Map<Vertex<T>, Integer> dijkstras(Vertex<T> start,
+            CsrGraph<T> graph) {
+        int source = startId(start, graph);
+        int n = graph.getVertexCount();
+        int[] dist = new int[n];
+        dijkstras(graph, source, -1, dist, new int[n]);
+        Map<Vertex<T>, Integer> distances = new HashMap<Vertex<T>, Integer>();
+        for (int i = 0; i < n; i++) {
+            distances.put(graph.getVertex(i), dist[i]);
+        }
+        return distances;
+    }
+
+    /**
+     * Finds the shortest paths from the start vertex to every vertex of a
+     * CSR graph with Dijkstra's algorithm. Edge weights must not be
+     * negative.
+     *
+     * Tentative distances are kept in an {@link IndexedMinHeap}, which
+     * holds each vertex at most once and lowers its key in place when a
+     * shorter path to it is found, so the heap never grows past the number
+     * of vertices and no stale entries have to be skipped. The vertex
+     * before each vertex on its shortest path is recorded along the way, so
+     * the paths can be rebuilt from the result.
+     *
+     * @throws IllegalArgumentException if any input is null, or if
+     *         {@code start} doesn't exist in the graph
+     * @param start the Vertex you are starting at
+     * @param graph the graph we are searching
+     * @param <T> the data type representing the vertices in the graph.
+     * @return the distances and paths from start
+     */
+    public static <T> ShortestPaths<T> shortestPaths(Vertex<T> start,
+            CsrGraph<T> graph) {
+        int source = startId(start, graph);
+        int n = graph.getVertexCount();
+        int[] dist = new int[n];
+        int[] pred = new int[n];
+        dijkstras(graph, source, -1, dist, pred);
+        return new ShortestPaths<T>(graph, source, dist, pred);
+    }
+
+    /**
+     * Finds a shortest path between two vertices of a CSR graph, with the
+     * search of {@link #shortestPaths(Vertex, CsrGraph)} stopped as soon as
+     * the target's distance is final. That leaves the vertices farther from
+     * the start than the target unexplored, which for a nearby target is
+     * most of the graph.
+     *
+     * @throws IllegalArgumentException if any input is null, or if
+     *         {@code start} or {@code target} doesn't exist in the graph
+     * @param start the Vertex the path starts at
+     * @param target the Vertex the path ends at
+     * @param graph the graph we are searching
+     * @param <T> the data type representing the vertices in the graph.
+     * @return the vertices of the path from start to target, or an empty
+     *         list if there is no path
+     */
+    public static <T> List<Vertex<T>> shortestPath(Vertex<T> start,
+            Vertex<T> target, CsrGraph<T> graph) {
+        int source = startId(start, graph);
+        int sink = startId(target, graph);
+        int n = graph.getVertexCount();
+        int[] dist = new int[n];
+        int[] pred = new int[n];
+        dijkstras(graph, source, sink, dist, pred);
+        return new ShortestPaths<T>(graph, source, dist, pred)
+                .getPath(target);
+    }
+
+    /**
+     * Runs Dijkstra's algorithm on a CSR graph.
+     *
+     * @param graph the graph
+     * @param source the number of the start vertex
+     * @param target the number of the vertex to stop at once it is
+     *        finished, or -1 to finish every reachable vertex
+     * @param dist filled with the distance to each finished vertex, or
+     *        {@code Integer.MAX_VALUE} for unreachable ones
+     * @param pred filled with the number of the vertex before each finished
+     *        vertex on a shortest path, or -1
+     */
+    private static void dijkstras(CsrGraph<?> graph, int source, int target,
+                                  int[] dist, int[] pred) {
+        Arrays.fill(dist, Integer.MAX_VALUE);
+        Arrays.fill(pred, -1);
+        dist[source] = 0;
+        IndexedMinHeap heap = new IndexedMinHeap(graph.getVertexCount());
+        heap.insert(source, 0);
+        while (!heap.isEmpty()) {
+            int u = heap.removeMin();
+            if (u == target) {
+                return;
+            }
+            int end = graph.getOffset(u + 1);
+            for (int edge = graph.getOffset(u); edge < end; edge++) {
+                int v = graph.getTarget(edge);
+                long alt = (long) dist[u] + graph.getWeight(edge);
+                if (alt < dist[v]) {
+                    if (dist[v] == Integer.MAX_VALUE) {
+                        heap.insert(v, (int) alt);
+                    } else {
+                        heap.decreaseKey(v, (int) alt);
+                    }
+                    dist[v] = (int) alt;
+                    pred[v] = u;
+                }
+            }
+        }
+    }
+
+    /**
+     * Checks the start vertex and graph of a search on a CSR graph.
+     *
+     * @throws IllegalArgumentException if either is null or the vertex is
+     *         not in the graph
+     * @param start the Vertex the search starts at
+     * @param graph the graph searched
+     * @param <T> the data type representing the vertices in the graph.
+     * @return the number of the start vertex in the graph
+     */
+    private static <T> int startId(Vertex<T> start, CsrGraph<T> graph) {
+        int id = start == null || graph == null ? -1 : graph.getId(start);
+        if (id < 0) {
+            throw new IllegalArgumentException("Invalid input:"
+                    + " start vertex or graph may be null,"
+                    + " or the start vertex is not in the graph.");
+        }
+        return id;
+    }
 
-        while (!h.isEmpty()) {
-            Vertex<T> u = h.remove().getVertex();
-            if (!adjacencyList.get(u).isEmpty()) {
-                for (VertexDistancePair<T> vertexPair : adjacencyList.get(u)) {
-                    Vertex<T> v = vertexPair.getVertex();
-                    if (v == start) {
-                        dist.put(v, 0);
+    /**
+     * Checks whether a vertex is in a bitset.
+     *
+     * @param bits the bitset, one bit per vertex
+     * @param id the number of the vertex
+     * @return true if its bit is set
+     */
+    private static boolean isVisited(long[] bits, int id) {
+        return (bits[id >>> 6] & 1L << id) != 0;
+    }
+
+    /**
+     * Adds a vertex to a bitset.
+     *
+     * @param bits the bitset, one bit per vertex
+     * @param id the number of the vertex
+     */
+    private static void visit(long[] bits, int id) {
+        bits[id >>> 6] |= 1L << id;
+    }
+
+    /**
+     * The state of one
+     * {@link #parallelBreadthFirstSearch(Vertex, CsrGraph, ForkJoinPool)}.
+     *
+     * The current level is listed in {@code frontier}, and also set in
+     * {@code frontierBits} when it is expanded bottom-up. Tasks append the
+     * next level to {@code next} a block at a time, reserving each block
+     * with {@code nextSize}.
+     */
+    private static final class ParallelBfs {
+        private final CsrGraph<?> graph;
+        private final int[] depth;
+        private final int[] parent;
+        private final AtomicLongArray visited;
+        private final AtomicInteger nextSize = new AtomicInteger();
+        private final AtomicLong nextEdges = new AtomicLong();
+        private int[] frontier;
+        private int[] next;
+        private long[] frontierBits;
+        private long[] nextBits;
+        private int level;
+
+        /**
+         * Starts a search with only the source visited.
+         *
+         * @param graph the graph searched
+         * @param source the number of the start vertex
+         */
+        ParallelBfs(CsrGraph<?> graph, int source) {
+            int n = graph.getVertexCount();
+            this.graph = graph;
+            depth = new int[n];
+            parent = new int[n];
+            Arrays.fill(depth, Integer.MAX_VALUE);
+            Arrays.fill(parent, -1);
+            visited = new AtomicLongArray((n + 63) >>> 6);
+            frontier = new int[n];
+            next = new int[n];
+            depth[source] = 0;
+            visited.set(source >>> 6, 1L << source);
+            frontier[0] = source;
+        }
+
+        /**
+         * Expands the levels one after another until one is empty.
+         *
+         * @param pool the pool the tasks run on
+         */
+        void run(ForkJoinPool pool) {
+            int n = graph.getVertexCount();
+            int words = visited.length();
+            int size = 1;
+            long frontierEdges = degree(frontier[0]);
+            long unvisitedEdges = graph.getEdgeCount() - frontierEdges;
+            boolean bottomUp = false;
+            while (size > 0) {
+                if (graph.isDirected()) {
+                    bottomUp = false;
+                } else if (!bottomUp
+                        && frontierEdges > unvisitedEdges / BFS_ALPHA) {
+                    bottomUp = true;
+                    if (frontierBits == null) {
+                        frontierBits = new long[words];
+                        nextBits = new long[words];
                     } else {
-                        int l = vertexPair.getDistance();
+                        Arrays.fill(frontierBits, 0);
+                    }
+                    for (int i = 0; i < size; i++) {
+                        frontierBits[frontier[i] >>> 6] |= 1L << frontier[i];
+                    }
+                } else if (bottomUp && size < n / BFS_BETA) {
+                    bottomUp = false;
+                }
+                nextSize.set(0);
+                nextEdges.set(0);
+                if (bottomUp) {
+                    pool.invoke(new BottomUpTask(this, 0, words));
+                    long[] bits = frontierBits;
+                    frontierBits = nextBits;
+                    nextBits = bits;
+                } else {
+                    pool.invoke(new TopDownTask(this, 0, size));
+                }
+                int[] list = frontier;
+                frontier = next;
+                next = list;
+                size = nextSize.get();
+                frontierEdges = nextEdges.get();
+                unvisitedEdges -= frontierEdges;
+                level++;
+            }
+        }
+
+        /**
+         * Returns the number of edges out of a vertex.
+         *
+         * @param v the number of the vertex
+         * @return its degree
+         */
+        int degree(int v) {
+            return graph.getOffset(v + 1) - graph.getOffset(v);
+        }
+
+        /**
+         * Appends vertices found by one task to the next level.
+         *
+         * @param found the vertices
+         * @param count how many of them there are
+         * @param edges the sum of their degrees
+         */
+        void addNext(int[] found, int count, long edges) {
+            if (count > 0) {
+                System.arraycopy(found, 0, next, nextSize.getAndAdd(count),
+                        count);
+                nextEdges.addAndGet(edges);
+            }
+        }
+    }
+
+    /**
+     * Expands frontier[lo, hi) of a {@link ParallelBfs} top-down: each
+     * unvisited neighbor of the frontier joins the next level through the
+     * first vertex to set its visited bit.
+     */
+    @SuppressWarnings("serial")
+    private static final class TopDownTask extends RecursiveAction {
+        private final ParallelBfs bfs;
+        private final int lo;
+        private final int hi;
+
+        /**
+         * Creates a task expanding part of the frontier.
+         *
+         * @param bfs the search
+         * @param lo the first index of the frontier
+         * @param hi one past the last index
+         */
+        TopDownTask(ParallelBfs bfs, int lo, int hi) {
+            this.bfs = bfs;
+            this.lo = lo;
+            this.hi = hi;
+        }
 
-                        if (dist.get(v) > dist.get(u) + l) {
-                            dist.put(v, dist.get(u) + l);
-                            h.add(new
-                                    VertexDistancePair<T>(v, dist.get(u) + l));
+        @Override
+        protected void compute() {
+            if (hi - lo > BFS_GRAIN) {
+                int mid = (lo + hi) >>> 1;
+                invokeAll(new TopDownTask(bfs, lo, mid),
+                        new TopDownTask(bfs, mid, hi));
+                return;
+            }
+            CsrGraph<?> graph = bfs.graph;
+            AtomicLongArray visited = bfs.visited;
+            int[] found = new int[BFS_GRAIN];
+            int count = 0;
+            long edges = 0;
+            for (int i = lo; i < hi; i++) {
+                int u = bfs.frontier[i];
+                int end = graph.getOffset(u + 1);
+                for (int edge = graph.getOffset(u); edge < end; edge++) {
+                    int v = graph.getTarget(edge);
+                    long bit = 1L << v;
+                    long word = visited.get(v >>> 6);
+                    while ((word & bit) == 0) {
+                        if (visited.compareAndSet(v >>> 6, word,
+                                word | bit)) {
+                            bfs.depth[v] = bfs.level + 1;
+                            bfs.parent[v] = u;
+                            if (count == found.length) {
+                                found = Arrays.copyOf(found, 2 * count);
+                            }
+                            found[count++] = v;
+                            edges += bfs.degree(v);
+                            break;
                         }
+                        word = visited.get(v >>> 6);
                     }
                 }
             }
+            bfs.addNext(found, count, edges);
+        }
+    }
+
+    /**
+     * Expands the frontier of a {@link ParallelBfs} bottom-up for the
+     * vertices of the visited words [lo, hi): each unvisited vertex joins
+     * the next level through its first neighbor in the frontier. Every
+     * word belongs to one task, so the bits are set without contention.
+     */
+    @SuppressWarnings("serial")
+    private static final class BottomUpTask extends RecursiveAction {
+        private final ParallelBfs bfs;
+        private final int lo;
+        private final int hi;
+
+        /**
+         * Creates a task for some of the vertices.
+         *
+         * @param bfs the search
+         * @param lo the first word of vertices
+         * @param hi one past the last word
+         */
+        BottomUpTask(ParallelBfs bfs, int lo, int hi) {
+            this.bfs = bfs;
+            this.lo = lo;
+            this.hi = hi;
+        }
+
+        @Override
+        protected void compute() {
+            if (hi - lo > BFS_GRAIN >>> 6) {
+                int mid = (lo + hi) >>> 1;
+                invokeAll(new BottomUpTask(bfs, lo, mid),
+                        new BottomUpTask(bfs, mid, hi));
+                return;
+            }
+            CsrGraph<?> graph = bfs.graph;
+            int n = graph.getVertexCount();
+            int[] found = new int[(hi - lo) << 6];
+            int count = 0;
+            long edges = 0;
+            for (int w = lo; w < hi; w++) {
+                long old = bfs.visited.get(w);
+                long unvisited = ~old;
+                if (w == (n - 1) >>> 6) {
+                    unvisited &= -1L >>> -n;
+                }
+                long bits = 0;
+                while (unvisited != 0) {
+                    int v = (w << 6) + Long.numberOfTrailingZeros(unvisited);
+                    unvisited &= unvisited - 1;
+                    int end = graph.getOffset(v + 1);
+                    for (int edge = graph.getOffset(v); edge < end; edge++) {
+                        int u = graph.getTarget(edge);
+                        if (isVisited(bfs.frontierBits, u)) {
+                            bfs.depth[v] = bfs.level + 1;
+                            bfs.parent[v] = u;
+                            bits |= 1L << v;
+                            found[count++] = v;
+                            edges += end - graph.getOffset(v);
+                            break;
+                        }
+                    }
+                }
+                if (bits != 0) {
+                    bfs.visited.set(w, old | bits);
+                }
+                bfs.nextBits[w] = bits;
+            }
+            bfs.addNext(found, count, edges);
         }
-        return dist;
     }
 
     /**
@@ -225,9 +950,9 @@ public class GraphAlgorithms {
      * You may assume that there will only be one valid MST that can be formed.
      * In addition, only an undirected graph will be passed in.
      *
-     * You may import/use {@code java.util.PriorityQueue},
-     * {@code java.util.Set}, {@code java.util.Map} and any class from java.util
-     * that implements the aforementioned interfaces.
+     * The edges are copied into int arrays of their vertex numbers and
+     * weights, put in order of weight with a radix sort, and joined with a
+     * {@link UnionFind}, as in {@link #kruskals(CsrGraph)}.
      *
      * @throws IllegalArgumentException if graph is null
      * @param graph the Graph we are searching
@@ -238,17 +963,441 @@ public class GraphAlgorithms {
         if (graph == null) {
             throw new IllegalArgumentException("Cannot accept null graph.");
         }
+        Map<Vertex<T>, Integer> ids = new HashMap<Vertex<T>, Integer>();
+        for (Vertex<T> vertex : graph.getAdjacencyList().keySet()) {
+            ids.put(vertex, ids.size());
+        }
+        List<Edge<T>> edgeList = new ArrayList<Edge<T>>(graph.getEdgeList());
+        int m = edgeList.size();
+        int[] us = new int[m];
+        int[] vs = new int[m];
+        int[] weights = new int[m];
+        for (int e = 0; e < m; e++) {
+            Edge<T> edge = edgeList.get(e);
+            us[e] = ids.get(edge.getU());
+            vs[e] = ids.get(edge.getV());
+            weights[e] = edge.getWeight();
+        }
+        int[] tree = kruskals(ids.size(), us, vs, weights);
+        if (tree == null) {
+            return null;
+        }
+        Set<Edge<T>> mst = new HashSet<Edge<T>>();
+        for (int e : tree) {
+            mst.add(edgeList.get(e));
+        }
+        return mst;
+    }
+
+    /**
+     * Finds the minimum spanning tree of an undirected CSR graph with
+     * Kruskal's algorithm.
+     *
+     * The edges are copied into int arrays of their vertex numbers and
+     * weights, once each rather than once from each end, and put in order
+     * of weight with an LSD radix sort instead of a comparison sort. The
+     * growing forest is kept in a {@link UnionFind}. Edges of equal weight
+     * are taken in the order the graph lists them, so the tree is the same
+     * one {@link #boruvkas(CsrGraph)} finds.
+     *
+     * @throws IllegalArgumentException if the graph is null or directed
+     * @param graph the graph we are searching
+     * @param <T> the data type representing the vertices in the graph.
+     * @return the edges of the MST in order of weight; null if the graph is
+     *         disconnected, so that no MST exists
+     */
+    public static <T> List<Edge<T>> kruskals(CsrGraph<T> graph) {
+        int[][] edges = undirectedEdges(graph);
+        return toEdges(graph, edges,
+                kruskals(graph.getVertexCount(), edges[0], edges[1],
+                        edges[2]));
+    }
 
-        Map<Vertex<T>, List<VertexDistancePair<T>>> adjacencyList = graph.getAdjacencyList();
-        List<Vertex<T>> vertexList = new ArrayList<Vertex<T>>(adjacencyList.keySet());
-        PriorityQueue<Edge<T>> x = new
-                PriorityQueue<Edge<T>>(graph.getEdgeList());
-        while (!x.isEmpty()) {
+    /**
+     * Finds the minimum spanning tree of an undirected CSR graph with a
+     * parallel Boruvka's algorithm on the common ForkJoinPool, like
+     * {@link #boruvkas(CsrGraph, ForkJoinPool)}.
+     *
+     * @throws IllegalArgumentException if the graph is null or directed
+     * @param graph the graph we are searching
+     * @param <T> the data type representing the vertices in the graph.
+     * @return the edges of the MST; null if the graph is disconnected, so
+     *         that no MST exists
+     */
+    public static <T> List<Edge<T>> boruvkas(CsrGraph<T> graph) {
+        return boruvkas(graph, ForkJoinPool.commonPool());
+    }
 
+    /**
+     * Finds the minimum spanning tree of an undirected CSR graph with a
+     * parallel Boruvka's algorithm on a ForkJoinPool.
+     *
+     * Each round finds the lightest edge out of every component of the
+     * forest so far, in parallel over the edges, and adds them all, which
+     * at least halves the number of components. Edges that end up within a
+     * component are dropped along the way, so later rounds, which have the
+     * fewest components, are also the shortest. No sorting is needed,
+     * which suits graphs with far more edges than vertices. Ties between
+     * edges of equal weight are broken by their order in the graph, which
+     * keeps the lightest edges from forming a cycle, and gives the same
+     * tree as {@link #kruskals(CsrGraph)}.
+     *
+     * @throws IllegalArgumentException if any input is null or the graph is
+     *         directed
+     * @param graph the graph we are searching
+     * @param pool the pool the search runs on
+     * @param <T> the data type representing the vertices in the graph.
+     * @return the edges of the MST; null if the graph is disconnected, so
+     *         that no MST exists
+     */
+    public static <T> List<Edge<T>> boruvkas(CsrGraph<T> graph,
+                                             ForkJoinPool pool) {
+        int[][] edges = undirectedEdges(graph);
+        if (pool == null) {
+            throw new IllegalArgumentException("Cannot accept null pool.");
         }
+        Boruvka boruvka = new Boruvka(graph.getVertexCount(), edges[0],
+                edges[1], edges[2]);
+        return toEdges(graph, edges, boruvka.run(pool));
     }
 
-    private void find(Vertex<T> x) {
+    /**
+     * Lists the edges of an undirected CSR graph once each, from the end
+     * with the smaller number, leaving out loops, which are never in a
+     * spanning tree.
+     *
+     * @throws IllegalArgumentException if the graph is null or directed
+     * @param graph the graph
+     * @return the numbers of the first ends, the numbers of the second ends
+     *         and the weights of the edges
+     */
+    private static int[][] undirectedEdges(CsrGraph<?> graph) {
+        if (graph == null || graph.isDirected()) {
+            throw new IllegalArgumentException(
+                    "Cannot accept a null or directed graph.");
+        }
+        int m = 0;
+        for (int u = 0; u < graph.getVertexCount(); u++) {
+            int end = graph.getOffset(u + 1);
+            for (int edge = graph.getOffset(u); edge < end; edge++) {
+                if (u < graph.getTarget(edge)) {
+                    m++;
+                }
+            }
+        }
+        int[] us = new int[m];
+        int[] vs = new int[m];
+        int[] weights = new int[m];
+        int e = 0;
+        for (int u = 0; u < graph.getVertexCount(); u++) {
+            int end = graph.getOffset(u + 1);
+            for (int edge = graph.getOffset(u); edge < end; edge++) {
+                if (u < graph.getTarget(edge)) {
+                    us[e] = u;
+                    vs[e] = graph.getTarget(edge);
+                    weights[e++] = graph.getWeight(edge);
+                }
+            }
+        }
+        return new int[][] {us, vs, weights};
+    }
+
+    /**
+     * Turns the edges of a tree found in a CSR graph back into Edges.
+     *
+     * @param graph the graph
+     * @param edges the ends and weights of its edges, as listed by
+     *        {@link #undirectedEdges(CsrGraph)}
+     * @param tree the indices of the edges in the tree, or null
+     * @param <T> the data type representing the vertices in the graph.
+     * @return the Edges of the tree, or null if tree is null
+     */
+    private static <T> List<Edge<T>> toEdges(CsrGraph<T> graph,
+                                             int[][] edges, int[] tree) {
+        if (tree == null) {
+            return null;
+        }
+        List<Edge<T>> mst = new ArrayList<Edge<T>>(tree.length);
+        for (int e : tree) {
+            mst.add(new Edge<T>(graph.getVertex(edges[0][e]),
+                    graph.getVertex(edges[1][e]), edges[2][e], false));
+        }
+        return mst;
+    }
+
+    /**
+     * Runs Kruskal's algorithm on edges held in arrays.
+     *
+     * @param n the number of vertices
+     * @param us the number of the first end of each edge
+     * @param vs the number of the second end of each edge
+     * @param weights the weight of each edge
+     * @return the indices of the edges of the MST in order of weight, or
+     *         null if the graph is disconnected
+     */
+    private static int[] kruskals(int n, int[] us, int[] vs, int[] weights) {
+        int[] order = sortByWeight(weights);
+        UnionFind forest = new UnionFind(n);
+        int[] tree = new int[Math.max(n - 1, 0)];
+        int size = 0;
+        for (int i = 0; i < order.length && size < tree.length; i++) {
+            int e = order[i];
+            if (forest.union(us[e], vs[e])) {
+                tree[size++] = e;
+            }
+        }
+        return size == tree.length ? tree : null;
+    }
+
+    /**
+     * Sorts the indices of an array of weights by weight with a stable LSD
+     * radix sort on 8 bits at a time, skipping the bytes in which all the
+     * weights agree, so that small weights take one or two passes.
+     *
+     * @param weights the weights
+     * @return the indices from 0 to weights.length - 1 in order of weight
+     */
+    private static int[] sortByWeight(int[] weights) {
+        int m = weights.length;
+        int[] keys = new int[m];
+        int[] order = new int[m];
+        for (int i = 0; i < m; i++) {
+            // flipping the sign bit orders negative weights first
+            keys[i] = weights[i] ^ Integer.MIN_VALUE;
+            order[i] = i;
+        }
+        int[] keyBuffer = new int[m];
+        int[] orderBuffer = new int[m];
+        int[] counts = new int[257];
+        for (int shift = 0; shift < 32; shift += 8) {
+            Arrays.fill(counts, 0);
+            for (int i = 0; i < m; i++) {
+                counts[(keys[i] >>> shift & 0xFF) + 1]++;
+            }
+            if (m == 0 || counts[(keys[0] >>> shift & 0xFF) + 1] == m) {
+                continue;
+            }
+            for (int digit = 0; digit < 256; digit++) {
+                counts[digit + 1] += counts[digit];
+            }
+            for (int i = 0; i < m; i++) {
+                int slot = counts[keys[i] >>> shift & 0xFF]++;
+                keyBuffer[slot] = keys[i];
+                orderBuffer[slot] = order[i];
+            }
+            int[] swap = keys;
+            keys = keyBuffer;
+            keyBuffer = swap;
+            swap = order;
+            order = orderBuffer;
+            orderBuffer = swap;
+        }
+        return order;
+    }
+
+    /**
+     * The state of one {@link #boruvkas(CsrGraph, ForkJoinPool)}.
+     *
+     * Every vertex is labeled with the root of its component in
+     * {@code component}, and the roots are listed in {@code roots}. The
+     * lightest edge out of each component is kept in {@code cheapest} by
+     * the component's root, as its weight in the high half of a long and
+     * its index in the low half, so that an atomic minimum orders edges by
+     * weight and then by index.
+     */
+    private static final class Boruvka {
+        private final int[] us;
+        private final int[] vs;
+        private final int[] weights;
+        private final int[] component;
+        private final int[] roots;
+        private final int[] merged;
+        private final AtomicLongArray cheapest;
+        private final AtomicInteger nextSize = new AtomicInteger();
+        private int[] live;
+        private int[] next;
+
+        /**
+         * Starts with every vertex in a component of its own.
+         *
+         * @param n the number of vertices
+         * @param us the number of the first end of each edge
+         * @param vs the number of the second end of each edge
+         * @param weights the weight of each edge
+         */
+        Boruvka(int n, int[] us, int[] vs, int[] weights) {
+            this.us = us;
+            this.vs = vs;
+            this.weights = weights;
+            component = new int[n];
+            roots = new int[n];
+            merged = new int[n];
+            cheapest = new AtomicLongArray(n);
+            live = new int[us.length];
+            next = new int[us.length];
+            for (int v = 0; v < n; v++) {
+                component[v] = v;
+                roots[v] = v;
+            }
+            for (int e = 0; e < us.length; e++) {
+                live[e] = e;
+            }
+        }
+
+        /**
+         * Runs rounds until no edges leave the components.
+         *
+         * @param pool the pool the tasks run on
+         * @return the indices of the edges of the MST, or null if the graph
+         *         is disconnected
+         */
+        int[] run(ForkJoinPool pool) {
+            int n = component.length;
+            UnionFind forest = new UnionFind(n);
+            int[] tree = new int[Math.max(n - 1, 0)];
+            int size = 0;
+            int rootCount = n;
+            int liveCount = live.length;
+            while (liveCount > 0 && size < tree.length) {
+                for (int i = 0; i < rootCount; i++) {
+                    cheapest.set(roots[i], Long.MAX_VALUE);
+                }
+                nextSize.set(0);
+                pool.invoke(new CheapestEdgeTask(this, 0, liveCount));
+                int[] swap = live;
+                live = next;
+                next = swap;
+                liveCount = nextSize.get();
+
+                for (int i = 0; i < rootCount; i++) {
+                    long key = cheapest.get(roots[i]);
+                    if (key != Long.MAX_VALUE) {
+                        int e = (int) key;
+                        if (forest.union(us[e], vs[e])) {
+                            tree[size++] = e;
+                        }
+                    }
+                }
+                // the old roots are relabeled first, so the vertices can
+                // be in parallel without racing on the union-find
+                for (int i = 0; i < rootCount; i++) {
+                    merged[roots[i]] = forest.find(roots[i]);
+                }
+                pool.invoke(new RelabelTask(this, 0, n));
+                int newCount = 0;
+                for (int i = 0; i < rootCount; i++) {
+                    if (forest.find(roots[i]) == roots[i]) {
+                        roots[newCount++] = roots[i];
+                    }
+                }
+                rootCount = newCount;
+            }
+            return size == tree.length ? tree : null;
+        }
+    }
+
+    /**
+     * Goes through live[lo, hi) of a {@link Boruvka}, dropping the edges
+     * within a component and offering the others as the lightest edge out
+     * of each of their ends' components.
+     */
+    @SuppressWarnings("serial")
+    private static final class CheapestEdgeTask extends RecursiveAction {
+        private final Boruvka boruvka;
+        private final int lo;
+        private final int hi;
 
+        /**
+         * Creates a task for some of the live edges.
+         *
+         * @param boruvka the search
+         * @param lo the first index of the live edges
+         * @param hi one past the last index
+         */
+        CheapestEdgeTask(Boruvka boruvka, int lo, int hi) {
+            this.boruvka = boruvka;
+            this.lo = lo;
+            this.hi = hi;
+        }
+
+        @Override
+        protected void compute() {
+            if (hi - lo > MST_GRAIN) {
+                int mid = (lo + hi) >>> 1;
+                invokeAll(new CheapestEdgeTask(boruvka, lo, mid),
+                        new CheapestEdgeTask(boruvka, mid, hi));
+                return;
+            }
+            int[] kept = new int[hi - lo];
+            int count = 0;
+            for (int i = lo; i < hi; i++) {
+                int e = boruvka.live[i];
+                int cu = boruvka.component[boruvka.us[e]];
+                int cv = boruvka.component[boruvka.vs[e]];
+                if (cu != cv) {
+                    long key = (long) boruvka.weights[e] << 32 | e;
+                    offer(cu, key);
+                    offer(cv, key);
+                    kept[count++] = e;
+                }
+            }
+            if (count > 0) {
+                System.arraycopy(kept, 0, boruvka.next,
+                        boruvka.nextSize.getAndAdd(count), count);
+            }
+        }
+
+        /**
+         * Lowers the lightest edge of a component to an edge if it is
+         * lighter.
+         *
+         * @param root the root of the component
+         * @param key the weight and index of the edge
+         */
+        private void offer(int root, long key) {
+            long current = boruvka.cheapest.get(root);
+            while (key < current
+                    && !boruvka.cheapest.compareAndSet(root, current, key)) {
+                current = boruvka.cheapest.get(root);
+            }
+        }
+    }
+
+    /**
+     * Relabels the vertices [lo, hi) of a {@link Boruvka} with the roots of
+     * their merged components, which {@code merged} holds by old root.
+     */
+    @SuppressWarnings("serial")
+    private static final class RelabelTask extends RecursiveAction {
+        private final Boruvka boruvka;
+        private final int lo;
+        private final int hi;
+
+        /**
+         * Creates a task for some of the vertices.
+         *
+         * @param boruvka the search
+         * @param lo the first vertex
+         * @param hi one past the last vertex
+         */
+        RelabelTask(Boruvka boruvka, int lo, int hi) {
+            this.boruvka = boruvka;
+            this.lo = lo;
+            this.hi = hi;
+        }
+
+        @Override
+        protected void compute() {
+            if (hi - lo > MST_GRAIN) {
+                int mid = (lo + hi) >>> 1;
+                invokeAll(new RelabelTask(boruvka, lo, mid),
+                        new RelabelTask(boruvka, mid, hi));
+                return;
+            }
+            for (int v = lo; v < hi; v++) {
+                boruvka.component[v] =
+                        boruvka.merged[boruvka.component[v]];
+            }
+        }
     }
 }
@@ -0,0 +1,227 @@
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+/**
+ * A d-ary min heap of the ints 0 to capacity - 1, each with an int key,
+ * that can lower the key of an element already in it.
+ *
+ * The heap is an int array of elements in which the children of index i
+ * are at d * i + 1 to d * i + d. A second array holds the index of every
+ * element in the heap, so decreaseKey finds its element in constant time
+ * instead of the element being added again. A larger d makes the heap
+ * shallower, which speeds up insert and decreaseKey at the cost of more
+ * comparisons per removeMin; 4 suits Dijkstra's algorithm, which does many
+ * more of the former.
+ *
+ * @author Karel Klein-Cardena
+ * @version 1.0
+ */
+public class IndexedMinHeap {
+
+    private static final int DEFAULT_ARITY = 4;
+
+    private final int arity;
+    private final int[] heap;
+    private final int[] positions;
+    private final int[] keys;
+    private int size;
+
+    /**
+     * Creates an empty 4-ary heap.
+     *
+     * @throws IllegalArgumentException if capacity is negative
+     * @param capacity one more than the largest element that can be added
+     */
+    public IndexedMinHeap(int capacity) {
+        this(capacity, DEFAULT_ARITY);
+    }
+
+    /**
+     * Creates an empty heap.
+     *
+     * @throws IllegalArgumentException if capacity is negative or arity is
+     *         less than 2
+     * @param capacity one more than the largest element that can be added
+     * @param arity the number of children of each node
+     */
+    public IndexedMinHeap(int capacity, int arity) {
+        if (capacity < 0 || arity < 2) {
+            throw new IllegalArgumentException("Cannot create a heap with"
+                    + " capacity " + capacity + " and arity " + arity + ".");
+        }
+        this.arity = arity;
+        heap = new int[capacity];
+        positions = new int[capacity];
+        keys = new int[capacity];
+        Arrays.fill(positions, -1);
+    }
+
+    /**
+     * Adds an element.
+     *
+     * @throws IllegalArgumentException if the element is out of range or
+     *         already in the heap
+     * @param element the element to add
+     * @param key its key
+     */
+    public void insert(int element, int key) {
+        if (contains(element)) {
+            throw new IllegalArgumentException("Cannot add element "
+                    + element + " again.");
+        }
+        keys[element] = key;
+        siftUp(element, size++);
+    }
+
+    /**
+     * Lowers the key of an element in the heap.
+     *
+     * @throws IllegalArgumentException if the element is not in the heap
+     *         or the key is greater than its current key
+     * @param element the element
+     * @param key its new key
+     */
+    public void decreaseKey(int element, int key) {
+        if (!contains(element) || key > keys[element]) {
+            throw new IllegalArgumentException("Cannot decrease the key of"
+                    + " element " + element + " to " + key + ".");
+        }
+        keys[element] = key;
+        siftUp(element, positions[element]);
+    }
+
+    /**
+     * Removes the element with the smallest key.
+     *
+     * @throws NoSuchElementException if the heap is empty
+     * @return the element removed
+     */
+    public int removeMin() {
+        if (size == 0) {
+            throw new NoSuchElementException(
+                    "Cannot remove from empty heap");
+        }
+        int min = heap[0];
+        positions[min] = -1;
+        int last = heap[--size];
+        if (size > 0) {
+            siftDown(last, 0);
+        }
+        return min;
+    }
+
+    /**
+     * Returns the smallest key in the heap.
+     *
+     * @throws NoSuchElementException if the heap is empty
+     * @return the key of the element removeMin would return
+     */
+    public int minKey() {
+        if (size == 0) {
+            throw new NoSuchElementException("The heap is empty");
+        }
+        return keys[heap[0]];
+    }
+
+    /**
+     * Returns the key of an element in the heap.
+     *
+     * @throws IllegalArgumentException if the element is not in the heap
+     * @param element the element
+     * @return its key
+     */
+    public int getKey(int element) {
+        if (!contains(element)) {
+            throw new IllegalArgumentException("Element " + element
+                    + " is not in the heap.");
+        }
+        return keys[element];
+    }
+
+    /**
+     * Checks whether an element is in the heap.
+     *
+     * @throws IllegalArgumentException if the element is out of range
+     * @param element the element
+     * @return true if it is in the heap
+     */
+    public boolean contains(int element) {
+        if (element < 0 || element >= positions.length) {
+            throw new IllegalArgumentException("Element " + element
+                    + " is out of range.");
+        }
+        return positions[element] >= 0;
+    }
+
+    /**
+     * Checks whether the heap is empty.
+     *
+     * @return true if it holds no elements
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Returns the number of elements in the heap.
+     *
+     * @return the number of elements
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Places an element at an index or above it, moving down the parents
+     * with greater keys.
+     *
+     * @param element the element to place
+     * @param index the index it starts at
+     */
+    private void siftUp(int element, int index) {
+        int key = keys[element];
+        while (index > 0) {
+            int parent = (index - 1) / arity;
+            if (keys[heap[parent]] <= key) {
+                break;
+            }
+            heap[index] = heap[parent];
+            positions[heap[index]] = index;
+            index = parent;
+        }
+        heap[index] = element;
+        positions[element] = index;
+    }
+
+    /**
+     * Places an element at an index or below it, moving up the smallest
+     * children with smaller keys.
+     *
+     * @param element the element to place
+     * @param index the index it starts at
+     */
+    private void siftDown(int element, int index) {
+        int key = keys[element];
+        while (true) {
+            int first = arity * index + 1;
+            if (first >= size) {
+                break;
+            }
+            int end = Math.min(first + arity, size);
+            int child = first;
+            for (int i = first + 1; i < end; i++) {
+                if (keys[heap[i]] < keys[heap[child]]) {
+                    child = i;
+                }
+            }
+            if (key <= keys[heap[child]]) {
+                break;
+            }
+            heap[index] = heap[child];
+            positions[heap[index]] = index;
+            index = child;
+        }
+        heap[index] = element;
+        positions[element] = index;
+    }
+}
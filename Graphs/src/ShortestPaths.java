@@ -0,0 +1,135 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The shortest paths from one vertex of a {@link CsrGraph} found by
+ * {@link GraphAlgorithms#shortestPaths(Vertex, CsrGraph)}, or of the
+ * depths found by
+ * {@link GraphAlgorithms#parallelBreadthFirstSearch(Vertex, CsrGraph)},
+ * which are the shortest paths counted in edges.
+ *
+ * Holds the distance to every vertex and the vertex before it on a
+ * shortest path, from which the paths themselves are rebuilt on demand.
+ *
+ * @param <T> the data type of the vertices
+ * @author Karel Klein-Cardena
+ * @version 1.0
+ */
+public final class ShortestPaths<T> {
+
+    private final CsrGraph<T> graph;
+    private final int source;
+    private final int[] distances;
+    private final int[] predecessors;
+
+    /**
+     * Wraps the result of a search.
+     *
+     * @param graph the graph searched
+     * @param source the number of the start vertex
+     * @param distances the distance to each vertex by number, or
+     *        {@code Integer.MAX_VALUE} if it is unreachable
+     * @param predecessors the number of the vertex before each vertex on a
+     *        shortest path, or -1 for the start and unreachable vertices
+     */
+    ShortestPaths(CsrGraph<T> graph, int source, int[] distances,
+                  int[] predecessors) {
+        this.graph = graph;
+        this.source = source;
+        this.distances = distances;
+        this.predecessors = predecessors;
+    }
+
+    /**
+     * Gets the vertex the paths start at.
+     *
+     * @return the start vertex
+     */
+    public Vertex<T> getStart() {
+        return graph.getVertex(source);
+    }
+
+    /**
+     * Gets the length of the shortest path to a vertex.
+     *
+     * @throws IllegalArgumentException if the vertex is not in the graph
+     * @param vertex the vertex
+     * @return the distance, or {@code Integer.MAX_VALUE} if there is no
+     *         path
+     */
+    public int getDistance(Vertex<T> vertex) {
+        return distances[idOf(vertex)];
+    }
+
+    /**
+     * Checks whether a vertex can be reached from the start.
+     *
+     * @throws IllegalArgumentException if the vertex is not in the graph
+     * @param vertex the vertex
+     * @return true if there is a path to it
+     */
+    public boolean hasPath(Vertex<T> vertex) {
+        return distances[idOf(vertex)] != Integer.MAX_VALUE;
+    }
+
+    /**
+     * Gets a shortest path to a vertex.
+     *
+     * @throws IllegalArgumentException if the vertex is not in the graph
+     * @param vertex the vertex at the end of the path
+     * @return the vertices of the path from the start to the vertex, or an
+     *         empty list if there is no path
+     */
+    public List<Vertex<T>> getPath(Vertex<T> vertex) {
+        int id = idOf(vertex);
+        List<Vertex<T>> path = new ArrayList<Vertex<T>>();
+        if (distances[id] == Integer.MAX_VALUE) {
+            return path;
+        }
+        for (int v = id; v != -1; v = predecessors[v]) {
+            path.add(graph.getVertex(v));
+        }
+        Collections.reverse(path);
+        return path;
+    }
+
+    /**
+     * Gets the vertices that can be reached from the start.
+     *
+     * @return the vertices with a path to them, nearest first, and in order
+     *         of their numbers in the graph at equal distances
+     */
+    public List<Vertex<T>> getReachable() {
+        long[] order = new long[distances.length];
+        int count = 0;
+        for (int v = 0; v < distances.length; v++) {
+            if (distances[v] != Integer.MAX_VALUE) {
+                order[count++] = (long) distances[v] << 32 | v;
+            }
+        }
+        Arrays.sort(order, 0, count);
+        List<Vertex<T>> reachable = new ArrayList<Vertex<T>>(count);
+        for (int i = 0; i < count; i++) {
+            reachable.add(graph.getVertex((int) order[i]));
+        }
+        return reachable;
+    }
+
+    /**
+     * Looks up the number of a vertex.
+     *
+     * @throws IllegalArgumentException if the vertex is not in the graph
+     * @param vertex the vertex
+     * @return its number
+     */
+    private int idOf(Vertex<T> vertex) {
+        int id = vertex == null ? -1 : graph.getId(vertex);
+        if (id < 0) {
+            throw new IllegalArgumentException(
+                    "The vertex is not in the graph.");
+        }
+        return id;
+    }
+}
@@ -0,0 +1,201 @@
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests for CsrGraph and the GraphAlgorithms overloads that run on it.
+ *
+ * @author Karel Klein-Cardena
+ * @version 1.0
+ */
+public class CsrGraphTests {
+
+    private static final int TIMEOUT = 2000;
+    private Graph<String> graph;
+    private Vertex<String> a = new Vertex<>("a");
+    private Vertex<String> b = new Vertex<>("b");
+    private Vertex<String> c = new Vertex<>("c");
+    private Vertex<String> d = new Vertex<>("d");
+    private Vertex<String> e = new Vertex<>("e");
+    private Vertex<String> f = new Vertex<>("f");
+
+    private Graph<Integer> directedGraph;
+
+    @Before
+    public void setUp() {
+        LinkedHashSet<Edge<String>> edges = new LinkedHashSet<>();
+        edges.add(new Edge<String>(a, b, 3, false));
+        edges.add(new Edge<String>(a, c, 5, false));
+        edges.add(new Edge<String>(a, d, 4, false));
+        edges.add(new Edge<String>(b, e, 3, false));
+        edges.add(new Edge<String>(b, f, 5, false));
+        edges.add(new Edge<String>(c, d, 2, false));
+        edges.add(new Edge<String>(d, e, 1, false));
+        edges.add(new Edge<String>(e, f, 2, false));
+        graph = new Graph<>(edges);
+
+        directedGraph = randomGraph(new Random(1332), 500, 1500, true);
+    }
+
+    /**
+     * Builds a random graph on vertices 0 to n - 1 that may have parallel
+     * edges and loops.
+     *
+     * @param random the source of randomness
+     * @param n the number of vertices
+     * @param m the number of edges
+     * @param directed whether the edges are directed
+     * @return the graph
+     */
+    private static Graph<Integer> randomGraph(Random random, int n, int m,
+                                              boolean directed) {
+        LinkedHashSet<Edge<Integer>> edges = new LinkedHashSet<>();
+        while (edges.size() < m) {
+            edges.add(new Edge<>(new Vertex<>(random.nextInt(n)),
+                    new Vertex<>(random.nextInt(n)), random.nextInt(100),
+                    directed));
+        }
+        return new Graph<>(edges);
+    }
+
+    @Test(timeout = TIMEOUT)
+    public void testStructure() {
+        CsrGraph<String> csr = new CsrGraph<>(graph);
+        assertEquals(6, csr.getVertexCount());
+        assertEquals(16, csr.getEdgeCount());
+        assertEquals(false, csr.isDirected());
+        // numbered in order of first appearance in the edges
+        List<Vertex<String>> order = Arrays.asList(a, b, c, d, e, f);
+        for (int i = 0; i < order.size(); i++) {
+            assertEquals(i, csr.getId(order.get(i)));
+            assertEquals(order.get(i), csr.getVertex(i));
+        }
+        assertEquals(-1, csr.getId(new Vertex<>("g")));
+
+        // every neighbor list matches the Graph's, in the same order
+        for (Map.Entry<Vertex<String>, List<VertexDistancePair<String>>> entry
+                : graph.getAdjacencyList().entrySet()) {
+            int id = csr.getId(entry.getKey());
+            List<VertexDistancePair<String>> pairs = entry.getValue();
+            assertEquals(pairs.size(),
+                    csr.getOffset(id + 1) - csr.getOffset(id));
+            for (int i = 0; i < pairs.size(); i++) {
+                int edge = csr.getOffset(id) + i;
+                assertEquals(pairs.get(i).getVertex(),
+                        csr.getVertex(csr.getTarget(edge)));
+                assertEquals(pairs.get(i).getDistance(), csr.getWeight(edge));
+            }
+        }
+        assertEquals(csr.getEdgeCount(), csr.getOffset(6));
+        assertEquals(true, new CsrGraph<>(directedGraph).isDirected());
+    }
+
+    @Test(timeout = TIMEOUT)
+    public void testTraversalsMatchGraph() {
+        CsrGraph<String> csr = new CsrGraph<>(graph);
+        for (Vertex<String> start : Arrays.asList(a, c, f)) {
+            assertEquals(GraphAlgorithms.breadthFirstSearch(start, graph),
+                    GraphAlgorithms.breadthFirstSearch(start, csr));
+            assertEquals(GraphAlgorithms.depthFirstSearch(start, graph),
+                    GraphAlgorithms.depthFirstSearch(start, csr));
+        }
+
+        CsrGraph<Integer> directed = new CsrGraph<>(directedGraph);
+        for (Vertex<Integer> start
+                : directedGraph.getAdjacencyList().keySet()) {
+            assertEquals(
+                    GraphAlgorithms.breadthFirstSearch(start, directedGraph),
+                    GraphAlgorithms.breadthFirstSearch(start, directed));
+            assertEquals(
+                    GraphAlgorithms.depthFirstSearch(start, directedGraph),
+                    GraphAlgorithms.depthFirstSearch(start, directed));
+        }
+    }
+
+    @Test(timeout = TIMEOUT)
+    public void testDijkstras() {
+        Map<Vertex<String>, Integer> dist =
+                GraphAlgorithms.dijkstras(a, new CsrGraph<>(graph));
+        assertEquals(6, dist.size());
+        assertEquals(0, dist.get(a).intValue());
+        assertEquals(3, dist.get(b).intValue());
+        assertEquals(5, dist.get(c).intValue());
+        assertEquals(4, dist.get(d).intValue());
+        assertEquals(5, dist.get(e).intValue());
+        assertEquals(7, dist.get(f).intValue());
+
+        // against Bellman-Ford, with unreachable vertices at infinity
+        CsrGraph<Integer> csr = new CsrGraph<>(directedGraph);
+        for (int source = 0; source < csr.getVertexCount(); source += 50) {
+            int[] expected = new int[csr.getVertexCount()];
+            Arrays.fill(expected, Integer.MAX_VALUE);
+            expected[source] = 0;
+            boolean changed = true;
+            while (changed) {
+                changed = false;
+                for (Edge<Integer> edge : directedGraph.getEdgeList()) {
+                    int u = csr.getId(edge.getU());
+                    int v = csr.getId(edge.getV());
+                    if (expected[u] != Integer.MAX_VALUE
+                            && expected[u] + edge.getWeight() < expected[v]) {
+                        expected[v] = expected[u] + edge.getWeight();
+                        changed = true;
+                    }
+                }
+            }
+            Map<Vertex<Integer>, Integer> actual =
+                    GraphAlgorithms.dijkstras(csr.getVertex(source), csr);
+            for (int v = 0; v < csr.getVertexCount(); v++) {
+                assertEquals(expected[v],
+                        actual.get(csr.getVertex(v)).intValue());
+            }
+        }
+    }
+
+    @Test(timeout = TIMEOUT)
+    public void testLongPath() {
+        // deep enough to overflow the stack of a recursive search
+        int n = 200000;
+        List<Edge<Integer>> edges = new ArrayList<>();
+        for (int i = 0; i < n - 1; i++) {
+            edges.add(new Edge<>(new Vertex<>(i), new Vertex<>(i + 1), 1,
+                    true));
+        }
+        CsrGraph<Integer> csr = new CsrGraph<>(edges);
+        List<Vertex<Integer>> dfs =
+                GraphAlgorithms.depthFirstSearch(new Vertex<>(0), csr);
+        assertEquals(n, dfs.size());
+        assertEquals(new Vertex<>(n - 1), dfs.get(n - 1));
+        assertEquals(n - 1, GraphAlgorithms.dijkstras(new Vertex<>(0), csr)
+                .get(new Vertex<>(n - 1)).intValue());
+    }
+
+    @Test(timeout = TIMEOUT, expected = IllegalArgumentException.class)
+    public void testNullGraph() {
+        new CsrGraph<>((Graph<String>) null);
+    }
+
+    @Test(timeout = TIMEOUT, expected = IllegalArgumentException.class)
+    public void testNullEdge() {
+        new CsrGraph<>(Arrays.asList(new Edge<>(a, b, 1, false), null));
+    }
+
+    @Test(timeout = TIMEOUT, expected = IllegalArgumentException.class)
+    public void testStartNotInGraph() {
+        GraphAlgorithms.breadthFirstSearch(new Vertex<>("g"),
+                new CsrGraph<>(graph));
+    }
+
+    @Test(timeout = TIMEOUT, expected = IllegalArgumentException.class)
+    public void testNullStart() {
+        GraphAlgorithms.dijkstras(null, new CsrGraph<>(graph));
+    }
+}
@@ -0,0 +1,225 @@
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests for the iterative depth first searches of GraphAlgorithms and
+ * DfsOrder.
+ *
+ * @author Karel Klein-Cardena
+ * @version 1.0
+ */
+public class DfsOrderTests {
+
+    private static final int TIMEOUT = 2000;
+    private Graph<String> graph;
+    private Vertex<String> a = new Vertex<>("a");
+    private Vertex<String> b = new Vertex<>("b");
+    private Vertex<String> c = new Vertex<>("c");
+    private Vertex<String> d = new Vertex<>("d");
+    private Vertex<String> e = new Vertex<>("e");
+    private Vertex<String> f = new Vertex<>("f");
+
+    @Before
+    public void setUp() {
+        // a directed acyclic graph
+        LinkedHashSet<Edge<String>> edges = new LinkedHashSet<>();
+        edges.add(new Edge<String>(a, b, 1, true));
+        edges.add(new Edge<String>(a, c, 1, true));
+        edges.add(new Edge<String>(b, d, 1, true));
+        edges.add(new Edge<String>(c, d, 1, true));
+        edges.add(new Edge<String>(e, c, 1, true));
+        edges.add(new Edge<String>(d, f, 1, true));
+        graph = new Graph<>(edges);
+    }
+
+    /**
+     * Builds a random directed graph on vertices 0 to n - 1 whose edges all
+     * go from a smaller number to a larger one, so it has no cycles. The
+     * edges are shuffled so that the vertices are numbered differently in
+     * the CsrGraph.
+     *
+     * @param random the source of randomness
+     * @param n the number of vertices
+     * @param m the number of edges
+     * @return the graph
+     */
+    private static CsrGraph<Integer> randomDag(Random random, int n, int m) {
+        List<Vertex<Integer>> vertices = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            vertices.add(new Vertex<>(i));
+        }
+        List<Edge<Integer>> edges = new ArrayList<>(m);
+        for (int i = 0; i < m; i++) {
+            int u = random.nextInt(n - 1);
+            int v = u + 1 + random.nextInt(n - u - 1);
+            edges.add(new Edge<>(vertices.get(u), vertices.get(v), 1, true));
+        }
+        Collections.shuffle(edges, random);
+        return new CsrGraph<>(edges);
+    }
+
+    @Test(timeout = TIMEOUT)
+    public void testTimestamps() {
+        DfsOrder<String> order =
+                GraphAlgorithms.depthFirstOrder(new CsrGraph<>(graph));
+        assertEquals(Arrays.asList(a, b, d, f, c, e), order.getPreorder());
+        assertEquals(Arrays.asList(f, d, b, c, a, e), order.getPostorder());
+        int[] discovery = {0, 1, 2, 3, 7, 10};
+        int[] finish = {9, 6, 5, 4, 8, 11};
+        List<Vertex<String>> vertices = Arrays.asList(a, b, d, f, c, e);
+        for (int i = 0; i < vertices.size(); i++) {
+            assertEquals(discovery[i],
+                    order.getDiscoveryTime(vertices.get(i)));
+            assertEquals(finish[i], order.getFinishTime(vertices.get(i)));
+        }
+        assertFalse(order.hasCycle());
+        assertEquals(new ArrayList<Vertex<String>>(), order.getCycle());
+
+        // from one vertex only, the rest is not reached
+        order = GraphAlgorithms.depthFirstOrder(c, new CsrGraph<>(graph));
+        assertEquals(Arrays.asList(c, d, f), order.getPreorder());
+        assertEquals(-1, order.getDiscoveryTime(a));
+        assertEquals(-1, order.getFinishTime(e));
+        assertEquals(5, order.getFinishTime(c));
+    }
+
+    @Test(timeout = TIMEOUT)
+    public void testMatchesDepthFirstSearch() {
+        Random random = new Random(1332);
+        CsrGraph<Integer> csr = randomDag(random, 300, 900);
+        for (int v = 0; v < csr.getVertexCount(); v += 7) {
+            Vertex<Integer> start = csr.getVertex(v);
+            assertEquals(GraphAlgorithms.depthFirstSearch(start, csr),
+                    GraphAlgorithms.depthFirstOrder(start, csr)
+                            .getPreorder());
+        }
+    }
+
+    @Test(timeout = TIMEOUT)
+    public void testTopologicalSort() {
+        assertEquals(Arrays.asList(e, a, c, b, d, f),
+                GraphAlgorithms.topologicalSort(new CsrGraph<>(graph)));
+
+        Random random = new Random(1332);
+        for (int round = 0; round < 20; round++) {
+            CsrGraph<Integer> csr = randomDag(random, 200, 600);
+            List<Vertex<Integer>> sorted =
+                    GraphAlgorithms.topologicalSort(csr);
+            assertEquals(csr.getVertexCount(), sorted.size());
+            int[] position = new int[csr.getVertexCount()];
+            for (int i = 0; i < sorted.size(); i++) {
+                position[csr.getId(sorted.get(i))] = i;
+            }
+            for (int u = 0; u < csr.getVertexCount(); u++) {
+                for (int edge = csr.getOffset(u);
+                        edge < csr.getOffset(u + 1); edge++) {
+                    assertTrue(position[u] < position[csr.getTarget(edge)]);
+                }
+            }
+        }
+    }
+
+    @Test(timeout = TIMEOUT)
+    public void testDirectedCycle() {
+        List<Edge<String>> edges = new ArrayList<>(graph.getEdgeList());
+        edges.add(new Edge<String>(f, b, 1, true));
+        CsrGraph<String> csr = new CsrGraph<>(edges);
+        DfsOrder<String> order = GraphAlgorithms.depthFirstOrder(csr);
+        assertTrue(order.hasCycle());
+        assertEquals(Arrays.asList(b, d, f), order.getCycle());
+        assertNull(GraphAlgorithms.topologicalSort(csr));
+
+        // a loop is a cycle of one vertex
+        csr = new CsrGraph<>(Arrays.asList(new Edge<>(a, b, 1, true),
+                new Edge<>(b, b, 1, true)));
+        assertEquals(Arrays.asList(b),
+                GraphAlgorithms.depthFirstOrder(csr).getCycle());
+    }
+
+    @Test(timeout = TIMEOUT)
+    public void testUndirectedCycle() {
+        // a tree, whose edges are seen from both ends but make no cycle
+        List<Edge<String>> edges = new ArrayList<>();
+        edges.add(new Edge<String>(a, b, 1, false));
+        edges.add(new Edge<String>(a, c, 1, false));
+        edges.add(new Edge<String>(b, d, 1, false));
+        edges.add(new Edge<String>(e, f, 1, false));
+        assertFalse(GraphAlgorithms.depthFirstOrder(new CsrGraph<>(edges))
+                .hasCycle());
+
+        edges.add(new Edge<String>(d, a, 1, false));
+        assertEquals(Arrays.asList(a, b, d), GraphAlgorithms
+                .depthFirstOrder(new CsrGraph<>(edges)).getCycle());
+
+        // two parallel edges make a cycle too
+        edges.remove(edges.size() - 1);
+        edges.add(new Edge<String>(f, e, 2, false));
+        assertEquals(Arrays.asList(e, f), GraphAlgorithms
+                .depthFirstOrder(new CsrGraph<>(edges)).getCycle());
+    }
+
+    @Test(timeout = TIMEOUT)
+    public void testLongPath() {
+        // deep enough to overflow the stack of a recursive search
+        int n = 100000;
+        // scrambled so that the hashes of neighboring edges differ
+        int scramble = 0x9E3779B9;
+        LinkedHashSet<Edge<Integer>> edges = new LinkedHashSet<>();
+        List<Edge<Integer>> chain = new ArrayList<>();
+        for (int i = 0; i < n - 1; i++) {
+            edges.add(new Edge<>(new Vertex<>(i * scramble),
+                    new Vertex<>((i + 1) * scramble), 1, true));
+            chain.add(new Edge<>(new Vertex<>(i), new Vertex<>(i + 1), 1,
+                    true));
+        }
+        // and back to the start
+        chain.add(new Edge<>(new Vertex<>(n - 1), new Vertex<>(0), 1, true));
+
+        List<Vertex<Integer>> dfs = GraphAlgorithms.depthFirstSearch(
+                new Vertex<>(0), new Graph<>(edges));
+        assertEquals(n, dfs.size());
+        assertEquals(new Vertex<>((n - 1) * scramble), dfs.get(n - 1));
+
+        DfsOrder<Integer> order =
+                GraphAlgorithms.depthFirstOrder(new CsrGraph<>(chain));
+        assertEquals(n - 1, order.getDiscoveryTime(new Vertex<>(n - 1)));
+        assertEquals(n, order.getFinishTime(new Vertex<>(n - 1)));
+        assertEquals(2 * n - 1, order.getFinishTime(new Vertex<>(0)));
+        assertEquals(n, order.getCycle().size());
+    }
+
+    @Test(timeout = TIMEOUT, expected = IllegalArgumentException.class)
+    public void testNullGraph() {
+        GraphAlgorithms.depthFirstOrder(null);
+    }
+
+    @Test(timeout = TIMEOUT, expected = IllegalArgumentException.class)
+    public void testStartNotInGraph() {
+        GraphAlgorithms.depthFirstOrder(new Vertex<>("g"),
+                new CsrGraph<>(graph));
+    }
+
+    @Test(timeout = TIMEOUT, expected = IllegalArgumentException.class)
+    public void testUndirectedTopologicalSort() {
+        GraphAlgorithms.topologicalSort(new CsrGraph<>(Arrays.asList(
+                new Edge<>(a, b, 1, false))));
+    }
+
+    @Test(timeout = TIMEOUT, expected = IllegalArgumentException.class)
+    public void testVertexNotInGraph() {
+        GraphAlgorithms.depthFirstOrder(new CsrGraph<>(graph))
+                .getFinishTime(new Vertex<>("g"));
+    }
+}
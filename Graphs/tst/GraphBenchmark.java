@@ -0,0 +1,408 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Rough timing harness for the graph algorithms in this project.
+ *
+ * This is not a JUnit test. Run it with the benchmark names to execute as
+ * arguments, or no arguments to run all of them, e.g.
+ * {@code java GraphBenchmark csr}. The graphs are large, so give it a few
+ * gigabytes of heap.
+ *
+ * Every benchmark repeats its work a few times on the same graph and
+ * reports the best run so that JIT warm-up does not dominate the numbers.
+ *
+ * @author Karel Klein-Cardena
+ * @version 1.0
+ */
+public class GraphBenchmark {
+
+    private static final int VERTICES = 1 << 18;
+    private static final int EDGES = 1 << 20;
+    private static final int GRID_SIDE = 1 << 10;
+    private static final int ROUNDS = 3;
+
+    /**
+     * Keeps results alive so the JIT cannot drop the measured work.
+     */
+    private static long sink;
+
+    /**
+     * Runs the requested benchmarks.
+     *
+     * @param args names of the benchmarks to run; all of them if empty
+     */
+    public static void main(String[] args) {
+        if (shouldRun(args, "csr")) {
+            csr();
+        }
+        if (shouldRun(args, "dijkstra")) {
+            dijkstra();
+        }
+        if (shouldRun(args, "bfs")) {
+            bfs();
+        }
+        if (shouldRun(args, "mst")) {
+            mst("sparse", gridEdges(GRID_SIDE, 1332));
+            mst("dense", randomEdges(1 << 11, 1 << 22, false, 1332));
+        }
+        System.out.println("sink " + sink);
+    }
+
+    /**
+     * Checks whether the named benchmark was requested.
+     *
+     * @param args command line arguments
+     * @param name benchmark name
+     * @return true if args is empty or contains the name
+     */
+    private static boolean shouldRun(String[] args, String name) {
+        if (args.length == 0) {
+            return true;
+        }
+        for (String arg : args) {
+            if (arg.equals(name)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Builds the edges of a random graph on the vertices 0 to n - 1, with
+     * weights below 1000. Edges may repeat, though not with the same
+     * weight.
+     *
+     * @param n number of vertices
+     * @param m number of edges
+     * @param directed whether the edges are directed
+     * @param seed random seed
+     * @return the edges
+     */
+    static List<Edge<Integer>> randomEdges(int n, int m, boolean directed,
+                                           long seed) {
+        Random rand = new Random(seed);
+        List<Vertex<Integer>> vertices = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            vertices.add(new Vertex<>(i));
+        }
+        List<Edge<Integer>> edges = new ArrayList<>(m);
+        for (int i = 0; i < m; i++) {
+            edges.add(new Edge<>(vertices.get(rand.nextInt(n)),
+                    vertices.get(rand.nextInt(n)), rand.nextInt(1000),
+                    directed));
+        }
+        return edges;
+    }
+
+    /**
+     * A graph algorithm run, for timing different ones the same way.
+     */
+    interface Run {
+        /**
+         * Runs the algorithm.
+         *
+         * @return a number derived from the result, to keep it alive
+         */
+        long run();
+    }
+
+    /**
+     * Times a run a few times.
+     *
+     * @param run the run to time
+     * @return the best time in nanoseconds
+     */
+    static long time(Run run) {
+        long best = Long.MAX_VALUE;
+        for (int round = 0; round < ROUNDS; round++) {
+            long start = System.nanoTime();
+            sink += run.run();
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        return best;
+    }
+
+    /**
+     * Returns the heap in use after a full collection.
+     *
+     * @return the bytes in use
+     */
+    static long usedMemory() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    /**
+     * Prints one result line.
+     *
+     * @param label what was measured
+     * @param nanos best time in nanoseconds
+     * @param baseline time to compare against in nanoseconds
+     */
+    static void report(String label, long nanos, long baseline) {
+        System.out.printf("%-32s %10.2f ms %6.2fx%n",
+                label, nanos / 1e6, (double) baseline / nanos);
+    }
+
+    /**
+     * Compares Graph with CsrGraph on a random undirected graph of
+     * {@code VERTICES} vertices and {@code EDGES} edges: the heap each takes
+     * beyond the edge objects they are built from, and the time of
+     * breadth first search and of Dijkstra's algorithm on each. Speedups are
+     * relative to Graph.
+     */
+    private static void csr() {
+        List<Edge<Integer>> edges = randomEdges(VERTICES, EDGES, false, 1332);
+        Vertex<Integer> start = edges.get(0).getU();
+
+        long before = usedMemory();
+        Graph<Integer> graph = new Graph<>(new LinkedHashSet<>(edges));
+        long graphBytes = usedMemory() - before;
+        before = usedMemory();
+        CsrGraph<Integer> csr = new CsrGraph<>(edges);
+        long csrBytes = usedMemory() - before;
+        System.out.printf("%-32s %10.1f MB%n", "Graph", graphBytes / 1e6);
+        System.out.printf("%-32s %10.1f MB %6.2fx%n", "CsrGraph",
+                csrBytes / 1e6, (double) graphBytes / csrBytes);
+
+        long bfs = time(() ->
+                GraphAlgorithms.breadthFirstSearch(start, graph).size());
+        report("BFS Graph", bfs, bfs);
+        report("BFS CsrGraph", time(() ->
+                GraphAlgorithms.breadthFirstSearch(start, csr).size()), bfs);
+        long dijkstras = time(() ->
+                GraphAlgorithms.dijkstras(start, graph).size());
+        report("Dijkstra Graph", dijkstras, dijkstras);
+        report("Dijkstra CsrGraph", time(() ->
+                GraphAlgorithms.dijkstras(start, csr).size()), dijkstras);
+    }
+
+    /**
+     * Builds the edges of a side by side grid of vertices, numbered row by
+     * row, with undirected edges between horizontal and vertical neighbors
+     * weighted from 1 to 100, like a road network.
+     *
+     * @param side number of vertices along each side
+     * @param seed random seed
+     * @return the edges
+     */
+    static List<Edge<Integer>> gridEdges(int side, long seed) {
+        Random rand = new Random(seed);
+        List<Vertex<Integer>> vertices = new ArrayList<>(side * side);
+        for (int i = 0; i < side * side; i++) {
+            vertices.add(new Vertex<>(i));
+        }
+        List<Edge<Integer>> edges = new ArrayList<>(2 * side * side);
+        for (int row = 0; row < side; row++) {
+            for (int col = 0; col < side; col++) {
+                Vertex<Integer> vertex = vertices.get(row * side + col);
+                if (col + 1 < side) {
+                    edges.add(new Edge<>(vertex,
+                            vertices.get(row * side + col + 1),
+                            1 + rand.nextInt(100), false));
+                }
+                if (row + 1 < side) {
+                    edges.add(new Edge<>(vertex,
+                            vertices.get((row + 1) * side + col),
+                            1 + rand.nextInt(100), false));
+                }
+            }
+        }
+        return edges;
+    }
+
+    /**
+     * Dijkstra's algorithm over a CsrGraph with a java.util.PriorityQueue
+     * that gets a new entry whenever a distance drops, skipping the stale
+     * ones as they come out, for comparison with the indexed heap.
+     *
+     * @param graph the graph
+     * @param source the number of the start vertex
+     * @return the distances by vertex number
+     */
+    private static int[] lazyDijkstras(CsrGraph<Integer> graph, int source) {
+        int[] dist = new int[graph.getVertexCount()];
+        Arrays.fill(dist, Integer.MAX_VALUE);
+        dist[source] = 0;
+        boolean[] done = new boolean[graph.getVertexCount()];
+        PriorityQueue<long[]> queue = new PriorityQueue<>(
+                (x, y) -> Long.compare(x[0], y[0]));
+        queue.add(new long[]{0, source});
+        while (!queue.isEmpty()) {
+            int u = (int) queue.remove()[1];
+            if (done[u]) {
+                continue;
+            }
+            done[u] = true;
+            for (int edge = graph.getOffset(u); edge < graph.getOffset(u + 1);
+                    edge++) {
+                int v = graph.getTarget(edge);
+                int alt = dist[u] + graph.getWeight(edge);
+                if (alt < dist[v]) {
+                    dist[v] = alt;
+                    queue.add(new long[]{alt, v});
+                }
+            }
+        }
+        return dist;
+    }
+
+    /**
+     * Runs Dijkstra's algorithm from a corner of a road network like grid
+     * of {@code GRID_SIDE} squared vertices: over the whole grid with a
+     * lazy java.util.PriorityQueue and with shortestPaths, and with the
+     * early exit of shortestPath to a vertex 1/16 of the way along the
+     * diagonal and to the opposite corner. Speedups are relative to the
+     * lazy search.
+     */
+    private static void dijkstra() {
+        CsrGraph<Integer> grid = new CsrGraph<>(gridEdges(GRID_SIDE, 1332));
+        Vertex<Integer> corner = grid.getVertex(0);
+        int near = GRID_SIDE / 16;
+        Vertex<Integer> nearby = new Vertex<>(near * GRID_SIDE + near);
+        Vertex<Integer> opposite = new Vertex<>(GRID_SIDE * GRID_SIDE - 1);
+        int farthest = lazyDijkstras(grid, 0)[GRID_SIDE * GRID_SIDE - 1];
+        if (farthest != GraphAlgorithms.shortestPaths(corner, grid)
+                .getDistance(opposite)) {
+            throw new IllegalStateException("Wrong distance");
+        }
+
+        long lazy = time(() -> lazyDijkstras(grid, 0)[1]);
+        report("lazy PriorityQueue", lazy, lazy);
+        report("shortestPaths", time(() -> GraphAlgorithms
+                .shortestPaths(corner, grid).getDistance(opposite)), lazy);
+        report("shortestPath nearby", time(() -> GraphAlgorithms
+                .shortestPath(corner, nearby, grid).size()), lazy);
+        report("shortestPath opposite", time(() -> GraphAlgorithms
+                .shortestPath(corner, opposite, grid).size()), lazy);
+    }
+
+    /**
+     * Runs breadth first search on a random undirected graph of four times
+     * {@code VERTICES} vertices and {@code EDGES} edges: sequentially, and
+     * in parallel on pools of 1, 2, 4 and so on up to the number of
+     * processors. The parallel search is timed both switching direction and
+     * top-down only, the latter on a directed copy of the graph with an
+     * edge each way, which it never expands bottom-up. Speedups are
+     * relative to the sequential search.
+     */
+    private static void bfs() {
+        List<Edge<Integer>> edges = randomEdges(VERTICES << 2, EDGES << 2,
+                false, 1332);
+        CsrGraph<Integer> graph = new CsrGraph<>(edges);
+        edges = new ArrayList<>(graph.getEdgeCount());
+        for (int u = 0; u < graph.getVertexCount(); u++) {
+            for (int edge = graph.getOffset(u); edge < graph.getOffset(u + 1);
+                    edge++) {
+                edges.add(new Edge<>(graph.getVertex(u),
+                        graph.getVertex(graph.getTarget(edge)),
+                        graph.getWeight(edge), true));
+            }
+        }
+        CsrGraph<Integer> arcs = new CsrGraph<>(edges);
+        edges = null;
+        Vertex<Integer> start = graph.getVertex(0);
+
+        long sequential = time(() ->
+                GraphAlgorithms.breadthFirstSearch(start, graph).size());
+        report("sequential", sequential, sequential);
+        int processors = Runtime.getRuntime().availableProcessors();
+        for (int doubled = 1; doubled < 2 * processors; doubled *= 2) {
+            int threads = Math.min(doubled, processors);
+            ForkJoinPool pool = new ForkJoinPool(threads);
+            report("top-down " + threads + " threads", time(() ->
+                    GraphAlgorithms.parallelBreadthFirstSearch(start, arcs,
+                            pool).getDistance(start)), sequential);
+            report("switching " + threads + " threads", time(() ->
+                    GraphAlgorithms.parallelBreadthFirstSearch(start, graph,
+                            pool).getDistance(start)), sequential);
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Kruskal's algorithm over Edge objects, sorted with List.sort and
+     * joined with one DisjointSet per vertex, for comparison with the
+     * array based one.
+     *
+     * @param edges the edges of a connected undirected graph
+     * @return the weight of the MST
+     */
+    private static long objectKruskals(List<Edge<Integer>> edges) {
+        List<Edge<Integer>> sorted = new ArrayList<>(edges);
+        sorted.sort(null);
+        Map<Vertex<Integer>, DisjointSet> sets = new HashMap<>();
+        long weight = 0;
+        for (Edge<Integer> edge : sorted) {
+            DisjointSet u = sets.computeIfAbsent(edge.getU(),
+                    vertex -> new DisjointSet());
+            DisjointSet v = sets.computeIfAbsent(edge.getV(),
+                    vertex -> new DisjointSet());
+            if (u.find() != v.find()) {
+                u.union(v);
+                weight += edge.getWeight();
+            }
+        }
+        return weight;
+    }
+
+    /**
+     * Sums the weights of some edges.
+     *
+     * @param edges the edges
+     * @return their total weight
+     */
+    private static long weight(List<Edge<Integer>> edges) {
+        long total = 0;
+        for (Edge<Integer> edge : edges) {
+            total += edge.getWeight();
+        }
+        return total;
+    }
+
+    /**
+     * Finds the minimum spanning tree of a graph: with Kruskal's algorithm
+     * over Edge objects and DisjointSets, with the radix sorted
+     * {@link GraphAlgorithms#kruskals(CsrGraph)}, and with
+     * {@link GraphAlgorithms#boruvkas(CsrGraph, ForkJoinPool)} on pools of
+     * 1, 2, 4 and so on up to the number of processors. Speedups are
+     * relative to the Edge object version.
+     *
+     * @param name what kind of graph it is
+     * @param edges the edges of a connected undirected graph
+     */
+    private static void mst(String name, List<Edge<Integer>> edges) {
+        CsrGraph<Integer> graph = new CsrGraph<>(edges);
+        long expected = objectKruskals(edges);
+        if (expected != weight(GraphAlgorithms.kruskals(graph))
+                || expected != weight(GraphAlgorithms.boruvkas(graph))) {
+            throw new IllegalStateException("Wrong tree");
+        }
+        System.out.printf("%s: %d vertices, %d edges%n", name,
+                graph.getVertexCount(), edges.size());
+
+        long objects = time(() -> objectKruskals(edges));
+        report("Kruskal Edge objects", objects, objects);
+        report("Kruskal radix sorted", time(() ->
+                GraphAlgorithms.kruskals(graph).size()), objects);
+        int processors = Runtime.getRuntime().availableProcessors();
+        for (int doubled = 1; doubled < 2 * processors; doubled *= 2) {
+            int threads = Math.min(doubled, processors);
+            ForkJoinPool pool = new ForkJoinPool(threads);
+            report("Boruvka " + threads + " threads", time(() ->
+                    GraphAlgorithms.boruvkas(graph, pool).size()), objects);
+            pool.shutdown();
+        }
+    }
+}
@@ -0,0 +1,118 @@
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Tests for IndexedMinHeap.
+ *
+ * @author Karel Klein-Cardena
+ * @version 1.0
+ */
+public class IndexedMinHeapTests {
+
+    private static final int TIMEOUT = 2000;
+
+    @Test(timeout = TIMEOUT)
+    public void testOrder() {
+        IndexedMinHeap heap = new IndexedMinHeap(10);
+        int[] keys = {5, 3, 9, 1, 7, 3, 0, 8, 2, 6};
+        for (int i = 0; i < keys.length; i++) {
+            heap.insert(i, keys[i]);
+        }
+        assertEquals(10, heap.size());
+        assertEquals(0, heap.minKey());
+        heap.decreaseKey(2, -1);
+        heap.decreaseKey(7, 4);
+        assertEquals(4, heap.getKey(7));
+        int[] expected = {2, 6, 3, 8};
+        for (int element : expected) {
+            assertTrue(heap.contains(element));
+            assertEquals(element, heap.removeMin());
+            assertFalse(heap.contains(element));
+        }
+        // 1 and 5 share a key
+        int first = heap.removeMin();
+        int second = heap.removeMin();
+        assertEquals(3, keys[first]);
+        assertEquals(3, keys[second]);
+        assertEquals(7, heap.removeMin());
+        assertEquals(0, heap.removeMin());
+        assertEquals(9, heap.removeMin());
+        assertEquals(4, heap.removeMin());
+        assertTrue(heap.isEmpty());
+
+        // removed elements can come back
+        heap.insert(4, 100);
+        assertEquals(4, heap.removeMin());
+    }
+
+    @Test(timeout = TIMEOUT)
+    public void testRandomAgainstPriorityQueue() {
+        Random random = new Random(1332);
+        for (int arity : new int[]{2, 3, 4, 8}) {
+            int n = 2000;
+            IndexedMinHeap heap = new IndexedMinHeap(n, arity);
+            int[] keys = new int[n];
+            // the reference keeps every key ever given and skips stale ones
+            PriorityQueue<long[]> reference = new PriorityQueue<>(
+                (x, y) -> Long.compare(x[0], y[0]));
+            for (int step = 0; step < 20000; step++) {
+                int element = random.nextInt(n);
+                if (!heap.contains(element)) {
+                    keys[element] = random.nextInt(1000000);
+                    heap.insert(element, keys[element]);
+                    reference.add(new long[]{keys[element], element});
+                } else if (random.nextBoolean()) {
+                    keys[element] -= random.nextInt(1000);
+                    heap.decreaseKey(element, keys[element]);
+                    reference.add(new long[]{keys[element], element});
+                } else {
+                    while (reference.peek()[0]
+                            != keys[(int) reference.peek()[1]]
+                            || !heap.contains((int) reference.peek()[1])) {
+                        reference.remove();
+                    }
+                    long min = reference.peek()[0];
+                    assertEquals(min, heap.minKey());
+                    int removed = heap.removeMin();
+                    assertEquals(min, keys[removed]);
+                }
+            }
+        }
+    }
+
+    @Test(timeout = TIMEOUT, expected = IllegalArgumentException.class)
+    public void testInsertTwice() {
+        IndexedMinHeap heap = new IndexedMinHeap(3);
+        heap.insert(1, 5);
+        heap.insert(1, 4);
+    }
+
+    @Test(timeout = TIMEOUT, expected = IllegalArgumentException.class)
+    public void testIncreaseKey() {
+        IndexedMinHeap heap = new IndexedMinHeap(3);
+        heap.insert(1, 5);
+        heap.decreaseKey(1, 6);
+    }
+
+    @Test(timeout = TIMEOUT, expected = IllegalArgumentException.class)
+    public void testDecreaseMissingKey() {
+        new IndexedMinHeap(3).decreaseKey(1, 0);
+    }
+
+    @Test(timeout = TIMEOUT, expected = IllegalArgumentException.class)
+    public void testOutOfRange() {
+        new IndexedMinHeap(3).insert(3, 0);
+    }
+
+    @Test(timeout = TIMEOUT, expected = NoSuchElementException.class)
+    public void testRemoveEmpty() {
+        new IndexedMinHeap(3).removeMin();
+    }
+}
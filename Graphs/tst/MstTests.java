@@ -0,0 +1,233 @@
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests for the minimum spanning tree algorithms of GraphAlgorithms.
+ *
+ * @author Karel Klein-Cardena
+ * @version 1.0
+ */
+public class MstTests {
+
+    private static final int TIMEOUT = 2000;
+    private Graph<String> graph;
+    private Vertex<String> a = new Vertex<>("a");
+    private Vertex<String> b = new Vertex<>("b");
+    private Vertex<String> c = new Vertex<>("c");
+    private Vertex<String> d = new Vertex<>("d");
+    private Vertex<String> e = new Vertex<>("e");
+    private Vertex<String> f = new Vertex<>("f");
+    private Set<Edge<String>> mst;
+    private ForkJoinPool pool;
+
+    @Before
+    public void setUp() {
+        LinkedHashSet<Edge<String>> edges = new LinkedHashSet<>();
+        edges.add(new Edge<String>(a, b, 3, false));
+        edges.add(new Edge<String>(a, c, 5, false));
+        edges.add(new Edge<String>(a, d, 4, false));
+        edges.add(new Edge<String>(b, e, 3, false));
+        edges.add(new Edge<String>(b, f, 5, false));
+        edges.add(new Edge<String>(c, d, 2, false));
+        edges.add(new Edge<String>(d, e, 1, false));
+        edges.add(new Edge<String>(e, f, 2, false));
+        graph = new Graph<>(edges);
+        mst = new HashSet<>(Arrays.asList(new Edge<String>(a, b, 3, false),
+                new Edge<String>(b, e, 3, false),
+                new Edge<String>(e, d, 1, false),
+                new Edge<String>(d, c, 2, false),
+                new Edge<String>(e, f, 2, false)));
+        pool = new ForkJoinPool(4);
+    }
+
+    @After
+    public void tearDown() {
+        pool.shutdown();
+    }
+
+    /**
+     * Builds a random undirected graph on vertices 0 to n - 1 with a path
+     * through all of them, so that it is connected, and more random edges
+     * that may be parallel or loops, with weights from -50 to 49 that
+     * often tie.
+     *
+     * @param random the source of randomness
+     * @param n the number of vertices
+     * @param m the number of random edges
+     * @return the graph
+     */
+    private static CsrGraph<Integer> randomGraph(Random random, int n,
+                                                 int m) {
+        List<Vertex<Integer>> vertices = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            vertices.add(new Vertex<>(i));
+        }
+        List<Edge<Integer>> edges = new ArrayList<>(n - 1 + m);
+        for (int i = 1; i < n; i++) {
+            edges.add(new Edge<>(vertices.get(i - 1), vertices.get(i),
+                    random.nextInt(100) - 50, false));
+        }
+        for (int i = 0; i < m; i++) {
+            edges.add(new Edge<>(vertices.get(random.nextInt(n)),
+                    vertices.get(random.nextInt(n)),
+                    random.nextInt(100) - 50, false));
+        }
+        return new CsrGraph<>(edges);
+    }
+
+    /**
+     * Finds the weight of a minimum spanning tree with Prim's algorithm
+     * over a matrix of the lightest edge between each pair of vertices.
+     *
+     * @param csr the graph, which must be connected
+     * @return the weight of its MSTs
+     */
+    private static long primWeight(CsrGraph<Integer> csr) {
+        int n = csr.getVertexCount();
+        long[][] lightest = new long[n][n];
+        for (long[] row : lightest) {
+            Arrays.fill(row, Long.MAX_VALUE);
+        }
+        for (int u = 0; u < n; u++) {
+            for (int edge = csr.getOffset(u); edge < csr.getOffset(u + 1);
+                    edge++) {
+                int v = csr.getTarget(edge);
+                lightest[u][v] = Math.min(lightest[u][v],
+                        csr.getWeight(edge));
+            }
+        }
+        boolean[] inTree = new boolean[n];
+        long[] cost = new long[n];
+        Arrays.fill(cost, Long.MAX_VALUE);
+        cost[0] = 0;
+        long total = 0;
+        for (int round = 0; round < n; round++) {
+            int next = -1;
+            for (int v = 0; v < n; v++) {
+                if (!inTree[v] && (next < 0 || cost[v] < cost[next])) {
+                    next = v;
+                }
+            }
+            inTree[next] = true;
+            total += cost[next];
+            for (int v = 0; v < n; v++) {
+                cost[v] = Math.min(cost[v], lightest[next][v]);
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Sums the weights of some edges.
+     *
+     * @param edges the edges
+     * @return their total weight
+     */
+    private static long weight(List<Edge<Integer>> edges) {
+        long total = 0;
+        for (Edge<Integer> edge : edges) {
+            total += edge.getWeight();
+        }
+        return total;
+    }
+
+    @Test(timeout = TIMEOUT)
+    public void testSmallGraph() {
+        assertEquals(mst, GraphAlgorithms.kruskals(graph));
+        CsrGraph<String> csr = new CsrGraph<>(graph);
+        assertEquals(mst, new HashSet<>(GraphAlgorithms.kruskals(csr)));
+        assertEquals(mst, new HashSet<>(GraphAlgorithms.boruvkas(csr)));
+        assertEquals(mst,
+                new HashSet<>(GraphAlgorithms.boruvkas(csr, pool)));
+        // Kruskal's algorithm adds the edges in order of weight
+        List<Edge<String>> kruskals = GraphAlgorithms.kruskals(csr);
+        for (int i = 1; i < kruskals.size(); i++) {
+            assertEquals(true, kruskals.get(i - 1).getWeight()
+                    <= kruskals.get(i).getWeight());
+        }
+    }
+
+    @Test(timeout = TIMEOUT)
+    public void testRandomGraphs() {
+        Random random = new Random(1332);
+        for (int round = 0; round < 20; round++) {
+            int n = 2 + random.nextInt(200);
+            CsrGraph<Integer> csr = randomGraph(random, n,
+                    random.nextInt(5 * n));
+            List<Edge<Integer>> kruskals = GraphAlgorithms.kruskals(csr);
+            List<Edge<Integer>> boruvkas =
+                    GraphAlgorithms.boruvkas(csr, pool);
+            assertEquals(n - 1, kruskals.size());
+            assertEquals(primWeight(csr), weight(kruskals));
+            // ties are broken the same way, so the trees are the same
+            assertEquals(new HashSet<>(kruskals), new HashSet<>(boruvkas));
+            assertEquals(n - 1, boruvkas.size());
+            UnionFind spanned = new UnionFind(n);
+            for (Edge<Integer> edge : boruvkas) {
+                spanned.union(csr.getId(edge.getU()), csr.getId(edge.getV()));
+            }
+            assertEquals(1, spanned.getCount());
+        }
+    }
+
+    @Test(timeout = TIMEOUT)
+    public void testLargeGraph() {
+        // enough edges for the parallel rounds to be split into tasks
+        CsrGraph<Integer> csr = randomGraph(new Random(1332), 50000, 200000);
+        List<Edge<Integer>> kruskals = GraphAlgorithms.kruskals(csr);
+        assertEquals(new HashSet<>(kruskals),
+                new HashSet<>(GraphAlgorithms.boruvkas(csr, pool)));
+    }
+
+    @Test(timeout = TIMEOUT)
+    public void testDisconnected() {
+        LinkedHashSet<Edge<String>> edges = new LinkedHashSet<>();
+        edges.add(new Edge<String>(a, b, 3, false));
+        edges.add(new Edge<String>(c, d, 2, false));
+        edges.add(new Edge<String>(d, c, 1, false));
+        Graph<String> disconnected = new Graph<>(edges);
+        assertNull(GraphAlgorithms.kruskals(disconnected));
+        CsrGraph<String> csr = new CsrGraph<>(disconnected);
+        assertNull(GraphAlgorithms.kruskals(csr));
+        assertNull(GraphAlgorithms.boruvkas(csr, pool));
+    }
+
+    @Test(timeout = TIMEOUT)
+    public void testLoopOnly() {
+        CsrGraph<String> csr = new CsrGraph<>(Arrays.asList(
+                new Edge<>(a, a, 1, false)));
+        assertEquals(new ArrayList<Edge<String>>(),
+                GraphAlgorithms.kruskals(csr));
+        assertEquals(new ArrayList<Edge<String>>(),
+                GraphAlgorithms.boruvkas(csr, pool));
+    }
+
+    @Test(timeout = TIMEOUT, expected = IllegalArgumentException.class)
+    public void testNullGraph() {
+        GraphAlgorithms.kruskals((Graph<String>) null);
+    }
+
+    @Test(timeout = TIMEOUT, expected = IllegalArgumentException.class)
+    public void testDirected() {
+        GraphAlgorithms.boruvkas(new CsrGraph<>(Arrays.asList(
+                new Edge<>(a, b, 1, true))), pool);
+    }
+
+    @Test(timeout = TIMEOUT, expected = IllegalArgumentException.class)
+    public void testNullPool() {
+        GraphAlgorithms.boruvkas(new CsrGraph<>(graph), null);
+    }
+}
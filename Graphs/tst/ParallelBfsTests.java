@@ -0,0 +1,202 @@
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests for GraphAlgorithms.parallelBreadthFirstSearch.
+ *
+ * @author Karel Klein-Cardena
+ * @version 1.0
+ */
+public class ParallelBfsTests {
+
+    private static final int TIMEOUT = 2000;
+    private Graph<String> graph;
+    private Vertex<String> a = new Vertex<>("a");
+    private Vertex<String> b = new Vertex<>("b");
+    private Vertex<String> c = new Vertex<>("c");
+    private Vertex<String> d = new Vertex<>("d");
+    private Vertex<String> e = new Vertex<>("e");
+    private Vertex<String> f = new Vertex<>("f");
+    private Vertex<String> g = new Vertex<>("g");
+    private Vertex<String> h = new Vertex<>("h");
+    private ForkJoinPool pool;
+
+    @Before
+    public void setUp() {
+        LinkedHashSet<Edge<String>> edges = new LinkedHashSet<>();
+        edges.add(new Edge<String>(a, b, 3, false));
+        edges.add(new Edge<String>(a, c, 5, false));
+        edges.add(new Edge<String>(a, d, 4, false));
+        edges.add(new Edge<String>(b, e, 3, false));
+        edges.add(new Edge<String>(b, f, 5, false));
+        edges.add(new Edge<String>(c, d, 2, false));
+        edges.add(new Edge<String>(d, e, 1, false));
+        edges.add(new Edge<String>(e, f, 2, false));
+        // a separate component
+        edges.add(new Edge<String>(g, h, 1, false));
+        graph = new Graph<>(edges);
+        pool = new ForkJoinPool(4);
+    }
+
+    @After
+    public void tearDown() {
+        pool.shutdown();
+    }
+
+    /**
+     * Builds a random graph on vertices 0 to n - 1 that may have parallel
+     * edges and loops.
+     *
+     * @param random the source of randomness
+     * @param n the number of vertices
+     * @param m the number of edges
+     * @param directed whether the edges are directed
+     * @return the graph
+     */
+    private static CsrGraph<Integer> randomGraph(Random random, int n, int m,
+                                                 boolean directed) {
+        List<Vertex<Integer>> vertices = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            vertices.add(new Vertex<>(i));
+        }
+        List<Edge<Integer>> edges = new ArrayList<>(m);
+        for (int i = 0; i < m; i++) {
+            edges.add(new Edge<>(vertices.get(random.nextInt(n)),
+                    vertices.get(random.nextInt(n)), 1, directed));
+        }
+        return new CsrGraph<>(edges);
+    }
+
+    /**
+     * Checks a parallel search against the sequential one: the same
+     * vertices are reached, every depth is one more than the depth of the
+     * vertex's parent, to which it has an edge, and the depths of the
+     * sequential visiting order never decrease.
+     *
+     * @param csr the graph
+     * @param start the start vertex
+     * @param result the result of the parallel search
+     */
+    private static void assertMatchesBfs(CsrGraph<Integer> csr,
+                                         Vertex<Integer> start,
+                                         ShortestPaths<Integer> result) {
+        List<Vertex<Integer>> bfs =
+                GraphAlgorithms.breadthFirstSearch(start, csr);
+        assertEquals(new HashSet<>(bfs),
+                new HashSet<>(result.getReachable()));
+        assertEquals(bfs.size(), result.getReachable().size());
+        assertEquals(0, result.getDistance(start));
+        int previous = 0;
+        for (Vertex<Integer> vertex : bfs) {
+            int depth = result.getDistance(vertex);
+            assertTrue(depth == previous || depth == previous + 1);
+            previous = depth;
+            List<Vertex<Integer>> path = result.getPath(vertex);
+            assertEquals(depth + 1, path.size());
+            if (depth > 0) {
+                int u = csr.getId(path.get(depth - 1));
+                boolean adjacent = false;
+                for (int edge = csr.getOffset(u);
+                        edge < csr.getOffset(u + 1); edge++) {
+                    adjacent |= csr.getTarget(edge) == csr.getId(vertex);
+                }
+                assertTrue(adjacent);
+                assertEquals(depth - 1,
+                        result.getDistance(path.get(depth - 1)));
+            }
+        }
+    }
+
+    @Test(timeout = TIMEOUT)
+    public void testDepths() {
+        ShortestPaths<String> depths = GraphAlgorithms
+                .parallelBreadthFirstSearch(a, new CsrGraph<>(graph), pool);
+        assertEquals(a, depths.getStart());
+        assertEquals(0, depths.getDistance(a));
+        assertEquals(1, depths.getDistance(b));
+        assertEquals(1, depths.getDistance(c));
+        assertEquals(1, depths.getDistance(d));
+        assertEquals(2, depths.getDistance(e));
+        assertEquals(2, depths.getDistance(f));
+        assertEquals(Arrays.asList(a, b, c, d, e, f), depths.getReachable());
+        assertFalse(depths.hasPath(g));
+        assertEquals(Integer.MAX_VALUE, depths.getDistance(h));
+        assertEquals(Arrays.asList(g, h), GraphAlgorithms
+                .parallelBreadthFirstSearch(g, new CsrGraph<>(graph))
+                .getReachable());
+    }
+
+    @Test(timeout = TIMEOUT)
+    public void testUndirected() {
+        // dense enough for the middle levels to be expanded bottom-up
+        CsrGraph<Integer> csr = randomGraph(new Random(1332), 20000, 100000,
+                false);
+        for (int source = 0; source < csr.getVertexCount(); source += 4999) {
+            Vertex<Integer> start = csr.getVertex(source);
+            assertMatchesBfs(csr, start,
+                    GraphAlgorithms.parallelBreadthFirstSearch(start, csr,
+                            pool));
+        }
+        Vertex<Integer> start = csr.getVertex(0);
+        ForkJoinPool single = new ForkJoinPool(1);
+        try {
+            assertMatchesBfs(csr, start, GraphAlgorithms
+                    .parallelBreadthFirstSearch(start, csr, single));
+        } finally {
+            single.shutdown();
+        }
+    }
+
+    @Test(timeout = TIMEOUT)
+    public void testDirected() {
+        CsrGraph<Integer> csr = randomGraph(new Random(1332), 20000, 30000,
+                true);
+        for (int source = 0; source < csr.getVertexCount(); source += 4999) {
+            Vertex<Integer> start = csr.getVertex(source);
+            assertMatchesBfs(csr, start,
+                    GraphAlgorithms.parallelBreadthFirstSearch(start, csr,
+                            pool));
+        }
+    }
+
+    @Test(timeout = TIMEOUT)
+    public void testLongPath() {
+        int n = 5000;
+        List<Edge<Integer>> edges = new ArrayList<>();
+        for (int i = 0; i < n - 1; i++) {
+            edges.add(new Edge<>(new Vertex<>(i), new Vertex<>(i + 1), 1,
+                    false));
+        }
+        CsrGraph<Integer> csr = new CsrGraph<>(edges);
+        ShortestPaths<Integer> depths = GraphAlgorithms
+                .parallelBreadthFirstSearch(new Vertex<>(0), csr, pool);
+        for (int i = 0; i < n; i++) {
+            assertEquals(i, depths.getDistance(new Vertex<>(i)));
+        }
+    }
+
+    @Test(timeout = TIMEOUT, expected = IllegalArgumentException.class)
+    public void testNullPool() {
+        GraphAlgorithms.parallelBreadthFirstSearch(a, new CsrGraph<>(graph),
+                null);
+    }
+
+    @Test(timeout = TIMEOUT, expected = IllegalArgumentException.class)
+    public void testStartNotInGraph() {
+        GraphAlgorithms.parallelBreadthFirstSearch(new Vertex<>("i"),
+                new CsrGraph<>(graph), pool);
+    }
+}
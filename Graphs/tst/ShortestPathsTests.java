@@ -0,0 +1,154 @@
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests for the Dijkstra searches of GraphAlgorithms and ShortestPaths.
+ *
+ * @author Karel Klein-Cardena
+ * @version 1.0
+ */
+public class ShortestPathsTests {
+
+    private static final int TIMEOUT = 2000;
+    private Graph<String> graph;
+    private Vertex<String> a = new Vertex<>("a");
+    private Vertex<String> b = new Vertex<>("b");
+    private Vertex<String> c = new Vertex<>("c");
+    private Vertex<String> d = new Vertex<>("d");
+    private Vertex<String> e = new Vertex<>("e");
+    private Vertex<String> f = new Vertex<>("f");
+    private Vertex<String> g = new Vertex<>("g");
+    private Vertex<String> h = new Vertex<>("h");
+
+    @Before
+    public void setUp() {
+        LinkedHashSet<Edge<String>> edges = new LinkedHashSet<>();
+        edges.add(new Edge<String>(a, b, 3, false));
+        edges.add(new Edge<String>(a, c, 5, false));
+        edges.add(new Edge<String>(a, d, 4, false));
+        edges.add(new Edge<String>(b, e, 3, false));
+        edges.add(new Edge<String>(b, f, 5, false));
+        edges.add(new Edge<String>(c, d, 2, false));
+        edges.add(new Edge<String>(d, e, 1, false));
+        edges.add(new Edge<String>(e, f, 2, false));
+        // a separate component
+        edges.add(new Edge<String>(g, h, 1, false));
+        graph = new Graph<>(edges);
+    }
+
+    @Test(timeout = TIMEOUT)
+    public void testPaths() {
+        ShortestPaths<String> paths =
+                GraphAlgorithms.shortestPaths(a, new CsrGraph<>(graph));
+        assertEquals(a, paths.getStart());
+        assertEquals(7, paths.getDistance(f));
+        assertEquals(Arrays.asList(a), paths.getPath(a));
+        // the direct edge of 5 beats going through d for 6
+        assertEquals(Arrays.asList(a, c), paths.getPath(c));
+        assertEquals(5, paths.getDistance(c));
+        assertEquals(Arrays.asList(a, d, e), paths.getPath(e));
+        assertTrue(paths.hasPath(f));
+        assertFalse(paths.hasPath(h));
+        assertEquals(Integer.MAX_VALUE, paths.getDistance(h));
+        assertEquals(new ArrayList<Vertex<String>>(), paths.getPath(h));
+
+        assertEquals(Arrays.asList(c, d, e, f),
+                GraphAlgorithms.shortestPath(c, f, new CsrGraph<>(graph)));
+        assertEquals(Arrays.asList(g, h),
+                GraphAlgorithms.shortestPath(g, h, new CsrGraph<>(graph)));
+        assertEquals(new ArrayList<Vertex<String>>(),
+                GraphAlgorithms.shortestPath(a, g, new CsrGraph<>(graph)));
+    }
+
+    @Test(timeout = TIMEOUT)
+    public void testGraphAndCsrAgree() {
+        Random random = new Random(2050);
+        for (boolean directed : new boolean[]{false, true}) {
+            LinkedHashSet<Edge<Integer>> edges = new LinkedHashSet<>();
+            while (edges.size() < 3000) {
+                edges.add(new Edge<>(new Vertex<>(random.nextInt(1000)),
+                        new Vertex<>(random.nextInt(1000)),
+                        random.nextInt(50), directed));
+            }
+            Graph<Integer> graph = new Graph<>(edges);
+            CsrGraph<Integer> csr = new CsrGraph<>(graph);
+            for (int source = 0; source < csr.getVertexCount();
+                    source += 97) {
+                Vertex<Integer> start = csr.getVertex(source);
+                Map<Vertex<Integer>, Integer> expected =
+                        GraphAlgorithms.dijkstras(start, graph);
+                assertEquals(expected,
+                        GraphAlgorithms.dijkstras(start, csr));
+                ShortestPaths<Integer> paths =
+                        GraphAlgorithms.shortestPaths(start, csr);
+                for (int v = 0; v < csr.getVertexCount(); v++) {
+                    Vertex<Integer> vertex = csr.getVertex(v);
+                    assertEquals(expected.get(vertex).intValue(),
+                            paths.getDistance(vertex));
+                    List<Vertex<Integer>> path = paths.getPath(vertex);
+                    assertEquals(pathLength(csr, path),
+                            paths.getDistance(vertex));
+                }
+                // the early exit search finds paths as short
+                for (int v = 0; v < csr.getVertexCount(); v += 31) {
+                    Vertex<Integer> vertex = csr.getVertex(v);
+                    assertEquals(paths.getDistance(vertex), pathLength(csr,
+                            GraphAlgorithms.shortestPath(start, vertex,
+                                    csr)));
+                }
+            }
+        }
+    }
+
+    /**
+     * Adds up the lightest edges along a path.
+     *
+     * @param csr the graph
+     * @param path the vertices of the path
+     * @return its length, or {@code Integer.MAX_VALUE} for an empty path
+     */
+    private static int pathLength(CsrGraph<Integer> csr,
+                                  List<Vertex<Integer>> path) {
+        if (path.isEmpty()) {
+            return Integer.MAX_VALUE;
+        }
+        int length = 0;
+        for (int i = 1; i < path.size(); i++) {
+            int u = csr.getId(path.get(i - 1));
+            int v = csr.getId(path.get(i));
+            int best = Integer.MAX_VALUE;
+            for (int edge = csr.getOffset(u); edge < csr.getOffset(u + 1);
+                    edge++) {
+                if (csr.getTarget(edge) == v) {
+                    best = Math.min(best, csr.getWeight(edge));
+                }
+            }
+            assertTrue(best != Integer.MAX_VALUE);
+            length += best;
+        }
+        return length;
+    }
+
+    @Test(timeout = TIMEOUT, expected = IllegalArgumentException.class)
+    public void testTargetNotInGraph() {
+        GraphAlgorithms.shortestPath(a, new Vertex<>("z"),
+                new CsrGraph<>(graph));
+    }
+
+    @Test(timeout = TIMEOUT, expected = IllegalArgumentException.class)
+    public void testPathToVertexNotInGraph() {
+        GraphAlgorithms.shortestPaths(a, new CsrGraph<>(graph))
+                .getPath(new Vertex<>("z"));
+    }
+}
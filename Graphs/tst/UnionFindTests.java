@@ -0,0 +1,89 @@
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Tests for UnionFind.
+ *
+ * @author Karel Klein-Cardena
+ * @version 1.0
+ */
+public class UnionFindTests {
+
+    private static final int TIMEOUT = 2000;
+
+    @Test(timeout = TIMEOUT)
+    public void testUnion() {
+        UnionFind sets = new UnionFind(5);
+        assertEquals(5, sets.getCount());
+        assertTrue(sets.union(0, 1));
+        assertTrue(sets.union(3, 4));
+        assertFalse(sets.union(1, 0));
+        assertEquals(3, sets.getCount());
+        assertEquals(sets.find(0), sets.find(1));
+        assertEquals(sets.find(3), sets.find(4));
+        assertTrue(sets.find(0) != sets.find(3));
+        assertEquals(2, sets.find(2));
+        assertTrue(sets.union(1, 4));
+        assertEquals(2, sets.getCount());
+        assertEquals(sets.find(0), sets.find(3));
+    }
+
+    @Test(timeout = TIMEOUT)
+    public void testRandom() {
+        // against labels that are all rewritten on every union
+        int n = 2000;
+        UnionFind sets = new UnionFind(n);
+        int[] labels = new int[n];
+        for (int i = 0; i < n; i++) {
+            labels[i] = i;
+        }
+        int count = n;
+        Random random = new Random(1332);
+        for (int round = 0; round < 3000; round++) {
+            int x = random.nextInt(n);
+            int y = random.nextInt(n);
+            boolean separate = labels[x] != labels[y];
+            assertEquals(separate, sets.union(x, y));
+            if (separate) {
+                int old = labels[y];
+                for (int i = 0; i < n; i++) {
+                    if (labels[i] == old) {
+                        labels[i] = labels[x];
+                    }
+                }
+                count--;
+            }
+            assertEquals(count, sets.getCount());
+            int z = random.nextInt(n);
+            assertEquals(labels[x] == labels[z],
+                    sets.find(x) == sets.find(z));
+        }
+    }
+
+    @Test(timeout = TIMEOUT)
+    public void testLongChain() {
+        // find walks iteratively, so long chains cannot overflow the stack
+        int n = 1000000;
+        UnionFind sets = new UnionFind(n);
+        for (int i = 1; i < n; i++) {
+            sets.union(i - 1, i);
+        }
+        assertEquals(1, sets.getCount());
+        assertEquals(sets.find(0), sets.find(n - 1));
+    }
+
+    @Test(timeout = TIMEOUT, expected = IllegalArgumentException.class)
+    public void testNegativeSize() {
+        new UnionFind(-1);
+    }
+
+    @Test(timeout = TIMEOUT, expected = IllegalArgumentException.class)
+    public void testOutOfRange() {
+        new UnionFind(3).find(3);
+    }
+}
@@ -0,0 +1,464 @@
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * A map with a fixed capacity, meant to sit in front of a slow store. Once
+ * it is full, every put of a new key evicts an entry chosen by the cache's
+ * {@link EvictionPolicy}. Entries can also be given a time to live, counted
+ * from their last put, after which they are treated as missing.
+ *
+ * The entries are CacheEntry objects that are linked both into external
+ * chains, like in HashMap, and into one doubly linked list that orders them
+ * for eviction. The table is sized for the full capacity up front and never
+ * regrows. The entry of an evicted key is reused for the key that replaces
+ * it, so once the cache is full neither get nor put allocates. Every
+ * operation is O(1) on average; a CLOCK eviction may have to pass over
+ * referenced entries, but each one it passes loses its bit, so that cost is
+ * paid for by earlier hits.
+ *
+ * Unlike HashMap, a missing key is an expected outcome for a cache, so
+ * {@link #get(Object)} and {@link #remove(Object)} return null for it
+ * instead of throwing. Hits, misses, evictions and expirations are counted
+ * over the whole life of the cache. Expired entries are dropped when they
+ * are looked up or reach the front of the eviction order.
+ *
+ * This class is not thread-safe.
+ *
+ * @author Karel Klein-Cardena
+ * @version 1.0
+ */
+public class BoundedCache<K, V> {
+
+    private final CacheEntry<K, V>[] table;
+    private final int capacity;
+    private int size;
+
+    // Sentinel of the circular eviction list: head.after is the front, the
+    // next entry to evict, and head.before is the back.
+    private final CacheEntry<K, V> head;
+
+    private final EvictionPolicy policy;
+    private final long timeToLiveNanos;
+    private final LongSupplier clock;
+
+    private long hitCount;
+    private long missCount;
+    private long evictionCount;
+    private long expirationCount;
+
+    /**
+     * Creates an LRU cache whose entries never expire.
+     *
+     * @param capacity the most entries the cache holds
+     * @throws IllegalArgumentException if capacity is not positive
+     */
+    public BoundedCache(int capacity) {
+        this(capacity, EvictionPolicy.LRU);
+    }
+
+    /**
+     * Creates a cache whose entries never expire.
+     *
+     * @param capacity the most entries the cache holds
+     * @param policy how to choose the entry to evict
+     * @throws IllegalArgumentException if capacity is not positive or policy
+     * is null
+     */
+    public BoundedCache(int capacity, EvictionPolicy policy) {
+        this(capacity, policy, 0, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Creates a cache whose entries expire a fixed time after they were last
+     * put.
+     *
+     * @param capacity the most entries the cache holds
+     * @param policy how to choose the entry to evict
+     * @param timeToLive how long an entry stays valid, or 0 to never expire
+     * @param unit unit of timeToLive
+     * @throws IllegalArgumentException if capacity is not positive,
+     * timeToLive is negative, or policy or unit is null
+     */
+    public BoundedCache(int capacity, EvictionPolicy policy, long timeToLive,
+                        TimeUnit unit) {
+        this(capacity, policy, toNanos(timeToLive, unit), System::nanoTime);
+    }
+
+    /**
+     * Creates a cache that reads the time from the given clock, which lets
+     * tests control expiry.
+     *
+     * @param capacity the most entries the cache holds
+     * @param policy how to choose the entry to evict
+     * @param timeToLiveNanos how long an entry stays valid in nanoseconds, or
+     * 0 to never expire
+     * @param clock source of the current time in nanoseconds
+     * @throws IllegalArgumentException if capacity is not positive,
+     * timeToLiveNanos is negative, or policy or clock is null
+     */
+    BoundedCache(int capacity, EvictionPolicy policy, long timeToLiveNanos,
+                 LongSupplier clock) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Capacity must be positive");
+        }
+        if (policy == null || clock == null) {
+            throw new IllegalArgumentException(
+                    "Policy and clock cannot be null");
+        }
+        if (timeToLiveNanos < 0) {
+            throw new IllegalArgumentException(
+                    "Time to live cannot be negative");
+        }
+        this.capacity = capacity;
+        this.policy = policy;
+        this.timeToLiveNanos = timeToLiveNanos;
+        this.clock = clock;
+        table = (CacheEntry<K, V>[]) new CacheEntry<?, ?>[
+                HashSpreading.MURMUR.tableLength((int) Math.min(
+                        PrimitiveHashing.MAX_TABLE_LENGTH,
+                        (long) Math.ceil(capacity
+                                / HashMapInterface.MAX_LOAD_FACTOR)))];
+        head = new CacheEntry<>(null, null);
+        head.before = head;
+        head.after = head;
+    }
+
+    /**
+     * Gets the value associated with the given key and records a hit, or
+     * records a miss if the key is missing or has expired.
+     *
+     * @param key the key to search for
+     * @return the value, or null if the key is not in the cache
+     * @throws IllegalArgumentException if key is null
+     */
+    public V get(K key) {
+        if (key == null) {
+            throw new IllegalArgumentException("Cannot get null key");
+        }
+        CacheEntry<K, V> entry = findLive(key);
+        if (entry == null) {
+            missCount++;
+            return null;
+        }
+        hitCount++;
+        if (policy == EvictionPolicy.LRU) {
+            moveToBack(entry);
+        } else {
+            entry.referenced = true;
+        }
+        return entry.getValue();
+    }
+
+    /**
+     * Adds or replaces the value for a key and restarts its time to live. If
+     * the key is new and the cache is full, an entry is evicted first.
+     *
+     * @param key key to add
+     * @param value value to add
+     * @return the previous value of the key, or null if it was not in the
+     * cache
+     * @throws IllegalArgumentException if key or value is null
+     */
+    public V put(K key, V value) {
+        if (key == null || value == null) {
+            throw new IllegalArgumentException(
+                    "Cannot accept null key or value");
+        }
+        CacheEntry<K, V> entry = findLive(key);
+        if (entry != null) {
+            V oldValue = entry.getValue();
+            entry.setValue(value);
+            entry.expiresAt = expiryFromNow();
+            if (policy == EvictionPolicy.LRU) {
+                moveToBack(entry);
+            } else {
+                entry.referenced = true;
+            }
+            return oldValue;
+        }
+        if (size == capacity) {
+            entry = evict();
+            entry.setKey(key);
+            entry.setValue(value);
+        } else {
+            entry = new CacheEntry<>(key, value);
+        }
+        entry.expiresAt = expiryFromNow();
+        entry.referenced = false;
+        int index = indexFor(key);
+        entry.setNext(table[index]);
+        table[index] = entry;
+        linkAtBack(entry);
+        size++;
+        return null;
+    }
+
+    /**
+     * Removes the entry for a key.
+     *
+     * @param key the key to remove
+     * @return the removed value, or null if the key was not in the cache or
+     * had expired
+     * @throws IllegalArgumentException if key is null
+     */
+    public V remove(K key) {
+        if (key == null) {
+            throw new IllegalArgumentException("Cannot remove null key");
+        }
+        CacheEntry<K, V> entry = findLive(key);
+        if (entry == null) {
+            return null;
+        }
+        drop(entry);
+        return entry.getValue();
+    }
+
+    /**
+     * Returns whether the key is in the cache and has not expired. This does
+     * not count as a hit or miss and does not change the eviction order.
+     *
+     * @param key the key to search for
+     * @return whether the key is in the cache
+     * @throws IllegalArgumentException if key is null
+     */
+    public boolean containsKey(K key) {
+        if (key == null) {
+            throw new IllegalArgumentException("Cannot search for a null key");
+        }
+        CacheEntry<K, V> entry = find(key);
+        return entry != null && !isExpired(entry);
+    }
+
+    /**
+     * Removes every entry. The counters are kept.
+     */
+    public void clear() {
+        Arrays.fill(table, null);
+        head.before = head;
+        head.after = head;
+        size = 0;
+    }
+
+    /**
+     * Gets the number of entries, including expired entries that have not
+     * been dropped yet.
+     *
+     * @return the number of entries
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Gets the most entries the cache holds.
+     *
+     * @return the capacity
+     */
+    public int capacity() {
+        return capacity;
+    }
+
+    /**
+     * Gets the number of gets that found a live entry.
+     *
+     * @return the hit count
+     */
+    public long getHitCount() {
+        return hitCount;
+    }
+
+    /**
+     * Gets the number of gets that found no live entry.
+     *
+     * @return the miss count
+     */
+    public long getMissCount() {
+        return missCount;
+    }
+
+    /**
+     * Gets the number of live entries evicted to make room for new keys.
+     *
+     * @return the eviction count
+     */
+    public long getEvictionCount() {
+        return evictionCount;
+    }
+
+    /**
+     * Gets the number of entries dropped because their time to live ran out.
+     *
+     * @return the expiration count
+     */
+    public long getExpirationCount() {
+        return expirationCount;
+    }
+
+    /**
+     * Gets the fraction of gets that were hits.
+     *
+     * @return the hit rate, or 0 if there were no gets
+     */
+    public double hitRate() {
+        long requests = hitCount + missCount;
+        return requests == 0 ? 0 : (double) hitCount / requests;
+    }
+
+    /**
+     * Converts a time to live to nanoseconds for constructor chaining.
+     *
+     * @param timeToLive the time to live
+     * @param unit its unit
+     * @return the time to live in nanoseconds
+     * @throws IllegalArgumentException if unit is null
+     */
+    private static long toNanos(long timeToLive, TimeUnit unit) {
+        if (unit == null) {
+            throw new IllegalArgumentException("Unit cannot be null");
+        }
+        return unit.toNanos(timeToLive);
+    }
+
+    /**
+     * Computes the bucket of a key.
+     *
+     * @param key the key
+     * @return the bucket index
+     */
+    private int indexFor(K key) {
+        return HashSpreading.MURMUR.index(key.hashCode(), table.length);
+    }
+
+    /**
+     * Finds the entry for a key, expired or not.
+     *
+     * @param key the key
+     * @return the entry, or null if the key is not in the table
+     */
+    private CacheEntry<K, V> find(K key) {
+        CacheEntry<K, V> current = table[indexFor(key)];
+        while (current != null && !current.getKey().equals(key)) {
+            current = current.nextInChain();
+        }
+        return current;
+    }
+
+    /**
+     * Finds the entry for a key, dropping it if it has expired.
+     *
+     * @param key the key
+     * @return the entry, or null if the key is missing or expired
+     */
+    private CacheEntry<K, V> findLive(K key) {
+        CacheEntry<K, V> entry = find(key);
+        if (entry != null && isExpired(entry)) {
+            drop(entry);
+            expirationCount++;
+            return null;
+        }
+        return entry;
+    }
+
+    /**
+     * Computes the expiry time of an entry put now.
+     *
+     * @return the time at which the entry expires, or 0 if entries never
+     * expire
+     */
+    private long expiryFromNow() {
+        return timeToLiveNanos == 0 ? 0 : clock.getAsLong() + timeToLiveNanos;
+    }
+
+    /**
+     * Checks whether an entry's time to live has run out.
+     *
+     * @param entry the entry
+     * @return true if entries expire and this one has
+     */
+    private boolean isExpired(CacheEntry<K, V> entry) {
+        return timeToLiveNanos != 0
+                && clock.getAsLong() - entry.expiresAt >= 0;
+    }
+
+    /**
+     * Picks the entry to evict according to the policy and removes it from
+     * the cache, so that it can be reused.
+     *
+     * @return the removed entry
+     */
+    private CacheEntry<K, V> evict() {
+        CacheEntry<K, V> victim = head.after;
+        if (policy == EvictionPolicy.CLOCK) {
+            while (victim.referenced && !isExpired(victim)) {
+                victim.referenced = false;
+                moveToBack(victim);
+                victim = head.after;
+            }
+        }
+        if (isExpired(victim)) {
+            expirationCount++;
+        } else {
+            evictionCount++;
+        }
+        drop(victim);
+        return victim;
+    }
+
+    /**
+     * Unlinks an entry from its chain and from the eviction list.
+     *
+     * @param entry the entry to drop
+     */
+    private void drop(CacheEntry<K, V> entry) {
+        int index = indexFor(entry.getKey());
+        CacheEntry<K, V> current = table[index];
+        if (current == entry) {
+            table[index] = entry.nextInChain();
+        } else {
+            while (current.getNext() != entry) {
+                current = current.nextInChain();
+            }
+            current.setNext(entry.getNext());
+        }
+        entry.setNext(null);
+        unlinkFromList(entry);
+        size--;
+    }
+
+    /**
+     * Appends an entry at the back of the eviction list.
+     *
+     * @param entry an entry that is not in the list
+     */
+    private void linkAtBack(CacheEntry<K, V> entry) {
+        entry.before = head.before;
+        entry.after = head;
+        head.before.after = entry;
+        head.before = entry;
+    }
+
+    /**
+     * Takes an entry out of the eviction list.
+     *
+     * @param entry an entry in the list
+     */
+    private void unlinkFromList(CacheEntry<K, V> entry) {
+        entry.before.after = entry.after;
+        entry.after.before = entry.before;
+        entry.before = null;
+        entry.after = null;
+    }
+
+    /**
+     * Moves an entry to the back of the eviction list.
+     *
+     * @param entry an entry in the list
+     */
+    private void moveToBack(CacheEntry<K, V> entry) {
+        if (head.before != entry) {
+            unlinkFromList(entry);
+            linkAtBack(entry);
+        }
+    }
+}
@@ -0,0 +1,36 @@
+/**
+ * A MapEntry that is also a node of the doubly linked list a BoundedCache
+ * keeps its entries in, so that moving or evicting an entry needs no extra
+ * node object.
+ *
+ * The inherited {@code next} reference still links the entry into its hash
+ * chain; {@code before} and {@code after} link it into the eviction list.
+ *
+ * @author Karel Klein-Cardena
+ * @version 1.0
+ */
+final class CacheEntry<K, V> extends MapEntry<K, V> {
+    CacheEntry<K, V> before;
+    CacheEntry<K, V> after;
+    long expiresAt;
+    boolean referenced;
+
+    /**
+     * Creates an entry that is not linked into any chain or list.
+     *
+     * @param key key for this entry
+     * @param value value for this entry
+     */
+    CacheEntry(K key, V value) {
+        super(key, value);
+    }
+
+    /**
+     * Gets the next entry in the hash chain.
+     *
+     * @return the next entry
+     */
+    CacheEntry<K, V> nextInChain() {
+        return (CacheEntry<K, V>) getNext();
+    }
+}
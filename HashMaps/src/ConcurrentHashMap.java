@@ -0,0 +1,541 @@
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ * A thread-safe HashMap using external chaining of MapEntry objects.
+ *
+ * The buckets are split into stripes, bucket {@code i} belonging to stripe
+ * {@code i % stripes}, and each stripe has its own lock. Writers only lock
+ * the stripe of the bucket they change, so writers to different stripes
+ * never wait for each other.
+ *
+ * Reads take no locks at all. Once an entry is published in a bucket it is
+ * never modified again: overwriting or removing an entry copies the part of
+ * the chain in front of it and publishes the new chain with a single
+ * volatile write of the bucket head. A reader therefore always walks a
+ * complete, consistent chain, either the old one or the new one.
+ *
+ * The map regrows when it holds more than {@code MAX_LOAD_FACTOR} entries
+ * per bucket. A regrow copies the old table into the new one bucket by
+ * bucket, holding only the stripe lock of the bucket being copied, and
+ * leaves a forwarding entry behind in every copied bucket. Readers and
+ * writers that find one continue in the new table, so during a regrow a
+ * writer only waits if it needs the one bucket being copied. Only one
+ * regrow runs at a time. {@link #clear()} and
+ * {@link #resizeBackingTable(int)} lock every stripe, so writers wait for
+ * them.
+ *
+ * {@link #keySet()}, {@link #values()} and {@link #size()} are weakly
+ * consistent: they reflect every update that finished before the call and
+ * may or may not reflect updates that happen during it.
+ *
+ * @author Karel Klein-Cardena
+ * @version 1.0
+ */
+public class ConcurrentHashMap<K, V> implements HashMapInterface<K, V> {
+
+    /**
+     * Number of stripes used by the constructors that do not take one.
+     */
+    public static final int DEFAULT_STRIPES = 16;
+
+    // Bucket i of every table, old or new, belongs to stripe
+    // i % locks.length.
+    private volatile AtomicReferenceArray<MapEntry<K, V>> table;
+    private final ReentrantLock[] locks;
+
+    // Held for the whole of a regrow and by everything that replaces the
+    // table, so that only one of them runs at a time.
+    private final ReentrantLock resizeLock = new ReentrantLock();
+
+    // Entry count of each stripe, over every table. Only written while
+    // holding that stripe's lock, read without locks.
+    private final AtomicIntegerArray stripeSizes;
+
+    /**
+     * Replaces the head of a bucket whose entries have been copied into a
+     * newer table.
+     *
+     * @param <K> the type of keys
+     * @param <V> the type of values
+     */
+    private static final class Forward<K, V> extends MapEntry<K, V> {
+        private final AtomicReferenceArray<MapEntry<K, V>> next;
+
+        /**
+         * Creates a forwarding entry.
+         *
+         * @param next the table the bucket's entries were copied into
+         */
+        Forward(AtomicReferenceArray<MapEntry<K, V>> next) {
+            super(null, null);
+            this.next = next;
+        }
+    }
+
+    /**
+     * Create a map with no entries. The backing array has an initial
+     * capacity of {@code INITIAL_CAPACITY}.
+     */
+    public ConcurrentHashMap() {
+        this(INITIAL_CAPACITY);
+    }
+
+    /**
+     * Create a map with no entries. The backing array has an initial
+     * capacity of {@code initialCapacity}.
+     *
+     * @param initialCapacity initial capacity of the backing array
+     */
+    public ConcurrentHashMap(int initialCapacity) {
+        this(initialCapacity, DEFAULT_STRIPES);
+    }
+
+    /**
+     * Create a map with no entries and the given number of lock stripes.
+     * Use at least as many stripes as threads that write concurrently.
+     *
+     * @param initialCapacity initial capacity of the backing array
+     * @param stripes number of independently locked stripes
+     * @throws IllegalArgumentException if either argument is not positive
+     */
+    public ConcurrentHashMap(int initialCapacity, int stripes) {
+        if (initialCapacity < 1 || stripes < 1) {
+            throw new IllegalArgumentException(
+                    "Capacity and stripe count must be positive");
+        }
+        locks = new ReentrantLock[stripes];
+        for (int i = 0; i < stripes; i++) {
+            locks[i] = new ReentrantLock();
+        }
+        stripeSizes = new AtomicIntegerArray(stripes);
+        table = new AtomicReferenceArray<>(initialCapacity);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * The map regrows after adding when it holds more than
+     * {@code MAX_LOAD_FACTOR * length} entries.
+     */
+    @Override
+    public V put(K key, V value) {
+        if (key == null || value == null) {
+            throw new IllegalArgumentException(
+                    "Cannot accept null key or value");
+        }
+        AtomicReferenceArray<MapEntry<K, V>> t = table;
+        V returnValue = null;
+        while (true) {
+            int index = indexFor(key, t.length());
+            int stripe = index % locks.length;
+            ReentrantLock lock = locks[stripe];
+            lock.lock();
+            try {
+                MapEntry<K, V> head = t.get(index);
+                if (head instanceof Forward) {
+                    t = ((Forward<K, V>) head).next;
+                    continue;
+                }
+                MapEntry<K, V> current = head;
+                while (current != null && !current.getKey().equals(key)) {
+                    current = current.getNext();
+                }
+                if (current != null) {
+                    returnValue = current.getValue();
+                    t.set(index, replace(head, current,
+                            new MapEntry<>(key, value, current.getNext())));
+                    return returnValue;
+                }
+                t.set(index, new MapEntry<>(key, value, head));
+                stripeSizes.incrementAndGet(stripe);
+                break;
+            } finally {
+                lock.unlock();
+            }
+        }
+        if (size() > MAX_LOAD_FACTOR * t.length()) {
+            regrow(t);
+        }
+        return returnValue;
+    }
+
+    @Override
+    public V remove(K key) {
+        if (key == null) {
+            throw new IllegalArgumentException("Cannot remove null key");
+        }
+        AtomicReferenceArray<MapEntry<K, V>> t = table;
+        while (true) {
+            int index = indexFor(key, t.length());
+            int stripe = index % locks.length;
+            ReentrantLock lock = locks[stripe];
+            lock.lock();
+            try {
+                MapEntry<K, V> head = t.get(index);
+                if (head instanceof Forward) {
+                    t = ((Forward<K, V>) head).next;
+                    continue;
+                }
+                MapEntry<K, V> current = head;
+                while (current != null && !current.getKey().equals(key)) {
+                    current = current.getNext();
+                }
+                if (current == null) {
+                    throw new NoSuchElementException("Key is not in the map");
+                }
+                t.set(index, replace(head, current, current.getNext()));
+                stripeSizes.decrementAndGet(stripe);
+                return current.getValue();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    @Override
+    public V get(K key) {
+        if (key == null) {
+            throw new IllegalArgumentException("Cannot get null key");
+        }
+        MapEntry<K, V> entry = findEntry(key);
+        if (entry == null) {
+            throw new NoSuchElementException("Key is not in the map");
+        }
+        return entry.getValue();
+    }
+
+    @Override
+    public boolean containsKey(K key) {
+        if (key == null) {
+            throw new IllegalArgumentException("Cannot search for a null key");
+        }
+        return findEntry(key) != null;
+    }
+
+    @Override
+    public void clear() {
+        resizeLock.lock();
+        lockAll();
+        try {
+            publish(new AtomicReferenceArray<>(INITIAL_CAPACITY));
+            for (int i = 0; i < locks.length; i++) {
+                stripeSizes.set(i, 0);
+            }
+        } finally {
+            unlockAll();
+            resizeLock.unlock();
+        }
+    }
+
+    @Override
+    public int size() {
+        int size = 0;
+        for (int i = 0; i < locks.length; i++) {
+            size += stripeSizes.get(i);
+        }
+        return size;
+    }
+
+    @Override
+    public Set<K> keySet() {
+        Set<K> keySet = new HashSet<>();
+        forEachEntry(entry -> keySet.add(entry.getKey()));
+        return keySet;
+    }
+
+    @Override
+    public List<V> values() {
+        List<V> valueList = new ArrayList<>();
+        forEachEntry(entry -> valueList.add(entry.getValue()));
+        return valueList;
+    }
+
+    @Override
+    public void resizeBackingTable(int length) {
+        resizeLock.lock();
+        lockAll();
+        try {
+            if (length < 1 || length < size()) {
+                throw new IllegalArgumentException(
+                        "Cannot resize when length < size or length < 1");
+            }
+            rehash(length);
+        } finally {
+            unlockAll();
+            resizeLock.unlock();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * Waits for a running regrow to finish. The entries are shared with the
+     * map and must not be modified. The returned array itself is a copy of
+     * the bucket heads.
+     */
+    @Override
+    public MapEntry<K, V>[] getTable() {
+        resizeLock.lock();
+        try {
+            AtomicReferenceArray<MapEntry<K, V>> t = table;
+            @SuppressWarnings("unchecked")
+            MapEntry<K, V>[] copy =
+                    (MapEntry<K, V>[]) new MapEntry<?, ?>[t.length()];
+            for (int index = 0; index < copy.length; index++) {
+                copy[index] = t.get(index);
+            }
+            return copy;
+        } finally {
+            resizeLock.unlock();
+        }
+    }
+
+    /**
+     * Computes the bucket a key belongs in.
+     *
+     * @param key the key to place
+     * @param length length of the table
+     * @return the bucket index
+     */
+    private int indexFor(K key, int length) {
+        return (key.hashCode() & Integer.MAX_VALUE) % length;
+    }
+
+    /**
+     * Finds the entry for a key without locking.
+     *
+     * @param key the key to search for
+     * @return the matching entry, or null if the key is not in the map
+     */
+    private MapEntry<K, V> findEntry(K key) {
+        AtomicReferenceArray<MapEntry<K, V>> t = table;
+        MapEntry<K, V> current = t.get(indexFor(key, t.length()));
+        while (current instanceof Forward) {
+            t = ((Forward<K, V>) current).next;
+            current = t.get(indexFor(key, t.length()));
+        }
+        while (current != null) {
+            if (current.getKey().equals(key)) {
+                return current;
+            }
+            current = current.getNext();
+        }
+        return null;
+    }
+
+    /**
+     * Builds a new chain in which {@code target} is replaced by
+     * {@code replacement}. The entries in front of the target are copied, in
+     * reverse order, and the entries after it are shared, so the old chain is
+     * left untouched for concurrent readers.
+     *
+     * @param head first entry of the old chain
+     * @param target the entry to replace
+     * @param replacement what to link in place of the target; may be the rest
+     * of the chain to remove the target
+     * @return first entry of the new chain
+     */
+    private MapEntry<K, V> replace(MapEntry<K, V> head, MapEntry<K, V> target,
+                                   MapEntry<K, V> replacement) {
+        MapEntry<K, V> newHead = replacement;
+        for (MapEntry<K, V> current = head; current != target;
+                current = current.getNext()) {
+            newHead = new MapEntry<>(current.getKey(), current.getValue(),
+                    newHead);
+        }
+        return newHead;
+    }
+
+    /**
+     * Walks every entry without locking. A bucket that is copied into a
+     * newer table while it is walked is seen either in the old table or in
+     * the new one, never in both.
+     *
+     * @param action what to do with each entry
+     */
+    private void forEachEntry(Consumer<MapEntry<K, V>> action) {
+        // The tables walked so far and which of their buckets had already
+        // been copied when they were visited. An entry of a newer table is
+        // only taken if its bucket had been copied in every older one.
+        List<AtomicReferenceArray<MapEntry<K, V>>> older = new ArrayList<>();
+        List<boolean[]> copied = new ArrayList<>();
+        AtomicReferenceArray<MapEntry<K, V>> t = table;
+        while (t != null) {
+            AtomicReferenceArray<MapEntry<K, V>> next = null;
+            boolean[] forwarded = new boolean[t.length()];
+            for (int index = 0; index < t.length(); index++) {
+                MapEntry<K, V> current = t.get(index);
+                if (current instanceof Forward) {
+                    forwarded[index] = true;
+                    next = ((Forward<K, V>) current).next;
+                    continue;
+                }
+                for (; current != null; current = current.getNext()) {
+                    if (copiedFromAll(current.getKey(), older, copied)) {
+                        action.accept(current);
+                    }
+                }
+            }
+            older.add(t);
+            copied.add(forwarded);
+            t = next;
+        }
+    }
+
+    /**
+     * Checks whether the bucket of a key had been copied out of each of the
+     * given tables when they were walked.
+     *
+     * @param key the key
+     * @param older the tables walked before
+     * @param copied which buckets of each of them were forwarding entries
+     * @return true if the key's bucket was copied out of every one of them
+     */
+    private boolean copiedFromAll(K key,
+                                  List<AtomicReferenceArray<MapEntry<K, V>>>
+                                          older,
+                                  List<boolean[]> copied) {
+        for (int i = 0; i < older.size(); i++) {
+            if (!copied.get(i)[indexFor(key, older.get(i).length())]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Grows the table to {@code 2 * length + 1} unless another thread is
+     * already regrowing or has replaced the table that was found to be too
+     * full.
+     *
+     * The buckets are copied one at a time while holding only their
+     * stripe's lock, so writers to every other bucket carry on. Each copied
+     * bucket is replaced with a forwarding entry.
+     *
+     * @param full the table that crossed the load factor
+     */
+    private void regrow(AtomicReferenceArray<MapEntry<K, V>> full) {
+        if (!resizeLock.tryLock()) {
+            return;
+        }
+        try {
+            if (table != full) {
+                return;
+            }
+            AtomicReferenceArray<MapEntry<K, V>> next =
+                    new AtomicReferenceArray<>(2 * full.length() + 1);
+            Forward<K, V> forward = new Forward<>(next);
+            for (int index = 0; index < full.length(); index++) {
+                int stripe = index % locks.length;
+                locks[stripe].lock();
+                try {
+                    transfer(full.get(index), stripe, next);
+                    full.set(index, forward);
+                } finally {
+                    locks[stripe].unlock();
+                }
+            }
+            table = next;
+        } finally {
+            resizeLock.unlock();
+        }
+    }
+
+    /**
+     * Copies a chain into the buckets of a newer table. Must be called with
+     * the stripe of the chain's bucket locked; the stripe of each bucket the
+     * entries are copied into is locked here. Nothing else locks two
+     * stripes at once except under resizeLock, so this cannot deadlock.
+     *
+     * @param current first entry of the chain
+     * @param from the stripe of the chain's bucket
+     * @param next the table to copy into
+     */
+    private void transfer(MapEntry<K, V> current, int from,
+                          AtomicReferenceArray<MapEntry<K, V>> next) {
+        for (; current != null; current = current.getNext()) {
+            int index = indexFor(current.getKey(), next.length());
+            int stripe = index % locks.length;
+            ReentrantLock lock = locks[stripe];
+            lock.lock();
+            try {
+                next.set(index, new MapEntry<>(current.getKey(),
+                        current.getValue(), next.get(index)));
+                stripeSizes.incrementAndGet(stripe);
+            } finally {
+                lock.unlock();
+            }
+            stripeSizes.decrementAndGet(from);
+        }
+    }
+
+    /**
+     * Copies every entry into a new table of the given length and publishes
+     * it. Must be called with every stripe locked. The old entries are
+     * copied rather than relinked because readers may still be walking them.
+     *
+     * @param length length of the new table
+     */
+    private void rehash(int length) {
+        AtomicReferenceArray<MapEntry<K, V>> old = table;
+        AtomicReferenceArray<MapEntry<K, V>> newTable =
+                new AtomicReferenceArray<>(length);
+        int[] sizes = new int[locks.length];
+        for (int i = 0; i < old.length(); i++) {
+            MapEntry<K, V> current = old.get(i);
+            while (current != null) {
+                int index = indexFor(current.getKey(), length);
+                newTable.set(index, new MapEntry<>(current.getKey(),
+                        current.getValue(), newTable.get(index)));
+                sizes[index % locks.length]++;
+                current = current.getNext();
+            }
+        }
+        for (int i = 0; i < sizes.length; i++) {
+            stripeSizes.set(i, sizes[i]);
+        }
+        publish(newTable);
+    }
+
+    /**
+     * Makes a new table current and forwards every bucket of the old one to
+     * it, so that writers still holding the old table move on. Must be
+     * called with every stripe locked.
+     *
+     * @param newTable the new table
+     */
+    private void publish(AtomicReferenceArray<MapEntry<K, V>> newTable) {
+        AtomicReferenceArray<MapEntry<K, V>> old = table;
+        Forward<K, V> forward = new Forward<>(newTable);
+        table = newTable;
+        for (int i = 0; i < old.length(); i++) {
+            old.set(i, forward);
+        }
+    }
+
+    /**
+     * Locks every stripe, always in the same order to avoid deadlock.
+     */
+    private void lockAll() {
+        for (ReentrantLock lock : locks) {
+            lock.lock();
+        }
+    }
+
+    /**
+     * Unlocks every stripe.
+     */
+    private void unlockAll() {
+        for (ReentrantLock lock : locks) {
+            lock.unlock();
+        }
+    }
+}
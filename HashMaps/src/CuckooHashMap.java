@@ -0,0 +1,485 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * A HashMap using bucketized cuckoo hashing, which bounds the work of every
+ * lookup no matter how the keys collide.
+ *
+ * The backing table is split into buckets of {@code SLOTS_PER_BUCKET}
+ * consecutive slots. Every key has two candidate buckets, picked by two
+ * independent hash functions, and is always stored in one of them or in a
+ * small stash of {@code STASH_SIZE} slots. A lookup therefore compares
+ * against at most {@code 2 * SLOTS_PER_BUCKET + STASH_SIZE} entries.
+ *
+ * If both buckets of a new key are full, an entry is kicked out of one of
+ * them into its own other bucket, which may kick out another entry, and so
+ * on. After {@code MAX_KICKS} kicks the homeless entry goes into the stash.
+ * When the stash is full as well, the kicks have most likely run into a
+ * cycle, so the whole table is rehashed with new hash functions, and grown if
+ * rehashing at the same length keeps failing. The table also grows once more
+ * than {@code MAX_LOAD_FACTOR} of its slots would be filled; buckets of four
+ * slots keep inserts cheap up to that load.
+ *
+ * No hash function can separate keys with equal hash codes, so if more of
+ * them are added than two buckets and the stash can hold, even a grown table
+ * fails. Rather than grow without bound, the stash itself is then enlarged,
+ * and lookups of such keys are no longer bounded by a constant.
+ *
+ * Entries are never chained, so the next reference of every MapEntry in the
+ * table is null. The hash code of every slot's key is kept in a parallel
+ * array, so a lookup only touches the entries whose hash code matches.
+ *
+ * @author Karel Klein-Cardena
+ * @version 1.0
+ */
+public class CuckooHashMap<K, V> implements HashMapInterface<K, V> {
+
+    /**
+     * Number of slots in a bucket.
+     */
+    public static final int SLOTS_PER_BUCKET = 4;
+
+    /**
+     * Number of entries that can wait in the stash.
+     */
+    public static final int STASH_SIZE = 4;
+
+    /**
+     * Highest fraction of slots that may be filled before the table grows.
+     */
+    public static final double MAX_LOAD_FACTOR = 0.9;
+
+    /**
+     * Number of entries an insert may kick out before using the stash.
+     */
+    public static final int MAX_KICKS = 256;
+
+    // Rehashes at the same length before the table is grown instead.
+    private static final int MAX_REHASH_ATTEMPTS = 3;
+
+    private MapEntry<K, V>[] table;
+    private int[] hashes;
+    private int buckets;
+    private MapEntry<K, V>[] stash;
+    private int stashSize;
+    private int size;
+
+    // Varies the hash functions so that a rehash places keys differently.
+    private int seed;
+
+    // Xorshift state choosing which slot of a full bucket to kick out.
+    private int random = 1;
+
+    /**
+     * Create a hash map with no entries and room for
+     * {@code INITIAL_CAPACITY} slots.
+     */
+    public CuckooHashMap() {
+        this(INITIAL_CAPACITY);
+    }
+
+    /**
+     * Create a hash map with no entries. The number of slots is rounded up
+     * to a power of two number of buckets, and at least two buckets.
+     *
+     * @param initialCapacity requested number of slots
+     * @throws IllegalArgumentException if initialCapacity is not positive
+     */
+    public CuckooHashMap(int initialCapacity) {
+        if (initialCapacity < 1) {
+            throw new IllegalArgumentException(
+                    "Initial capacity must be positive");
+        }
+        allocate(bucketsFor(initialCapacity));
+        stash = (MapEntry<K, V>[]) new MapEntry[STASH_SIZE];
+    }
+
+    @Override
+    public V put(K key, V value) {
+        if (key == null || value == null) {
+            throw new IllegalArgumentException(
+                    "Cannot accept null key or value");
+        }
+        int slot = findSlot(key);
+        if (slot != -1) {
+            V oldValue = table[slot].getValue();
+            table[slot].setValue(value);
+            return oldValue;
+        }
+        slot = findInStash(key);
+        if (slot != -1) {
+            V oldValue = stash[slot].getValue();
+            stash[slot].setValue(value);
+            return oldValue;
+        }
+        if (size + 1 > MAX_LOAD_FACTOR * table.length) {
+            rehash(2 * buckets, null);
+        }
+        MapEntry<K, V> homeless = insert(new MapEntry<>(key, value));
+        if (homeless != null) {
+            rehash(buckets, homeless);
+        }
+        size++;
+        return null;
+    }
+
+    @Override
+    public V remove(K key) {
+        if (key == null) {
+            throw new IllegalArgumentException("Cannot remove null key");
+        }
+        int slot = findSlot(key);
+        if (slot != -1) {
+            V value = table[slot].getValue();
+            table[slot] = null;
+            size--;
+            return value;
+        }
+        slot = findInStash(key);
+        if (slot == -1) {
+            throw new NoSuchElementException("Key is not in the map");
+        }
+        V value = stash[slot].getValue();
+        stash[slot] = stash[--stashSize];
+        stash[stashSize] = null;
+        size--;
+        return value;
+    }
+
+    @Override
+    public V get(K key) {
+        if (key == null) {
+            throw new IllegalArgumentException("Cannot get null key");
+        }
+        int slot = findSlot(key);
+        if (slot != -1) {
+            return table[slot].getValue();
+        }
+        slot = findInStash(key);
+        if (slot == -1) {
+            throw new NoSuchElementException("Key is not in the map");
+        }
+        return stash[slot].getValue();
+    }
+
+    @Override
+    public boolean containsKey(K key) {
+        if (key == null) {
+            throw new IllegalArgumentException("Cannot search for a null key");
+        }
+        return findSlot(key) != -1 || findInStash(key) != -1;
+    }
+
+    @Override
+    public void clear() {
+        allocate(bucketsFor(INITIAL_CAPACITY));
+        stash = (MapEntry<K, V>[]) new MapEntry[STASH_SIZE];
+        stashSize = 0;
+        size = 0;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public Set<K> keySet() {
+        Set<K> keySet = new HashSet<>();
+        for (MapEntry<K, V> entry : table) {
+            if (entry != null) {
+                keySet.add(entry.getKey());
+            }
+        }
+        for (int i = 0; i < stashSize; i++) {
+            keySet.add(stash[i].getKey());
+        }
+        return keySet;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * Values in the stash come after the values in the table.
+     */
+    @Override
+    public List<V> values() {
+        List<V> valueList = new ArrayList<>();
+        for (MapEntry<K, V> entry : table) {
+            if (entry != null) {
+                valueList.add(entry.getValue());
+            }
+        }
+        for (int i = 0; i < stashSize; i++) {
+            valueList.add(stash[i].getValue());
+        }
+        return valueList;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * The length is rounded up to a power of two number of buckets. If the
+     * entries cannot be placed at that length even after rehashing, the
+     * table is grown further.
+     */
+    @Override
+    public void resizeBackingTable(int length) {
+        if (length < 1 || length < size) {
+            throw new IllegalArgumentException(
+                    "Cannot resize when length < size or length < 1");
+        }
+        rehash(bucketsFor(length), null);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * Entries in the stash are not part of the table.
+     */
+    @Override
+    public MapEntry<K, V>[] getTable() {
+        return table;
+    }
+
+    /**
+     * Gets the number of entries in the stash, for testing.
+     *
+     * @return the stash size
+     */
+    int stashSize() {
+        return stashSize;
+    }
+
+    /**
+     * Computes the power of two number of buckets holding at least the given
+     * number of slots.
+     *
+     * @param slots requested number of slots
+     * @return the number of buckets, at least 2
+     */
+    private static int bucketsFor(int slots) {
+        int needed = (slots + SLOTS_PER_BUCKET - 1) / SLOTS_PER_BUCKET;
+        int count = 2;
+        while (count < needed) {
+            count <<= 1;
+        }
+        return count;
+    }
+
+    /**
+     * Replaces the table with an empty one.
+     *
+     * @param bucketCount number of buckets, a power of two
+     */
+    private void allocate(int bucketCount) {
+        if ((long) bucketCount * SLOTS_PER_BUCKET
+                > PrimitiveHashing.MAX_TABLE_LENGTH) {
+            throw new IllegalStateException("Cuckoo table cannot grow further");
+        }
+        buckets = bucketCount;
+        table = (MapEntry<K, V>[])
+                new MapEntry[bucketCount * SLOTS_PER_BUCKET];
+        hashes = new int[bucketCount * SLOTS_PER_BUCKET];
+    }
+
+    /**
+     * Computes the first candidate bucket of a key.
+     *
+     * @param hash the key's hash code
+     * @return the bucket index
+     */
+    private int firstBucket(int hash) {
+        return HashSpreading.MURMUR.index(hash ^ seed, buckets);
+    }
+
+    /**
+     * Computes the second candidate bucket of a key. It always differs from
+     * the first one.
+     *
+     * @param hash the key's hash code
+     * @param first the key's first bucket
+     * @return the bucket index
+     */
+    private int secondBucket(int hash, int first) {
+        int second = HashSpreading.FIBONACCI.index(hash ^ seed, buckets);
+        return second == first ? first ^ 1 : second;
+    }
+
+    /**
+     * Finds the slot of a key in its two buckets.
+     *
+     * @param key the key
+     * @return the slot index in the table, or -1 if the key is not there
+     */
+    private int findSlot(K key) {
+        int hash = key.hashCode();
+        int first = firstBucket(hash);
+        int slot = findInBucket(first, key, hash);
+        if (slot == -1) {
+            slot = findInBucket(secondBucket(hash, first), key, hash);
+        }
+        return slot;
+    }
+
+    /**
+     * Finds the slot of a key in one bucket.
+     *
+     * @param bucket the bucket index
+     * @param key the key
+     * @param hash the key's hash code
+     * @return the slot index in the table, or -1 if the key is not there
+     */
+    private int findInBucket(int bucket, K key, int hash) {
+        int start = bucket * SLOTS_PER_BUCKET;
+        for (int slot = start; slot < start + SLOTS_PER_BUCKET; slot++) {
+            if (hashes[slot] == hash && table[slot] != null
+                    && table[slot].getKey().equals(key)) {
+                return slot;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Finds the index of a key in the stash.
+     *
+     * @param key the key
+     * @return the stash index, or -1 if the key is not there
+     */
+    private int findInStash(K key) {
+        for (int i = 0; i < stashSize; i++) {
+            if (stash[i].getKey().equals(key)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Puts an entry in a free slot of a bucket.
+     *
+     * @param bucket the bucket index
+     * @param entry the entry to place
+     * @param hash the hash code of the entry's key
+     * @return true if the bucket had a free slot
+     */
+    private boolean placeInBucket(int bucket, MapEntry<K, V> entry,
+                                  int hash) {
+        int start = bucket * SLOTS_PER_BUCKET;
+        for (int slot = start; slot < start + SLOTS_PER_BUCKET; slot++) {
+            if (table[slot] == null) {
+                table[slot] = entry;
+                hashes[slot] = hash;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Places an entry whose key is not in the map, kicking other entries
+     * into their other bucket as needed and using the stash as a last
+     * resort.
+     *
+     * @param entry the entry to place
+     * @return null if every entry found a place, otherwise the one entry
+     * left without a place
+     */
+    private MapEntry<K, V> insert(MapEntry<K, V> entry) {
+        int hash = entry.getKey().hashCode();
+        int bucket = firstBucket(hash);
+        if (placeInBucket(bucket, entry, hash)) {
+            return null;
+        }
+        bucket = secondBucket(hash, bucket);
+        for (int kick = 0; kick < MAX_KICKS; kick++) {
+            if (placeInBucket(bucket, entry, hash)) {
+                return null;
+            }
+            random ^= random << 13;
+            random ^= random >>> 17;
+            random ^= random << 5;
+            int slot = bucket * SLOTS_PER_BUCKET
+                    + (random & (SLOTS_PER_BUCKET - 1));
+            MapEntry<K, V> kicked = table[slot];
+            int kickedHash = hashes[slot];
+            table[slot] = entry;
+            hashes[slot] = hash;
+            entry = kicked;
+            hash = kickedHash;
+            int first = firstBucket(hash);
+            bucket = bucket == first ? secondBucket(hash, first) : first;
+        }
+        if (stashSize < stash.length) {
+            stash[stashSize++] = entry;
+            return null;
+        }
+        return entry;
+    }
+
+    /**
+     * Moves every entry, the stash and one extra entry into a new table with
+     * new hash functions. If they do not all fit, the rehash is retried a few
+     * times at the same length and then a few times with twice as many
+     * buckets. If that fails too, the entries are placed in the larger table
+     * with the stash growing to take whatever is left over.
+     *
+     * @param bucketCount number of buckets to start with, a power of two
+     * @param extra an entry that is not in the table yet, or null
+     */
+    private void rehash(int bucketCount, MapEntry<K, V> extra) {
+        List<MapEntry<K, V>> entries = new ArrayList<>(size + 1);
+        for (MapEntry<K, V> entry : table) {
+            if (entry != null) {
+                entries.add(entry);
+            }
+        }
+        for (int i = 0; i < stashSize; i++) {
+            entries.add(stash[i]);
+        }
+        if (extra != null) {
+            entries.add(extra);
+        }
+        for (int attempt = 0; attempt < 2 * MAX_REHASH_ATTEMPTS; attempt++) {
+            int count = attempt < MAX_REHASH_ATTEMPTS
+                    ? bucketCount : 2 * bucketCount;
+            if (placeAll(entries, count, false)) {
+                return;
+            }
+        }
+        placeAll(entries, 2 * bucketCount, true);
+    }
+
+    /**
+     * Places entries into an empty table with new hash functions.
+     *
+     * @param entries the entries to place
+     * @param bucketCount number of buckets, a power of two
+     * @param growStash whether to grow the stash for entries that find no
+     * place
+     * @return true if every entry was placed
+     */
+    private boolean placeAll(List<MapEntry<K, V>> entries, int bucketCount,
+                             boolean growStash) {
+        seed = PrimitiveHashing.mix(seed + PrimitiveHashing.INT_PHI);
+        allocate(bucketCount);
+        stash = (MapEntry<K, V>[]) new MapEntry[stash.length];
+        stashSize = 0;
+        for (MapEntry<K, V> entry : entries) {
+            MapEntry<K, V> homeless = insert(entry);
+            if (homeless != null) {
+                if (!growStash) {
+                    return false;
+                }
+                stash = Arrays.copyOf(stash, 2 * stash.length);
+                stash[stashSize++] = homeless;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,24 @@
+/**
+ * How a full BoundedCache picks the entry to drop for a new one.
+ *
+ * @author Karel Klein-Cardena
+ * @version 1.0
+ */
+public enum EvictionPolicy {
+
+    /**
+     * Least recently used. Every hit moves the entry to the back of the
+     * list and the entry at the front is evicted.
+     */
+    LRU,
+
+    /**
+     * CLOCK, also known as second chance. A hit only sets the entry's
+     * referenced bit. To evict, the hand walks the list from the front,
+     * giving every referenced entry a second chance by clearing its bit and
+     * moving it to the back, and evicts the first entry whose bit was clear.
+     * Hits are cheaper than with LRU at the price of only approximating
+     * recency.
+     */
+    CLOCK
+}
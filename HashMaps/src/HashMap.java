@@ -1,21 +1,91 @@
+import java.util.AbstractCollection;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.ConcurrentModificationException;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.NoSuchElementException;
 import java.util.Set;
+import java.util.Spliterator;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
 
 /**
  * Your implementation of HashMap.
- * 
+ *
+ * By default the backing table is regrown all at once inside the put that
+ * crosses {@code MAX_LOAD_FACTOR}. A map built with a positive migration
+ * budget instead regrows incrementally: the old table is kept next to the
+ * new one and every put, get, remove and containsKey moves at most that many
+ * buckets across, so no single operation pays for rehashing the whole map.
+ *
+ * A map can also be told how to spread hash codes over the buckets (see
+ * {@link HashSpreading}) and to record statistics about its chains and
+ * operations, available through {@link #statistics()}.
+ *
+ * A bucket whose chain grows past {@code TREEIFY_THRESHOLD} entries, all with
+ * keys of one Comparable class, is indexed by a {@link TreeBin} so that
+ * lookups and removals in it stay logarithmic even when many keys collide.
+ * The chain itself is kept, so the table still looks like plain external
+ * chaining. The tree is dropped again once the bucket shrinks to
+ * {@code UNTREEIFY_THRESHOLD} entries.
+ *
+ * Many entries can be loaded at once with the {@code putAll} methods, which
+ * regrow the table at most once for the whole batch, and looked up at once
+ * with {@link #getAll(Object[], Object[])}.
+ *
+ * {@link #keySet()} and {@link #values()} copy the map. To scan it without
+ * copying, use the live views returned by {@link #keyView()} and
+ * {@link #valueView()}, or {@link #forEach(BiConsumer)}. The views' iterators
+ * and spliterators are fail-fast: once the map is structurally modified other
+ * than through the iterator itself, they throw a
+ * ConcurrentModificationException.
+ *
  * @author Karel Klein-Cardena
  * @version 1.0
  */
 public class HashMap<K, V> implements HashMapInterface<K, V> {
 
-    // Do not make any new instance variables.
+    /**
+     * A bucket is turned into a tree when its chain grows past this length.
+     */
+    public static final int TREEIFY_THRESHOLD = 8;
+
+    /**
+     * A tree bucket goes back to a plain chain when it shrinks to this length.
+     */
+    public static final int UNTREEIFY_THRESHOLD = 6;
+
     private MapEntry<K, V>[] table;
     private int size;
 
+    // Trees over the overfull buckets of table and oldTable, allocated the
+    // first time a bucket of that table is treeified.
+    private TreeBin<K, V>[] bins;
+    private TreeBin<K, V>[] oldBins;
+
+    // Only used by incremental resizing. oldTable is non-null while its
+    // buckets from migrateIndex onwards still have to be moved into table.
+    private final int migrationBudget;
+    private MapEntry<K, V>[] oldTable;
+    private int migrateIndex;
+
+    private final HashSpreading spreading;
+
+    // Counts structural modifications, so that view iterators can fail fast.
+    private int modCount;
+
+    // Only updated when recordStatistics is set.
+    private final boolean recordStatistics;
+    private long getCount;
+    private long putCount;
+    private long removeCount;
+    private int maxProbeLength;
+    private int resizeCount;
+    private long resizeNanos;
+
     /**
      * Create a hash map with no entries. The backing array has an initial
      * capacity of {@code INITIAL_CAPACITY}.
@@ -37,8 +107,62 @@ public class HashMap<K, V> implements HashMapInterface<K, V> {
      * @param initialCapacity initial capacity of the backing array
      */
     public HashMap(int initialCapacity) {
-        table = (MapEntry<K, V>[]) new MapEntry[initialCapacity];
+        this(initialCapacity, 0);
+    }
+
+    /**
+     * Create a hash map with no entries that regrows its backing array
+     * incrementally.
+     *
+     * @param initialCapacity initial capacity of the backing array
+     * @param migrationBudget number of old buckets each operation moves into
+     * the new table while a regrow is in progress, or 0 to regrow the whole
+     * table at once
+     * @throws IllegalArgumentException if initialCapacity is not positive or
+     * migrationBudget is negative
+     */
+    public HashMap(int initialCapacity, int migrationBudget) {
+        this(initialCapacity, migrationBudget, HashSpreading.MODULO, false);
+    }
+
+    /**
+     * Create a hash map with no entries, choosing how hash codes are spread
+     * over the buckets and whether statistics are recorded.
+     *
+     * With any spreading other than {@code HashSpreading.MODULO}, the table
+     * length is rounded up to a power of two and doubles on every regrow
+     * instead of growing to {@code 2 * length + 1}.
+     *
+     * @param initialCapacity initial capacity of the backing array
+     * @param migrationBudget number of old buckets each operation moves into
+     * the new table while a regrow is in progress, or 0 to regrow the whole
+     * table at once
+     * @param spreading how hash codes are turned into bucket indices
+     * @param recordStatistics whether to count operations, probe lengths and
+     * resizes for {@link #statistics()}
+     * @throws IllegalArgumentException if initialCapacity is not positive,
+     * migrationBudget is negative or spreading is null, or if initialCapacity
+     * is above 2^30 with power of two spreading
+     */
+    public HashMap(int initialCapacity, int migrationBudget,
+                   HashSpreading spreading, boolean recordStatistics) {
+        if (spreading == null) {
+            throw new IllegalArgumentException("Spreading cannot be null");
+        }
+        if (initialCapacity < 1) {
+            throw new IllegalArgumentException(
+                    "Initial capacity must be positive");
+        }
+        if (migrationBudget < 0) {
+            throw new IllegalArgumentException(
+                    "Migration budget cannot be negative");
+        }
+        this.spreading = spreading;
+        this.recordStatistics = recordStatistics;
+        table = (MapEntry<K, V>[])
+                new MapEntry[spreading.tableLength(initialCapacity)];
         size = 0;
+        this.migrationBudget = migrationBudget;
     }
 
     @Override
@@ -47,35 +171,145 @@ public class HashMap<K, V> implements HashMapInterface<K, V> {
             throw new IllegalArgumentException(
                     "Cannot accept null key or value");
         }
-        size++;
-        MapEntry<K, V> newEntry = new MapEntry(key, value);
-        double loadFactor = ((double) size) / table.length;
+        if (recordStatistics) {
+            putCount++;
+        }
+        double loadFactor = ((double) (size + 1)) / table.length;
         if (loadFactor > MAX_LOAD_FACTOR) {
-            resizeBackingTable(2 * table.length + 1);
-        }
-
-        int index = Math.abs(newEntry.getKey().hashCode()) % table.length;
-        MapEntry<K, V> currentEntry = table[index];
-        V returnValue = null;
-
-        if (currentEntry == null) {
-            table[index] = newEntry;
-        } else {
-            while (currentEntry != null) {
-                if (currentEntry.getKey().equals(newEntry.getKey())) {
-                    returnValue = currentEntry.getValue();
-                    size--;
-                    currentEntry.setValue(newEntry.getValue());
-                } else if (currentEntry.getNext() == null) {
-                    newEntry.setNext(table[index]);
-                    table[index] = newEntry;
-                    currentEntry = currentEntry.getNext();
-                } else {
-                    currentEntry = currentEntry.getNext();
+            if (migrationBudget == 0) {
+                resizeBackingTable(spreading.grow(table.length));
+            } else {
+                startMigration(spreading.grow(table.length));
+            }
+        }
+        migrate();
+        return insert(key, value);
+    }
+
+    /**
+     * Adds every key-value pair of two parallel arrays, as if by calling
+     * {@link #put(Object, Object)} for each index in order.
+     *
+     * The table is regrown at most once, up front, to a length that can hold
+     * every pair without crossing {@code MAX_LOAD_FACTOR}, so no regrow
+     * happens in the middle of the batch. The arrays are checked before the
+     * map is modified.
+     *
+     * @param keys the keys to add
+     * @param values the values, {@code values[i]} belonging to {@code keys[i]}
+     * @throws IllegalArgumentException if either array or any element of them
+     * is null, or the arrays have different lengths
+     */
+    public void putAll(K[] keys, V[] values) {
+        if (keys == null || values == null) {
+            throw new IllegalArgumentException("Arrays cannot be null");
+        }
+        if (keys.length != values.length) {
+            throw new IllegalArgumentException(
+                    "Keys and values must have the same length");
+        }
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] == null || values[i] == null) {
+                throw new IllegalArgumentException(
+                        "Cannot accept null key or value");
+            }
+        }
+        if (recordStatistics) {
+            putCount += keys.length;
+        }
+        presize(keys.length);
+        for (int i = 0; i < keys.length; i++) {
+            migrate();
+            insert(keys[i], values[i]);
+        }
+    }
+
+    /**
+     * Adds the key-value pair of every given entry, as if by calling
+     * {@link #put(Object, Object)} for each in iteration order. The entries
+     * themselves are not linked into the map.
+     *
+     * If the entries come in a Collection, the table is regrown at most once
+     * for the whole batch. Otherwise their number is not known up front and
+     * the table regrows like it does for single puts.
+     *
+     * @param entries the entries to add
+     * @throws IllegalArgumentException if entries is null, or an entry, its
+     * key or its value is null
+     */
+    public void putAll(Iterable<? extends MapEntry<K, V>> entries) {
+        if (entries == null) {
+            throw new IllegalArgumentException("Entries cannot be null");
+        }
+        if (!(entries instanceof Collection)) {
+            for (MapEntry<K, V> entry : entries) {
+                if (entry == null) {
+                    throw new IllegalArgumentException(
+                            "Cannot accept null entry");
                 }
+                put(entry.getKey(), entry.getValue());
+            }
+            return;
+        }
+        Collection<? extends MapEntry<K, V>> collection =
+                (Collection<? extends MapEntry<K, V>>) entries;
+        for (MapEntry<K, V> entry : collection) {
+            if (entry == null || entry.getKey() == null
+                    || entry.getValue() == null) {
+                throw new IllegalArgumentException(
+                        "Cannot accept null entry, key or value");
             }
         }
-        return returnValue;
+        if (recordStatistics) {
+            putCount += collection.size();
+        }
+        presize(collection.size());
+        for (MapEntry<K, V> entry : collection) {
+            migrate();
+            insert(entry.getKey(), entry.getValue());
+        }
+    }
+
+    /**
+     * Looks up many keys at once. {@code values[i]} is set to the value of
+     * {@code keys[i]}, or to null if that key is not in the map. Unlike
+     * {@link #get(Object)}, a missing key is not an error.
+     *
+     * @param keys the keys to look up
+     * @param values the array to store the values in, at least as long as
+     * keys
+     * @return the number of keys that were found
+     * @throws IllegalArgumentException if either array or any key is null, or
+     * values is shorter than keys
+     */
+    public int getAll(K[] keys, V[] values) {
+        if (keys == null || values == null) {
+            throw new IllegalArgumentException("Arrays cannot be null");
+        }
+        if (values.length < keys.length) {
+            throw new IllegalArgumentException(
+                    "Values array is shorter than keys array");
+        }
+        for (K key : keys) {
+            if (key == null) {
+                throw new IllegalArgumentException("Cannot get null key");
+            }
+        }
+        if (recordStatistics) {
+            getCount += keys.length;
+        }
+        int found = 0;
+        for (int i = 0; i < keys.length; i++) {
+            migrate();
+            MapEntry<K, V> entry = findEntry(keys[i]);
+            if (entry == null) {
+                values[i] = null;
+            } else {
+                values[i] = entry.getValue();
+                found++;
+            }
+        }
+        return found;
     }
 
     @Override
@@ -83,32 +317,25 @@ public class HashMap<K, V> implements HashMapInterface<K, V> {
         if (key == null) {
             throw new IllegalArgumentException("Cannot remove null key");
         }
-        int index = Math.abs(key.hashCode()) % table.length;
-        MapEntry<K, V> current = table[index];
-        V returnValue = null;
-        int count = 0;
-
-        if (current == null) {
-            throw new NoSuchElementException("Key is not in the map");
-        } else {
-            while ((current != null) && (returnValue == null)) {
-                if (current.getKey().equals(key)) {
-                    size--;
-                    returnValue = current.getValue();
-                    if (count == 0) {
-                        table[index] = current.getNext();
-                    }
-                } else if (current.getNext().getKey().equals(key)) {
-                    size--;
-                    returnValue = current.getNext().getValue();
-                    current.setNext(current.getNext().getNext());
-                } else if (current.getNext() == null) {
-                    throw new NoSuchElementException("Key is not in the map");
-                }
-                current = current.getNext();
+        if (recordStatistics) {
+            removeCount++;
+        }
+        migrate();
+        if (oldTable != null) {
+            MapEntry<K, V> removed = unlink(oldTable, oldBins, key);
+            if (removed != null) {
+                size--;
+                modCount++;
+                return removed.getValue();
             }
         }
-        return returnValue;
+        MapEntry<K, V> removed = unlink(table, bins, key);
+        if (removed == null) {
+            throw new NoSuchElementException("Key is not in the map");
+        }
+        size--;
+        modCount++;
+        return removed.getValue();
     }
 
     @Override
@@ -116,22 +343,15 @@ public class HashMap<K, V> implements HashMapInterface<K, V> {
         if (key == null) {
             throw new IllegalArgumentException("Cannot get null key");
         }
-        int index = Math.abs(key.hashCode()) % table.length;
-        MapEntry<K, V> current = table[index];
-        V returnValue = null;
-        if (current == null) {
+        if (recordStatistics) {
+            getCount++;
+        }
+        migrate();
+        MapEntry<K, V> entry = findEntry(key);
+        if (entry == null) {
             throw new NoSuchElementException("Key is not in the map");
-        } else {
-            while (current != null) {
-                if (current.getKey().equals(key)) {
-                    returnValue = current.getValue();
-                } else if (current.getNext() == null) {
-                    throw new NoSuchElementException("Key is not in the map");
-                }
-                current = current.getNext();
-            }
         }
-        return returnValue;
+        return entry.getValue();
     }
 
     @Override
@@ -139,28 +359,22 @@ public class HashMap<K, V> implements HashMapInterface<K, V> {
         if (key == null) {
             throw new IllegalArgumentException("Cannot search for a null key");
         }
-        int index = Math.abs(key.hashCode()) % table.length;
-        MapEntry<K, V> current = table[index];
-        boolean contains = false;
-        if (current == null) {
-            contains = false;
-        } else {
-            while (current != null) {
-                if (current.getKey().equals(key)) {
-                    return true;
-                } else if (current.getNext() == null) {
-                    contains = false;
-                }
-                current = current.getNext();
-            }
+        if (recordStatistics) {
+            getCount++;
         }
-        return contains;
+        migrate();
+        return findEntry(key) != null;
     }
 
     @Override
     public void clear() {
-        table = (MapEntry<K, V>[]) new MapEntry[INITIAL_CAPACITY];
+        table = (MapEntry<K, V>[])
+                new MapEntry[spreading.tableLength(INITIAL_CAPACITY)];
+        bins = null;
+        oldTable = null;
+        oldBins = null;
         size = 0;
+        modCount++;
     }
 
     @Override
@@ -171,61 +385,705 @@ public class HashMap<K, V> implements HashMapInterface<K, V> {
     @Override
     public Set<K> keySet() {
         Set<K> keySet = new HashSet<>();
-        for (int index = 0; index < table.length; index++) {
-            MapEntry<K, V> current = table[index];
-            while (current != null) {
-                keySet.add(current.getKey());
-                current = current.getNext();
+        for (MapEntry<K, V>[] t : tables()) {
+            for (int index = 0; index < t.length; index++) {
+                MapEntry<K, V> current = t[index];
+                while (current != null) {
+                    keySet.add(current.getKey());
+                    current = current.getNext();
+                }
             }
         }
         return keySet;
     }
 
+    /**
+     * {@inheritDoc}
+     *
+     * While an incremental regrow is in progress, the values still waiting
+     * in the old table come after the values in the current table.
+     */
     @Override
     public List<V> values() {
         List<V> valueList = new ArrayList<>();
-        for (int index = 0; index < table.length; index++) {
-            MapEntry<K, V> current = table[index];
-            while (current != null) {
-                valueList.add(current.getValue());
-                current = current.getNext();
+        for (MapEntry<K, V>[] t : tables()) {
+            for (int index = 0; index < t.length; index++) {
+                MapEntry<K, V> current = t[index];
+                while (current != null) {
+                    valueList.add(current.getValue());
+                    current = current.getNext();
+                }
             }
         }
         return valueList;
     }
 
+    /**
+     * {@inheritDoc}
+     *
+     * An explicit resize is always done all at once. If an incremental regrow
+     * is in progress it is finished first. With power of two spreading the
+     * length is rounded up to a power of two, and lengths above 2^30 throw
+     * an IllegalArgumentException.
+     */
     @Override
     public void resizeBackingTable(int length) {
         if (length < 1 || length < size) {
             throw new IllegalArgumentException(
                     "Cannot resize when length < size or length < 1");
         }
-        MapEntry<K, V>[] newTable = (MapEntry<K, V>[]) new MapEntry[length];
-        for (MapEntry<K, V> element : table) {
-            if (element != null) {
-                while (element != null) {
-                    int newIndex = Math.abs(element.getKey().hashCode()) % length;
-                    System.out.println("newIndex: " + newIndex);
-
-                    if (newTable[newIndex] == null) {
-                        newTable[newIndex] = element;
-                        element.setNext(null);
-                    } else {
-                        MapEntry<K, V> nextElement = newTable[newIndex];
-                        element.setNext(nextElement);
-                        newTable[newIndex] = element;
-                    }
-                    element = element.getNext();
-                }
+        int newLength = spreading.tableLength(length);
+        finishMigration();
+        modCount++;
+        long start = recordStatistics ? System.nanoTime() : 0;
+        MapEntry<K, V>[] old = table;
+        table = (MapEntry<K, V>[]) new MapEntry[newLength];
+        bins = null;
+        for (MapEntry<K, V> element : old) {
+            moveChain(element);
+        }
+        if (recordStatistics) {
+            resizeCount++;
+            resizeNanos += System.nanoTime() - start;
+        }
+    }
+
+    /**
+     * Returns a live view of the keys. The view does not copy the map: its
+     * size, contents and iteration order always reflect the map, and its
+     * iterator can remove entries. Streams over it can run in parallel,
+     * splitting the table by bucket ranges.
+     *
+     * Iteration follows the table in order of increasing index and every
+     * chain from front to back. An incremental regrow in progress is
+     * finished when an iterator or spliterator is created, so that iterating
+     * only ever has to walk one table and lookups made meanwhile do not move
+     * entries.
+     *
+     * @return the key view
+     */
+    public Collection<K> keyView() {
+        return new View<>(true);
+    }
+
+    /**
+     * Returns a live view of the values, in the same order as
+     * {@link #keyView()} and with the same behavior.
+     *
+     * @return the value view
+     */
+    public Collection<V> valueView() {
+        return new View<>(false);
+    }
+
+    /**
+     * Performs an action for every entry, in the order of
+     * {@link #keyView()}, without allocating.
+     *
+     * @param action the action to perform
+     * @throws IllegalArgumentException if action is null
+     * @throws ConcurrentModificationException if the action structurally
+     * modifies the map
+     */
+    public void forEach(BiConsumer<? super K, ? super V> action) {
+        if (action == null) {
+            throw new IllegalArgumentException("Action cannot be null");
+        }
+        finishMigration();
+        int expectedModCount = modCount;
+        MapEntry<K, V>[] t = table;
+        for (int index = 0; index < t.length; index++) {
+            for (MapEntry<K, V> current = t[index]; current != null;
+                    current = current.getNext()) {
+                action.accept(current.getKey(), current.getValue());
+            }
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
             }
         }
-        table = newTable;
     }
-    
+
+    /**
+     * Takes a snapshot of the chain lengths of the backing table and, if this
+     * map records statistics, of its operation counters.
+     *
+     * While an incremental regrow is in progress the histogram also counts
+     * the buckets of the old table that have not been moved yet, so that it
+     * covers every entry.
+     *
+     * @return the statistics snapshot
+     */
+    public HashMapStatistics statistics() {
+        int[] histogram = countChains(table, 0, new int[1]);
+        if (oldTable != null) {
+            histogram = countChains(oldTable, migrateIndex, histogram);
+        }
+        return new HashMapStatistics(table.length, size, histogram,
+                maxProbeLength, getCount, putCount, removeCount, resizeCount,
+                resizeNanos);
+    }
+
+    /**
+     * Adds the chain lengths of the buckets of a table from a given index on
+     * to a histogram.
+     *
+     * @param t the table
+     * @param from the first bucket to count
+     * @param histogram number of buckets with each chain length so far
+     * @return the histogram, copied into a longer array if a chain was longer
+     * than it covered
+     */
+    private int[] countChains(MapEntry<K, V>[] t, int from,
+                              int[] histogram) {
+        for (int index = from; index < t.length; index++) {
+            int length = 0;
+            for (MapEntry<K, V> current = t[index]; current != null;
+                    current = current.getNext()) {
+                length++;
+            }
+            if (length >= histogram.length) {
+                histogram = Arrays.copyOf(histogram, length + 1);
+            }
+            histogram[length]++;
+        }
+        return histogram;
+    }
+
+    /**
+     * Returns whether an incremental regrow is still moving buckets out of
+     * the old table.
+     *
+     * @return true if some entries are still in the old table
+     */
+    public boolean isMigrating() {
+        return oldTable != null;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * While an incremental regrow is in progress, entries that have not been
+     * moved yet are not in this array.
+     */
     @Override
     public MapEntry<K, V>[] getTable() {
         // DO NOT EDIT THIS METHOD!
         return table;
     }
 
-}
\ No newline at end of file
+    /**
+     * Computes the bucket a key belongs in.
+     *
+     * @param key the key to place
+     * @param length length of the table
+     * @return the bucket index
+     */
+    private int indexFor(K key, int length) {
+        return spreading.index(key.hashCode(), length);
+    }
+
+    /**
+     * Overwrites the value of an existing key or links in a new entry for it.
+     * The caller has made sure the table has room and has done its share of
+     * migration.
+     *
+     * @param key the key
+     * @param value the value
+     * @return the old value, or null if the key was not in the map
+     */
+    private V insert(K key, V value) {
+        MapEntry<K, V> currentEntry = findEntry(key);
+        if (currentEntry != null) {
+            V returnValue = currentEntry.getValue();
+            currentEntry.setValue(value);
+            return returnValue;
+        }
+        size++;
+        modCount++;
+        link(new MapEntry<>(key, value), indexFor(key, table.length));
+        return null;
+    }
+
+    /**
+     * Regrows the table once, if needed, so that the given number of new
+     * entries fit without crossing {@code MAX_LOAD_FACTOR}. The new length is
+     * the one repeated regrows would have reached.
+     *
+     * @param additional number of entries about to be added
+     */
+    private void presize(int additional) {
+        long needed = (long) size + additional;
+        int length = table.length;
+        while (((double) needed) / length > MAX_LOAD_FACTOR) {
+            length = spreading.grow(length);
+        }
+        if (length != table.length) {
+            resizeBackingTable(length);
+        }
+    }
+
+    /**
+     * Finds the entry for a key in the current table or, during a regrow, in
+     * the part of the old table that has not been moved yet.
+     *
+     * @param key the key to search for
+     * @return the matching entry, or null if the key is not in the map
+     */
+    private MapEntry<K, V> findEntry(K key) {
+        MapEntry<K, V> found = findInBucket(table, bins, key);
+        if (found == null && oldTable != null) {
+            found = findInBucket(oldTable, oldBins, key);
+        }
+        return found;
+    }
+
+    /**
+     * Finds the entry for a key in its bucket of the given table.
+     *
+     * @param t the table to search
+     * @param b the trees over that table's buckets, or null if there are none
+     * @param key the key to search for
+     * @return the matching entry, or null if the key is not in that table
+     */
+    private MapEntry<K, V> findInBucket(MapEntry<K, V>[] t, TreeBin<K, V>[] b,
+                                        K key) {
+        int index = indexFor(key, t.length);
+        if (b != null && b[index] != null) {
+            TreeBin<K, V> bin = b[index];
+            if (!bin.accepts(key)) {
+                return null;
+            }
+            MapEntry<K, V> found = bin.find(key);
+            recordProbes(bin.lastProbes());
+            return found;
+        }
+        int probes = 0;
+        MapEntry<K, V> current = t[index];
+        while (current != null) {
+            probes++;
+            if (current.getKey().equals(key)) {
+                recordProbes(probes);
+                return current;
+            }
+            current = current.getNext();
+        }
+        recordProbes(probes);
+        return null;
+    }
+
+    /**
+     * Keeps track of the longest probe if statistics are recorded.
+     *
+     * @param probes number of entries compared by one bucket search
+     */
+    private void recordProbes(int probes) {
+        if (recordStatistics && probes > maxProbeLength) {
+            maxProbeLength = probes;
+        }
+    }
+
+    /**
+     * Removes the entry for a key from its chain in the given table.
+     *
+     * @param t the table to remove from
+     * @param b the trees over that table's buckets, or null if there are none
+     * @param key the key to remove
+     * @return the removed entry, or null if the key was not in that table
+     */
+    private MapEntry<K, V> unlink(MapEntry<K, V>[] t, TreeBin<K, V>[] b,
+                                  K key) {
+        int index = indexFor(key, t.length);
+        if (b != null && b[index] != null) {
+            TreeBin<K, V> bin = b[index];
+            TreeBin.Node<K, V> node = bin.accepts(key) ? bin.remove(key) : null;
+            if (node == null) {
+                return null;
+            }
+            MapEntry<K, V> removed = node.getEntry();
+            MapEntry<K, V> previous = node.getPrevious();
+            MapEntry<K, V> next = removed.getNext();
+            if (previous == null) {
+                t[index] = next;
+            } else {
+                previous.setNext(next);
+            }
+            if (next != null) {
+                bin.setPrevious(next, previous);
+            }
+            if (bin.size() <= UNTREEIFY_THRESHOLD) {
+                b[index] = null;
+            }
+            return removed;
+        }
+        MapEntry<K, V> previous = null;
+        MapEntry<K, V> current = t[index];
+        while (current != null) {
+            if (current.getKey().equals(key)) {
+                if (previous == null) {
+                    t[index] = current.getNext();
+                } else {
+                    previous.setNext(current.getNext());
+                }
+                return current;
+            }
+            previous = current;
+            current = current.getNext();
+        }
+        return null;
+    }
+
+    /**
+     * Links an entry in at the head of a bucket of the current table, keeping
+     * the bucket's tree up to date and treeifying the bucket if its chain
+     * became too long.
+     *
+     * @param entry the entry to link in
+     * @param index the bucket index in the current table
+     */
+    private void link(MapEntry<K, V> entry, int index) {
+        MapEntry<K, V> oldHead = table[index];
+        entry.setNext(oldHead);
+        table[index] = entry;
+        TreeBin<K, V> bin = bins == null ? null : bins[index];
+        if (bin != null) {
+            if (bin.accepts(entry.getKey())) {
+                bin.addFirst(entry, oldHead);
+            } else {
+                bins[index] = null;
+            }
+            return;
+        }
+        int length = 0;
+        for (MapEntry<K, V> current = entry;
+                current != null && length <= TREEIFY_THRESHOLD;
+                current = current.getNext()) {
+            length++;
+        }
+        if (length > TREEIFY_THRESHOLD) {
+            Class<?> keyClass = TreeBin.keyClassOf(entry);
+            if (keyClass != null) {
+                if (bins == null) {
+                    bins = (TreeBin<K, V>[]) new TreeBin<?, ?>[table.length];
+                }
+                bins[index] = new TreeBin<>(entry, keyClass);
+            }
+        }
+    }
+
+    /**
+     * Moves every entry of a chain to the front of its bucket in the current
+     * table. Entries are taken front to back, so entries that land in the same
+     * bucket end up in reverse order.
+     *
+     * @param element the first entry of the chain
+     */
+    private void moveChain(MapEntry<K, V> element) {
+        while (element != null) {
+            MapEntry<K, V> next = element.getNext();
+            link(element, indexFor(element.getKey(), table.length));
+            element = next;
+        }
+    }
+
+    /**
+     * Begins an incremental regrow into a new table of the given length. An
+     * unfinished regrow is completed first so that at most two tables exist.
+     *
+     * @param length length of the new table
+     */
+    private void startMigration(int length) {
+        finishMigration();
+        modCount++;
+        oldTable = table;
+        oldBins = bins;
+        table = (MapEntry<K, V>[]) new MapEntry[length];
+        bins = null;
+        migrateIndex = 0;
+        if (recordStatistics) {
+            resizeCount++;
+        }
+    }
+
+    /**
+     * Moves up to {@code migrationBudget} buckets of the old table into the
+     * current table.
+     */
+    private void migrate() {
+        if (oldTable == null) {
+            return;
+        }
+        modCount++;
+        long start = recordStatistics ? System.nanoTime() : 0;
+        int end = Math.min(oldTable.length, migrateIndex + migrationBudget);
+        for (; migrateIndex < end; migrateIndex++) {
+            moveChain(oldTable[migrateIndex]);
+            oldTable[migrateIndex] = null;
+            if (oldBins != null) {
+                oldBins[migrateIndex] = null;
+            }
+        }
+        if (migrateIndex == oldTable.length) {
+            oldTable = null;
+            oldBins = null;
+        }
+        if (recordStatistics) {
+            resizeNanos += System.nanoTime() - start;
+        }
+    }
+
+    /**
+     * Moves every remaining bucket of the old table into the current table.
+     */
+    private void finishMigration() {
+        if (oldTable == null) {
+            return;
+        }
+        modCount++;
+        long start = recordStatistics ? System.nanoTime() : 0;
+        for (; migrateIndex < oldTable.length; migrateIndex++) {
+            moveChain(oldTable[migrateIndex]);
+        }
+        oldTable = null;
+        oldBins = null;
+        if (recordStatistics) {
+            resizeNanos += System.nanoTime() - start;
+        }
+    }
+
+    /**
+     * Lists the tables that currently hold entries.
+     *
+     * @return the current table, followed by the old table during a regrow
+     */
+    private List<MapEntry<K, V>[]> tables() {
+        List<MapEntry<K, V>[]> tables = new ArrayList<>(2);
+        tables.add(table);
+        if (oldTable != null) {
+            tables.add(oldTable);
+        }
+        return tables;
+    }
+
+    /**
+     * A live collection of either the keys or the values of the map.
+     *
+     * @param <T> K for the key view, V for the value view
+     */
+    private final class View<T> extends AbstractCollection<T> {
+        private final boolean keys;
+
+        /**
+         * Creates a view.
+         *
+         * @param keys true for the keys, false for the values
+         */
+        View(boolean keys) {
+            this.keys = keys;
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            if (keys && o != null) {
+                try {
+                    return containsKey((K) o);
+                } catch (ClassCastException e) {
+                    return false;
+                }
+            }
+            return super.contains(o);
+        }
+
+        @Override
+        public void clear() {
+            HashMap.this.clear();
+        }
+
+        @Override
+        public Iterator<T> iterator() {
+            finishMigration();
+            return new ViewIterator<>(keys);
+        }
+
+        @Override
+        public Spliterator<T> spliterator() {
+            finishMigration();
+            return new ViewSpliterator<>(keys, 0, table.length, size,
+                    modCount);
+        }
+    }
+
+    /**
+     * A fail-fast iterator over the current table.
+     *
+     * @param <T> K when iterating keys, V when iterating values
+     */
+    private final class ViewIterator<T> implements Iterator<T> {
+        private final boolean keys;
+        private final MapEntry<K, V>[] t = table;
+        private int index;
+        private MapEntry<K, V> next;
+        private MapEntry<K, V> lastReturned;
+        private int expectedModCount = modCount;
+
+        /**
+         * Creates an iterator positioned before the first entry.
+         *
+         * @param keys true to return keys, false to return values
+         */
+        ViewIterator(boolean keys) {
+            this.keys = keys;
+            advanceBucket();
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next != null;
+        }
+
+        @Override
+        public T next() {
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            if (next == null) {
+                throw new NoSuchElementException("No more entries");
+            }
+            lastReturned = next;
+            next = next.getNext();
+            if (next == null) {
+                advanceBucket();
+            }
+            return (T) (keys ? lastReturned.getKey() : lastReturned.getValue());
+        }
+
+        @Override
+        public void remove() {
+            if (lastReturned == null) {
+                throw new IllegalStateException("Nothing to remove");
+            }
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            HashMap.this.remove(lastReturned.getKey());
+            lastReturned = null;
+            expectedModCount = modCount;
+        }
+
+        /**
+         * Moves next to the head of the next non-empty bucket, or to null
+         * past the end of the table.
+         */
+        private void advanceBucket() {
+            while (next == null && index < t.length) {
+                next = t[index++];
+            }
+        }
+    }
+
+    /**
+     * A fail-fast spliterator over a range of buckets of the current table,
+     * split by halving the range.
+     *
+     * @param <T> K when iterating keys, V when iterating values
+     */
+    private final class ViewSpliterator<T> implements Spliterator<T> {
+        private final boolean keys;
+        private final MapEntry<K, V>[] t = table;
+        private final int expectedModCount;
+        private int index;
+        private final int fence;
+        private int estimate;
+        private boolean exact;
+        private MapEntry<K, V> current;
+
+        /**
+         * Creates a spliterator over buckets [origin, fence).
+         *
+         * @param keys true to return keys, false to return values
+         * @param origin first bucket
+         * @param fence one past the last bucket
+         * @param estimate estimated number of entries in the range
+         * @param expectedModCount modCount when the traversal started
+         */
+        ViewSpliterator(boolean keys, int origin, int fence, int estimate,
+                        int expectedModCount) {
+            this.keys = keys;
+            this.index = origin;
+            this.fence = fence;
+            this.estimate = estimate;
+            this.exact = origin == 0 && fence == t.length;
+            this.expectedModCount = expectedModCount;
+        }
+
+        @Override
+        public Spliterator<T> trySplit() {
+            int mid = (index + fence) >>> 1;
+            if (current != null || mid <= index) {
+                return null;
+            }
+            int lo = index;
+            index = mid;
+            estimate >>>= 1;
+            exact = false;
+            return new ViewSpliterator<>(keys, lo, mid, estimate,
+                    expectedModCount);
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super T> action) {
+            if (action == null) {
+                throw new IllegalArgumentException("Action cannot be null");
+            }
+            while (current == null && index < fence) {
+                current = t[index++];
+            }
+            if (current == null) {
+                return false;
+            }
+            MapEntry<K, V> entry = current;
+            current = current.getNext();
+            action.accept((T) (keys ? entry.getKey() : entry.getValue()));
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            return true;
+        }
+
+        @Override
+        public void forEachRemaining(Consumer<? super T> action) {
+            if (action == null) {
+                throw new IllegalArgumentException("Action cannot be null");
+            }
+            MapEntry<K, V> entry = current;
+            current = null;
+            while (entry != null || index < fence) {
+                if (entry == null) {
+                    entry = t[index++];
+                    continue;
+                }
+                action.accept((T) (keys ? entry.getKey() : entry.getValue()));
+                entry = entry.getNext();
+            }
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+        }
+
+        @Override
+        public long estimateSize() {
+            return estimate;
+        }
+
+        @Override
+        public int characteristics() {
+            return (exact ? Spliterator.SIZED : 0)
+                    | (keys ? Spliterator.DISTINCT | Spliterator.NONNULL
+                    : Spliterator.NONNULL);
+        }
+    }
+}
@@ -0,0 +1,174 @@
+import java.util.Arrays;
+
+/**
+ * An immutable snapshot of how well a HashMap's keys are spread and how much
+ * work it has done.
+ *
+ * The chain length histogram and the table length describe the table at the
+ * moment the snapshot was taken. The counters cover the map's whole life and
+ * are only collected by maps created with statistics recording turned on;
+ * otherwise they are all zero.
+ *
+ * @author Karel Klein-Cardena
+ * @version 1.0
+ */
+public final class HashMapStatistics {
+
+    private final int tableLength;
+    private final int size;
+    private final int[] chainLengths;
+    private final int maxProbeLength;
+    private final long getCount;
+    private final long putCount;
+    private final long removeCount;
+    private final int resizeCount;
+    private final long resizeNanos;
+
+    /**
+     * Creates a snapshot.
+     *
+     * @param tableLength length of the backing table
+     * @param size number of entries
+     * @param chainLengths number of buckets with each chain length
+     * @param maxProbeLength most entries compared by a single lookup
+     * @param getCount number of get and containsKey calls
+     * @param putCount number of put calls
+     * @param removeCount number of remove calls
+     * @param resizeCount number of times the backing table was replaced
+     * @param resizeNanos nanoseconds spent moving entries between tables
+     */
+    HashMapStatistics(int tableLength, int size, int[] chainLengths,
+                      int maxProbeLength, long getCount, long putCount,
+                      long removeCount, int resizeCount, long resizeNanos) {
+        this.tableLength = tableLength;
+        this.size = size;
+        this.chainLengths = chainLengths;
+        this.maxProbeLength = maxProbeLength;
+        this.getCount = getCount;
+        this.putCount = putCount;
+        this.removeCount = removeCount;
+        this.resizeCount = resizeCount;
+        this.resizeNanos = resizeNanos;
+    }
+
+    /**
+     * Gets the length of the backing table.
+     *
+     * @return the table length
+     */
+    public int getTableLength() {
+        return tableLength;
+    }
+
+    /**
+     * Gets the number of entries in the map.
+     *
+     * @return the size of the map
+     */
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * Gets the chain length histogram. Index {@code i} holds the number of
+     * buckets whose chain has exactly {@code i} entries, so index 0 counts
+     * the empty buckets.
+     *
+     * @return a copy of the histogram
+     */
+    public int[] getChainLengthHistogram() {
+        return Arrays.copyOf(chainLengths, chainLengths.length);
+    }
+
+    /**
+     * Gets the length of the longest chain.
+     *
+     * @return the longest chain length
+     */
+    public int getMaxChainLength() {
+        return chainLengths.length - 1;
+    }
+
+    /**
+     * Gets the average number of entries a successful lookup compares,
+     * assuming every key is looked up equally often. The average is taken
+     * over the entries the histogram counts.
+     *
+     * @return the average probe length, or 0 for an empty map
+     */
+    public double getAverageProbeLength() {
+        long probes = 0;
+        long entries = 0;
+        for (int length = 1; length < chainLengths.length; length++) {
+            probes += (long) chainLengths[length] * length * (length + 1) / 2;
+            entries += (long) chainLengths[length] * length;
+        }
+        return entries == 0 ? 0 : (double) probes / entries;
+    }
+
+    /**
+     * Gets the most entries compared by a single lookup since the map was
+     * created.
+     *
+     * @return the longest probe
+     */
+    public int getMaxProbeLength() {
+        return maxProbeLength;
+    }
+
+    /**
+     * Gets the number of get and containsKey calls.
+     *
+     * @return the lookup count
+     */
+    public long getGetCount() {
+        return getCount;
+    }
+
+    /**
+     * Gets the number of put calls.
+     *
+     * @return the put count
+     */
+    public long getPutCount() {
+        return putCount;
+    }
+
+    /**
+     * Gets the number of remove calls.
+     *
+     * @return the remove count
+     */
+    public long getRemoveCount() {
+        return removeCount;
+    }
+
+    /**
+     * Gets the number of times the backing table was replaced.
+     *
+     * @return the resize count
+     */
+    public int getResizeCount() {
+        return resizeCount;
+    }
+
+    /**
+     * Gets the time spent moving entries into new tables, including the
+     * steps of incremental regrows.
+     *
+     * @return the resize time in nanoseconds
+     */
+    public long getResizeNanos() {
+        return resizeNanos;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("table %d, size %d, max chain %d, avg probe %.2f,"
+                        + " max probe %d, gets %d, puts %d, removes %d,"
+                        + " resizes %d (%.3f ms)",
+                tableLength, size, getMaxChainLength(),
+                getAverageProbeLength(), maxProbeLength, getCount, putCount,
+                removeCount, resizeCount, resizeNanos / 1e6);
+    }
+}
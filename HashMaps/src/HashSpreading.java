@@ -0,0 +1,116 @@
+/**
+ * How a HashMap turns a key's {@code hashCode()} into a bucket index.
+ *
+ * {@link #MODULO} is the classic scheme: the absolute value of the hash code
+ * modulo a table length that grows as {@code 2 * length + 1}. The other
+ * strategies first scramble the hash code so that every bit of it affects
+ * the index, then mask it into a table whose length is always a power of two
+ * and doubles on every regrow.
+ *
+ * @author Karel Klein-Cardena
+ * @version 1.0
+ */
+public enum HashSpreading {
+
+    /**
+     * {@code Math.abs(hashCode) % length} with odd table lengths.
+     */
+    MODULO {
+        @Override
+        int index(int hash, int length) {
+            return Math.abs(hash % length);
+        }
+    },
+
+    /**
+     * Fibonacci hashing: multiply by 2^32 divided by the golden ratio and keep
+     * the top bits.
+     */
+    FIBONACCI {
+        @Override
+        int index(int hash, int length) {
+            return (hash * PrimitiveHashing.INT_PHI)
+                    >>> (Integer.numberOfLeadingZeros(length) + 1);
+        }
+    },
+
+    /**
+     * The MurmurHash3 32-bit finalizer followed by masking off the low bits.
+     */
+    MURMUR {
+        @Override
+        int index(int hash, int length) {
+            int h = hash;
+            h ^= h >>> 16;
+            h *= 0x85EBCA6B;
+            h ^= h >>> 13;
+            h *= 0xC2B2AE35;
+            h ^= h >>> 16;
+            return h & (length - 1);
+        }
+    };
+
+    /**
+     * Maps a hash code to a bucket.
+     *
+     * @param hash the key's hash code
+     * @param length length of the table, a power of two of at least 2 unless
+     * this is {@link #MODULO}
+     * @return the bucket index in [0, length)
+     */
+    abstract int index(int hash, int length);
+
+    /**
+     * Returns whether this strategy needs power of two table lengths.
+     *
+     * @return false for {@link #MODULO}, true otherwise
+     */
+    boolean usesPowerOfTwo() {
+        return this != MODULO;
+    }
+
+    /**
+     * Computes the length a table should have when created with the
+     * requested length.
+     *
+     * @param requested the requested length
+     * @throws IllegalArgumentException if this is not {@link #MODULO} and
+     * requested is above {@code PrimitiveHashing.MAX_TABLE_LENGTH}
+     * @return requested for {@link #MODULO}, otherwise the next power of two
+     * that is at least 2
+     */
+    int tableLength(int requested) {
+        if (!usesPowerOfTwo()) {
+            return requested;
+        }
+        if (requested > PrimitiveHashing.MAX_TABLE_LENGTH) {
+            throw new IllegalArgumentException("Cannot create a table of "
+                    + requested + " buckets");
+        }
+        int length = 2;
+        while (length < requested) {
+            length <<= 1;
+        }
+        return length;
+    }
+
+    /**
+     * Computes the length a full table regrows to.
+     *
+     * @param length the current length
+     * @throws IllegalStateException if the regrown length does not fit in
+     * an int, or passes {@code PrimitiveHashing.MAX_TABLE_LENGTH} unless this
+     * is {@link #MODULO}
+     * @return {@code 2 * length + 1} for {@link #MODULO}, otherwise
+     * {@code 2 * length}
+     */
+    int grow(int length) {
+        long grown = usesPowerOfTwo() ? 2L * length : 2L * length + 1;
+        if (grown > (usesPowerOfTwo() ? PrimitiveHashing.MAX_TABLE_LENGTH
+                : Integer.MAX_VALUE)) {
+            throw new IllegalStateException("Table of " + length
+                    + " buckets cannot grow further");
+        }
+        return (int) grown;
+    }
+}
@@ -0,0 +1,331 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * An open addressing hash map from primitive {@code int} keys to object
+ * values.
+ *
+ * Keys and values live in parallel arrays and collisions are resolved with
+ * linear probing, so a put never allocates an entry object and a get never
+ * chases pointers. Removal uses backward shift deletion instead of
+ * tombstones, which keeps probe sequences short after many removes.
+ *
+ * The key 0 marks an empty slot in the key array, so an entry with key 0 is
+ * stored on the side.
+ *
+ * @author Karel Klein-Cardena
+ * @version 1.0
+ */
+public class IntObjectMap<V> {
+
+    private static final int FREE_KEY = 0;
+
+    private int[] keys;
+    private V[] values;
+    private int mask;
+    private int size;
+    private int threshold;
+    private final double loadFactor;
+
+    private boolean hasFreeKey;
+    private V freeValue;
+
+    /**
+     * Create a map with no entries. The backing arrays have room for
+     * {@code HashMapInterface.INITIAL_CAPACITY} entries.
+     */
+    public IntObjectMap() {
+        this(HashMapInterface.INITIAL_CAPACITY);
+    }
+
+    /**
+     * Create a map with no entries that can hold {@code expectedSize} entries
+     * without resizing.
+     *
+     * @param expectedSize number of entries to size the map for
+     */
+    public IntObjectMap(int expectedSize) {
+        this(expectedSize, HashMapInterface.MAX_LOAD_FACTOR);
+    }
+
+    /**
+     * Create a map with no entries that can hold {@code expectedSize} entries
+     * without resizing at the given load factor.
+     *
+     * @param expectedSize number of entries to size the map for
+     * @param loadFactor fraction of slots that may be filled before the
+     * backing arrays are doubled
+     * @throws IllegalArgumentException if expectedSize is negative or the
+     * load factor is not in (0, 1)
+     */
+    public IntObjectMap(int expectedSize, double loadFactor) {
+        if (expectedSize < 0) {
+            throw new IllegalArgumentException(
+                    "Cannot size a map for a negative number of entries");
+        }
+        if (!(loadFactor > 0 && loadFactor < 1)) {
+            throw new IllegalArgumentException(
+                    "Load factor must be between 0 and 1 exclusive");
+        }
+        this.loadFactor = loadFactor;
+        allocate(PrimitiveHashing.tableLength(expectedSize, loadFactor));
+    }
+
+    /**
+     * Adds the given key-value pair to the map, replacing the value of an
+     * existing entry with the same key.
+     *
+     * @param key key to add into the map
+     * @param value value to add into the map
+     * @throws IllegalArgumentException if value is null
+     * @throws IllegalStateException if the key is new and the map is
+     * already as large as it can grow
+     * @return null if the key was not already in the map, otherwise the old
+     * value associated with it
+     */
+    public V put(int key, V value) {
+        if (value == null) {
+            throw new IllegalArgumentException("Cannot accept null value");
+        }
+        if (key == FREE_KEY) {
+            V old = freeValue;
+            if (!hasFreeKey) {
+                hasFreeKey = true;
+                size++;
+            }
+            freeValue = value;
+            return old;
+        }
+        int index = PrimitiveHashing.mix(key) & mask;
+        while (keys[index] != FREE_KEY) {
+            if (keys[index] == key) {
+                V old = values[index];
+                values[index] = value;
+                return old;
+            }
+            index = (index + 1) & mask;
+        }
+        if (size >= threshold
+                && keys.length == PrimitiveHashing.MAX_TABLE_LENGTH) {
+            // Growing is impossible and the table must keep a free slot to
+            // end every probe.
+            throw new IllegalStateException(
+                    "Map cannot hold more than " + size + " entries");
+        }
+        keys[index] = key;
+        values[index] = value;
+        if (++size > threshold) {
+            rehash(keys.length * 2);
+        }
+        return null;
+    }
+
+    /**
+     * Removes the entry with a matching key from the map.
+     *
+     * @param key the key to remove
+     * @throws NoSuchElementException if the key is not in the map
+     * @return the value previously associated with the key
+     */
+    public V remove(int key) {
+        if (key == FREE_KEY) {
+            if (!hasFreeKey) {
+                throw new NoSuchElementException("Key is not in the map");
+            }
+            V old = freeValue;
+            hasFreeKey = false;
+            freeValue = null;
+            size--;
+            return old;
+        }
+        int index = indexOf(key);
+        if (index < 0) {
+            throw new NoSuchElementException("Key is not in the map");
+        }
+        V old = values[index];
+        shiftBack(index);
+        size--;
+        return old;
+    }
+
+    /**
+     * Gets the value associated with the given key.
+     *
+     * @param key the key to search for
+     * @throws NoSuchElementException if the key is not in the map
+     * @return the value associated with the given key
+     */
+    public V get(int key) {
+        V value = getOrDefault(key, null);
+        if (value == null) {
+            throw new NoSuchElementException("Key is not in the map");
+        }
+        return value;
+    }
+
+    /**
+     * Gets the value associated with the given key without throwing when the
+     * key is missing.
+     *
+     * @param key the key to search for
+     * @param defaultValue value to return if the key is not in the map
+     * @return the value associated with the key, or defaultValue
+     */
+    public V getOrDefault(int key, V defaultValue) {
+        if (key == FREE_KEY) {
+            return hasFreeKey ? freeValue : defaultValue;
+        }
+        int index = indexOf(key);
+        return index < 0 ? defaultValue : values[index];
+    }
+
+    /**
+     * Returns whether or not the key is in the map.
+     *
+     * @param key the key to search for
+     * @return whether or not the key is in the map
+     */
+    public boolean containsKey(int key) {
+        return key == FREE_KEY ? hasFreeKey : indexOf(key) >= 0;
+    }
+
+    /**
+     * Clears the map and resets it to the default capacity.
+     */
+    public void clear() {
+        allocate(PrimitiveHashing.tableLength(
+                HashMapInterface.INITIAL_CAPACITY, loadFactor));
+        size = 0;
+        hasFreeKey = false;
+        freeValue = null;
+    }
+
+    /**
+     * Returns the number of entries in the map.
+     *
+     * @return number of entries in the map
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the keys in the map in slot order, with key 0 (if present)
+     * first.
+     *
+     * @return a new array holding every key in the map
+     */
+    public int[] keys() {
+        int[] result = new int[size];
+        int count = 0;
+        if (hasFreeKey) {
+            result[count++] = FREE_KEY;
+        }
+        for (int index = 0; index < keys.length; index++) {
+            if (keys[index] != FREE_KEY) {
+                result[count++] = keys[index];
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the values in the map in the same order as {@link #keys()}.
+     *
+     * @return list of values in this map
+     */
+    public List<V> values() {
+        List<V> valueList = new ArrayList<>(size);
+        if (hasFreeKey) {
+            valueList.add(freeValue);
+        }
+        for (int index = 0; index < keys.length; index++) {
+            if (keys[index] != FREE_KEY) {
+                valueList.add(values[index]);
+            }
+        }
+        return valueList;
+    }
+
+    /**
+     * Returns the number of slots in the backing arrays.
+     *
+     * @return length of the key array
+     */
+    public int capacity() {
+        return keys.length;
+    }
+
+    /**
+     * Finds the slot holding a non-zero key.
+     *
+     * @param key the key to look up
+     * @return the slot index, or -1 if the key is absent
+     */
+    private int indexOf(int key) {
+        int index = PrimitiveHashing.mix(key) & mask;
+        while (keys[index] != FREE_KEY) {
+            if (keys[index] == key) {
+                return index;
+            }
+            index = (index + 1) & mask;
+        }
+        return -1;
+    }
+
+    /**
+     * Empties the given slot and pulls later entries of the same probe run
+     * back so that no lookup has to skip over a hole.
+     *
+     * @param gap the slot being emptied
+     */
+    private void shiftBack(int gap) {
+        int index = (gap + 1) & mask;
+        while (keys[index] != FREE_KEY) {
+            int home = PrimitiveHashing.mix(keys[index]) & mask;
+            if (((index - home) & mask) >= ((index - gap) & mask)) {
+                keys[gap] = keys[index];
+                values[gap] = values[index];
+                gap = index;
+            }
+            index = (index + 1) & mask;
+        }
+        keys[gap] = FREE_KEY;
+        values[gap] = null;
+    }
+
+    /**
+     * Moves every entry into new backing arrays of the given length.
+     *
+     * @param length new length of the backing arrays, a power of two
+     */
+    private void rehash(int length) {
+        int[] oldKeys = keys;
+        V[] oldValues = values;
+        allocate(length);
+        for (int i = 0; i < oldKeys.length; i++) {
+            int key = oldKeys[i];
+            if (key != FREE_KEY) {
+                int index = PrimitiveHashing.mix(key) & mask;
+                while (keys[index] != FREE_KEY) {
+                    index = (index + 1) & mask;
+                }
+                keys[index] = key;
+                values[index] = oldValues[i];
+            }
+        }
+    }
+
+    /**
+     * Replaces the backing arrays with empty ones of the given length.
+     *
+     * @param length length of the new arrays, a power of two
+     */
+    private void allocate(int length) {
+        keys = new int[length];
+        values = (V[]) new Object[length];
+        mask = length - 1;
+        threshold = Math.min((int) (length * loadFactor), length - 1);
+    }
+}
@@ -0,0 +1,335 @@
+import java.util.NoSuchElementException;
+
+/**
+ * An open addressing hash map from primitive {@code long} keys to primitive
+ * {@code long} values.
+ *
+ * Keys and values live in parallel arrays and collisions are resolved with
+ * linear probing, so neither keys nor values are ever boxed and no entry
+ * objects are allocated. Removal uses backward shift deletion instead of
+ * tombstones.
+ *
+ * The key 0 marks an empty slot in the key array, so an entry with key 0 is
+ * stored on the side.
+ *
+ * @author Karel Klein-Cardena
+ * @version 1.0
+ */
+public class LongLongMap {
+
+    private static final long FREE_KEY = 0L;
+
+    private long[] keys;
+    private long[] values;
+    private int mask;
+    private int size;
+    private int threshold;
+    private final double loadFactor;
+
+    private boolean hasFreeKey;
+    private long freeValue;
+
+    /**
+     * Create a map with no entries. The backing arrays have room for
+     * {@code HashMapInterface.INITIAL_CAPACITY} entries.
+     */
+    public LongLongMap() {
+        this(HashMapInterface.INITIAL_CAPACITY);
+    }
+
+    /**
+     * Create a map with no entries that can hold {@code expectedSize} entries
+     * without resizing.
+     *
+     * @param expectedSize number of entries to size the map for
+     */
+    public LongLongMap(int expectedSize) {
+        this(expectedSize, HashMapInterface.MAX_LOAD_FACTOR);
+    }
+
+    /**
+     * Create a map with no entries that can hold {@code expectedSize} entries
+     * without resizing at the given load factor.
+     *
+     * @param expectedSize number of entries to size the map for
+     * @param loadFactor fraction of slots that may be filled before the
+     * backing arrays are doubled
+     * @throws IllegalArgumentException if expectedSize is negative or the
+     * load factor is not in (0, 1)
+     */
+    public LongLongMap(int expectedSize, double loadFactor) {
+        if (expectedSize < 0) {
+            throw new IllegalArgumentException(
+                    "Cannot size a map for a negative number of entries");
+        }
+        if (!(loadFactor > 0 && loadFactor < 1)) {
+            throw new IllegalArgumentException(
+                    "Load factor must be between 0 and 1 exclusive");
+        }
+        this.loadFactor = loadFactor;
+        allocate(PrimitiveHashing.tableLength(expectedSize, loadFactor));
+    }
+
+    /**
+     * Adds the given key-value pair to the map, replacing the value of an
+     * existing entry with the same key.
+     *
+     * Since a long cannot be null, use {@link #containsKey(long)} first if
+     * you need to tell an overwrite apart from a fresh insert.
+     *
+     * @param key key to add into the map
+     * @param value value to add into the map
+     * @throws IllegalStateException if the key is new and the map is
+     * already as large as it can grow
+     * @return the old value associated with the key, or 0 if the key was not
+     * already in the map
+     */
+    public long put(long key, long value) {
+        if (key == FREE_KEY) {
+            long old = freeValue;
+            if (!hasFreeKey) {
+                hasFreeKey = true;
+                size++;
+            }
+            freeValue = value;
+            return old;
+        }
+        int index = PrimitiveHashing.mix(key) & mask;
+        while (keys[index] != FREE_KEY) {
+            if (keys[index] == key) {
+                long old = values[index];
+                values[index] = value;
+                return old;
+            }
+            index = (index + 1) & mask;
+        }
+        if (size >= threshold
+                && keys.length == PrimitiveHashing.MAX_TABLE_LENGTH) {
+            // Growing is impossible and the table must keep a free slot to
+            // end every probe.
+            throw new IllegalStateException(
+                    "Map cannot hold more than " + size + " entries");
+        }
+        keys[index] = key;
+        values[index] = value;
+        if (++size > threshold) {
+            rehash(keys.length * 2);
+        }
+        return 0L;
+    }
+
+    /**
+     * Removes the entry with a matching key from the map.
+     *
+     * @param key the key to remove
+     * @throws NoSuchElementException if the key is not in the map
+     * @return the value previously associated with the key
+     */
+    public long remove(long key) {
+        if (key == FREE_KEY) {
+            if (!hasFreeKey) {
+                throw new NoSuchElementException("Key is not in the map");
+            }
+            long old = freeValue;
+            hasFreeKey = false;
+            freeValue = 0L;
+            size--;
+            return old;
+        }
+        int index = indexOf(key);
+        if (index < 0) {
+            throw new NoSuchElementException("Key is not in the map");
+        }
+        long old = values[index];
+        shiftBack(index);
+        size--;
+        return old;
+    }
+
+    /**
+     * Gets the value associated with the given key.
+     *
+     * @param key the key to search for
+     * @throws NoSuchElementException if the key is not in the map
+     * @return the value associated with the given key
+     */
+    public long get(long key) {
+        if (key == FREE_KEY) {
+            if (!hasFreeKey) {
+                throw new NoSuchElementException("Key is not in the map");
+            }
+            return freeValue;
+        }
+        int index = indexOf(key);
+        if (index < 0) {
+            throw new NoSuchElementException("Key is not in the map");
+        }
+        return values[index];
+    }
+
+    /**
+     * Gets the value associated with the given key without throwing when the
+     * key is missing.
+     *
+     * @param key the key to search for
+     * @param defaultValue value to return if the key is not in the map
+     * @return the value associated with the key, or defaultValue
+     */
+    public long getOrDefault(long key, long defaultValue) {
+        if (key == FREE_KEY) {
+            return hasFreeKey ? freeValue : defaultValue;
+        }
+        int index = indexOf(key);
+        return index < 0 ? defaultValue : values[index];
+    }
+
+    /**
+     * Returns whether or not the key is in the map.
+     *
+     * @param key the key to search for
+     * @return whether or not the key is in the map
+     */
+    public boolean containsKey(long key) {
+        return key == FREE_KEY ? hasFreeKey : indexOf(key) >= 0;
+    }
+
+    /**
+     * Clears the map and resets it to the default capacity.
+     */
+    public void clear() {
+        allocate(PrimitiveHashing.tableLength(
+                HashMapInterface.INITIAL_CAPACITY, loadFactor));
+        size = 0;
+        hasFreeKey = false;
+        freeValue = 0L;
+    }
+
+    /**
+     * Returns the number of entries in the map.
+     *
+     * @return number of entries in the map
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the keys in the map in slot order, with key 0 (if present)
+     * first.
+     *
+     * @return a new array holding every key in the map
+     */
+    public long[] keys() {
+        long[] result = new long[size];
+        int count = 0;
+        if (hasFreeKey) {
+            result[count++] = FREE_KEY;
+        }
+        for (int index = 0; index < keys.length; index++) {
+            if (keys[index] != FREE_KEY) {
+                result[count++] = keys[index];
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the values in the map in the same order as {@link #keys()}.
+     *
+     * @return a new array holding every value in the map
+     */
+    public long[] values() {
+        long[] result = new long[size];
+        int count = 0;
+        if (hasFreeKey) {
+            result[count++] = freeValue;
+        }
+        for (int index = 0; index < keys.length; index++) {
+            if (keys[index] != FREE_KEY) {
+                result[count++] = values[index];
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the number of slots in the backing arrays.
+     *
+     * @return length of the key array
+     */
+    public int capacity() {
+        return keys.length;
+    }
+
+    /**
+     * Finds the slot holding a non-zero key.
+     *
+     * @param key the key to look up
+     * @return the slot index, or -1 if the key is absent
+     */
+    private int indexOf(long key) {
+        int index = PrimitiveHashing.mix(key) & mask;
+        while (keys[index] != FREE_KEY) {
+            if (keys[index] == key) {
+                return index;
+            }
+            index = (index + 1) & mask;
+        }
+        return -1;
+    }
+
+    /**
+     * Empties the given slot and pulls later entries of the same probe run
+     * back so that no lookup has to skip over a hole.
+     *
+     * @param gap the slot being emptied
+     */
+    private void shiftBack(int gap) {
+        int index = (gap + 1) & mask;
+        while (keys[index] != FREE_KEY) {
+            int home = PrimitiveHashing.mix(keys[index]) & mask;
+            if (((index - home) & mask) >= ((index - gap) & mask)) {
+                keys[gap] = keys[index];
+                values[gap] = values[index];
+                gap = index;
+            }
+            index = (index + 1) & mask;
+        }
+        keys[gap] = FREE_KEY;
+        values[gap] = 0L;
+    }
+
+    /**
+     * Moves every entry into new backing arrays of the given length.
+     *
+     * @param length new length of the backing arrays, a power of two
+     */
+    private void rehash(int length) {
+        long[] oldKeys = keys;
+        long[] oldValues = values;
+        allocate(length);
+        for (int i = 0; i < oldKeys.length; i++) {
+            long key = oldKeys[i];
+            if (key != FREE_KEY) {
+                int index = PrimitiveHashing.mix(key) & mask;
+                while (keys[index] != FREE_KEY) {
+                    index = (index + 1) & mask;
+                }
+                keys[index] = key;
+                values[index] = oldValues[i];
+            }
+        }
+    }
+
+    /**
+     * Replaces the backing arrays with empty ones of the given length.
+     *
+     * @param length length of the new arrays, a power of two
+     */
+    private void allocate(int length) {
+        keys = new long[length];
+        values = new long[length];
+        mask = length - 1;
+        threshold = Math.min((int) (length * loadFactor), length - 1);
+    }
+}
@@ -0,0 +1,686 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * A HashMap whose buckets and entries live in a memory-mapped file, so that
+ * reopening the file gives back the map without rebuilding it.
+ *
+ * The file starts with a header, followed by the bucket array (one long file
+ * offset per bucket, 0 for an empty bucket), followed by an append-only log of
+ * records. Each record holds the offset of the next record in its chain, the
+ * hash of the key, and the length-prefixed serialized key and value:
+ *
+ * <pre>
+ * header  | magic | version | buckets | size | end | clean |
+ * buckets | head offset of bucket 0 | ... | head offset of bucket n - 1 |
+ * record  | next | hash | key length | value length | key | value |
+ * </pre>
+ *
+ * Keys are hashed and compared by their serialized bytes, so the layout does
+ * not depend on {@code hashCode()} being stable between JVM runs.
+ *
+ * Every change is an append followed by pointer writes, done in an order that
+ * leaves the file readable if the process dies in between:
+ * <ol>
+ * <li>the new record is written past the end of the log,</li>
+ * <li>the end of the log is advanced in the header,</li>
+ * <li>the record is linked in as the head of its bucket,</li>
+ * <li>for an overwrite, the old record is unlinked from the chain.</li>
+ * </ol>
+ * A crash can at worst leave an unreachable record, which compaction drops,
+ * or an old record still linked after its replacement, which the recovery
+ * pass on the next open unlinks. The header's clean flag is cleared while
+ * the map is open and set again by {@link #close()}, which is how a crash is
+ * detected. Surviving an operating system crash or power loss additionally
+ * requires {@link #sync()} to have been called.
+ *
+ * Removed and overwritten records stay in the log until {@link #compact()}
+ * rewrites the file with only the live entries. Regrowing the bucket array is
+ * done by the same rewrite.
+ *
+ * A single mapping is used, so the file is limited to
+ * {@code Integer.MAX_VALUE} bytes. This class is not thread-safe.
+ *
+ * @author Karel Klein-Cardena
+ * @version 1.0
+ */
+public class PersistentHashMap<K, V>
+        implements HashMapInterface<K, V>, Closeable {
+
+    private static final int MAGIC = 0x484D4150;
+    private static final int VERSION = 1;
+
+    private static final int HEADER_MAGIC = 0;
+    private static final int HEADER_VERSION = 4;
+    private static final int HEADER_BUCKETS = 8;
+    private static final int HEADER_SIZE_FIELD = 12;
+    private static final int HEADER_END = 16;
+    private static final int HEADER_CLEAN = 24;
+    private static final int HEADER_LENGTH = 32;
+
+    private static final int RECORD_NEXT = 0;
+    private static final int RECORD_HASH = 8;
+    private static final int RECORD_KEY_LENGTH = 12;
+    private static final int RECORD_VALUE_LENGTH = 16;
+    private static final int RECORD_DATA = 20;
+
+    private static final long NONE = 0L;
+    private static final int MIN_LOG_CAPACITY = 4096;
+
+    private final Path path;
+    private final Serializer<K> keySerializer;
+    private final Serializer<V> valueSerializer;
+
+    private FileChannel channel;
+    private MappedByteBuffer buffer;
+    private int buckets;
+    private int size;
+    private long end;
+
+    /**
+     * Opens the map stored in the given file, or creates it with
+     * {@code INITIAL_CAPACITY} buckets if the file does not exist.
+     *
+     * @param path the backing file
+     * @param keySerializer converts keys to and from bytes
+     * @param valueSerializer converts values to and from bytes
+     * @throws IOException if the file cannot be opened or is not a map file
+     */
+    public PersistentHashMap(Path path, Serializer<K> keySerializer,
+                             Serializer<V> valueSerializer) throws IOException {
+        this(path, keySerializer, valueSerializer, INITIAL_CAPACITY);
+    }
+
+    /**
+     * Opens the map stored in the given file, or creates it with
+     * {@code initialCapacity} buckets if the file does not exist.
+     *
+     * @param path the backing file
+     * @param keySerializer converts keys to and from bytes
+     * @param valueSerializer converts values to and from bytes
+     * @param initialCapacity number of buckets for a new file
+     * @throws IOException if the file cannot be opened or is not a map file
+     */
+    public PersistentHashMap(Path path, Serializer<K> keySerializer,
+                             Serializer<V> valueSerializer,
+                             int initialCapacity) throws IOException {
+        if (path == null || keySerializer == null || valueSerializer == null) {
+            throw new IllegalArgumentException(
+                    "Cannot accept null path or serializer");
+        }
+        if (initialCapacity < 1) {
+            throw new IllegalArgumentException(
+                    "Initial capacity must be positive");
+        }
+        this.path = path;
+        this.keySerializer = keySerializer;
+        this.valueSerializer = valueSerializer;
+        if (Files.exists(path) && Files.size(path) > 0) {
+            open();
+        } else {
+            create(path, initialCapacity, MIN_LOG_CAPACITY);
+            open();
+        }
+    }
+
+    @Override
+    public V put(K key, V value) {
+        if (key == null || value == null) {
+            throw new IllegalArgumentException(
+                    "Cannot accept null key or value");
+        }
+        byte[] keyBytes = keySerializer.toBytes(key);
+        byte[] valueBytes = valueSerializer.toBytes(value);
+        int hash = Arrays.hashCode(keyBytes);
+        long old = find(keyBytes, hash);
+        V returnValue = old == NONE ? null : readValue(old);
+        // Only a new key adds an entry, so overwrites never regrow.
+        if (old == NONE && (double) (size + 1) / buckets > MAX_LOAD_FACTOR) {
+            resizeBackingTable(2 * buckets + 1);
+        }
+        int bucket = bucketOffset(hash);
+
+        long record = append(buffer.getLong(bucket), hash, keyBytes,
+                valueBytes);
+        buffer.putLong(bucket, record);
+        if (old == NONE) {
+            size++;
+            buffer.putInt(HEADER_SIZE_FIELD, size);
+        } else {
+            unlink(bucket, record, old);
+        }
+        return returnValue;
+    }
+
+    @Override
+    public V remove(K key) {
+        if (key == null) {
+            throw new IllegalArgumentException("Cannot remove null key");
+        }
+        byte[] keyBytes = keySerializer.toBytes(key);
+        int hash = Arrays.hashCode(keyBytes);
+        long record = find(keyBytes, hash);
+        if (record == NONE) {
+            throw new NoSuchElementException("Key is not in the map");
+        }
+        V returnValue = readValue(record);
+        unlink(bucketOffset(hash), NONE, record);
+        size--;
+        buffer.putInt(HEADER_SIZE_FIELD, size);
+        return returnValue;
+    }
+
+    @Override
+    public V get(K key) {
+        if (key == null) {
+            throw new IllegalArgumentException("Cannot get null key");
+        }
+        byte[] keyBytes = keySerializer.toBytes(key);
+        long record = find(keyBytes, Arrays.hashCode(keyBytes));
+        if (record == NONE) {
+            throw new NoSuchElementException("Key is not in the map");
+        }
+        return readValue(record);
+    }
+
+    @Override
+    public boolean containsKey(K key) {
+        if (key == null) {
+            throw new IllegalArgumentException("Cannot search for a null key");
+        }
+        byte[] keyBytes = keySerializer.toBytes(key);
+        return find(keyBytes, Arrays.hashCode(keyBytes)) != NONE;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * The file is truncated and rewritten empty.
+     */
+    @Override
+    public void clear() {
+        try {
+            channel.close();
+            create(path, INITIAL_CAPACITY, MIN_LOG_CAPACITY);
+            open();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public Set<K> keySet() {
+        Set<K> keySet = new HashSet<>();
+        for (int i = 0; i < buckets; i++) {
+            for (long record = buffer.getLong(HEADER_LENGTH + 8 * i);
+                    record != NONE; record = buffer.getLong(
+                            (int) record + RECORD_NEXT)) {
+                keySet.add(readKey(record));
+            }
+        }
+        return keySet;
+    }
+
+    @Override
+    public List<V> values() {
+        List<V> valueList = new ArrayList<>();
+        for (int i = 0; i < buckets; i++) {
+            for (long record = buffer.getLong(HEADER_LENGTH + 8 * i);
+                    record != NONE; record = buffer.getLong(
+                            (int) record + RECORD_NEXT)) {
+                valueList.add(readValue(record));
+            }
+        }
+        return valueList;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * The file is rewritten through {@link #compact()} with the new number of
+     * buckets.
+     */
+    @Override
+    public void resizeBackingTable(int length) {
+        if (length < 1 || length < size) {
+            throw new IllegalArgumentException(
+                    "Cannot resize when length < size or length < 1");
+        }
+        rewrite(length);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * The entries are deserialized copies; changing them does not change the
+     * file.
+     */
+    @Override
+    public MapEntry<K, V>[] getTable() {
+        MapEntry<K, V>[] table = (MapEntry<K, V>[]) new MapEntry[buckets];
+        for (int i = 0; i < buckets; i++) {
+            MapEntry<K, V> tail = null;
+            for (long record = buffer.getLong(HEADER_LENGTH + 8 * i);
+                    record != NONE; record = buffer.getLong(
+                            (int) record + RECORD_NEXT)) {
+                MapEntry<K, V> entry =
+                        new MapEntry<>(readKey(record), readValue(record));
+                if (tail == null) {
+                    table[i] = entry;
+                } else {
+                    tail.setNext(entry);
+                }
+                tail = entry;
+            }
+        }
+        return table;
+    }
+
+    /**
+     * Rewrites the file so that it only holds the live entries, reclaiming
+     * the space of removed and overwritten ones. The new file is built next
+     * to the old one and atomically moved over it, so a crash during
+     * compaction leaves the old file intact.
+     */
+    public void compact() {
+        rewrite(buckets);
+    }
+
+    /**
+     * Returns the number of bytes of the log in use, including records that
+     * are no longer reachable.
+     *
+     * @return length of the file contents up to the end of the log
+     */
+    public long fileLength() {
+        return end;
+    }
+
+    /**
+     * Forces every change made so far out to the storage device.
+     */
+    public void sync() {
+        buffer.force();
+    }
+
+    /**
+     * Marks the file as cleanly closed and releases it. The map cannot be
+     * used afterwards.
+     *
+     * @throws IOException if the file cannot be closed
+     */
+    @Override
+    public void close() throws IOException {
+        buffer.putInt(HEADER_SIZE_FIELD, size);
+        buffer.put(HEADER_CLEAN, (byte) 1);
+        buffer.force();
+        channel.close();
+    }
+
+    /**
+     * Writes an empty map file.
+     *
+     * @param file where to write it
+     * @param bucketCount number of buckets
+     * @param logCapacity bytes to reserve for records
+     * @throws IOException if the file cannot be written
+     */
+    private static void create(Path file, int bucketCount, long logCapacity)
+            throws IOException {
+        long length = HEADER_LENGTH + 8L * bucketCount + logCapacity;
+        if (length > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException(
+                    "Too many buckets for one mapped file");
+        }
+        try (FileChannel out = FileChannel.open(file,
+                StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            MappedByteBuffer header =
+                    out.map(FileChannel.MapMode.READ_WRITE, 0, length);
+            header.putInt(HEADER_MAGIC, MAGIC);
+            header.putInt(HEADER_VERSION, VERSION);
+            header.putInt(HEADER_BUCKETS, bucketCount);
+            header.putInt(HEADER_SIZE_FIELD, 0);
+            header.putLong(HEADER_END, HEADER_LENGTH + 8L * bucketCount);
+            header.put(HEADER_CLEAN, (byte) 1);
+            header.force();
+        }
+    }
+
+    /**
+     * Maps the file at {@code path} and reads its header, running recovery if
+     * it was not closed cleanly.
+     *
+     * @throws IOException if the file cannot be mapped or is not a map file
+     */
+    private void open() throws IOException {
+        channel = FileChannel.open(path, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0,
+                channel.size());
+        if (buffer.getInt(HEADER_MAGIC) != MAGIC
+                || buffer.getInt(HEADER_VERSION) != VERSION) {
+            channel.close();
+            throw new IOException(path + " is not a PersistentHashMap file");
+        }
+        buckets = buffer.getInt(HEADER_BUCKETS);
+        size = buffer.getInt(HEADER_SIZE_FIELD);
+        end = buffer.getLong(HEADER_END);
+        if (buffer.get(HEADER_CLEAN) == 0) {
+            recover();
+        }
+        buffer.put(HEADER_CLEAN, (byte) 0);
+    }
+
+    /**
+     * Repairs a file that was not closed cleanly: unlinks any record that is
+     * shadowed by a newer record for the same key earlier in its chain, and
+     * recounts the entries.
+     */
+    private void recover() {
+        size = 0;
+        for (int i = 0; i < buckets; i++) {
+            int bucket = HEADER_LENGTH + 8 * i;
+            long previous = NONE;
+            long record = buffer.getLong(bucket);
+            while (record != NONE) {
+                long next = buffer.getLong((int) record + RECORD_NEXT);
+                if (isShadowed(buffer.getLong(bucket), record)) {
+                    if (previous == NONE) {
+                        buffer.putLong(bucket, next);
+                    } else {
+                        buffer.putLong((int) previous + RECORD_NEXT, next);
+                    }
+                } else {
+                    size++;
+                    previous = record;
+                }
+                record = next;
+            }
+        }
+        buffer.putInt(HEADER_SIZE_FIELD, size);
+    }
+
+    /**
+     * Checks whether a record with the same key appears before the given
+     * record in its chain.
+     *
+     * @param head first record of the chain
+     * @param record the record to check
+     * @return true if an earlier record has the same key
+     */
+    private boolean isShadowed(long head, long record) {
+        int hash = buffer.getInt((int) record + RECORD_HASH);
+        for (long current = head; current != record;
+                current = buffer.getLong((int) current + RECORD_NEXT)) {
+            if (buffer.getInt((int) current + RECORD_HASH) == hash
+                    && sameKey(current, record)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Copies every reachable record into a new file with the given number of
+     * buckets and replaces the current file with it.
+     *
+     * @param bucketCount number of buckets in the new file
+     */
+    private void rewrite(int bucketCount) {
+        Path temp = path.resolveSibling(path.getFileName() + ".compact");
+        long liveBytes = 0;
+        for (int i = 0; i < buckets; i++) {
+            for (long record = buffer.getLong(HEADER_LENGTH + 8 * i);
+                    record != NONE; record = buffer.getLong(
+                            (int) record + RECORD_NEXT)) {
+                liveBytes += recordLength(record);
+            }
+        }
+        try {
+            create(temp, bucketCount, Math.max(MIN_LOG_CAPACITY, liveBytes));
+            try (FileChannel out = FileChannel.open(temp,
+                    StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                MappedByteBuffer target = out.map(
+                        FileChannel.MapMode.READ_WRITE, 0, out.size());
+                // Views of both files whose positions and limits frame each
+                // record, so that it is copied in one bulk put.
+                ByteBuffer from = buffer.duplicate();
+                ByteBuffer to = target.duplicate();
+                long position = HEADER_LENGTH + 8L * bucketCount;
+                for (int i = 0; i < buckets; i++) {
+                    for (long record = buffer.getLong(HEADER_LENGTH + 8 * i);
+                            record != NONE; record = buffer.getLong(
+                                    (int) record + RECORD_NEXT)) {
+                        int length = recordLength(record);
+                        int hash = buffer.getInt((int) record + RECORD_HASH);
+                        int bucket = HEADER_LENGTH + 8
+                                * ((hash & Integer.MAX_VALUE) % bucketCount);
+                        from.limit(from.capacity());
+                        from.position((int) record);
+                        from.limit((int) record + length);
+                        to.position((int) position);
+                        to.put(from);
+                        target.putLong((int) position + RECORD_NEXT,
+                                target.getLong(bucket));
+                        target.putLong(bucket, position);
+                        position += length;
+                    }
+                }
+                target.putInt(HEADER_SIZE_FIELD, size);
+                target.putLong(HEADER_END, position);
+                target.force();
+            }
+            channel.close();
+            Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+            open();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Writes a new record at the end of the log and advances the end.
+     *
+     * @param next offset of the record to chain after this one
+     * @param hash hash of the key bytes
+     * @param keyBytes serialized key
+     * @param valueBytes serialized value
+     * @return offset of the new record
+     */
+    private long append(long next, int hash, byte[] keyBytes,
+                        byte[] valueBytes) {
+        long record = end;
+        long length = RECORD_DATA + (long) keyBytes.length + valueBytes.length;
+        ensureCapacity(record + length);
+        int position = (int) record;
+        buffer.putLong(position + RECORD_NEXT, next);
+        buffer.putInt(position + RECORD_HASH, hash);
+        buffer.putInt(position + RECORD_KEY_LENGTH, keyBytes.length);
+        buffer.putInt(position + RECORD_VALUE_LENGTH, valueBytes.length);
+        buffer.position(position + RECORD_DATA);
+        buffer.put(keyBytes);
+        buffer.put(valueBytes);
+        end = record + length;
+        buffer.putLong(HEADER_END, end);
+        return record;
+    }
+
+    /**
+     * Grows the file and its mapping so that it is at least the given length.
+     *
+     * @param length required file length in bytes
+     */
+    private void ensureCapacity(long length) {
+        if (length <= buffer.capacity()) {
+            return;
+        }
+        if (length > Integer.MAX_VALUE) {
+            throw new IllegalStateException(
+                    "The map file cannot grow past 2GB; compact it");
+        }
+        long newLength = Math.min(Integer.MAX_VALUE,
+                Math.max(length, 2L * buffer.capacity()));
+        try {
+            buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, newLength);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Unlinks a record from its chain, starting the search for it after the
+     * given record.
+     *
+     * @param bucket file offset of the bucket's head pointer
+     * @param after record known to come before the target, or NONE to search
+     * from the head
+     * @param target the record to unlink
+     */
+    private void unlink(int bucket, long after, long target) {
+        long next = buffer.getLong((int) target + RECORD_NEXT);
+        long previous = after;
+        long current = after == NONE ? buffer.getLong(bucket)
+                : buffer.getLong((int) after + RECORD_NEXT);
+        while (current != target) {
+            previous = current;
+            current = buffer.getLong((int) current + RECORD_NEXT);
+        }
+        if (previous == NONE) {
+            buffer.putLong(bucket, next);
+        } else {
+            buffer.putLong((int) previous + RECORD_NEXT, next);
+        }
+    }
+
+    /**
+     * Finds the record holding the given key.
+     *
+     * @param keyBytes serialized key
+     * @param hash hash of the key bytes
+     * @return offset of the record, or NONE if the key is not in the map
+     */
+    private long find(byte[] keyBytes, int hash) {
+        long record = buffer.getLong(bucketOffset(hash));
+        while (record != NONE) {
+            int position = (int) record;
+            if (buffer.getInt(position + RECORD_HASH) == hash
+                    && buffer.getInt(position + RECORD_KEY_LENGTH)
+                            == keyBytes.length
+                    && keyEquals(position, keyBytes)) {
+                return record;
+            }
+            record = buffer.getLong(position + RECORD_NEXT);
+        }
+        return NONE;
+    }
+
+    /**
+     * Compares the key of a record with serialized key bytes.
+     *
+     * @param position offset of the record
+     * @param keyBytes the key to compare with
+     * @return true if the bytes are equal
+     */
+    private boolean keyEquals(int position, byte[] keyBytes) {
+        int data = position + RECORD_DATA;
+        for (int i = 0; i < keyBytes.length; i++) {
+            if (buffer.get(data + i) != keyBytes[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Compares the keys of two records.
+     *
+     * @param a offset of one record
+     * @param b offset of the other record
+     * @return true if the serialized keys are equal
+     */
+    private boolean sameKey(long a, long b) {
+        int length = buffer.getInt((int) a + RECORD_KEY_LENGTH);
+        if (length != buffer.getInt((int) b + RECORD_KEY_LENGTH)) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (buffer.get((int) a + RECORD_DATA + i)
+                    != buffer.get((int) b + RECORD_DATA + i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Computes the file offset of the head pointer of a key's bucket.
+     *
+     * @param hash hash of the key bytes
+     * @return offset of the bucket's head pointer
+     */
+    private int bucketOffset(int hash) {
+        return HEADER_LENGTH + 8 * ((hash & Integer.MAX_VALUE) % buckets);
+    }
+
+    /**
+     * Computes the total length of a record.
+     *
+     * @param record offset of the record
+     * @return length of the record in bytes
+     */
+    private int recordLength(long record) {
+        return RECORD_DATA + buffer.getInt((int) record + RECORD_KEY_LENGTH)
+                + buffer.getInt((int) record + RECORD_VALUE_LENGTH);
+    }
+
+    /**
+     * Deserializes the key of a record.
+     *
+     * @param record offset of the record
+     * @return the key
+     */
+    private K readKey(long record) {
+        byte[] bytes = new byte[buffer.getInt((int) record
+                + RECORD_KEY_LENGTH)];
+        buffer.position((int) record + RECORD_DATA);
+        buffer.get(bytes);
+        return keySerializer.fromBytes(bytes);
+    }
+
+    /**
+     * Deserializes the value of a record.
+     *
+     * @param record offset of the record
+     * @return the value
+     */
+    private V readValue(long record) {
+        int keyLength = buffer.getInt((int) record + RECORD_KEY_LENGTH);
+        byte[] bytes =
+                new byte[buffer.getInt((int) record + RECORD_VALUE_LENGTH)];
+        buffer.position((int) record + RECORD_DATA + keyLength);
+        buffer.get(bytes);
+        return valueSerializer.fromBytes(bytes);
+    }
+}
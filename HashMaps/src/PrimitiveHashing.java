@@ -0,0 +1,75 @@
+/**
+ * Hashing helpers shared by the open addressing maps.
+ *
+ * @author Karel Klein-Cardena
+ * @version 1.0
+ */
+final class PrimitiveHashing {
+
+    /**
+     * 2^32 divided by the golden ratio, used for fibonacci hashing.
+     */
+    static final int INT_PHI = 0x9E3779B9;
+
+    /**
+     * 2^64 divided by the golden ratio, used for fibonacci hashing.
+     */
+    static final long LONG_PHI = 0x9E3779B97F4A7C15L;
+
+    /**
+     * The largest power of two that fits in an int.
+     */
+    static final int MAX_TABLE_LENGTH = 1 << 30;
+
+    /**
+     * Do not instantiate.
+     */
+    private PrimitiveHashing() {
+    }
+
+    /**
+     * Scrambles an int key so that its low bits depend on all of its bits.
+     * Sequential keys are spread across the table instead of filling one
+     * long probe run.
+     *
+     * @param key the key to hash
+     * @return the mixed hash
+     */
+    static int mix(int key) {
+        int h = key * INT_PHI;
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * Scrambles a long key so that its low bits depend on all of its bits.
+     *
+     * @param key the key to hash
+     * @return the mixed hash
+     */
+    static int mix(long key) {
+        long h = key * LONG_PHI;
+        h ^= h >>> 32;
+        return (int) (h ^ (h >>> 16));
+    }
+
+    /**
+     * Computes the power of two table length needed to hold the given
+     * number of entries without exceeding the load factor.
+     *
+     * @param expectedSize number of entries to hold
+     * @param loadFactor maximum fraction of filled slots
+     * @return a power of two table length
+     */
+    static int tableLength(int expectedSize, double loadFactor) {
+        long needed = (long) Math.ceil(expectedSize / loadFactor) + 1;
+        if (needed > MAX_TABLE_LENGTH) {
+            throw new IllegalArgumentException(
+                    "Cannot size a map for " + expectedSize + " entries");
+        }
+        int length = 2;
+        while (length < needed) {
+            length <<= 1;
+        }
+        return length;
+    }
+}
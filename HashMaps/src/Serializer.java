@@ -0,0 +1,75 @@
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Converts keys or values to and from bytes for a PersistentHashMap.
+ *
+ * Two equal objects must serialize to the same bytes, because the map hashes
+ * and compares the serialized form.
+ *
+ * @author Karel Klein-Cardena
+ * @version 1.0
+ */
+public interface Serializer<T> {
+
+    /**
+     * Serializes Strings as UTF-8.
+     */
+    Serializer<String> STRING = new Serializer<String>() {
+        @Override
+        public byte[] toBytes(String item) {
+            return item.getBytes(StandardCharsets.UTF_8);
+        }
+
+        @Override
+        public String fromBytes(byte[] bytes) {
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+    };
+
+    /**
+     * Serializes Integers as four big-endian bytes.
+     */
+    Serializer<Integer> INTEGER = new Serializer<Integer>() {
+        @Override
+        public byte[] toBytes(Integer item) {
+            return ByteBuffer.allocate(Integer.BYTES).putInt(item).array();
+        }
+
+        @Override
+        public Integer fromBytes(byte[] bytes) {
+            return ByteBuffer.wrap(bytes).getInt();
+        }
+    };
+
+    /**
+     * Serializes Longs as eight big-endian bytes.
+     */
+    Serializer<Long> LONG = new Serializer<Long>() {
+        @Override
+        public byte[] toBytes(Long item) {
+            return ByteBuffer.allocate(Long.BYTES).putLong(item).array();
+        }
+
+        @Override
+        public Long fromBytes(byte[] bytes) {
+            return ByteBuffer.wrap(bytes).getLong();
+        }
+    };
+
+    /**
+     * Converts an object to bytes.
+     *
+     * @param item the object to convert, never null
+     * @return the serialized form
+     */
+    byte[] toBytes(T item);
+
+    /**
+     * Rebuilds an object from bytes produced by {@link #toBytes(Object)}.
+     *
+     * @param bytes the serialized form
+     * @return the object
+     */
+    T fromBytes(byte[] bytes);
+}
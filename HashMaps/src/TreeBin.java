@@ -0,0 +1,414 @@
+/**
+ * An AVL tree indexing the entries of one overfull HashMap bucket.
+ *
+ * The bucket's MapEntry chain stays the source of truth, so iteration and
+ * {@code getTable()} see an ordinary chain. The tree only makes lookups and
+ * removals in that chain logarithmic: it orders the entries by hash code and
+ * then by {@code compareTo}, and every node remembers the entry in front of
+ * its own in the chain so that unlinking does not have to walk the chain.
+ *
+ * All keys in a bin belong to one class implementing Comparable. Its
+ * {@code compareTo} need not be consistent with {@code equals}: nodes that
+ * tie are kept in the order they were added, and a lookup that meets a tie
+ * it cannot settle with {@code equals} searches both sides of it, so such
+ * keys only cost time, as in java.util.HashMap.
+ *
+ * @author Karel Klein-Cardena
+ * @version 1.0
+ */
+final class TreeBin<K, V> {
+
+    /**
+     * A tree node referring to one entry of the chain.
+     */
+    static final class Node<K, V> {
+        private final MapEntry<K, V> entry;
+        private final int hash;
+        private final long order;
+        private MapEntry<K, V> previous;
+        private Node<K, V> left;
+        private Node<K, V> right;
+        private int height;
+
+        /**
+         * Creates a leaf node.
+         *
+         * @param entry the chain entry
+         * @param previous the entry in front of it in the chain
+         * @param order when the node was added, to order tied keys
+         */
+        Node(MapEntry<K, V> entry, MapEntry<K, V> previous, long order) {
+            this.entry = entry;
+            this.hash = entry.getKey().hashCode();
+            this.order = order;
+            this.previous = previous;
+        }
+
+        /**
+         * Gets the chain entry of this node.
+         *
+         * @return the entry
+         */
+        MapEntry<K, V> getEntry() {
+            return entry;
+        }
+
+        /**
+         * Gets the entry in front of this node's entry in the chain.
+         *
+         * @return the previous entry, or null if this entry is the head
+         */
+        MapEntry<K, V> getPrevious() {
+            return previous;
+        }
+    }
+
+    private final Class<?> keyClass;
+    private Node<K, V> root;
+    private int size;
+    private int probes;
+    private long added;
+
+    /**
+     * Builds a tree over every entry of a chain. The caller must have checked
+     * the keys with {@link #keyClassOf(MapEntry)}.
+     *
+     * @param head first entry of the chain
+     * @param keyClass the class shared by every key in the chain
+     */
+    TreeBin(MapEntry<K, V> head, Class<?> keyClass) {
+        this.keyClass = keyClass;
+        MapEntry<K, V> previous = null;
+        for (MapEntry<K, V> current = head; current != null;
+                current = current.getNext()) {
+            root = addr(new Node<>(current, previous, added++), root);
+            previous = current;
+        }
+    }
+
+    /**
+     * Finds the class shared by every key in a chain, if that class can be
+     * used to order a tree.
+     *
+     * @param head first entry of the chain
+     * @return the common key class, or null if the keys have different
+     * classes or are not Comparable
+     */
+    static Class<?> keyClassOf(MapEntry<?, ?> head) {
+        Class<?> keyClass = head.getKey().getClass();
+        if (!Comparable.class.isAssignableFrom(keyClass)) {
+            return null;
+        }
+        for (MapEntry<?, ?> current = head; current != null;
+                current = current.getNext()) {
+            if (current.getKey().getClass() != keyClass) {
+                return null;
+            }
+        }
+        return keyClass;
+    }
+
+    /**
+     * Checks whether a key can be stored in this tree.
+     *
+     * @param key the key
+     * @return true if the key has this tree's key class
+     */
+    boolean accepts(K key) {
+        return key.getClass() == keyClass;
+    }
+
+    /**
+     * Gets the number of entries in the tree.
+     *
+     * @return the size
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Gets the number of nodes compared by the last call to
+     * {@link #find(Object)}.
+     *
+     * @return the probe count
+     */
+    int lastProbes() {
+        return probes;
+    }
+
+    /**
+     * Finds the entry for a key.
+     *
+     * @param key the key
+     * @return the entry, or null if the key is not in the tree
+     */
+    MapEntry<K, V> find(K key) {
+        Node<K, V> node = findNode(key);
+        return node == null ? null : node.entry;
+    }
+
+    /**
+     * Records an entry that was just linked in at the head of the chain, in
+     * front of {@code oldHead}.
+     *
+     * @param entry the new head entry
+     * @param oldHead the entry that was the head before, or null
+     */
+    void addFirst(MapEntry<K, V> entry, MapEntry<K, V> oldHead) {
+        if (oldHead != null) {
+            findNode(oldHead.getKey()).previous = entry;
+        }
+        root = addr(new Node<>(entry, null, added++), root);
+    }
+
+    /**
+     * Removes the node for a key. The caller unlinks the entry from the
+     * chain using the node's previous entry and then calls
+     * {@link #setPrevious(MapEntry, MapEntry)} for the entry that followed it.
+     *
+     * @param key the key to remove
+     * @return the removed node, or null if the key is not in the tree
+     */
+    Node<K, V> remove(K key) {
+        Node<K, V> node = findNode(key);
+        if (node != null) {
+            root = remover(node, root);
+        }
+        return node;
+    }
+
+    /**
+     * Updates the chain predecessor of an entry.
+     *
+     * @param entry an entry in this tree
+     * @param previous the entry now in front of it, or null if it became the
+     * head
+     */
+    void setPrevious(MapEntry<K, V> entry, MapEntry<K, V> previous) {
+        findNode(entry.getKey()).previous = previous;
+    }
+
+    /**
+     * Finds the node for a key, counting the nodes visited.
+     *
+     * @param key the key
+     * @return the node, or null if the key is not in the tree
+     */
+    private Node<K, V> findNode(K key) {
+        probes = 0;
+        return findNode(key.hashCode(), key, root);
+    }
+
+    /**
+     * Finds the node for a key in a subtree. A node whose key ties with
+     * this one but is not equal to it says nothing about which side the
+     * key is on, so both are searched.
+     *
+     * @param hash hash code of the key
+     * @param key the key
+     * @param current root of the subtree
+     * @return the node, or null if the key is not in the subtree
+     */
+    private Node<K, V> findNode(int hash, K key, Node<K, V> current) {
+        while (current != null) {
+            probes++;
+            int cmp = compare(hash, key, current);
+            if (cmp == 0) {
+                if (key.equals(current.entry.getKey())) {
+                    return current;
+                }
+                Node<K, V> found = findNode(hash, key, current.left);
+                if (found != null) {
+                    return found;
+                }
+                current = current.right;
+            } else {
+                current = cmp < 0 ? current.left : current.right;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Orders a key against a node, by hash code first and then by
+     * {@code compareTo}.
+     *
+     * @param hash hash code of the key
+     * @param key the key
+     * @param node the node to compare against
+     * @return negative, zero or positive like {@code compareTo}
+     */
+    private int compare(int hash, K key, Node<K, V> node) {
+        if (hash != node.hash) {
+            return hash < node.hash ? -1 : 1;
+        }
+        return ((Comparable<Object>) key).compareTo(node.entry.getKey());
+    }
+
+    /**
+     * Orders two nodes like {@link #compare(int, Object, Node)}, and by
+     * when they were added if their keys tie, so that every node has one
+     * place in the tree.
+     *
+     * @param node the node to place
+     * @param other the node to compare against
+     * @return negative or positive
+     */
+    private int compare(Node<K, V> node, Node<K, V> other) {
+        int cmp = compare(node.hash, node.entry.getKey(), other);
+        if (cmp != 0) {
+            return cmp;
+        }
+        return node.order < other.order ? -1 : node.order > other.order ? 1
+                : 0;
+    }
+
+    /**
+     * Adds a node below the given subtree and rebalances on the way up.
+     *
+     * @param node the node to add
+     * @param current root of the subtree
+     * @return the new root of the subtree
+     */
+    private Node<K, V> addr(Node<K, V> node, Node<K, V> current) {
+        if (current == null) {
+            size++;
+            return node;
+        }
+        if (compare(node, current) < 0) {
+            current.left = addr(node, current.left);
+        } else {
+            current.right = addr(node, current.right);
+        }
+        return balanceTree(current);
+    }
+
+    /**
+     * Removes a node from the given subtree and rebalances on the way up.
+     *
+     * @param node the node to remove
+     * @param current root of the subtree
+     * @return the new root of the subtree
+     */
+    private Node<K, V> remover(Node<K, V> node, Node<K, V> current) {
+        if (current == node) {
+            size--;
+            if (current.left == null) {
+                return current.right;
+            } else if (current.right == null) {
+                return current.left;
+            }
+            Node<K, V> successor = current.right;
+            while (successor.left != null) {
+                successor = successor.left;
+            }
+            successor.right = removeMin(current.right);
+            successor.left = current.left;
+            return balanceTree(successor);
+        }
+        if (compare(node, current) < 0) {
+            current.left = remover(node, current.left);
+        } else {
+            current.right = remover(node, current.right);
+        }
+        return balanceTree(current);
+    }
+
+    /**
+     * Detaches the smallest node of a subtree.
+     *
+     * @param current root of the subtree
+     * @return the new root of the subtree
+     */
+    private Node<K, V> removeMin(Node<K, V> current) {
+        if (current.left == null) {
+            return current.right;
+        }
+        current.left = removeMin(current.left);
+        return balanceTree(current);
+    }
+
+    /**
+     * Calculates the height of a node, -1 for an empty subtree.
+     *
+     * @param curr the node
+     * @return its height
+     */
+    private int nodeHeight(Node<K, V> curr) {
+        return curr == null ? -1 : curr.height;
+    }
+
+    /**
+     * Calculates the balance factor of a node.
+     *
+     * @param curr the node
+     * @return left height minus right height
+     */
+    private int nodeBF(Node<K, V> curr) {
+        return nodeHeight(curr.left) - nodeHeight(curr.right);
+    }
+
+    /**
+     * Recomputes the height of a node from its children.
+     *
+     * @param curr the node
+     */
+    private void updateHeight(Node<K, V> curr) {
+        curr.height = Math.max(nodeHeight(curr.left), nodeHeight(curr.right))
+                + 1;
+    }
+
+    /**
+     * Performs a left rotation.
+     *
+     * @param curr root of the subtree
+     * @return the new root of the subtree
+     */
+    private Node<K, V> leftRotation(Node<K, V> curr) {
+        Node<K, V> newRoot = curr.right;
+        curr.right = newRoot.left;
+        newRoot.left = curr;
+        updateHeight(curr);
+        updateHeight(newRoot);
+        return newRoot;
+    }
+
+    /**
+     * Performs a right rotation.
+     *
+     * @param curr root of the subtree
+     * @return the new root of the subtree
+     */
+    private Node<K, V> rightRotation(Node<K, V> curr) {
+        Node<K, V> newRoot = curr.left;
+        curr.left = newRoot.right;
+        newRoot.right = curr;
+        updateHeight(curr);
+        updateHeight(newRoot);
+        return newRoot;
+    }
+
+    /**
+     * Updates the height of a node and rotates if it became unbalanced.
+     *
+     * @param current root of the subtree
+     * @return the new root of the subtree
+     */
+    private Node<K, V> balanceTree(Node<K, V> current) {
+        updateHeight(current);
+        int balanceFactor = nodeBF(current);
+        if (balanceFactor < -1) {
+            if (nodeBF(current.right) > 0) {
+                current.right = rightRotation(current.right);
+            }
+            current = leftRotation(current);
+        } else if (balanceFactor > 1) {
+            if (nodeBF(current.left) < 0) {
+                current.left = leftRotation(current.left);
+            }
+            current = rightRotation(current);
+        }
+        return current;
+    }
+}
@@ -0,0 +1,151 @@
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for BoundedCache.
+ *
+ * @author Karel Klein-Cardena
+ * @version 1.0
+ */
+public class BoundedCacheTests {
+
+    private static final int TIMEOUT = 2000;
+
+    // Current time of the fake clock handed to caches with a time to live.
+    private long now;
+
+    @Test(timeout = TIMEOUT)
+    public void testLruEviction() {
+        BoundedCache<Integer, String> cache = new BoundedCache<>(3);
+        cache.put(1, "one");
+        cache.put(2, "two");
+        cache.put(3, "three");
+        assertEquals("one", cache.get(1));
+        cache.put(4, "four");
+
+        assertEquals(3, cache.size());
+        assertFalse(cache.containsKey(2));
+        assertTrue(cache.containsKey(1));
+        assertTrue(cache.containsKey(3));
+        assertEquals(1, cache.getEvictionCount());
+
+        cache.put(5, "five");
+        assertFalse(cache.containsKey(3));
+        assertEquals("one", cache.get(1));
+        assertEquals("four", cache.get(4));
+        assertEquals("five", cache.get(5));
+    }
+
+    @Test(timeout = TIMEOUT)
+    public void testClockEviction() {
+        BoundedCache<Integer, String> cache =
+                new BoundedCache<>(3, EvictionPolicy.CLOCK);
+        cache.put(1, "one");
+        cache.put(2, "two");
+        cache.put(3, "three");
+        cache.get(1);
+        cache.get(2);
+        cache.put(4, "four");
+
+        // 1 and 2 got a second chance, so 3 was evicted.
+        assertFalse(cache.containsKey(3));
+        cache.put(5, "five");
+        // All bits were cleared by the last sweep, so the oldest entry goes.
+        assertFalse(cache.containsKey(1));
+        assertTrue(cache.containsKey(2));
+        assertTrue(cache.containsKey(4));
+        assertTrue(cache.containsKey(5));
+        assertEquals(2, cache.getEvictionCount());
+    }
+
+    @Test(timeout = TIMEOUT)
+    public void testCounters() {
+        BoundedCache<String, Integer> cache = new BoundedCache<>(2);
+        assertNull(cache.get("a"));
+        cache.put("a", 1);
+        assertEquals(Integer.valueOf(1), cache.put("a", 2));
+        assertEquals(Integer.valueOf(2), cache.get("a"));
+        assertEquals(Integer.valueOf(2), cache.get("a"));
+        assertNull(cache.get("b"));
+
+        assertEquals(2, cache.getHitCount());
+        assertEquals(2, cache.getMissCount());
+        assertEquals(0.5, cache.hitRate(), 1e-9);
+        assertEquals(Integer.valueOf(2), cache.remove("a"));
+        assertNull(cache.remove("a"));
+        assertEquals(0, cache.size());
+    }
+
+    @Test(timeout = TIMEOUT)
+    public void testTimeToLive() {
+        now = 0;
+        BoundedCache<String, String> cache = new BoundedCache<>(2,
+                EvictionPolicy.LRU, 100, () -> now);
+        cache.put("a", "apple");
+        now = 50;
+        cache.put("b", "banana");
+        assertEquals("apple", cache.get("a"));
+
+        now = 100;
+        assertNull(cache.get("a"));
+        assertEquals(1, cache.getExpirationCount());
+        assertEquals(1, cache.size());
+        assertEquals("banana", cache.get("b"));
+
+        // Putting again restarts the time to live.
+        cache.put("b", "blueberry");
+        now = 199;
+        assertEquals("blueberry", cache.get("b"));
+
+        // An expired entry at the front is dropped, not counted as evicted.
+        cache.put("c", "cherry");
+        now = 300;
+        cache.put("d", "date");
+        cache.put("e", "elderberry");
+        assertEquals(0, cache.getEvictionCount());
+        assertEquals(3, cache.getExpirationCount());
+        assertTrue(cache.containsKey("d"));
+        assertTrue(cache.containsKey("e"));
+        assertEquals(2, cache.size());
+    }
+
+    @Test(timeout = TIMEOUT)
+    public void testManyKeys() {
+        for (EvictionPolicy policy : EvictionPolicy.values()) {
+            BoundedCache<Integer, Integer> cache =
+                    new BoundedCache<>(100, policy, 1, TimeUnit.HOURS);
+            for (int i = 0; i < 10000; i++) {
+                cache.put(i, i);
+                if (i % 3 == 0) {
+                    cache.get(i / 2);
+                }
+            }
+            assertEquals(100, cache.size());
+            assertEquals(9900, cache.getEvictionCount());
+            for (int i = 9950; i < 10000; i++) {
+                assertTrue(cache.containsKey(i));
+            }
+            cache.clear();
+            assertEquals(0, cache.size());
+            assertFalse(cache.containsKey(9999));
+            cache.put(1, 1);
+            assertEquals(Integer.valueOf(1), cache.get(1));
+        }
+    }
+
+    @Test(timeout = TIMEOUT, expected = IllegalArgumentException.class)
+    public void testNonPositiveCapacity() {
+        new BoundedCache<String, String>(0);
+    }
+
+    @Test(timeout = TIMEOUT, expected = IllegalArgumentException.class)
+    public void testNullKey() {
+        new BoundedCache<String, String>(1).put(null, "value");
+    }
+}
@@ -0,0 +1,162 @@
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for the lock-striped ConcurrentHashMap.
+ *
+ * @author Karel Klein-Cardena
+ * @version 1.0
+ */
+public class ConcurrentHashMapTests {
+
+    private static final int TIMEOUT = 5000;
+    private static final int THREADS = 8;
+    private ConcurrentHashMap<Integer, Integer> map;
+
+    @Before
+    public void setUp() {
+        map = new ConcurrentHashMap<>();
+    }
+
+    @Test(timeout = TIMEOUT)
+    public void testSingleThreaded() {
+        assertNull(map.put(1, 10));
+        assertNull(map.put(12, 120));
+        assertEquals(Integer.valueOf(10), map.put(1, 11));
+        assertEquals(2, map.size());
+        assertEquals(Integer.valueOf(11), map.get(1));
+        assertTrue(map.containsKey(12));
+        assertEquals(Integer.valueOf(120), map.remove(12));
+        assertFalse(map.containsKey(12));
+        assertEquals(1, map.size());
+        map.clear();
+        assertEquals(0, map.size());
+        assertEquals(HashMapInterface.INITIAL_CAPACITY, map.getTable().length);
+    }
+
+    @Test(timeout = TIMEOUT, expected = NoSuchElementException.class)
+    public void testRemoveMissing() {
+        map.put(1, 1);
+        map.remove(2);
+    }
+
+    @Test(timeout = TIMEOUT)
+    public void testRegrow() {
+        for (int i = 0; i < 1000; i++) {
+            map.put(i, i);
+        }
+        assertEquals(1000, map.size());
+        assertTrue(map.getTable().length > 1000);
+        assertEquals(1000, map.keySet().size());
+        assertEquals(1000, map.values().size());
+        map.resizeBackingTable(5000);
+        assertEquals(5000, map.getTable().length);
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(Integer.valueOf(i), map.get(i));
+        }
+    }
+
+    @Test(timeout = TIMEOUT)
+    public void testRegrowThreshold() {
+        // the whole map, not one stripe, has to pass the load factor
+        for (int i = 0; i < 7; i++) {
+            map.put(i, i);
+            assertEquals(HashMapInterface.INITIAL_CAPACITY,
+                    map.getTable().length);
+        }
+        map.put(7, 7);
+        assertEquals(2 * HashMapInterface.INITIAL_CAPACITY + 1,
+                map.getTable().length);
+    }
+
+    @Test(timeout = TIMEOUT)
+    public void testViewsDuringRegrow() throws InterruptedException {
+        for (int i = 0; i < 100; i++) {
+            map.put(i, i);
+        }
+        boolean[] failed = new boolean[1];
+        Thread reader = new Thread(() -> {
+            for (int round = 0; round < 200; round++) {
+                // every early entry exactly once, even while buckets move
+                int[] seen = new int[100];
+                for (Integer value : map.values()) {
+                    if (value < 100) {
+                        seen[value]++;
+                    }
+                }
+                for (int count : seen) {
+                    if (count != 1) {
+                        failed[0] = true;
+                    }
+                }
+            }
+        });
+        reader.start();
+        for (int i = 100; i < 50000; i++) {
+            map.put(i, i);
+        }
+        reader.join();
+        assertFalse(failed[0]);
+        assertEquals(50000, map.size());
+        assertEquals(50000, map.values().size());
+    }
+
+    @Test(timeout = TIMEOUT)
+    public void testConcurrentWriters() throws InterruptedException {
+        int perThread = 5000;
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            final int offset = t * perThread;
+            threads.add(new Thread(() -> {
+                for (int i = offset; i < offset + perThread; i++) {
+                    map.put(i, i);
+                }
+                for (int i = offset; i < offset + perThread; i += 2) {
+                    map.remove(i);
+                }
+            }));
+        }
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(THREADS * perThread / 2, map.size());
+        for (int i = 0; i < THREADS * perThread; i++) {
+            assertEquals(i % 2 == 1, map.containsKey(i));
+        }
+    }
+
+    @Test(timeout = TIMEOUT)
+    public void testReadersDuringWrites() throws InterruptedException {
+        for (int i = 0; i < 100; i++) {
+            map.put(i, i);
+        }
+        boolean[] failed = new boolean[1];
+        Thread reader = new Thread(() -> {
+            for (int round = 0; round < 200; round++) {
+                for (int i = 0; i < 100; i++) {
+                    if (!map.get(i).equals(i)) {
+                        failed[0] = true;
+                    }
+                }
+            }
+        });
+        reader.start();
+        for (int i = 100; i < 20000; i++) {
+            map.put(i, i);
+        }
+        reader.join();
+        assertFalse(failed[0]);
+    }
+}
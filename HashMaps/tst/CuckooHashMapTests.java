@@ -0,0 +1,133 @@
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.NoSuchElementException;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for CuckooHashMap.
+ *
+ * @author Karel Klein-Cardena
+ * @version 1.0
+ */
+public class CuckooHashMapTests {
+
+    private static final int TIMEOUT = 2000;
+    private CuckooHashMap<String, String> map;
+
+    @Before
+    public void setUp() {
+        map = new CuckooHashMap<>();
+    }
+
+    @Test(timeout = TIMEOUT)
+    public void testPutGetRemove() {
+        assertNull(map.put("Carey", "TA: 1332"));
+        assertNull(map.put("Mary", "Professor: 1332"));
+        assertEquals("TA: 1332", map.put("Carey", "TA: 2050"));
+        assertEquals(2, map.size());
+        assertEquals("TA: 2050", map.get("Carey"));
+        assertTrue(map.containsKey("Mary"));
+        assertEquals("Professor: 1332", map.remove("Mary"));
+        assertFalse(map.containsKey("Mary"));
+        assertEquals(1, map.size());
+        assertEquals(1, map.keySet().size());
+        assertEquals(1, map.values().size());
+    }
+
+    @Test(timeout = TIMEOUT)
+    public void testManyKeys() {
+        CuckooHashMap<Integer, Integer> ints = new CuckooHashMap<>();
+        Random rand = new Random(1332);
+        int[] keys = new int[100000];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = rand.nextInt();
+            ints.put(keys[i], i);
+        }
+        int length = ints.getTable().length;
+        assertTrue(ints.size() <= CuckooHashMap.MAX_LOAD_FACTOR * length);
+        for (int i = 0; i < keys.length; i++) {
+            assertTrue(ints.containsKey(keys[i]));
+        }
+        for (int i = 0; i < keys.length; i += 2) {
+            ints.remove(keys[i]);
+        }
+        for (int i = 1; i < keys.length; i += 2) {
+            assertTrue(ints.containsKey(keys[i]));
+        }
+        assertEquals(ints.size(), ints.keySet().size());
+        assertTrue(ints.stashSize() <= CuckooHashMap.STASH_SIZE);
+    }
+
+    @Test(timeout = TIMEOUT)
+    public void testNoChains() {
+        for (int i = 0; i < 1000; i++) {
+            map.put("key" + i, "value" + i);
+        }
+        int filled = 0;
+        for (MapEntry<String, String> entry : map.getTable()) {
+            if (entry != null) {
+                assertNull(entry.getNext());
+                filled++;
+            }
+        }
+        assertEquals(1000, filled + map.stashSize());
+    }
+
+    @Test(timeout = TIMEOUT)
+    public void testEqualHashCodes() {
+        CuckooHashMap<Object, Integer> colliding = new CuckooHashMap<>();
+        Object[] keys = new Object[50];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = new Object() {
+                @Override
+                public int hashCode() {
+                    return 7;
+                }
+            };
+            colliding.put(keys[i], i);
+        }
+        assertEquals(50, colliding.size());
+        for (int i = 0; i < keys.length; i++) {
+            assertEquals(Integer.valueOf(i), colliding.get(keys[i]));
+        }
+        assertTrue(colliding.getTable().length < 1000);
+        for (int i = 0; i < keys.length; i++) {
+            assertEquals(Integer.valueOf(i), colliding.remove(keys[i]));
+        }
+        assertEquals(0, colliding.size());
+    }
+
+    @Test(timeout = TIMEOUT)
+    public void testResizeAndClear() {
+        for (int i = 0; i < 20; i++) {
+            map.put("key" + i, "value" + i);
+        }
+        map.resizeBackingTable(200);
+        assertEquals(256, map.getTable().length);
+        for (int i = 0; i < 20; i++) {
+            assertEquals("value" + i, map.get("key" + i));
+        }
+        map.clear();
+        assertEquals(0, map.size());
+        assertEquals(16, map.getTable().length);
+        assertFalse(map.containsKey("key1"));
+    }
+
+    @Test(timeout = TIMEOUT, expected = NoSuchElementException.class)
+    public void testGetMissing() {
+        map.get("nobody");
+    }
+
+    @Test(timeout = TIMEOUT, expected = IllegalArgumentException.class)
+    public void testResizeTooSmall() {
+        map.put("a", "b");
+        map.put("c", "d");
+        map.resizeBackingTable(1);
+    }
+}
@@ -0,0 +1,600 @@
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * Rough timing harness for the hash maps in this project.
+ *
+ * This is not a JUnit test. Run it with the benchmark names to execute as
+ * arguments, or no arguments to run all of them, e.g.
+ * {@code java HashMapBenchmark primitive}.
+ *
+ * Every benchmark repeats its work a few times and reports the best run so
+ * that JIT warm-up does not dominate the numbers.
+ *
+ * @author Karel Klein-Cardena
+ * @version 1.0
+ */
+public class HashMapBenchmark {
+
+    private static final int SLOTS = 1 << 21;
+    private static final int ENTRIES = 1 << 21;
+    private static final int[] MIGRATION_BUDGETS = {0, 4, 16, 64};
+    private static final int OPS_PER_THREAD = 1 << 20;
+    private static final int READ_PERCENT = 90;
+    private static final int ROUNDS = 5;
+    private static final double[] LOAD_FACTORS = {0.5, 0.6, 0.7, 0.8, 0.9};
+
+    /**
+     * Keeps results alive so the JIT cannot drop the measured work.
+     */
+    private static long sink;
+
+    /**
+     * Runs the requested benchmarks.
+     *
+     * @param args names of the benchmarks to run; all of them if empty
+     */
+    public static void main(String[] args) {
+        if (shouldRun(args, "primitive")) {
+            primitive();
+        }
+        if (shouldRun(args, "incremental")) {
+            incremental();
+        }
+        if (shouldRun(args, "concurrent")) {
+            concurrent();
+        }
+        if (shouldRun(args, "spreading")) {
+            spreading();
+        }
+        if (shouldRun(args, "collision")) {
+            collision();
+        }
+        if (shouldRun(args, "bulk")) {
+            bulk();
+        }
+        if (shouldRun(args, "cuckoo")) {
+            cuckoo();
+        }
+        System.out.println("sink " + sink);
+    }
+
+    /**
+     * Checks whether the named benchmark was requested.
+     *
+     * @param args command line arguments
+     * @param name benchmark name
+     * @return true if args is empty or contains the name
+     */
+    private static boolean shouldRun(String[] args, String name) {
+        if (args.length == 0) {
+            return true;
+        }
+        for (String arg : args) {
+            if (arg.equals(name)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Builds an array of distinct random int keys. Zero is left out so every
+     * key takes the probing path in the primitive maps, and
+     * {@code Integer.MIN_VALUE} is left out because the chained map indexes
+     * with {@code Math.abs}.
+     *
+     * @param count number of keys
+     * @param seed random seed
+     * @return the keys
+     */
+    static int[] distinctKeys(int count, long seed) {
+        IntObjectMap<Boolean> seen = new IntObjectMap<>(count);
+        int[] keys = new int[count];
+        Random rand = new Random(seed);
+        int filled = 0;
+        while (filled < count) {
+            int key = rand.nextInt();
+            if (key != 0 && key != Integer.MIN_VALUE
+                    && !seen.containsKey(key)) {
+                seen.put(key, Boolean.TRUE);
+                keys[filled++] = key;
+            }
+        }
+        return keys;
+    }
+
+    /**
+     * Prints one result line.
+     *
+     * @param label what was measured
+     * @param nanos best time in nanoseconds
+     * @param ops operations performed in that time
+     */
+    static void report(String label, long nanos, int ops) {
+        System.out.printf("%-40s %10.2f ms %8.1f ns/op%n",
+                label, nanos / 1e6, (double) nanos / ops);
+    }
+
+    /**
+     * Compares put, get and remove on the chained HashMap against the open
+     * addressing maps. The open addressing maps always have {@code SLOTS}
+     * slots and are filled up to the given load factor; the chained map is
+     * pre-sized for the same number of entries so that no resize happens
+     * inside the timed region. The chained map regrows past
+     * {@code MAX_LOAD_FACTOR}, so its load factor is capped there.
+     */
+    private static void primitive() {
+        int[] allKeys = distinctKeys(SLOTS, 1332);
+        for (double loadFactor : LOAD_FACTORS) {
+            int entries = (int) (SLOTS * loadFactor) - 1;
+            int[] keys = Arrays.copyOf(allKeys, entries);
+            System.out.printf("-- load factor %.1f, %d entries%n",
+                    loadFactor, entries);
+            int length = (int) (entries
+                    / Math.min(loadFactor, HashMapInterface.MAX_LOAD_FACTOR)) + 2;
+            long put = Long.MAX_VALUE;
+            long get = Long.MAX_VALUE;
+            long remove = Long.MAX_VALUE;
+            for (int round = 0; round < ROUNDS; round++) {
+                HashMap<Integer, Integer> map = new HashMap<>(length);
+                long start = System.nanoTime();
+                for (int key : keys) {
+                    map.put(key, key);
+                }
+                put = Math.min(put, System.nanoTime() - start);
+                start = System.nanoTime();
+                for (int key : keys) {
+                    sink += map.get(key);
+                }
+                get = Math.min(get, System.nanoTime() - start);
+                start = System.nanoTime();
+                for (int key : keys) {
+                    sink += map.remove(key);
+                }
+                remove = Math.min(remove, System.nanoTime() - start);
+            }
+            report("HashMap<Integer, Integer> put", put, entries);
+            report("HashMap<Integer, Integer> get", get, entries);
+            report("HashMap<Integer, Integer> remove", remove, entries);
+
+            put = Long.MAX_VALUE;
+            get = Long.MAX_VALUE;
+            remove = Long.MAX_VALUE;
+            Integer value = 1;
+            for (int round = 0; round < ROUNDS; round++) {
+                IntObjectMap<Integer> map =
+                        new IntObjectMap<>(entries, loadFactor);
+                long start = System.nanoTime();
+                for (int key : keys) {
+                    map.put(key, value);
+                }
+                put = Math.min(put, System.nanoTime() - start);
+                start = System.nanoTime();
+                for (int key : keys) {
+                    sink += map.get(key);
+                }
+                get = Math.min(get, System.nanoTime() - start);
+                start = System.nanoTime();
+                for (int key : keys) {
+                    sink += map.remove(key);
+                }
+                remove = Math.min(remove, System.nanoTime() - start);
+            }
+            report("IntObjectMap<Integer> put", put, entries);
+            report("IntObjectMap<Integer> get", get, entries);
+            report("IntObjectMap<Integer> remove", remove, entries);
+
+            put = Long.MAX_VALUE;
+            get = Long.MAX_VALUE;
+            remove = Long.MAX_VALUE;
+            for (int round = 0; round < ROUNDS; round++) {
+                LongLongMap map = new LongLongMap(entries, loadFactor);
+                long start = System.nanoTime();
+                for (int key : keys) {
+                    map.put(key, key);
+                }
+                put = Math.min(put, System.nanoTime() - start);
+                start = System.nanoTime();
+                for (int key : keys) {
+                    sink += map.get(key);
+                }
+                get = Math.min(get, System.nanoTime() - start);
+                start = System.nanoTime();
+                for (int key : keys) {
+                    sink += map.remove(key);
+                }
+                remove = Math.min(remove, System.nanoTime() - start);
+            }
+            report("LongLongMap put", put, entries);
+            report("LongLongMap get", get, entries);
+            report("LongLongMap remove", remove, entries);
+        }
+    }
+
+    /**
+     * Measures the latency of every single put while a map grows from its
+     * default capacity, comparing the all-at-once regrow (budget 0) with
+     * incremental regrows of several budgets.
+     *
+     * Only a couple dozen puts regrow the table, so the all-at-once pauses
+     * show up in the max rather than in p99. Run with a fixed heap (equal
+     * -Xms and -Xmx) so that GC pauses do not drown them out.
+     */
+    private static void incremental() {
+        int[] keys = distinctKeys(ENTRIES, 2050);
+        long[] latencies = new long[ENTRIES];
+        for (int budget : MIGRATION_BUDGETS) {
+            long[] best = null;
+            for (int round = 0; round < ROUNDS; round++) {
+                HashMap<Integer, Integer> map =
+                        new HashMap<>(HashMapInterface.INITIAL_CAPACITY, budget);
+                for (int i = 0; i < keys.length; i++) {
+                    long start = System.nanoTime();
+                    map.put(keys[i], i);
+                    latencies[i] = System.nanoTime() - start;
+                }
+                sink += map.size();
+                Arrays.sort(latencies);
+                if (best == null
+                        || latencies[latencies.length - 1] < best[best.length - 1]) {
+                    best = latencies.clone();
+                }
+            }
+            System.out.printf(
+                    "put, migration budget %-3d p50 %6d ns  p99 %6d ns"
+                            + "  p99.99 %8d ns  max %10d ns%n",
+                    budget, percentile(best, 0.5), percentile(best, 0.99),
+                    percentile(best, 0.9999), best[best.length - 1]);
+        }
+    }
+
+    /**
+     * Reads a percentile out of sorted samples.
+     *
+     * @param sorted samples in ascending order
+     * @param fraction the percentile as a fraction in [0, 1)
+     * @return the sample at that percentile
+     */
+    static long percentile(long[] sorted, double fraction) {
+        return sorted[(int) (sorted.length * fraction)];
+    }
+
+    /**
+     * Measures the throughput of a 90% get / 10% put mix from 1 up to one
+     * thread per core, comparing a HashMap guarded by a single lock against
+     * the lock-striped ConcurrentHashMap.
+     */
+    private static void concurrent() {
+        int[] keys = distinctKeys(SLOTS, 4400);
+        int cores = Runtime.getRuntime().availableProcessors();
+        for (int threads = 1; threads <= cores; threads *= 2) {
+            long locked = Long.MAX_VALUE;
+            long striped = Long.MAX_VALUE;
+            for (int round = 0; round < ROUNDS; round++) {
+                HashMap<Integer, Integer> map = new HashMap<>();
+                locked = Math.min(locked, runMix(threads, keys, new MapOps() {
+                    public synchronized void put(int key) {
+                        map.put(key, key);
+                    }
+
+                    public synchronized boolean contains(int key) {
+                        return map.containsKey(key);
+                    }
+                }));
+                ConcurrentHashMap<Integer, Integer> concurrentMap =
+                        new ConcurrentHashMap<>(HashMapInterface.INITIAL_CAPACITY,
+                                Math.max(ConcurrentHashMap.DEFAULT_STRIPES,
+                                        4 * threads));
+                striped = Math.min(striped, runMix(threads, keys, new MapOps() {
+                    public void put(int key) {
+                        concurrentMap.put(key, key);
+                    }
+
+                    public boolean contains(int key) {
+                        return concurrentMap.containsKey(key);
+                    }
+                }));
+            }
+            int ops = threads * OPS_PER_THREAD;
+            System.out.printf("%2d threads  locked HashMap %8.2f Mops/s"
+                            + "  ConcurrentHashMap %8.2f Mops/s%n",
+                    threads, ops * 1e3 / locked, ops * 1e3 / striped);
+        }
+    }
+
+    /**
+     * The two operations of the concurrent benchmark mix.
+     */
+    private interface MapOps {
+
+        /**
+         * Puts a key into the map under test.
+         *
+         * @param key the key
+         */
+        void put(int key);
+
+        /**
+         * Looks a key up in the map under test.
+         *
+         * @param key the key
+         * @return whether the key is present
+         */
+        boolean contains(int key);
+    }
+
+    /**
+     * Runs the read-mostly mix on the given number of threads at once.
+     *
+     * @param threads number of threads
+     * @param keys keys to draw from
+     * @param ops the map under test
+     * @return wall time in nanoseconds from start to the last thread done
+     */
+    private static long runMix(int threads, int[] keys, MapOps ops) {
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(threads);
+        for (int t = 0; t < threads; t++) {
+            final long seed = t;
+            new Thread(() -> {
+                Random rand = new Random(seed);
+                int hits = 0;
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                for (int i = 0; i < OPS_PER_THREAD; i++) {
+                    int key = keys[rand.nextInt(keys.length)];
+                    if (rand.nextInt(100) < READ_PERCENT) {
+                        hits += ops.contains(key) ? 1 : 0;
+                    } else {
+                        ops.put(key);
+                    }
+                }
+                synchronized (HashMapBenchmark.class) {
+                    sink += hits;
+                }
+                done.countDown();
+            }).start();
+        }
+        long begin = System.nanoTime();
+        start.countDown();
+        try {
+            done.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return System.nanoTime() - begin;
+    }
+
+    /**
+     * Builds a map of keys whose hash codes only differ in their high bits, as
+     * produced by keys that pack an id into the upper half of an int, and
+     * reports chain statistics and lookup time for each spreading strategy.
+     * The same keys are also run through power of two tables without any
+     * spreading, which is what plain masking would do.
+     */
+    private static void spreading() {
+        Integer[] keys = new Integer[1 << 16];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = i << 12;
+        }
+        for (HashSpreading spreading : HashSpreading.values()) {
+            HashMap<Integer, Integer> map = new HashMap<>(
+                    HashMapInterface.INITIAL_CAPACITY, 0, spreading, true);
+            for (Integer key : keys) {
+                map.put(key, key);
+            }
+            long get = Long.MAX_VALUE;
+            for (int round = 0; round < ROUNDS; round++) {
+                long start = System.nanoTime();
+                for (Integer key : keys) {
+                    sink += map.get(key);
+                }
+                get = Math.min(get, System.nanoTime() - start);
+            }
+            report(spreading + " get", get, keys.length);
+            System.out.println("    " + map.statistics());
+        }
+        int buckets = HashSpreading.MURMUR.tableLength(
+                (int) (keys.length / HashMapInterface.MAX_LOAD_FACTOR));
+        int[] chains = new int[buckets];
+        int longest = 0;
+        for (Integer key : keys) {
+            longest = Math.max(longest, ++chains[key & (buckets - 1)]);
+        }
+        System.out.printf("plain masking into %d buckets: max chain %d%n",
+                buckets, longest);
+    }
+
+    /**
+     * Compares loading {@code ENTRIES} pairs into a default sized map with
+     * repeated puts against a single putAll, and looking them all up with
+     * repeated gets against a single getAll.
+     */
+    private static void bulk() {
+        int[] raw = distinctKeys(ENTRIES, 4400);
+        Integer[] keys = new Integer[ENTRIES];
+        Integer[] values = new Integer[ENTRIES];
+        for (int i = 0; i < ENTRIES; i++) {
+            keys[i] = raw[i];
+            values[i] = i;
+        }
+        Integer[] out = new Integer[ENTRIES];
+        long put = Long.MAX_VALUE;
+        long putAll = Long.MAX_VALUE;
+        long get = Long.MAX_VALUE;
+        long getAll = Long.MAX_VALUE;
+        for (int round = 0; round < ROUNDS; round++) {
+            HashMap<Integer, Integer> map = new HashMap<>();
+            long start = System.nanoTime();
+            for (int i = 0; i < ENTRIES; i++) {
+                map.put(keys[i], values[i]);
+            }
+            put = Math.min(put, System.nanoTime() - start);
+
+            start = System.nanoTime();
+            for (int i = 0; i < ENTRIES; i++) {
+                out[i] = map.get(keys[i]);
+            }
+            get = Math.min(get, System.nanoTime() - start);
+            sink += out[ENTRIES - 1];
+
+            map = new HashMap<>();
+            start = System.nanoTime();
+            map.putAll(keys, values);
+            putAll = Math.min(putAll, System.nanoTime() - start);
+
+            start = System.nanoTime();
+            sink += map.getAll(keys, out);
+            getAll = Math.min(getAll, System.nanoTime() - start);
+        }
+        report("repeated put", put, ENTRIES);
+        report("putAll", putAll, ENTRIES);
+        report("repeated get", get, ENTRIES);
+        report("getAll", getAll, ENTRIES);
+    }
+
+    /**
+     * Compares the get latency distribution of the chained HashMap and the
+     * CuckooHashMap, both filled with {@code ENTRIES} random keys. Every get
+     * is timed on its own, so the numbers include the cost of
+     * {@code System.nanoTime()}.
+     */
+    private static void cuckoo() {
+        int[] raw = distinctKeys(ENTRIES, 1332);
+        Integer[] keys = new Integer[ENTRIES];
+        for (int i = 0; i < ENTRIES; i++) {
+            keys[i] = raw[i];
+        }
+        HashMap<Integer, Integer> chained = new HashMap<>();
+        CuckooHashMap<Integer, Integer> cuckoo = new CuckooHashMap<>();
+        for (Integer key : keys) {
+            chained.put(key, key);
+            cuckoo.put(key, key);
+        }
+        System.out.println("chained: " + chained.statistics());
+        System.out.printf("cuckoo: %d slots, load %.2f, stash %d%n",
+                cuckoo.getTable().length,
+                (double) cuckoo.size() / cuckoo.getTable().length,
+                cuckoo.stashSize());
+        long[] latencies = new long[ENTRIES];
+        for (int map = 0; map < 2; map++) {
+            HashMapInterface<Integer, Integer> target =
+                    map == 0 ? chained : cuckoo;
+            long[] best = null;
+            for (int round = 0; round < ROUNDS; round++) {
+                for (int i = 0; i < keys.length; i++) {
+                    long start = System.nanoTime();
+                    sink += target.get(keys[i]);
+                    latencies[i] = System.nanoTime() - start;
+                }
+                Arrays.sort(latencies);
+                if (best == null || percentile(latencies, 0.99)
+                        < percentile(best, 0.99)) {
+                    best = latencies.clone();
+                }
+            }
+            System.out.printf(
+                    "get, %-8s p50 %6d ns  p99 %6d ns  p99.99 %8d ns"
+                            + "  max %10d ns%n",
+                    map == 0 ? "chained" : "cuckoo", percentile(best, 0.5),
+                    percentile(best, 0.99), percentile(best, 0.9999),
+                    best[best.length - 1]);
+        }
+    }
+
+    /**
+     * Simulates a hash flooding attack. Strings made of the blocks "Aa" and
+     * "BB" all share one hash code, so every key lands in the same bucket.
+     * Because Strings are Comparable, that bucket is treeified; the same keys
+     * wrapped in a class that is not Comparable show what plain chaining
+     * costs.
+     */
+    private static void collision() {
+        for (int blocks = 10; blocks <= 14; blocks += 2) {
+            String[] keys = collidingStrings(blocks);
+            Object[] wrapped = new Object[keys.length];
+            for (int i = 0; i < keys.length; i++) {
+                wrapped[i] = new Opaque(keys[i]);
+            }
+            time("treeified n=" + keys.length, keys);
+            time("chained   n=" + keys.length, wrapped);
+        }
+    }
+
+    /**
+     * Times filling a map with the given keys and then looking every key up.
+     *
+     * @param label prefix for the result lines
+     * @param keys the keys to insert
+     */
+    private static void time(String label, Object[] keys) {
+        long put = Long.MAX_VALUE;
+        long get = Long.MAX_VALUE;
+        for (int round = 0; round < ROUNDS; round++) {
+            HashMap<Object, Integer> map = new HashMap<>();
+            long start = System.nanoTime();
+            for (Object key : keys) {
+                map.put(key, 1);
+            }
+            put = Math.min(put, System.nanoTime() - start);
+            start = System.nanoTime();
+            for (Object key : keys) {
+                sink += map.get(key);
+            }
+            get = Math.min(get, System.nanoTime() - start);
+        }
+        report(label + " put", put, keys.length);
+        report(label + " get", get, keys.length);
+    }
+
+    /**
+     * Builds every string of the given number of "Aa"/"BB" blocks.
+     *
+     * @param blocks number of two character blocks per string
+     * @return 2^blocks distinct strings with the same hash code
+     */
+    private static String[] collidingStrings(int blocks) {
+        String[] keys = new String[1 << blocks];
+        for (int i = 0; i < keys.length; i++) {
+            StringBuilder sb = new StringBuilder(2 * blocks);
+            for (int b = 0; b < blocks; b++) {
+                sb.append((i >>> b & 1) == 0 ? "Aa" : "BB");
+            }
+            keys[i] = sb.toString();
+        }
+        return keys;
+    }
+
+    /**
+     * Wraps a key so that it keeps its hash code and equality but is not
+     * Comparable, which keeps its bucket a plain chain.
+     */
+    private static final class Opaque {
+        private final String key;
+
+        /**
+         * Wraps a key.
+         *
+         * @param key the key
+         */
+        Opaque(String key) {
+            this.key = key;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Opaque && ((Opaque) o).key.equals(key);
+        }
+
+        @Override
+        public int hashCode() {
+            return key.hashCode();
+        }
+    }
+}
@@ -1,9 +1,18 @@
 import org.junit.Before;
 import org.junit.Test;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.ConcurrentModificationException;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Spliterator;
+
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.fail;
 
 /**
  * HashMapStudentTests
@@ -45,6 +54,432 @@ public class HashMapStudentTests {
         assertEquals("TA: 1332", directory.get(new String("Carey")));
     }
 
+    @Test(timeout = TIMEOUT)
+    public void testIncrementalResize() {
+        HashMap<Integer, Integer> map = new HashMap<>(11, 2);
+        for (int i = 0; i < 8; i++) {
+            map.put(i, i);
+        }
+        assertTrue(map.isMigrating());
+        assertEquals(23, map.getTable().length);
+        for (int i = 0; i < 8; i++) {
+            assertEquals(Integer.valueOf(i), map.get(i));
+        }
+        assertEquals(Integer.valueOf(3), map.put(3, 33));
+        assertEquals(Integer.valueOf(5), map.remove(5));
+        assertFalse(map.containsKey(5));
+        assertEquals(7, map.size());
+        assertEquals(7, map.keySet().size());
+        assertEquals(7, map.values().size());
+        for (int i = 0; i < 11 && map.isMigrating(); i++) {
+            map.containsKey(0);
+        }
+        assertFalse(map.isMigrating());
+        assertEquals(Integer.valueOf(33), map.get(3));
+    }
+
+    @Test(timeout = TIMEOUT)
+    public void testIncrementalResizeManyEntries() {
+        HashMap<Integer, Integer> map = new HashMap<>(11, 1);
+        for (int i = 0; i < 10000; i++) {
+            map.put(i, -i);
+        }
+        assertEquals(10000, map.size());
+        for (int i = 0; i < 10000; i++) {
+            assertEquals(Integer.valueOf(-i), map.get(i));
+        }
+        map.resizeBackingTable(20000);
+        assertFalse(map.isMigrating());
+        assertEquals(10000, map.keySet().size());
+    }
+
+    @Test(timeout = TIMEOUT)
+    public void testStatistics() {
+        HashMap<Integer, Integer> map = new HashMap<>(11, 0,
+                HashSpreading.MODULO, true);
+        for (int i = 0; i < 5; i++) {
+            map.put(i * 11, i);
+        }
+        map.get(0);
+        map.containsKey(1);
+        map.remove(44);
+        HashMapStatistics stats = map.statistics();
+        assertEquals(11, stats.getTableLength());
+        assertEquals(4, stats.getSize());
+        assertEquals(4, stats.getMaxChainLength());
+        assertEquals(10, stats.getChainLengthHistogram()[0]);
+        assertEquals(1, stats.getChainLengthHistogram()[4]);
+        assertEquals(5, stats.getPutCount());
+        assertEquals(2, stats.getGetCount());
+        assertEquals(1, stats.getRemoveCount());
+        assertEquals(5, stats.getMaxProbeLength());
+        assertEquals(2.5, stats.getAverageProbeLength(), 1e-9);
+        map.put(100, 100);
+        map.put(101, 101);
+        map.put(102, 102);
+        map.put(103, 103);
+        assertEquals(1, map.statistics().getResizeCount());
+    }
+
+    @Test(timeout = TIMEOUT)
+    public void testStatisticsWhileMigrating() {
+        HashMap<Integer, Integer> map = new HashMap<>(11, 1,
+                HashSpreading.MODULO, true);
+        // every key lands in bucket 10 of both tables
+        for (int i = 0; i < 9; i++) {
+            map.put(10 + i * 11 * 23, i);
+        }
+        // the 8th put regrew to 23 buckets and the last two moved buckets 0
+        // and 1, so the first 7 entries are still in the old bucket 10
+        assertTrue(map.isMigrating());
+        HashMapStatistics stats = map.statistics();
+        assertEquals(23, stats.getTableLength());
+        int[] histogram = stats.getChainLengthHistogram();
+        assertEquals(8, histogram.length);
+        assertEquals(22 + 8, histogram[0]);
+        assertEquals(1, histogram[2]);
+        assertEquals(1, histogram[7]);
+        assertEquals((3 + 28) / 9.0, stats.getAverageProbeLength(), 1e-9);
+    }
+
+    @Test(timeout = TIMEOUT)
+    public void testSpreading() {
+        for (HashSpreading spreading : HashSpreading.values()) {
+            HashMap<Integer, Integer> map =
+                    new HashMap<>(11, 0, spreading, false);
+            for (int i = 0; i < 1000; i++) {
+                map.put(i << 16, i);
+            }
+            for (int i = 0; i < 1000; i++) {
+                assertEquals(Integer.valueOf(i), map.get(i << 16));
+            }
+            int length = map.getTable().length;
+            if (spreading == HashSpreading.MODULO) {
+                assertEquals(1, length % 2);
+            } else {
+                assertEquals(0, length & (length - 1));
+                assertTrue(map.statistics().getMaxChainLength() < 8);
+            }
+        }
+    }
+
+    @Test(timeout = TIMEOUT)
+    public void testSpreadingTableLimit() {
+        int max = PrimitiveHashing.MAX_TABLE_LENGTH;
+        assertEquals(Integer.MAX_VALUE,
+                HashSpreading.MODULO.grow((Integer.MAX_VALUE - 1) / 2));
+        for (HashSpreading spreading : HashSpreading.values()) {
+            if (spreading == HashSpreading.MODULO) {
+                continue;
+            }
+            assertEquals(max, spreading.tableLength(max));
+            assertEquals(max, spreading.grow(max / 2));
+            try {
+                spreading.tableLength(max + 1);
+                fail("Lengths above 2^30 should be rejected");
+            } catch (IllegalArgumentException e) {
+                assertTrue(e.getMessage().length() > 0);
+            }
+            try {
+                spreading.grow(max);
+                fail("A table of 2^30 buckets should not grow");
+            } catch (IllegalStateException e) {
+                assertTrue(e.getMessage().length() > 0);
+            }
+            HashMap<Integer, Integer> map =
+                    new HashMap<>(11, 0, spreading, false);
+            try {
+                map.resizeBackingTable(max + 1);
+                fail("Lengths above 2^30 should be rejected");
+            } catch (IllegalArgumentException e) {
+                assertEquals(16, map.getTable().length);
+            }
+        }
+        try {
+            new HashMap<Integer, Integer>(max + 1, 0, HashSpreading.MURMUR,
+                    false);
+            fail("Capacities above 2^30 should be rejected");
+        } catch (IllegalArgumentException e) {
+            assertTrue(e.getMessage().length() > 0);
+        }
+        try {
+            HashSpreading.MODULO.grow(Integer.MAX_VALUE / 2 + 1);
+            fail("A length past Integer.MAX_VALUE should be rejected");
+        } catch (IllegalStateException e) {
+            assertTrue(e.getMessage().length() > 0);
+        }
+    }
+
+    @Test(timeout = TIMEOUT)
+    public void testTreeifiedBucket() {
+        HashMap<CollidingKey, Integer> map = new HashMap<>(11, 4,
+                HashSpreading.MODULO, true);
+        for (int i = 0; i < 500; i++) {
+            map.put(new CollidingKey(i), i);
+        }
+        assertEquals(500, map.size());
+        assertEquals(500, map.statistics().getMaxChainLength());
+        for (int i = 0; i < 500; i++) {
+            assertEquals(Integer.valueOf(i), map.get(new CollidingKey(i)));
+        }
+        assertFalse(map.containsKey(new CollidingKey(500)));
+        assertTrue(map.statistics().getMaxProbeLength() < 20);
+
+        for (int i = 0; i < 500; i += 2) {
+            assertEquals(Integer.valueOf(i), map.remove(new CollidingKey(i)));
+        }
+        assertEquals(250, map.size());
+        for (int i = 0; i < 500; i++) {
+            assertEquals(i % 2 == 1, map.containsKey(new CollidingKey(i)));
+        }
+        assertEquals(250, map.keySet().size());
+
+        // Shrink the bucket below the untreeify threshold and keep using it.
+        for (int i = 1; i < 495; i += 2) {
+            map.remove(new CollidingKey(i));
+        }
+        assertEquals(3, map.size());
+        map.put(new CollidingKey(1000), 1000);
+        assertEquals(Integer.valueOf(497), map.get(new CollidingKey(497)));
+        assertEquals(Integer.valueOf(1000), map.get(new CollidingKey(1000)));
+    }
+
+    @Test(timeout = TIMEOUT)
+    public void testTreeifiedBucketInconsistentCompareTo() {
+        // Keys tie in compareTo in threes but are all distinct by equals.
+        HashMap<CoarseKey, Integer> map = new HashMap<>(11, 4,
+                HashSpreading.MODULO, true);
+        for (int i = 0; i < 60; i++) {
+            map.put(new CoarseKey(i), i);
+        }
+        assertEquals(60, map.size());
+        for (int i = 0; i < 60; i++) {
+            assertEquals(Integer.valueOf(i), map.get(new CoarseKey(i)));
+        }
+        assertFalse(map.containsKey(new CoarseKey(60)));
+        for (int i = 0; i < 60; i++) {
+            assertEquals(Integer.valueOf(i), map.put(new CoarseKey(i), -i));
+        }
+        assertEquals(60, map.size());
+
+        for (int i = 0; i < 60; i += 2) {
+            assertEquals(Integer.valueOf(-i), map.remove(new CoarseKey(i)));
+        }
+        assertEquals(30, map.size());
+        for (int i = 0; i < 60; i++) {
+            assertEquals(i % 2 == 1, map.containsKey(new CoarseKey(i)));
+        }
+        for (int i = 1; i < 60; i += 2) {
+            assertEquals(Integer.valueOf(-i), map.get(new CoarseKey(i)));
+        }
+    }
+
+    @Test(timeout = TIMEOUT)
+    public void testTreeifiedBucketMixedKeys() {
+        HashMap<Object, Integer> map = new HashMap<>();
+        for (int i = 0; i < 20; i++) {
+            map.put(new CollidingKey(i), i);
+        }
+        // A key of another class with the same hash code turns the bucket
+        // back into a plain chain.
+        Object other = new Object() {
+            @Override
+            public int hashCode() {
+                return CollidingKey.HASH;
+            }
+        };
+        map.put(other, -1);
+        assertEquals(Integer.valueOf(-1), map.get(other));
+        for (int i = 0; i < 20; i++) {
+            assertEquals(Integer.valueOf(i), map.remove(new CollidingKey(i)));
+        }
+        assertEquals(1, map.size());
+    }
+
+    @Test(timeout = TIMEOUT)
+    public void testPutAll() {
+        HashMap<Integer, Integer> map = new HashMap<>(11, 0,
+                HashSpreading.MODULO, true);
+        map.put(3, -3);
+        Integer[] keys = new Integer[1000];
+        Integer[] values = new Integer[1000];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = i;
+            values[i] = i * 2;
+        }
+        map.putAll(keys, values);
+        assertEquals(1000, map.size());
+        assertEquals(1, map.statistics().getResizeCount());
+        // 1001 entries need the seventh regrow of 11 to stay under 0.67.
+        assertEquals(1535, map.getTable().length);
+        for (int i = 0; i < keys.length; i++) {
+            assertEquals(Integer.valueOf(i * 2), map.get(i));
+        }
+
+        // Nothing is added if any element is invalid.
+        try {
+            map.putAll(new Integer[] {5000, 5001}, new Integer[] {1, null});
+            fail("Expected IllegalArgumentException");
+        } catch (IllegalArgumentException e) {
+            assertFalse(map.containsKey(5000));
+        }
+    }
+
+    @Test(timeout = TIMEOUT)
+    public void testPutAllIterable() {
+        HashMap<String, Integer> map = new HashMap<>(11, 4);
+        List<MapEntry<String, Integer>> entries = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            entries.add(new MapEntry<>("key" + i, i));
+        }
+        map.putAll(entries);
+        assertEquals(100, map.size());
+        map.putAll(entries.subList(0, 10)::iterator);
+        assertEquals(100, map.size());
+        for (int i = 0; i < 100; i++) {
+            assertEquals(Integer.valueOf(i), map.get("key" + i));
+        }
+    }
+
+    @Test(timeout = TIMEOUT)
+    public void testGetAll() {
+        putStuff();
+        String[] keys = {"Mary", "Nobody", "Carey"};
+        String[] values = new String[4];
+        values[1] = "stale";
+        assertEquals(2, directory.getAll(keys, values));
+        assertEquals("Professor: 1332", values[0]);
+        assertEquals(null, values[1]);
+        assertEquals("TA: 1332", values[2]);
+        assertEquals(null, values[3]);
+    }
+
+    @Test(timeout = TIMEOUT)
+    public void testLiveViews() {
+        putStuff();
+        Collection<String> keys = directory.keyView();
+        Collection<String> values = directory.valueView();
+        assertEquals(5, keys.size());
+        assertTrue(keys.contains("Siddu"));
+        assertTrue(values.contains("Professor: 2050"));
+        assertEquals(directory.keySet(), new HashSet<>(keys));
+        assertEquals(directory.values(), new ArrayList<>(values));
+
+        directory.put("Hunter", "TA: 1332");
+        assertEquals(6, keys.size());
+        assertTrue(keys.contains("Hunter"));
+
+        Iterator<String> it = keys.iterator();
+        while (it.hasNext()) {
+            if (it.next().startsWith("M")) {
+                it.remove();
+            }
+        }
+        assertEquals(4, directory.size());
+        assertFalse(directory.containsKey("Mary"));
+        assertFalse(directory.containsKey("Monica"));
+    }
+
+    @Test(timeout = TIMEOUT, expected = ConcurrentModificationException.class)
+    public void testViewFailFast() {
+        putStuff();
+        for (String key : directory.keyView()) {
+            directory.put(key + "!", "copy");
+        }
+    }
+
+    @Test(timeout = TIMEOUT)
+    public void testForEachAndParallelStream() {
+        HashMap<Integer, Integer> map = new HashMap<>(11, 16);
+        long expected = 0;
+        int n = 0;
+        while (n < 10000 || !map.isMigrating()) {
+            map.put(n, n);
+            expected += n;
+            n++;
+        }
+        long[] sum = new long[1];
+        map.forEach((key, value) -> sum[0] += key + value);
+        assertEquals(2 * expected, sum[0]);
+        assertFalse(map.isMigrating());
+
+        assertEquals(expected, map.valueView().parallelStream()
+                .mapToLong(Integer::longValue).sum());
+        assertEquals(n, map.keyView().stream().distinct().count());
+
+        Spliterator<Integer> whole = map.keyView().spliterator();
+        Spliterator<Integer> half = whole.trySplit();
+        long[] seen = new long[1];
+        whole.forEachRemaining(key -> seen[0]++);
+        half.forEachRemaining(key -> seen[0]++);
+        assertEquals(n, seen[0]);
+    }
+
+    /**
+     * A Comparable key whose hash code never changes, so every key lands in
+     * the same bucket.
+     */
+    private static class CollidingKey implements Comparable<CollidingKey> {
+        private static final int HASH = 42;
+        private final int id;
+
+        /**
+         * Creates a key.
+         *
+         * @param id distinguishes keys
+         */
+        CollidingKey(int id) {
+            this.id = id;
+        }
+
+        @Override
+        public int compareTo(CollidingKey other) {
+            return Integer.compare(id, other.id);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof CollidingKey && ((CollidingKey) o).id == id;
+        }
+
+        @Override
+        public int hashCode() {
+            return HASH;
+        }
+    }
+
+    /**
+     * A key whose compareTo only looks at its id divided by three, so that
+     * it is not consistent with equals, and which always collides.
+     */
+    private static class CoarseKey implements Comparable<CoarseKey> {
+        private final int id;
+
+        /**
+         * Creates a key.
+         *
+         * @param id distinguishes keys
+         */
+        CoarseKey(int id) {
+            this.id = id;
+        }
+
+        @Override
+        public int compareTo(CoarseKey other) {
+            return Integer.compare(id / 3, other.id / 3);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof CoarseKey && ((CoarseKey) o).id == id;
+        }
+
+        @Override
+        public int hashCode() {
+            return CollidingKey.HASH;
+        }
+    }
+
     /**
      * Put a baseline of items to the hash map.
      */
@@ -0,0 +1,144 @@
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.NoSuchElementException;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for the memory-mapped PersistentHashMap.
+ *
+ * @author Karel Klein-Cardena
+ * @version 1.0
+ */
+public class PersistentHashMapTests {
+
+    private static final int TIMEOUT = 5000;
+    private Path directory;
+    private Path file;
+    private PersistentHashMap<String, Integer> map;
+
+    @Before
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("persistent-map");
+        file = directory.resolve("map.bin");
+        map = new PersistentHashMap<>(file, Serializer.STRING,
+                Serializer.INTEGER);
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        map.close();
+        try (Stream<Path> paths = Files.walk(directory)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+        }
+    }
+
+    @Test(timeout = TIMEOUT)
+    public void testPutGetRemove() {
+        assertNull(map.put("Carey", 1332));
+        assertNull(map.put("Jonathan", 4400));
+        assertEquals(Integer.valueOf(1332), map.put("Carey", 2050));
+        assertEquals(2, map.size());
+        assertEquals(Integer.valueOf(2050), map.get("Carey"));
+        assertEquals(Integer.valueOf(4400), map.remove("Jonathan"));
+        assertFalse(map.containsKey("Jonathan"));
+        assertEquals(1, map.size());
+        assertEquals(1, map.keySet().size());
+        assertEquals(1, map.values().size());
+    }
+
+    @Test(timeout = TIMEOUT)
+    public void testOverwriteDoesNotRegrow() {
+        int buckets = map.getTable().length;
+        int keys = 0;
+        while ((double) (keys + 1) / buckets <= HashMapInterface.MAX_LOAD_FACTOR) {
+            map.put("key" + keys, keys);
+            keys++;
+        }
+        for (int i = 0; i < keys; i++) {
+            assertEquals(Integer.valueOf(i), map.put("key" + i, -i));
+        }
+        assertEquals(buckets, map.getTable().length);
+        assertEquals(keys, map.size());
+        map.put("key" + keys, keys);
+        assertEquals(2 * buckets + 1, map.getTable().length);
+        assertEquals(Integer.valueOf(-1), map.get("key1"));
+    }
+
+    @Test(timeout = TIMEOUT, expected = NoSuchElementException.class)
+    public void testGetMissing() {
+        map.get("Siddu");
+    }
+
+    @Test(timeout = TIMEOUT)
+    public void testReopen() throws IOException {
+        for (int i = 0; i < 1000; i++) {
+            map.put("key" + i, i);
+        }
+        map.remove("key7");
+        map.close();
+        map = new PersistentHashMap<>(file, Serializer.STRING,
+                Serializer.INTEGER);
+        assertEquals(999, map.size());
+        assertFalse(map.containsKey("key7"));
+        for (int i = 0; i < 1000; i++) {
+            if (i != 7) {
+                assertEquals(Integer.valueOf(i), map.get("key" + i));
+            }
+        }
+        assertTrue(map.getTable().length > 1000);
+    }
+
+    @Test(timeout = TIMEOUT)
+    public void testRecoverWithoutClose() throws IOException {
+        map.put("a", 1);
+        map.put("b", 2);
+        map.put("a", 3);
+        map.sync();
+        PersistentHashMap<String, Integer> reopened = new PersistentHashMap<>(
+                file, Serializer.STRING, Serializer.INTEGER);
+        assertEquals(2, reopened.size());
+        assertEquals(Integer.valueOf(3), reopened.get("a"));
+        assertEquals(Integer.valueOf(2), reopened.get("b"));
+        reopened.close();
+    }
+
+    @Test(timeout = TIMEOUT)
+    public void testCompact() {
+        map.resizeBackingTable(101);
+        for (int round = 0; round < 20; round++) {
+            for (int i = 0; i < 50; i++) {
+                map.put("key" + i, round);
+            }
+        }
+        long before = map.fileLength();
+        map.compact();
+        assertTrue(map.fileLength() < before / 10);
+        assertEquals(50, map.size());
+        for (int i = 0; i < 50; i++) {
+            assertEquals(Integer.valueOf(19), map.get("key" + i));
+        }
+        assertFalse(Files.exists(directory.resolve("map.bin.compact")));
+    }
+
+    @Test(timeout = TIMEOUT)
+    public void testClear() {
+        map.put("a", 1);
+        map.clear();
+        assertEquals(0, map.size());
+        assertFalse(map.containsKey("a"));
+        assertEquals(HashMapInterface.INITIAL_CAPACITY, map.getTable().length);
+        map.put("b", 2);
+        assertEquals(Integer.valueOf(2), map.get("b"));
+    }
+}
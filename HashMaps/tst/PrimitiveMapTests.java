@@ -0,0 +1,119 @@
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for the open addressing primitive maps.
+ *
+ * @author Karel Klein-Cardena
+ * @version 1.0
+ */
+public class PrimitiveMapTests {
+
+    private static final int TIMEOUT = 2000;
+    private IntObjectMap<String> intMap;
+    private LongLongMap longMap;
+
+    @Before
+    public void setUp() {
+        intMap = new IntObjectMap<>();
+        longMap = new LongLongMap();
+    }
+
+    @Test(timeout = TIMEOUT)
+    public void testIntPutGet() {
+        assertNull(intMap.put(7, "seven"));
+        assertNull(intMap.put(0, "zero"));
+        assertNull(intMap.put(-3, "minus three"));
+        assertEquals("seven", intMap.put(7, "SEVEN"));
+        assertEquals(3, intMap.size());
+        assertEquals("SEVEN", intMap.get(7));
+        assertEquals("zero", intMap.get(0));
+        assertEquals("minus three", intMap.get(-3));
+        assertEquals("none", intMap.getOrDefault(4, "none"));
+    }
+
+    @Test(timeout = TIMEOUT, expected = NoSuchElementException.class)
+    public void testIntGetMissing() {
+        intMap.put(1, "one");
+        intMap.get(2);
+    }
+
+    @Test(timeout = TIMEOUT, expected = IllegalArgumentException.class)
+    public void testIntPutNullValue() {
+        intMap.put(1, null);
+    }
+
+    @Test(timeout = TIMEOUT)
+    public void testIntRemoveKeepsProbeRuns() {
+        IntObjectMap<Integer> map = new IntObjectMap<>(0, 0.9);
+        Random rand = new Random(1332);
+        int[] keys = new int[5000];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = rand.nextInt();
+            map.put(keys[i], i);
+        }
+        for (int i = 0; i < keys.length; i += 2) {
+            map.remove(keys[i]);
+        }
+        for (int i = 0; i < keys.length; i++) {
+            assertEquals(i % 2 == 1, map.containsKey(keys[i]));
+        }
+        for (int i = 1; i < keys.length; i += 2) {
+            assertEquals(Integer.valueOf(i), map.get(keys[i]));
+        }
+    }
+
+    @Test(timeout = TIMEOUT)
+    public void testIntKeysAndValues() {
+        intMap.put(0, "zero");
+        intMap.put(5, "five");
+        int[] keys = intMap.keys();
+        Arrays.sort(keys);
+        assertArrayEquals(new int[] {0, 5}, keys);
+        assertEquals(2, intMap.values().size());
+        assertTrue(intMap.values().contains("five"));
+        intMap.clear();
+        assertEquals(0, intMap.size());
+        assertFalse(intMap.containsKey(0));
+    }
+
+    @Test(timeout = TIMEOUT)
+    public void testLongPutGetRemove() {
+        assertEquals(0L, longMap.put(Long.MAX_VALUE, 1L));
+        assertEquals(0L, longMap.put(0L, 2L));
+        assertEquals(1L, longMap.put(Long.MAX_VALUE, 3L));
+        assertEquals(2, longMap.size());
+        assertEquals(3L, longMap.get(Long.MAX_VALUE));
+        assertEquals(2L, longMap.remove(0L));
+        assertFalse(longMap.containsKey(0L));
+        assertEquals(-1L, longMap.getOrDefault(0L, -1L));
+        assertEquals(1, longMap.size());
+    }
+
+    @Test(timeout = TIMEOUT)
+    public void testLongGrows() {
+        for (long i = 1; i <= 10000; i++) {
+            longMap.put(i << 32, i);
+        }
+        assertEquals(10000, longMap.size());
+        for (long i = 1; i <= 10000; i++) {
+            assertEquals(i, longMap.get(i << 32));
+        }
+        assertTrue(longMap.capacity() >= 10000 / HashMapInterface.MAX_LOAD_FACTOR);
+    }
+
+    @Test(timeout = TIMEOUT, expected = NoSuchElementException.class)
+    public void testLongRemoveMissing() {
+        longMap.remove(42L);
+    }
+}
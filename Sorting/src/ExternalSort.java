@@ -0,0 +1,639 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Sorts files of records that do not fit in memory.
+ *
+ * The sort runs in two phases. The split phase reads the input in chunks
+ * of about {@code chunkBytes} encoded bytes, sorts each chunk in memory with
+ * {@link Sorting#timSort(Object[], Comparator)} and writes it to a temporary
+ * run file. The merge phase then merges the runs with a min heap holding the
+ * next record of every run. If there are more runs than the merge factor,
+ * groups of runs are first merged into longer runs, so that no more than
+ * that many files are ever open at once. All file access goes through NIO
+ * channels with direct buffers of {@code bufferBytes}, so every run is read
+ * sequentially in large blocks. Records of different runs that compare
+ * equal come out in the order of their runs, which makes the whole sort
+ * stable.
+ *
+ * The bytes read and written by each phase of the last sort are kept for
+ * reporting. With r runs and a merge factor of m the merge phase reads and
+ * writes every byte about log_m(r) times, so raising the chunk size or the
+ * merge factor is what saves I/O.
+ *
+ * Chunks hold records as objects, which usually take several times their
+ * encoded size, so chunkBytes should be well below the heap size. Temporary
+ * files are deleted when the sort finishes, whether it succeeded or not.
+ *
+ * This class is not thread-safe.
+ *
+ * @param <T> the type of records
+ * @author Karel Klein-Cardena
+ * @version 1.0
+ */
+public class ExternalSort<T> {
+
+    /**
+     * Default number of encoded bytes sorted in memory at once.
+     */
+    public static final int DEFAULT_CHUNK_BYTES = 64 << 20;
+
+    /**
+     * Default size of the buffer of each open file.
+     */
+    public static final int DEFAULT_BUFFER_BYTES = 1 << 20;
+
+    /**
+     * Default number of runs merged at once.
+     */
+    public static final int DEFAULT_MERGE_FACTOR = 64;
+
+    private final RecordSerializer<T> serializer;
+    private final Comparator<T> comparator;
+    private final int chunkBytes;
+    private final int bufferBytes;
+    private final int mergeFactor;
+    private final Path tempDirectory;
+
+    private int runCount;
+    private int mergePasses;
+    private long splitBytesRead;
+    private long splitBytesWritten;
+    private long mergeBytesRead;
+    private long mergeBytesWritten;
+
+    /**
+     * Creates a sorter with the default chunk size, buffer size and merge
+     * factor that keeps its runs in the system temporary directory.
+     *
+     * @param serializer the serializer of the records
+     * @param comparator the Comparator used to order the records
+     * @throws IllegalArgumentException if serializer or comparator is null
+     */
+    public ExternalSort(RecordSerializer<T> serializer,
+                        Comparator<T> comparator) {
+        this(serializer, comparator, DEFAULT_CHUNK_BYTES, DEFAULT_BUFFER_BYTES,
+                DEFAULT_MERGE_FACTOR,
+                Paths.get(System.getProperty("java.io.tmpdir")));
+    }
+
+    /**
+     * Creates a sorter.
+     *
+     * @param serializer the serializer of the records
+     * @param comparator the Comparator used to order the records
+     * @param chunkBytes the number of encoded bytes sorted in memory at once
+     * @param bufferBytes the size of the buffer of each open file
+     * @param mergeFactor the most runs merged at once
+     * @param tempDirectory the directory to keep runs in
+     * @throws IllegalArgumentException if any argument is null, if
+     * chunkBytes or bufferBytes is less than the largest record size, or if
+     * mergeFactor is less than 2
+     */
+    public ExternalSort(RecordSerializer<T> serializer,
+                        Comparator<T> comparator, int chunkBytes,
+                        int bufferBytes, int mergeFactor,
+                        Path tempDirectory) {
+        if (serializer == null || comparator == null
+                || tempDirectory == null) {
+            throw new IllegalArgumentException(
+                    "Cannot accept null serializer, comparator or directory.");
+        }
+        int recordSize = serializer.maxRecordSize();
+        if (chunkBytes < recordSize || bufferBytes < recordSize) {
+            throw new IllegalArgumentException(
+                    "Chunks and buffers must hold at least one record.");
+        }
+        if (mergeFactor < 2) {
+            throw new IllegalArgumentException(
+                    "Must merge at least two runs at once.");
+        }
+        this.serializer = serializer;
+        this.comparator = comparator;
+        this.chunkBytes = chunkBytes;
+        this.bufferBytes = bufferBytes;
+        this.mergeFactor = mergeFactor;
+        this.tempDirectory = tempDirectory;
+    }
+
+    /**
+     * Sorts the records of one file into another. The files must differ.
+     *
+     * @param input the file to sort
+     * @param output the file to write the sorted records to, replaced if it
+     * exists
+     * @throws IllegalArgumentException if input or output is null
+     * @throws IOException if a file cannot be read or written
+     */
+    public void sort(Path input, Path output) throws IOException {
+        if (input == null || output == null) {
+            throw new IllegalArgumentException("Cannot accept null files.");
+        }
+        runCount = 0;
+        mergePasses = 0;
+        splitBytesRead = 0;
+        splitBytesWritten = 0;
+        mergeBytesRead = 0;
+        mergeBytesWritten = 0;
+
+        List<Path> temporary = new ArrayList<>();
+        try {
+            List<Path> runs = split(input, temporary);
+            runCount = runs.size();
+            while (runs.size() > mergeFactor) {
+                List<Path> merged = new ArrayList<>();
+                for (int i = 0; i < runs.size(); i += mergeFactor) {
+                    List<Path> group = runs.subList(i,
+                            Math.min(i + mergeFactor, runs.size()));
+                    Path run = createRun(temporary);
+                    merged.add(run);
+                    merge(group, run);
+                    for (Path done : group) {
+                        Files.delete(done);
+                    }
+                }
+                runs = merged;
+                mergePasses++;
+            }
+            merge(runs, output);
+            mergePasses++;
+        } finally {
+            for (Path run : temporary) {
+                Files.deleteIfExists(run);
+            }
+        }
+    }
+
+    /**
+     * Creates an empty run file.
+     *
+     * @param temporary the list of temporary files to add it to
+     * @return the run file
+     * @throws IOException if the file cannot be created
+     */
+    private Path createRun(List<Path> temporary) throws IOException {
+        Path run = Files.createTempFile(tempDirectory, "run", ".tmp");
+        temporary.add(run);
+        return run;
+    }
+
+    /**
+     * Reads the input in chunks and writes each chunk sorted to a new run.
+     *
+     * @param input the file to sort
+     * @param temporary the list of temporary files to add the runs to
+     * @return the runs in input order
+     * @throws IOException if a file cannot be read or written
+     */
+    private List<Path> split(Path input, List<Path> temporary)
+        throws IOException {
+        List<Path> runs = new ArrayList<>();
+        @SuppressWarnings("unchecked")
+        T[] chunk = (T[]) new Object[16];
+        try (RunReader<T> reader = new RunReader<>(input, serializer,
+                bufferBytes)) {
+            T record = reader.next();
+            while (record != null) {
+                int size = 0;
+                long chunkStart = reader.consumed();
+                while (record != null
+                        && reader.consumed() - chunkStart < chunkBytes) {
+                    if (size == chunk.length) {
+                        chunk = Arrays.copyOf(chunk, size * 2);
+                    }
+                    chunk[size++] = record;
+                    record = reader.next();
+                }
+                T[] sorted = size == chunk.length ? chunk
+                        : Arrays.copyOf(chunk, size);
+                Sorting.timSort(sorted, comparator);
+
+                Path run = createRun(temporary);
+                runs.add(run);
+                try (RunWriter<T> writer = new RunWriter<>(run, serializer,
+                        bufferBytes)) {
+                    for (T item : sorted) {
+                        writer.write(item);
+                    }
+                    splitBytesWritten += writer.flush();
+                }
+                Arrays.fill(chunk, 0, size, null);
+            }
+            splitBytesRead = reader.bytesRead();
+        }
+        return runs;
+    }
+
+    /**
+     * Merges sorted runs into one file.
+     *
+     * @param runs the runs to merge
+     * @param output the file to write
+     * @throws IOException if a file cannot be read or written
+     */
+    private void merge(List<Path> runs, Path output) throws IOException {
+        RunHeap<T> heap = new RunHeap<>(runs.size(), comparator);
+        try (RunWriter<T> writer = new RunWriter<>(output, serializer,
+                bufferBytes)) {
+            try {
+                for (int i = 0; i < runs.size(); i++) {
+                    RunReader<T> reader = new RunReader<>(runs.get(i),
+                            serializer, bufferBytes);
+                    heap.add(reader, i);
+                }
+                while (!heap.isEmpty()) {
+                    writer.write(heap.top());
+                    heap.advanceTop();
+                }
+            } finally {
+                mergeBytesRead += heap.close();
+            }
+            mergeBytesWritten += writer.flush();
+        }
+    }
+
+    /**
+     * Returns the number of runs the split phase of the last sort wrote.
+     *
+     * @return the number of runs
+     */
+    public int getRunCount() {
+        return runCount;
+    }
+
+    /**
+     * Returns the number of passes over the data the merge phase of the last
+     * sort made, including the final one into the output.
+     *
+     * @return the number of merge passes
+     */
+    public int getMergePasses() {
+        return mergePasses;
+    }
+
+    /**
+     * Returns the bytes the split phase of the last sort read from the
+     * input.
+     *
+     * @return the bytes read
+     */
+    public long getSplitBytesRead() {
+        return splitBytesRead;
+    }
+
+    /**
+     * Returns the bytes the split phase of the last sort wrote to runs.
+     *
+     * @return the bytes written
+     */
+    public long getSplitBytesWritten() {
+        return splitBytesWritten;
+    }
+
+    /**
+     * Returns the bytes the merge phase of the last sort read from runs.
+     *
+     * @return the bytes read
+     */
+    public long getMergeBytesRead() {
+        return mergeBytesRead;
+    }
+
+    /**
+     * Returns the bytes the merge phase of the last sort wrote, to longer
+     * runs and to the output.
+     *
+     * @return the bytes written
+     */
+    public long getMergeBytesWritten() {
+        return mergeBytesWritten;
+    }
+
+    /**
+     * Reads records from a file through one buffer, refilling it whenever
+     * it might no longer hold a whole record.
+     *
+     * @param <T> the type of records
+     */
+    private static final class RunReader<T> implements AutoCloseable {
+
+        private final FileChannel channel;
+        private final ByteBuffer buffer;
+        private final RecordSerializer<T> serializer;
+        private final int recordSize;
+        private boolean endOfFile;
+        private long bytesRead;
+        private long consumed;
+
+        /**
+         * Opens a file for reading.
+         *
+         * @param file the file
+         * @param serializer the serializer of the records
+         * @param bufferBytes the size of the buffer
+         * @throws IOException if the file cannot be opened
+         */
+        RunReader(Path file, RecordSerializer<T> serializer, int bufferBytes)
+            throws IOException {
+            channel = FileChannel.open(file, StandardOpenOption.READ);
+            buffer = ByteBuffer.allocateDirect(bufferBytes);
+            buffer.flip();
+            this.serializer = serializer;
+            recordSize = serializer.maxRecordSize();
+        }
+
+        /**
+         * Reads the next record.
+         *
+         * @return the record, or null at the end of the file
+         * @throws IOException if the file cannot be read
+         */
+        T next() throws IOException {
+            if (buffer.remaining() < recordSize && !endOfFile) {
+                buffer.compact();
+                while (buffer.hasRemaining()) {
+                    int read = channel.read(buffer);
+                    if (read < 0) {
+                        endOfFile = true;
+                        break;
+                    }
+                    bytesRead += read;
+                }
+                buffer.flip();
+            }
+            if (!buffer.hasRemaining()) {
+                return null;
+            }
+            int start = buffer.position();
+            T record = serializer.read(buffer);
+            consumed += buffer.position() - start;
+            return record;
+        }
+
+        /**
+         * Returns the bytes of the records returned so far.
+         *
+         * @return the bytes consumed
+         */
+        long consumed() {
+            return consumed;
+        }
+
+        /**
+         * Returns the bytes read from the file so far, including those
+         * still buffered.
+         *
+         * @return the bytes read
+         */
+        long bytesRead() {
+            return bytesRead;
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+    }
+
+    /**
+     * Writes records to a file through one buffer, flushing it whenever it
+     * might not have room for another record.
+     *
+     * @param <T> the type of records
+     */
+    private static final class RunWriter<T> implements AutoCloseable {
+
+        private final FileChannel channel;
+        private final ByteBuffer buffer;
+        private final RecordSerializer<T> serializer;
+        private final int recordSize;
+        private long bytesWritten;
+
+        /**
+         * Opens a file for writing, replacing its contents.
+         *
+         * @param file the file
+         * @param serializer the serializer of the records
+         * @param bufferBytes the size of the buffer
+         * @throws IOException if the file cannot be opened
+         */
+        RunWriter(Path file, RecordSerializer<T> serializer, int bufferBytes)
+            throws IOException {
+            channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING,
+                    StandardOpenOption.WRITE);
+            buffer = ByteBuffer.allocateDirect(bufferBytes);
+            this.serializer = serializer;
+            recordSize = serializer.maxRecordSize();
+        }
+
+        /**
+         * Writes a record.
+         *
+         * @param record the record
+         * @throws IOException if the file cannot be written
+         */
+        void write(T record) throws IOException {
+            if (buffer.remaining() < recordSize) {
+                flush();
+            }
+            serializer.write(record, buffer);
+        }
+
+        /**
+         * Writes out the buffered bytes.
+         *
+         * @return the bytes written to the file so far
+         * @throws IOException if the file cannot be written
+         */
+        long flush() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                bytesWritten += channel.write(buffer);
+            }
+            buffer.clear();
+            return bytesWritten;
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+    }
+
+    /**
+     * A min heap of open runs ordered by their next record, with ties
+     * broken by run index. Like MinHeap it is stored from index 1, but it
+     * never grows and its top can be advanced in place, which costs one
+     * sift down instead of a remove and an add.
+     *
+     * @param <T> the type of records
+     */
+    private static final class RunHeap<T> {
+
+        private final RunReader<T>[] readers;
+        private final T[] heads;
+        private final int[] indices;
+        private final Comparator<T> comparator;
+        private int size;
+
+        // Every reader ever added, so that all of them get closed.
+        private final RunReader<T>[] opened;
+        private int openedCount;
+
+        /**
+         * Creates an empty heap.
+         *
+         * @param capacity the number of runs
+         * @param comparator the Comparator used to order the records
+         */
+        @SuppressWarnings("unchecked")
+        RunHeap(int capacity, Comparator<T> comparator) {
+            readers = (RunReader<T>[]) new RunReader<?>[capacity + 1];
+            heads = (T[]) new Object[capacity + 1];
+            indices = new int[capacity + 1];
+            opened = (RunReader<T>[]) new RunReader<?>[capacity];
+            this.comparator = comparator;
+        }
+
+        /**
+         * Adds a run, unless it is empty.
+         *
+         * @param reader the reader of the run
+         * @param index the position of the run among the merged runs
+         * @throws IOException if the run cannot be read
+         */
+        void add(RunReader<T> reader, int index) throws IOException {
+            opened[openedCount++] = reader;
+            T head = reader.next();
+            if (head == null) {
+                return;
+            }
+            int node = ++size;
+            while (node > 1
+                    && less(head, index, heads[node / 2], indices[node / 2])) {
+                move(node / 2, node);
+                node /= 2;
+            }
+            set(node, reader, head, index);
+        }
+
+        /**
+         * Returns the smallest next record of all runs.
+         *
+         * @return the smallest record
+         */
+        T top() {
+            return heads[1];
+        }
+
+        /**
+         * Replaces the top record with the next record of its run, or drops
+         * the run if it has none left.
+         *
+         * @throws IOException if the run cannot be read
+         */
+        void advanceTop() throws IOException {
+            RunReader<T> reader = readers[1];
+            int index = indices[1];
+            T head = reader.next();
+            if (head == null) {
+                reader = readers[size];
+                head = heads[size];
+                index = indices[size];
+                readers[size] = null;
+                heads[size] = null;
+                size--;
+                if (size == 0) {
+                    return;
+                }
+            }
+            int node = 1;
+            int child = 2;
+            while (child <= size) {
+                if (child < size && less(heads[child + 1], indices[child + 1],
+                        heads[child], indices[child])) {
+                    child++;
+                }
+                if (!less(heads[child], indices[child], head, index)) {
+                    break;
+                }
+                move(child, node);
+                node = child;
+                child = 2 * node;
+            }
+            set(node, reader, head, index);
+        }
+
+        /**
+         * Returns if no run has records left.
+         *
+         * @return true if the heap is empty
+         */
+        boolean isEmpty() {
+            return size == 0;
+        }
+
+        /**
+         * Closes every run that was added.
+         *
+         * @return the bytes read from all runs
+         * @throws IOException if a run cannot be closed
+         */
+        long close() throws IOException {
+            long bytesRead = 0;
+            for (int i = 0; i < openedCount; i++) {
+                bytesRead += opened[i].bytesRead();
+                opened[i].close();
+            }
+            return bytesRead;
+        }
+
+        /**
+         * Compares two records of different runs.
+         *
+         * @param head the first record
+         * @param index the run index of the first record
+         * @param other the second record
+         * @param otherIndex the run index of the second record
+         * @return true if head goes before other
+         */
+        private boolean less(T head, int index, T other, int otherIndex) {
+            int compare = comparator.compare(head, other);
+            return compare < 0 || compare == 0 && index < otherIndex;
+        }
+
+        /**
+         * Moves the contents of one node to another.
+         *
+         * @param from the node to move
+         * @param to the node to overwrite
+         */
+        private void move(int from, int to) {
+            set(to, readers[from], heads[from], indices[from]);
+        }
+
+        /**
+         * Sets the contents of a node.
+         *
+         * @param node the node
+         * @param reader the reader of the run
+         * @param head the next record of the run
+         * @param index the run index
+         */
+        private void set(int node, RunReader<T> reader, T head, int index) {
+            readers[node] = reader;
+            heads[node] = head;
+            indices[node] = index;
+        }
+    }
+}
@@ -0,0 +1,42 @@
+import java.nio.ByteBuffer;
+
+/**
+ * Converts the records sorted by {@link ExternalSort} to and from bytes.
+ *
+ * Records may have different encoded lengths, as long as none is longer
+ * than {@link #maxRecordSize()}. The sorter only calls {@link #write} when
+ * the buffer has at least that much room left and only calls {@link #read}
+ * when the buffer holds at least that many bytes or the rest of the file.
+ *
+ * @param <T> the type of records
+ * @author Karel Klein-Cardena
+ * @version 1.0
+ */
+public interface RecordSerializer<T> {
+
+    /**
+     * Returns an upper bound on the number of bytes one record is encoded
+     * in.
+     *
+     * @return the largest encoded record length, at least 1
+     */
+    int maxRecordSize();
+
+    /**
+     * Writes a record at the position of the buffer, advancing the position
+     * past it.
+     *
+     * @param record the record to write
+     * @param buffer the buffer to write to
+     */
+    void write(T record, ByteBuffer buffer);
+
+    /**
+     * Reads the record at the position of the buffer, advancing the position
+     * past it.
+     *
+     * @param buffer the buffer to read from
+     * @return the record read
+     */
+    T read(ByteBuffer buffer);
+}
@@ -0,0 +1,149 @@
+import java.util.Comparator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The work done by one call of a sort in {@link Sorting}, handed to the
+ * listener set with {@link Sorting#setStatsListener}.
+ *
+ * Comparisons are calls to the Comparator passed to the sort. Sorts of
+ * primitives and strings compare inline and report none. Moves are writes
+ * of elements into the array or into scratch space, with a swap counting
+ * as two. Allocated is the number of elements of scratch arrays created.
+ * The counters may be updated from several threads by the parallel sorts.
+ *
+ * @author Karel Klein-Cardena
+ * @version 1.0
+ */
+public class SortStats {
+
+    private final String algorithm;
+    private int length;
+    private final LongAdder comparisons = new LongAdder();
+    private final LongAdder moves = new LongAdder();
+    private final LongAdder allocated = new LongAdder();
+    private long nanos;
+
+    /**
+     * Creates empty stats for one sort call.
+     *
+     * @param algorithm the name of the sort
+     * @param length the number of elements sorted
+     */
+    SortStats(String algorithm, int length) {
+        this.algorithm = algorithm;
+        this.length = length;
+    }
+
+    /**
+     * Wraps a comparator so that its calls are counted as comparisons.
+     *
+     * @param comparator the comparator to wrap
+     * @param <T> the type compared
+     * @return the counting comparator
+     */
+    <T> Comparator<T> counting(Comparator<T> comparator) {
+        return (a, b) -> {
+            comparisons.increment();
+            return comparator.compare(a, b);
+        };
+    }
+
+    /**
+     * Adds element writes.
+     *
+     * @param count the number of writes
+     */
+    void addMoves(long count) {
+        moves.add(count);
+    }
+
+    /**
+     * Adds scratch elements allocated.
+     *
+     * @param count the number of elements
+     */
+    void addAllocated(long count) {
+        allocated.add(count);
+    }
+
+    /**
+     * Sets the number of elements, for sorts that only know it once they
+     * have run.
+     *
+     * @param length the number of elements
+     */
+    void setLength(int length) {
+        this.length = length;
+    }
+
+    /**
+     * Sets the wall time of the call.
+     *
+     * @param nanos the time in nanoseconds
+     */
+    void setNanos(long nanos) {
+        this.nanos = nanos;
+    }
+
+    /**
+     * Returns the name of the sort, with its parameter types where it is
+     * overloaded, such as {@code "quickSort(int[])"}.
+     *
+     * @return the name of the sort
+     */
+    public String getAlgorithm() {
+        return algorithm;
+    }
+
+    /**
+     * Returns the number of elements sorted.
+     *
+     * @return the array length
+     */
+    public int getLength() {
+        return length;
+    }
+
+    /**
+     * Returns the number of comparator calls.
+     *
+     * @return the comparisons
+     */
+    public long getComparisons() {
+        return comparisons.sum();
+    }
+
+    /**
+     * Returns the number of element writes.
+     *
+     * @return the moves
+     */
+    public long getMoves() {
+        return moves.sum();
+    }
+
+    /**
+     * Returns the number of scratch elements allocated.
+     *
+     * @return the elements allocated
+     */
+    public long getAllocated() {
+        return allocated.sum();
+    }
+
+    /**
+     * Returns the wall time of the call.
+     *
+     * @return the time in nanoseconds
+     */
+    public long getNanos() {
+        return nanos;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s of %d: %d comparisons, %d moves,"
+                + " %d allocated, %.3f ms", algorithm, length,
+                getComparisons(), getMoves(), getAllocated(), nanos / 1e6);
+    }
+}
@@ -1,6 +1,11 @@
-import java.util.LinkedList;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Comparator;
+import java.util.List;
 import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.Consumer;
 
 /**
  * Your implementation of various sorting algorithms.
@@ -10,6 +15,210 @@ import java.util.Random;
  */
 public class Sorting {
 
+    /**
+     * Ranges up to this length are sorted sequentially by the parallel
+     * sorts.
+     */
+    private static final int PARALLEL_CUTOFF = 1 << 13;
+
+    /**
+     * Ranges up to this length are insertion sorted by the merge sorts and
+     * introSort.
+     */
+    private static final int INSERTION_CUTOFF = 16;
+
+    /**
+     * Ranges longer than this take the median of three medians of three as
+     * their introSort pivot instead of a single median of three.
+     */
+    private static final int NINTHER_CUTOFF = 128;
+
+    /**
+     * Number of element moves after which introSort gives up insertion
+     * sorting a range it hoped was already sorted.
+     */
+    private static final int PARTIAL_INSERTION_LIMIT = 8;
+
+    /**
+     * Runs shorter than this are extended with binary insertion sort by
+     * timSort, and arrays shorter than this are insertion sorted outright.
+     */
+    private static final int MIN_MERGE = 32;
+
+    /**
+     * Number of elements one run has to win in a row before timSort starts
+     * galloping.
+     */
+    private static final int MIN_GALLOP = 7;
+
+    /**
+     * Receives the stats of every sort call, or null while sorts are not
+     * instrumented.
+     */
+    private static volatile Consumer<SortStats> statsListener;
+
+    /**
+     * Whether statsListener is set. The move and allocation hooks inside
+     * the sorts check this plain field, which the JIT may keep in a
+     * register, so that they cost next to nothing while instrumentation is
+     * off.
+     */
+    private static boolean statsEnabled;
+
+    /**
+     * The stats of the outermost sort call running on each thread.
+     */
+    private static final ThreadLocal<SortStats> CURRENT_STATS =
+            new ThreadLocal<>();
+
+    /**
+     * Turns instrumentation of all sorts on or off.
+     *
+     * While a listener is set, every call of a public sort in this class,
+     * from any thread, counts its comparisons, element moves and scratch
+     * allocations and measures its wall time, then hands the
+     * {@link SortStats} to the listener on the calling thread before
+     * returning. Sorts called by other sorts, such as the timSort calls of
+     * {@link ExternalSort}, are reported on their own; work done by a sort
+     * for itself is part of its own stats. Comparisons are counted by
+     * wrapping the comparator, so the counts are exact but the times include
+     * that overhead. With no listener set, the sorts only pay for checking
+     * a static field in their inner helpers.
+     *
+     * @param listener the receiver of the stats, or null to turn
+     * instrumentation off
+     */
+    public static void setStatsListener(Consumer<SortStats> listener) {
+        statsListener = listener;
+        statsEnabled = listener != null;
+    }
+
+    /**
+     * Runs a sort with stats recording, unless instrumentation is off or a
+     * sort is already being recorded on this thread. The public sorts call
+     * this and, if it returns true, are done; otherwise they go on to sort
+     * unrecorded, which is also what the recorded call does when it
+     * re-enters them.
+     *
+     * @param algorithm the name of the sort
+     * @param length the number of elements sorted, or -1 if the sort sets
+     * it once it knows
+     * @param sort the sort call to record
+     * @return true if the sort was run and recorded
+     */
+    private static boolean record(String algorithm, int length,
+                                  Runnable sort) {
+        Consumer<SortStats> listener = statsListener;
+        if (listener == null || CURRENT_STATS.get() != null) {
+            return false;
+        }
+        SortStats stats = new SortStats(algorithm, length);
+        CURRENT_STATS.set(stats);
+        long start = System.nanoTime();
+        try {
+            sort.run();
+        } finally {
+            stats.setNanos(System.nanoTime() - start);
+            CURRENT_STATS.remove();
+        }
+        listener.accept(stats);
+        return true;
+    }
+
+    /**
+     * Wraps a comparator to count its calls in the stats being recorded.
+     *
+     * @param comparator the comparator
+     * @param <T> the type compared
+     * @return the counting comparator
+     */
+    private static <T> Comparator<T> counting(Comparator<T> comparator) {
+        return CURRENT_STATS.get().counting(comparator);
+    }
+
+    /**
+     * Sets the number of elements of the stats being recorded, if they
+     * were started with a length of -1 by a sort that only learns it while
+     * running.
+     *
+     * @param length the number of elements
+     */
+    private static void measured(int length) {
+        if (statsEnabled) {
+            SortStats stats = CURRENT_STATS.get();
+            if (stats != null && stats.getLength() < 0) {
+                stats.setLength(length);
+            }
+        }
+    }
+
+    /**
+     * Counts element writes in the stats being recorded, if any.
+     *
+     * @param count the number of writes
+     */
+    private static void moved(long count) {
+        if (statsEnabled) {
+            SortStats stats = CURRENT_STATS.get();
+            if (stats != null) {
+                stats.addMoves(count);
+            }
+        }
+    }
+
+    /**
+     * Counts scratch elements in the stats being recorded, if any.
+     *
+     * @param count the number of elements allocated
+     */
+    private static void allocated(long count) {
+        if (statsEnabled) {
+            SortStats stats = CURRENT_STATS.get();
+            if (stats != null) {
+                stats.addAllocated(count);
+            }
+        }
+    }
+
+    /**
+     * Makes the stats of a parallel sort the ones being recorded on the
+     * current worker thread.
+     *
+     * @param stats the stats of the sort, or null if it is not recorded
+     * @return the stats recorded on this thread before
+     */
+    private static SortStats bindStats(SortStats stats) {
+        if (stats == null) {
+            return null;
+        }
+        SortStats previous = CURRENT_STATS.get();
+        CURRENT_STATS.set(stats);
+        return previous;
+    }
+
+    /**
+     * Undoes {@link #bindStats(SortStats)}.
+     *
+     * @param stats the stats that were bound, or null
+     * @param previous the stats bindStats returned
+     */
+    private static void unbindStats(SortStats stats, SortStats previous) {
+        if (stats != null) {
+            CURRENT_STATS.set(previous);
+        }
+    }
+
+    /**
+     * Number of buckets per radix sort pass, one for each byte value.
+     */
+    private static final int RADIX = 256;
+
+    /**
+     * Ranges of strings up to this length are insertion sorted by the
+     * string sorts.
+     */
+    private static final int STRING_CUTOFF = 16;
+
     /**
      * Implement cocktail sort.
      *
@@ -38,29 +247,64 @@ public class Sorting {
             throw new IllegalArgumentException(
                     "Cannot accept null array or comparator");
         }
-        int i;
-        int iStart = 0;
-        int size = arr.length;
-        boolean needsSwap = true;
-
-        while ((iStart < size - 1) && needsSwap) {
-            needsSwap = false;
-            for (i = iStart; i < size - 1; i++) {
-                if (comparator.compare(arr[i], arr[i + 1]) > 0) {
-                    swap(arr, i, i + 1);
-                    needsSwap = true;
+        if (statsEnabled && record("cocktailSort", arr.length,
+                () -> cocktailSort(arr, counting(comparator)))) {
+            return;
+        }
+        int start = 0;
+        int end = arr.length;
+        while (end - start > 1) {
+            // Carry the largest element seen to the right, shifting the
+            // smaller ones it passes left instead of swapping at each step.
+            T carry = arr[start];
+            int hole = start;
+            int last = start;
+            for (int i = start + 1; i < end; i++) {
+                if (comparator.compare(carry, arr[i]) > 0) {
+                    arr[i - 1] = arr[i];
+                    moved(1);
+                    last = i;
+                } else {
+                    if (hole != i - 1) {
+                        arr[i - 1] = carry;
+                        moved(1);
+                    }
+                    carry = arr[i];
+                    hole = i;
                 }
             }
-            size--;
-            if (needsSwap) {
-                for (i = size - 1; i > iStart; i--) {
-                    if (comparator.compare(arr[i - 1], arr[i]) > 0) {
-                        swap(arr, i, i - 1);
-                        needsSwap = true;
+            if (hole != end - 1) {
+                arr[end - 1] = carry;
+                moved(1);
+            }
+            // Everything from the last shift on is in its final place.
+            end = last;
+            if (end - start <= 1) {
+                return;
+            }
+
+            carry = arr[end - 1];
+            hole = end - 1;
+            last = end - 1;
+            for (int i = end - 2; i >= start; i--) {
+                if (comparator.compare(arr[i], carry) > 0) {
+                    arr[i + 1] = arr[i];
+                    moved(1);
+                    last = i;
+                } else {
+                    if (hole != i + 1) {
+                        arr[i + 1] = carry;
+                        moved(1);
                     }
+                    carry = arr[i];
+                    hole = i;
                 }
             }
-            iStart++;
+            if (hole != start) {
+                arr[start] = carry;
+                moved(1);
+            }
+            start = last + 1;
         }
     }
 
@@ -92,19 +336,103 @@ public class Sorting {
             throw new IllegalArgumentException(
                     "Cannot accept null array or comparator");
         }
-        int size = arr.length;
-        int i;
-        int k;
-        int l;
-        for (int j = 1; j < size; j++) {
-            i = j - 1;
-            k = i;
-            l = j;
-            while (l > 0 && comparator.compare(arr[k], arr[l]) > 0) {
-                swap(arr, k, l);
-                k--;
-                l--;
-            }
+        insertionSort(arr, 0, arr.length, comparator);
+    }
+
+    /**
+     * Insertion sorts the range arr[from, to), leaving the rest of the
+     * array alone. Each element is held aside while the greater elements
+     * before it are shifted right by one, so it is written once instead of
+     * being swapped down a step at a time.
+     *
+     * This is the base case the other sorts switch to below
+     * {@code INSERTION_CUTOFF} elements, and can be used the same way by
+     * callers writing their own hybrid sorts.
+     *
+     * It is:
+     *  in-place
+     *  stable
+     *
+     * Have a worst case running time of:
+     *  O(n^2)
+     *
+     * And a best case running time of:
+     *  O(n)
+     *
+     * @throws IllegalArgumentException if the array or comparator is null
+     * or the range is not within the array
+     * @param <T> data type to sort
+     * @param arr the array holding the range
+     * @param from the first index of the range
+     * @param to one past the last index of the range
+     * @param comparator the Comparator used to compare the data in arr
+     */
+    public static <T> void insertionSort(T[] arr, int from, int to,
+                                         Comparator<T> comparator) {
+        if (arr == null || comparator == null) {
+            throw new IllegalArgumentException(
+                    "Cannot accept null array or comparator");
+        }
+        checkRange(arr.length, from, to);
+        if (statsEnabled && record("insertionSort(T[])", to - from,
+                () -> insertionSort(arr, from, to, counting(comparator)))) {
+            return;
+        }
+        insertionSort(arr, from, to, comparator, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Sorts the range arr[from, to) by binary searching where each element
+     * goes among the ones before it and shifting the greater ones right
+     * with one array copy. That takes O(n log n) comparisons, against the
+     * O(n^2) of a linear insertion sort, so it is the better base case when
+     * comparisons are expensive. Elements are placed after equal ones.
+     *
+     * It is:
+     *  in-place
+     *  stable
+     *
+     * Have a worst case running time of:
+     *  O(n^2)
+     *
+     * And a best case running time of:
+     *  O(n log n)
+     *
+     * @throws IllegalArgumentException if the array or comparator is null
+     * or the range is not within the array
+     * @param <T> data type to sort
+     * @param arr the array holding the range
+     * @param from the first index of the range
+     * @param to one past the last index of the range
+     * @param comparator the Comparator used to compare the data in arr
+     */
+    public static <T> void binaryInsertionSort(T[] arr, int from, int to,
+                                               Comparator<T> comparator) {
+        if (arr == null || comparator == null) {
+            throw new IllegalArgumentException(
+                    "Cannot accept null array or comparator");
+        }
+        checkRange(arr.length, from, to);
+        if (statsEnabled && record("binaryInsertionSort", to - from,
+                () -> binaryInsertionSort(arr, from, to,
+                        counting(comparator)))) {
+            return;
+        }
+        binaryInsertionSort(arr, from, to, from, comparator);
+    }
+
+    /**
+     * Checks that [from, to) is a range of an array.
+     *
+     * @throws IllegalArgumentException if it is not
+     * @param length the length of the array
+     * @param from the first index of the range
+     * @param to one past the last index of the range
+     */
+    private static void checkRange(int length, int from, int to) {
+        if (from < 0 || to > length || from > to) {
+            throw new IllegalArgumentException("Range [" + from + ", " + to
+                    + ") is not within an array of length " + length + ".");
         }
     }
 
@@ -133,6 +461,10 @@ public class Sorting {
             throw new IllegalArgumentException(
                     "Cannot accept null array or comparator");
         }
+        if (statsEnabled && record("selectionSort", arr.length,
+                () -> selectionSort(arr, counting(comparator)))) {
+            return;
+        }
         T min;
         int index;
         int size = arr.length;
@@ -145,9 +477,11 @@ public class Sorting {
                     index = i;
                 }
             }
-            T temp = arr[j];
-            arr[j] = min;
-            arr[index] = temp;
+            if (index != j) {
+                arr[index] = arr[j];
+                arr[j] = min;
+                moved(2);
+            }
         }
     }
 
@@ -162,6 +496,7 @@ public class Sorting {
         T temp = arr[index1];
         arr[index1] = arr[index2];
         arr[index2] = temp;
+        moved(2);
     }
 
     /**
@@ -201,6 +536,10 @@ public class Sorting {
             throw new IllegalArgumentException(
                     "Cannot accept null array or null comparator.");
         }
+        if (statsEnabled && record("quickSort(T[])", arr.length,
+                () -> quickSort(arr, counting(comparator), rand))) {
+            return;
+        }
         quickSort(arr, comparator, rand, 0, arr.length);
     }
 
@@ -245,180 +584,2777 @@ public class Sorting {
     }
 
     /**
-     * Implement merge sort.
+     * Sorts with a pattern-defeating introspective quick sort, a sibling of
+     * {@link #quickSort(Object[], Comparator, Random)} that needs no Random
+     * and cannot degrade to quadratic time or deep recursion.
      *
-     * It should be:
-     *  stable
+     * Pivots are the median of the first, middle and last elements, or for
+     * ranges longer than {@code NINTHER_CUTOFF} the median of three such
+     * medians taken from nine elements spread over the range. Ranges up to
+     * {@code INSERTION_CUTOFF} elements are insertion sorted. Only the
+     * smaller side of a partition is sorted recursively while the larger one
+     * is handled by the loop, so the recursion is at most log n deep.
+     *
+     * Runs of equal elements are handled the way pdqsort does it: a range
+     * whose pivot equals the element just before it (the previous pivot)
+     * can only hold that value on the left of the partition, so it gets
+     * partitioned into equal and greater elements and the equal ones are
+     * done. A partition that needed no swaps is tried with an insertion sort
+     * that gives up after {@code PARTIAL_INSERTION_LIMIT} moves, which makes
+     * sorted and nearly sorted input linear. Badly unbalanced partitions
+     * shuffle a few elements to break up patterns, and after log n of them
+     * the range is heap sorted instead.
+     *
+     * It is:
+     *  in-place
      *
      * Have a worst case running time of:
      *  O(n log n)
      *
      * And a best case running time of:
-     *  O(n log n)
-     *
-     * You can create more arrays to run mergesort, but at the end,
-     * everything should be merged back into the original T[]
-     * which was passed in.
-     *
-     * Any duplicates in the array should be in the same relative position after
-     * sorting as they were before sorting.
+     *  O(n)
      *
      * @throws IllegalArgumentException if the array or comparator is null
      * @param <T> data type to sort
-     * @param arr the array to be sorted
+     * @param arr the array that must be sorted after the method runs
      * @param comparator the Comparator used to compare the data in arr
      */
-    public static <T> void mergeSort(T[] arr, Comparator<T> comparator) {
+    public static <T> void introSort(T[] arr, Comparator<T> comparator) {
         if (arr == null || comparator == null) {
             throw new IllegalArgumentException(
-                    "Cannot accept null array or comparator.");
+                    "Cannot accept null array or null comparator.");
         }
-        int length = arr.length;
-        if (length == 1) {
+        if (statsEnabled && record("introSort", arr.length,
+                () -> introSort(arr, counting(comparator)))) {
             return;
         }
-        int midIndex = length / 2;
-        T[] leftArray = (T[]) new Object[midIndex];
-        for (int i = 0; i < midIndex; i++) {
-            leftArray[i] = arr[i];
-        }
-        T[] rightArray = (T[]) new Object[length - midIndex];
-        for (int j = 0; j < (length - midIndex); j++) {
-            rightArray[j] = arr[j + midIndex];
-        }
-        mergeSort(leftArray, comparator);
-        mergeSort(rightArray, comparator);
-
-        int leftIndex = 0;
-        int rightIndex = 0;
-        int currentIndex = 0;
-
-        while ((leftIndex < midIndex) && (rightIndex < (length - midIndex))) {
-            if (comparator.compare(leftArray[leftIndex],
-                    rightArray[rightIndex]) <= 0) {
-                arr[currentIndex] = leftArray[leftIndex];
-                leftIndex++;
-            } else {
-                arr[currentIndex] = rightArray[rightIndex];
-                rightIndex++;
-            }
-            currentIndex++;
-        }
-        while (leftIndex < midIndex) {
-            arr[currentIndex] = leftArray[leftIndex];
-            leftIndex++;
-            currentIndex++;
-        }
-        while (rightIndex < (length - midIndex)) {
-            arr[currentIndex] = rightArray[rightIndex];
-            rightIndex++;
-            currentIndex++;
-        }
+        int badAllowed = 32 - Integer.numberOfLeadingZeros(arr.length);
+        introSort(arr, comparator, 0, arr.length, badAllowed, true);
     }
 
     /**
-     * Implement LSD (least significant digit) radix sort.
-     *
-     * Remember you CANNOT convert the ints to strings at any point in your
-     * code!
-     *
-     * It should be:
-     *  stable
-     *
-     * Have a worst case running time of:
-     *  O(kn)
-     *
-     * And a best case running time of:
-     *  O(kn)
-     *
-     * Any duplicates in the array should be in the same relative position after
-     * sorting as they were before sorting. (stable)
-     *
-     * Do NOT use {@code Math.pow()} in your sort. Instead, if you need to, use
-     * the provided {@code pow()} method below.
+     * introSorts arr[lo, hi).
      *
-     * You may use {@code java.util.ArrayList} or {@code java.util.LinkedList}
-     * if you wish, but it may only be used inside radix sort and any radix sort
-     * helpers. Do NOT use these classes with other sorts.
-     *
-     * @throws IllegalArgumentException if the array is null
-     * @param arr the array to be sorted
-     * @return the sorted array
+     * @param arr the array
+     * @param comparator the Comparator used to compare the data
+     * @param lo the first index
+     * @param hi one past the last index
+     * @param badAllowed unbalanced partitions left before heap sorting
+     * @param leftmost whether the range starts the array, so that there is
+     * no previous pivot before lo
+     * @param <T> the type of data to sort
      */
-    public static int[] lsdRadixSort(int[] arr) {
-        if (arr == null) {
-            throw new IllegalArgumentException("Cannot accept null array.");
-        }
-        int longest = 0;
-        for (int i = 0; i < arr.length; i++) {
-            if (Math.abs(arr[i]) > longest) {
-                longest = Math.abs(arr[i]);
-            }
-        }
-        int iterations = 1;
-        while (longest / 10 >= 1) {
-            iterations++;
-            longest = longest / 10;
-        }
-        for (int iter = 1; iter <= iterations; iter++) {
-            LinkedList<Integer>[] buckets = new LinkedList[19];
-            for (int k : arr) {
-                int lsd = (Math.abs(k) % pow(10, iter)) / pow(10, iter - 1);
-                int index;
-                if (k < 0) {
-                    index = lsd * -1 + 9;
-                } else {
-                    index = lsd + 9;
+    private static <T> void introSort(T[] arr, Comparator<T> comparator,
+                                      int lo, int hi, int badAllowed,
+                                      boolean leftmost) {
+        while (hi - lo > INSERTION_CUTOFF) {
+            int size = hi - lo;
+            choosePivot(arr, lo, hi, comparator);
+
+            if (!leftmost && comparator.compare(arr[lo - 1], arr[lo]) >= 0) {
+                lo = partitionLeft(arr, lo, hi, comparator) + 1;
+                continue;
+            }
+
+            T pivot = arr[lo];
+            int first = lo + 1;
+            int last = hi - 1;
+            while (first <= last && comparator.compare(arr[first], pivot) < 0) {
+                first++;
+            }
+            while (first <= last
+                    && comparator.compare(arr[last], pivot) >= 0) {
+                last--;
+            }
+            boolean alreadyPartitioned = first > last;
+            while (first < last) {
+                swap(arr, first++, last--);
+                while (first <= last
+                        && comparator.compare(arr[first], pivot) < 0) {
+                    first++;
                 }
-                if (buckets[index] == null) {
-                    buckets[index] = new LinkedList<Integer>();
+                while (first <= last
+                        && comparator.compare(arr[last], pivot) >= 0) {
+                    last--;
                 }
-                buckets[index].add(k);
             }
-            LinkedList<Integer> transferList = new LinkedList<Integer>();
-            for (LinkedList<Integer> bucket : buckets) {
-                if (bucket != null) {
-                    for (int num : bucket) {
-                        transferList.add(num);
-                    }
+            swap(arr, lo, last);
+
+            int leftSize = last - lo;
+            int rightSize = hi - last - 1;
+            if (leftSize < size / 8 || rightSize < size / 8) {
+                if (--badAllowed == 0) {
+                    heapSort(arr, lo, hi, comparator);
+                    return;
+                }
+                if (leftSize >= INSERTION_CUTOFF) {
+                    breakPattern(arr, lo, last);
                 }
+                if (rightSize >= INSERTION_CUTOFF) {
+                    breakPattern(arr, last + 1, hi);
+                }
+            } else if (alreadyPartitioned
+                    && insertionSort(arr, lo, last, comparator,
+                            PARTIAL_INSERTION_LIMIT)
+                    && insertionSort(arr, last + 1, hi, comparator,
+                            PARTIAL_INSERTION_LIMIT)) {
+                return;
             }
-            for (int j = 0; j < transferList.size(); j++) {
-                arr[j] = transferList.get(j);
+
+            if (leftSize < rightSize) {
+                introSort(arr, comparator, lo, last, badAllowed, leftmost);
+                lo = last + 1;
+                leftmost = false;
+            } else {
+                introSort(arr, comparator, last + 1, hi, badAllowed, false);
+                hi = last;
             }
         }
-        return arr;
+        insertionSort(arr, lo, hi, comparator, Integer.MAX_VALUE);
     }
 
     /**
-     * Calculate the result of a number raised to a power. Use this method in
-     * your radix sorts instead of {@code Math.pow()}.
+     * Moves the introSort pivot of arr[lo, hi) to lo: the median of the
+     * first, middle and last elements, or for ranges longer than
+     * {@code NINTHER_CUTOFF} the median of three medians of elements spread
+     * evenly over the range.
      *
-     * DO NOT MODIFY THIS METHOD.
-     *
-     * @throws IllegalArgumentException if both {@code base} and {@code exp} are
-     * 0
-     * @throws IllegalArgumentException if {@code exp} is negative
-     * @param base base of the number
-     * @param exp power to raise the base to. Must be 0 or greater.
-     * @return result of the base raised to that power
+     * @param arr the array
+     * @param lo the first index
+     * @param hi one past the last index
+     * @param comparator the Comparator used to compare the data
+     * @param <T> the type of data to sort
      */
-    private static int pow(int base, int exp) {
-        if (exp < 0) {
-            throw new IllegalArgumentException("Exponent cannot be negative.");
-        } else if (base == 0 && exp == 0) {
-            throw new IllegalArgumentException(
-                    "Both base and exponent cannot be 0.");
-        } else if (exp == 0) {
-            return 1;
-        } else if (exp == 1) {
-            return base;
-        }
-        int halfPow = pow(base, exp / 2);
-        if (exp % 2 == 0) {
-            return halfPow * halfPow;
+    private static <T> void choosePivot(T[] arr, int lo, int hi,
+                                        Comparator<T> comparator) {
+        int size = hi - lo;
+        int mid = lo + size / 2;
+        if (size > NINTHER_CUTOFF) {
+            int eighth = size / 8;
+            sort3(arr, lo, lo + eighth, lo + 2 * eighth, comparator);
+            sort3(arr, mid - eighth, mid, mid + eighth, comparator);
+            sort3(arr, hi - 1 - 2 * eighth, hi - 1 - eighth, hi - 1,
+                    comparator);
+            sort3(arr, lo + eighth, mid, hi - 1 - eighth, comparator);
+            swap(arr, lo, mid);
         } else {
-            return halfPow * pow(base, (exp / 2) + 1);
+            sort3(arr, mid, lo, hi - 1, comparator);
+        }
+    }
+
+    /**
+     * Swaps elements near the ends and the middle of a range with ones a
+     * quarter of the range away, so that the next pivot is not picked from
+     * the same pattern that made the last partition unbalanced.
+     *
+     * @param arr the array
+     * @param lo the first index
+     * @param hi one past the last index
+     * @param <T> the type of data to sort
+     */
+    private static <T> void breakPattern(T[] arr, int lo, int hi) {
+        int quarter = (hi - lo) / 4;
+        swap(arr, lo, lo + quarter);
+        swap(arr, hi - 1, hi - 1 - quarter);
+        if (hi - lo > NINTHER_CUTOFF) {
+            int mid = lo + (hi - lo) / 2;
+            swap(arr, lo + 1, lo + 1 + quarter);
+            swap(arr, lo + 2, lo + 2 + quarter);
+            swap(arr, hi - 2, hi - 2 - quarter);
+            swap(arr, hi - 3, hi - 3 - quarter);
+            swap(arr, mid - 1, mid - 1 - quarter);
+            swap(arr, mid, mid + quarter);
+            swap(arr, mid + 1, mid + 1 + quarter);
+        }
+    }
+
+    /**
+     * Partitions arr[lo, hi) around the pivot at lo into elements less than
+     * or equal to the pivot and elements greater than it. introSort calls
+     * this when nothing in the range is less than the pivot, so the left
+     * side ends up holding only elements equal to it.
+     *
+     * @param arr the array
+     * @param lo the first index, holding the pivot
+     * @param hi one past the last index
+     * @param comparator the Comparator used to compare the data
+     * @param <T> the type of data to sort
+     * @return the final index of the pivot
+     */
+    private static <T> int partitionLeft(T[] arr, int lo, int hi,
+                                         Comparator<T> comparator) {
+        T pivot = arr[lo];
+        int first = lo + 1;
+        int last = hi - 1;
+        while (first <= last && comparator.compare(pivot, arr[last]) < 0) {
+            last--;
+        }
+        while (first <= last && comparator.compare(pivot, arr[first]) >= 0) {
+            first++;
+        }
+        while (first < last) {
+            swap(arr, first++, last--);
+            while (first <= last
+                    && comparator.compare(pivot, arr[last]) < 0) {
+                last--;
+            }
+            while (first <= last
+                    && comparator.compare(pivot, arr[first]) >= 0) {
+                first++;
+            }
+        }
+        swap(arr, lo, last);
+        return last;
+    }
+
+    /**
+     * Orders three elements of an array.
+     *
+     * @param arr the array
+     * @param a the index that gets the smallest element
+     * @param b the index that gets the median
+     * @param c the index that gets the largest element
+     * @param comparator the Comparator used to compare the data
+     * @param <T> the type of data to sort
+     */
+    private static <T> void sort3(T[] arr, int a, int b, int c,
+                                  Comparator<T> comparator) {
+        if (comparator.compare(arr[b], arr[a]) < 0) {
+            swap(arr, a, b);
+        }
+        if (comparator.compare(arr[c], arr[b]) < 0) {
+            swap(arr, b, c);
+            if (comparator.compare(arr[b], arr[a]) < 0) {
+                swap(arr, a, b);
+            }
+        }
+    }
+
+    /**
+     * Insertion sorts arr[lo, hi), giving up once more than limit elements
+     * have been moved.
+     *
+     * @param arr the array
+     * @param lo the first index
+     * @param hi one past the last index
+     * @param comparator the Comparator used to compare the data
+     * @param limit the number of moves allowed
+     * @param <T> the type of data to sort
+     * @return true if the range got sorted
+     */
+    private static <T> boolean insertionSort(T[] arr, int lo, int hi,
+                                             Comparator<T> comparator,
+                                             int limit) {
+        int moves = 0;
+        for (int i = lo + 1; i < hi && moves <= limit; i++) {
+            T item = arr[i];
+            int j = i;
+            while (j > lo && comparator.compare(arr[j - 1], item) > 0) {
+                arr[j] = arr[j - 1];
+                j--;
+            }
+            arr[j] = item;
+            moved(i - j + 1);
+            moves += i - j;
+        }
+        return moves <= limit;
+    }
+
+    /**
+     * Heap sorts arr[lo, hi) with a max heap rooted at lo.
+     *
+     * @param arr the array
+     * @param lo the first index
+     * @param hi one past the last index
+     * @param comparator the Comparator used to compare the data
+     * @param <T> the type of data to sort
+     */
+    private static <T> void heapSort(T[] arr, int lo, int hi,
+                                     Comparator<T> comparator) {
+        int size = hi - lo;
+        for (int i = size / 2 - 1; i >= 0; i--) {
+            siftDown(arr, lo, i, size, comparator);
+        }
+        for (int end = size - 1; end > 0; end--) {
+            swap(arr, lo, lo + end);
+            siftDown(arr, lo, 0, end, comparator);
+        }
+    }
+
+    /**
+     * Restores the max heap property below one node of a heap stored in
+     * arr starting at lo.
+     *
+     * @param arr the array
+     * @param lo the index of the root
+     * @param node the node to sift down, relative to lo
+     * @param size the number of elements in the heap
+     * @param comparator the Comparator used to compare the data
+     * @param <T> the type of data to sort
+     */
+    private static <T> void siftDown(T[] arr, int lo, int node, int size,
+                                     Comparator<T> comparator) {
+        T item = arr[lo + node];
+        int child = 2 * node + 1;
+        while (child < size) {
+            if (child + 1 < size && comparator.compare(arr[lo + child],
+                    arr[lo + child + 1]) < 0) {
+                child++;
+            }
+            if (comparator.compare(item, arr[lo + child]) >= 0) {
+                break;
+            }
+            arr[lo + node] = arr[lo + child];
+            moved(1);
+            node = child;
+            child = 2 * node + 1;
+        }
+        arr[lo + node] = item;
+        moved(1);
+    }
+
+    /**
+     * Rearranges the array so that the element at index n is the one that
+     * would be there if the array were sorted, with no greater element
+     * before it and no smaller element after it. This is a quickselect
+     * using the pivots of {@link #introSort(Object[], Comparator)}, which
+     * only partitions the side holding n and so does O(n) work on average
+     * instead of the O(n log n) of a full sort.
+     *
+     * It is:
+     *  in-place
+     *  unstable
+     *
+     * Have a worst case running time of:
+     *  O(n log n)
+     *
+     * And a best case running time of:
+     *  O(n)
+     *
+     * @throws IllegalArgumentException if the array or comparator is null
+     * or n is not an index of the array
+     * @param <T> data type to sort
+     * @param arr the array to rearrange
+     * @param n the index to select the element for
+     * @param comparator the Comparator used to compare the data in arr
+     * @return the element that ends up at index n
+     */
+    public static <T> T nthElement(T[] arr, int n, Comparator<T> comparator) {
+        if (arr == null || comparator == null) {
+            throw new IllegalArgumentException(
+                    "Cannot accept null array or null comparator.");
+        }
+        if (n < 0 || n >= arr.length) {
+            throw new IllegalArgumentException("Index " + n
+                    + " is out of range for an array of length "
+                    + arr.length + ".");
+        }
+        if (statsEnabled && record("nthElement", arr.length,
+                () -> nthElement(arr, n, counting(comparator)))) {
+            return arr[n];
+        }
+        select(arr, 0, arr.length, n, comparator);
+        return arr[n];
+    }
+
+    /**
+     * Sorts the k smallest elements of the array into its first k indices,
+     * leaving the rest of the elements after them in no particular order.
+     * The array is first split around index k - 1 by
+     * {@link #nthElement(Object[], int, Comparator)} and only the front is
+     * introSorted, for O(n + k log k) work in total.
+     *
+     * It is:
+     *  in-place
+     *  unstable
+     *
+     * Have a worst case running time of:
+     *  O(n log n)
+     *
+     * And a best case running time of:
+     *  O(n)
+     *
+     * @throws IllegalArgumentException if the array or comparator is null
+     * or k is negative or greater than the length of the array
+     * @param <T> data type to sort
+     * @param arr the array to partially sort
+     * @param k the number of elements to sort into the front
+     * @param comparator the Comparator used to compare the data in arr
+     */
+    public static <T> void partialSort(T[] arr, int k,
+                                       Comparator<T> comparator) {
+        if (arr == null || comparator == null) {
+            throw new IllegalArgumentException(
+                    "Cannot accept null array or null comparator.");
+        }
+        if (k < 0 || k > arr.length) {
+            throw new IllegalArgumentException("Cannot sort " + k
+                    + " elements of an array of length " + arr.length + ".");
+        }
+        if (statsEnabled && record("partialSort", arr.length,
+                () -> partialSort(arr, k, counting(comparator)))) {
+            return;
+        }
+        if (k == 0) {
+            return;
+        }
+        int end = k;
+        if (k < arr.length) {
+            select(arr, 0, arr.length, k - 1, comparator);
+            end = k - 1;
+        }
+        int badAllowed = 32 - Integer.numberOfLeadingZeros(end);
+        introSort(arr, comparator, 0, end, badAllowed, true);
+    }
+
+    /**
+     * Returns the k smallest elements of a sequence in sorted order, in one
+     * pass over it. Pass a reversed comparator to get the k largest.
+     *
+     * The elements kept so far are held in a max heap of at most k
+     * elements, so each further element costs one comparison with the
+     * largest of them and, if it is smaller, O(log k) work to replace it.
+     * That is O(n log k) time and O(k) space however long the sequence is,
+     * which suits sequences that are not in an array or are too long to
+     * sort. The order of equal elements is not kept.
+     *
+     * @throws IllegalArgumentException if the source or comparator is null
+     * or k is negative
+     * @param <T> data type to select
+     * @param source the elements to select from
+     * @param k the number of elements to return
+     * @param comparator the Comparator used to compare the data
+     * @return the min(k, source size) smallest elements, sorted
+     */
+    public static <T> List<T> topK(Iterable<? extends T> source, int k,
+                                   Comparator<T> comparator) {
+        if (source == null || comparator == null) {
+            throw new IllegalArgumentException(
+                    "Cannot accept null source or null comparator.");
+        }
+        if (k < 0) {
+            throw new IllegalArgumentException("Cannot select " + k
+                    + " elements.");
+        }
+        if (statsEnabled) {
+            List<T> top = new ArrayList<>();
+            if (record("topK", -1, () -> top.addAll(
+                    topK(source, k, counting(comparator))))) {
+                return top;
+            }
+        }
+        if (k == 0) {
+            return new ArrayList<>();
+        }
+        @SuppressWarnings("unchecked")
+        T[] heap = (T[]) new Object[Math.min(k, INSERTION_CUTOFF)];
+        allocated(heap.length);
+        int size = 0;
+        int length = 0;
+        for (T item : source) {
+            length++;
+            if (size < k) {
+                if (size == heap.length) {
+                    heap = Arrays.copyOf(heap,
+                            (int) Math.min(k, 2L * heap.length));
+                    allocated(heap.length);
+                }
+                heap[size++] = item;
+                moved(1);
+                if (size == k) {
+                    for (int i = k / 2 - 1; i >= 0; i--) {
+                        siftDown(heap, 0, i, k, comparator);
+                    }
+                }
+            } else if (comparator.compare(item, heap[0]) < 0) {
+                heap[0] = item;
+                moved(1);
+                siftDown(heap, 0, 0, k, comparator);
+            }
+        }
+        measured(length);
+        heapSort(heap, 0, size, comparator);
+        List<T> top = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            top.add(heap[i]);
+        }
+        return top;
+    }
+
+    /**
+     * Quickselects index n of arr[lo, hi). Both scans of the partition stop
+     * at elements equal to the pivot, so runs of equal elements are split
+     * evenly instead of all landing on one side. Unbalanced partitions are
+     * handled like in introSort: patterns are broken up, and after log n of
+     * them the remaining range is heap sorted.
+     *
+     * @param arr the array
+     * @param lo the first index
+     * @param hi one past the last index
+     * @param n the index to select, in [lo, hi)
+     * @param comparator the Comparator used to compare the data
+     * @param <T> the type of data to sort
+     */
+    private static <T> void select(T[] arr, int lo, int hi, int n,
+                                   Comparator<T> comparator) {
+        int badAllowed = 32 - Integer.numberOfLeadingZeros(hi - lo);
+        while (hi - lo > INSERTION_CUTOFF) {
+            int size = hi - lo;
+            choosePivot(arr, lo, hi, comparator);
+            T pivot = arr[lo];
+            int first = lo + 1;
+            int last = hi - 1;
+            while (true) {
+                while (first < hi
+                        && comparator.compare(arr[first], pivot) < 0) {
+                    first++;
+                }
+                while (comparator.compare(pivot, arr[last]) < 0) {
+                    last--;
+                }
+                if (first >= last) {
+                    break;
+                }
+                swap(arr, first++, last--);
+            }
+            swap(arr, lo, last);
+
+            if (n == last) {
+                return;
+            }
+            int leftSize = last - lo;
+            int rightSize = hi - last - 1;
+            if (n < last) {
+                hi = last;
+            } else {
+                lo = last + 1;
+            }
+            if (leftSize < size / 8 || rightSize < size / 8) {
+                if (--badAllowed == 0) {
+                    heapSort(arr, lo, hi, comparator);
+                    return;
+                }
+                if (hi - lo >= INSERTION_CUTOFF) {
+                    breakPattern(arr, lo, hi);
+                }
+            }
+        }
+        insertionSort(arr, lo, hi, comparator, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Implement merge sort.
+     *
+     * It should be:
+     *  stable
+     *
+     * Have a worst case running time of:
+     *  O(n log n)
+     *
+     * And a best case running time of:
+     *  O(n log n)
+     *
+     * You can create more arrays to run mergesort, but at the end,
+     * everything should be merged back into the original T[]
+     * which was passed in.
+     *
+     * Any duplicates in the array should be in the same relative position after
+     * sorting as they were before sorting.
+     *
+     * @throws IllegalArgumentException if the array or comparator is null
+     * @param <T> data type to sort
+     * @param arr the array to be sorted
+     * @param comparator the Comparator used to compare the data in arr
+     */
+    public static <T> void mergeSort(T[] arr, Comparator<T> comparator) {
+        if (arr == null || comparator == null) {
+            throw new IllegalArgumentException(
+                    "Cannot accept null array or comparator.");
+        }
+        if (statsEnabled && record("mergeSort(T[])", arr.length,
+                () -> mergeSort(arr, counting(comparator)))) {
+            return;
+        }
+        int length = arr.length;
+        if (length <= INSERTION_CUTOFF) {
+            insertionSort(arr, 0, length, comparator, Integer.MAX_VALUE);
+            return;
+        }
+        int midIndex = length / 2;
+        T[] leftArray = (T[]) new Object[midIndex];
+        for (int i = 0; i < midIndex; i++) {
+            leftArray[i] = arr[i];
+        }
+        T[] rightArray = (T[]) new Object[length - midIndex];
+        for (int j = 0; j < (length - midIndex); j++) {
+            rightArray[j] = arr[j + midIndex];
+        }
+        mergeSort(leftArray, comparator);
+        mergeSort(rightArray, comparator);
+
+        int leftIndex = 0;
+        int rightIndex = 0;
+        int currentIndex = 0;
+
+        while ((leftIndex < midIndex) && (rightIndex < (length - midIndex))) {
+            if (comparator.compare(leftArray[leftIndex],
+                    rightArray[rightIndex]) <= 0) {
+                arr[currentIndex] = leftArray[leftIndex];
+                leftIndex++;
+            } else {
+                arr[currentIndex] = rightArray[rightIndex];
+                rightIndex++;
+            }
+            currentIndex++;
+        }
+        while (leftIndex < midIndex) {
+            arr[currentIndex] = leftArray[leftIndex];
+            leftIndex++;
+            currentIndex++;
+        }
+        while (rightIndex < (length - midIndex)) {
+            arr[currentIndex] = rightArray[rightIndex];
+            rightIndex++;
+            currentIndex++;
+        }
+        allocated(length);
+        moved(2L * length);
+    }
+
+    /**
+     * Sorts an array with a parallel merge sort on the common ForkJoinPool.
+     *
+     * It is:
+     *  stable
+     *
+     * With a worst case running time of:
+     *  O(n log n) work, O(log^3 n) span
+     *
+     * Only one scratch array of the same length is allocated. Ranges of up
+     * to {@code PARALLEL_CUTOFF} elements are sorted sequentially, while
+     * the merges of longer ranges are themselves split into independent
+     * halves, so that the top levels are not a sequential bottleneck.
+     *
+     * @throws IllegalArgumentException if the array or comparator is null
+     * @param <T> data type to sort
+     * @param arr the array to be sorted
+     * @param comparator the Comparator used to compare the data in arr
+     */
+    public static <T> void parallelMergeSort(T[] arr,
+                                             Comparator<T> comparator) {
+        if (arr == null || comparator == null) {
+            throw new IllegalArgumentException(
+                    "Cannot accept null array or comparator.");
+        }
+        if (statsEnabled && record("parallelMergeSort", arr.length,
+                () -> parallelMergeSort(arr, counting(comparator)))) {
+            return;
+        }
+        T[] scratch = Arrays.copyOf(arr, arr.length);
+        allocated(arr.length);
+        moved(arr.length);
+        SortStats stats = statsEnabled ? CURRENT_STATS.get() : null;
+        ForkJoinPool.commonPool().invoke(new MergeSortTask<>(scratch, arr, 0,
+                arr.length, comparator, stats));
+    }
+
+    /**
+     * Sorts src[lo, hi) into dst[lo, hi). Both arrays must hold the same
+     * elements in that range when called; src is used as scratch space.
+     * Halves are sorted from dst into src, swapping the roles of the two
+     * arrays at every level, so no level copies data back.
+     *
+     * @param src the array the halves are sorted into
+     * @param dst the array the range ends up sorted in
+     * @param lo the first index
+     * @param hi one past the last index
+     * @param comparator the Comparator used to compare the data
+     * @param <T> the type of data to sort
+     */
+    private static <T> void mergeSort(T[] src, T[] dst, int lo, int hi,
+                                      Comparator<T> comparator) {
+        if (hi - lo <= INSERTION_CUTOFF) {
+            insertionSort(dst, lo, hi, comparator, Integer.MAX_VALUE);
+            return;
+        }
+        int mid = (lo + hi) >>> 1;
+        mergeSort(dst, src, lo, mid, comparator);
+        mergeSort(dst, src, mid, hi, comparator);
+        merge(src, lo, mid, mid, hi, dst, lo, comparator);
+    }
+
+    /**
+     * Stably merges the sorted ranges src[lo1, hi1) and src[lo2, hi2) into
+     * dst starting at out. Elements of the first range win ties.
+     *
+     * @param src the array holding both ranges
+     * @param lo1 start of the first range
+     * @param hi1 end of the first range
+     * @param lo2 start of the second range
+     * @param hi2 end of the second range
+     * @param dst the array to merge into
+     * @param out the first index written in dst
+     * @param comparator the Comparator used to compare the data
+     * @param <T> the type of data to sort
+     */
+    private static <T> void merge(T[] src, int lo1, int hi1, int lo2,
+                                  int hi2, T[] dst, int out,
+                                  Comparator<T> comparator) {
+        moved(hi1 - lo1 + hi2 - lo2);
+        while (lo1 < hi1 && lo2 < hi2) {
+            if (comparator.compare(src[lo1], src[lo2]) <= 0) {
+                dst[out++] = src[lo1++];
+            } else {
+                dst[out++] = src[lo2++];
+            }
+        }
+        System.arraycopy(src, lo1, dst, out, hi1 - lo1);
+        System.arraycopy(src, lo2, dst, out + hi1 - lo1, hi2 - lo2);
+    }
+
+    /**
+     * Finds the first index in a sorted range whose element is greater
+     * than the key, or also equal to it if {@code inclusive} is false.
+     *
+     * @param arr the array
+     * @param lo start of the range
+     * @param hi end of the range
+     * @param key the key to search for
+     * @param inclusive true to skip elements equal to the key
+     * @param comparator the Comparator used to compare the data
+     * @param <T> the type of data
+     * @return the index in [lo, hi]
+     */
+    private static <T> int search(T[] arr, int lo, int hi, T key,
+                                  boolean inclusive,
+                                  Comparator<T> comparator) {
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            int cmp = comparator.compare(arr[mid], key);
+            if (cmp < 0 || (inclusive && cmp == 0)) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    /**
+     * Fork-join task of {@link #parallelMergeSort(Object[], Comparator)}
+     * with the same contract as the sequential
+     * {@link #mergeSort(Object[], Object[], int, int, Comparator)}.
+     *
+     * @param <T> the type of data to sort
+     */
+    @SuppressWarnings("serial")
+    private static final class MergeSortTask<T> extends RecursiveAction {
+        private final T[] src;
+        private final T[] dst;
+        private final int lo;
+        private final int hi;
+        private final Comparator<T> comparator;
+        private final SortStats stats;
+
+        /**
+         * Creates a task sorting src[lo, hi) into dst[lo, hi).
+         *
+         * @param src the array the halves are sorted into
+         * @param dst the array the range ends up sorted in
+         * @param lo the first index
+         * @param hi one past the last index
+         * @param comparator the Comparator used to compare the data
+         * @param stats the stats of the sort, or null if it is not recorded
+         */
+        MergeSortTask(T[] src, T[] dst, int lo, int hi,
+                      Comparator<T> comparator, SortStats stats) {
+            this.src = src;
+            this.dst = dst;
+            this.lo = lo;
+            this.hi = hi;
+            this.comparator = comparator;
+            this.stats = stats;
+        }
+
+        @Override
+        protected void compute() {
+            if (hi - lo <= PARALLEL_CUTOFF) {
+                SortStats previous = bindStats(stats);
+                try {
+                    mergeSort(src, dst, lo, hi, comparator);
+                } finally {
+                    unbindStats(stats, previous);
+                }
+                return;
+            }
+            int mid = (lo + hi) >>> 1;
+            invokeAll(new MergeSortTask<>(dst, src, lo, mid, comparator,
+                            stats),
+                    new MergeSortTask<>(dst, src, mid, hi, comparator,
+                            stats));
+            new MergeTask<>(src, lo, mid, mid, hi, dst, lo, comparator,
+                    stats).compute();
+        }
+    }
+
+    /**
+     * Fork-join task merging two sorted ranges like
+     * {@link #merge(Object[], int, int, int, int, Object[], int, Comparator)}.
+     * Long merges split the longer range at its middle element, find where
+     * that element belongs in the other range and merge the two halves in
+     * parallel.
+     *
+     * @param <T> the type of data to sort
+     */
+    @SuppressWarnings("serial")
+    private static final class MergeTask<T> extends RecursiveAction {
+        private final T[] src;
+        private final int lo1;
+        private final int hi1;
+        private final int lo2;
+        private final int hi2;
+        private final T[] dst;
+        private final int out;
+        private final Comparator<T> comparator;
+        private final SortStats stats;
+
+        /**
+         * Creates a task merging src[lo1, hi1) and src[lo2, hi2) into dst
+         * starting at out.
+         *
+         * @param src the array holding both ranges
+         * @param lo1 start of the first range
+         * @param hi1 end of the first range
+         * @param lo2 start of the second range
+         * @param hi2 end of the second range
+         * @param dst the array to merge into
+         * @param out the first index written in dst
+         * @param comparator the Comparator used to compare the data
+         * @param stats the stats of the sort, or null if it is not recorded
+         */
+        MergeTask(T[] src, int lo1, int hi1, int lo2, int hi2, T[] dst,
+                  int out, Comparator<T> comparator, SortStats stats) {
+            this.src = src;
+            this.lo1 = lo1;
+            this.hi1 = hi1;
+            this.lo2 = lo2;
+            this.hi2 = hi2;
+            this.dst = dst;
+            this.out = out;
+            this.comparator = comparator;
+            this.stats = stats;
+        }
+
+        @Override
+        protected void compute() {
+            int length1 = hi1 - lo1;
+            int length2 = hi2 - lo2;
+            if (length1 + length2 <= PARALLEL_CUTOFF) {
+                SortStats previous = bindStats(stats);
+                try {
+                    merge(src, lo1, hi1, lo2, hi2, dst, out, comparator);
+                } finally {
+                    unbindStats(stats, previous);
+                }
+                return;
+            }
+            int split1;
+            int split2;
+            if (length1 >= length2) {
+                // Equal elements of the second range must stay behind it.
+                split1 = (lo1 + hi1) >>> 1;
+                split2 = search(src, lo2, hi2, src[split1], false,
+                        comparator);
+            } else {
+                // Equal elements of the first range must stay in front.
+                split2 = (lo2 + hi2) >>> 1;
+                split1 = search(src, lo1, hi1, src[split2], true,
+                        comparator);
+            }
+            int outSplit = out + (split1 - lo1) + (split2 - lo2);
+            invokeAll(new MergeTask<>(src, lo1, split1, lo2, split2, dst,
+                            out, comparator, stats),
+                    new MergeTask<>(src, split1, hi1, split2, hi2, dst,
+                            outSplit, comparator, stats));
+        }
+    }
+
+    /**
+     * Sorts with a natural merge sort in the style of TimSort, which adapts
+     * to order already present in the input.
+     *
+     * The array is split into runs: maximal ascending or strictly
+     * descending stretches, the latter reversed in place. Runs shorter than
+     * a minimum length between 16 and 32 are extended with binary insertion
+     * sort. Runs are kept on a stack whose lengths shrink faster than the
+     * Fibonacci numbers, merging neighbours whenever that would break, so
+     * merges stay balanced. Each merge first skips the elements already in
+     * place at both ends, then copies only the shorter run aside. Once one
+     * run keeps winning, it switches to galloping: exponential then binary
+     * search for how far that run wins, moved with a single array copy.
+     *
+     * It is:
+     *  stable
+     *
+     * Have a worst case running time of:
+     *  O(n log n)
+     *
+     * And a best case running time of:
+     *  O(n), for input made of few runs
+     *
+     * One scratch buffer is used, allocated on the first merge and grown up
+     * to half the array length as needed.
+     *
+     * @throws IllegalArgumentException if the array or comparator is null,
+     * or if the comparator is found to be inconsistent
+     * @param <T> data type to sort
+     * @param arr the array that must be sorted after the method runs
+     * @param comparator the Comparator used to compare the data in arr
+     */
+    public static <T> void timSort(T[] arr, Comparator<T> comparator) {
+        if (arr == null || comparator == null) {
+            throw new IllegalArgumentException(
+                    "Cannot accept null array or null comparator.");
+        }
+        if (statsEnabled && record("timSort", arr.length,
+                () -> timSort(arr, counting(comparator)))) {
+            return;
+        }
+        int n = arr.length;
+        if (n < 2) {
+            return;
+        }
+        if (n < MIN_MERGE) {
+            int run = countRun(arr, 0, n, comparator);
+            binaryInsertionSort(arr, 0, n, run, comparator);
+            return;
+        }
+        RunMerger<T> merger = new RunMerger<>(arr, comparator);
+        int minRun = minRunLength(n);
+        int lo = 0;
+        while (lo < n) {
+            int run = countRun(arr, lo, n, comparator);
+            if (run < minRun) {
+                int forced = Math.min(n - lo, minRun);
+                binaryInsertionSort(arr, lo, lo + forced, lo + run,
+                        comparator);
+                run = forced;
+            }
+            merger.push(lo, run);
+            merger.mergeCollapse();
+            lo += run;
+        }
+        merger.mergeForceCollapse();
+    }
+
+    /**
+     * Finds the length of the run starting at lo, and reverses it if it is
+     * descending. Descending runs must be strictly descending so that
+     * reversing them keeps equal elements in order.
+     *
+     * @param arr the array
+     * @param lo the first index of the run
+     * @param hi one past the last index the run may reach
+     * @param comparator the Comparator used to compare the data
+     * @param <T> the type of data to sort
+     * @return the length of the run
+     */
+    private static <T> int countRun(T[] arr, int lo, int hi,
+                                    Comparator<T> comparator) {
+        int runHi = lo + 1;
+        if (runHi == hi) {
+            return 1;
+        }
+        if (comparator.compare(arr[runHi++], arr[lo]) < 0) {
+            while (runHi < hi
+                    && comparator.compare(arr[runHi], arr[runHi - 1]) < 0) {
+                runHi++;
+            }
+            for (int i = lo, j = runHi - 1; i < j; i++, j--) {
+                swap(arr, i, j);
+            }
+        } else {
+            while (runHi < hi
+                    && comparator.compare(arr[runHi], arr[runHi - 1]) >= 0) {
+                runHi++;
+            }
+        }
+        return runHi - lo;
+    }
+
+    /**
+     * Sorts arr[lo, hi), whose prefix arr[lo, start) is already sorted, by
+     * binary searching the position of each further element. Elements are
+     * placed after equal ones, so the sort is stable.
+     *
+     * @param arr the array
+     * @param lo the first index
+     * @param hi one past the last index
+     * @param start the first index not known to be in order
+     * @param comparator the Comparator used to compare the data
+     * @param <T> the type of data to sort
+     */
+    private static <T> void binaryInsertionSort(T[] arr, int lo, int hi,
+                                                int start,
+                                                Comparator<T> comparator) {
+        for (int i = Math.max(start, lo + 1); i < hi; i++) {
+            T item = arr[i];
+            int left = lo;
+            int right = i;
+            while (left < right) {
+                int mid = (left + right) >>> 1;
+                if (comparator.compare(item, arr[mid]) < 0) {
+                    right = mid;
+                } else {
+                    left = mid + 1;
+                }
+            }
+            System.arraycopy(arr, left, arr, left + 1, i - left);
+            arr[left] = item;
+            moved(i - left + 1);
+        }
+    }
+
+    /**
+     * Computes the minimum run length for timSort: n itself below
+     * {@code MIN_MERGE}, otherwise a length between half of
+     * {@code MIN_MERGE} and {@code MIN_MERGE} that splits n into a power of
+     * two runs, or slightly fewer, so the final merges are balanced.
+     *
+     * @param n the array length
+     * @return the minimum run length
+     */
+    private static int minRunLength(int n) {
+        int odd = 0;
+        while (n >= MIN_MERGE) {
+            odd |= n & 1;
+            n >>= 1;
+        }
+        return n + odd;
+    }
+
+    /**
+     * Finds where a key would be inserted into the sorted range
+     * arr[base, base + length) before any equal elements, searching
+     * outwards from base + hint first so that keys close to the hint are
+     * found in few comparisons.
+     *
+     * @param key the key to locate
+     * @param arr the array
+     * @param base the first index of the range
+     * @param length the length of the range
+     * @param hint the offset to start from, less than length
+     * @param comparator the Comparator used to compare the data
+     * @param <T> the type of data to sort
+     * @return the offset k with arr[base + k - 1] < key <= arr[base + k]
+     */
+    private static <T> int gallopLeft(T key, T[] arr, int base, int length,
+                                      int hint, Comparator<T> comparator) {
+        int lastOffset = 0;
+        int offset = 1;
+        if (comparator.compare(key, arr[base + hint]) > 0) {
+            int maxOffset = length - hint;
+            while (offset < maxOffset && comparator.compare(key,
+                    arr[base + hint + offset]) > 0) {
+                lastOffset = offset;
+                offset = (offset << 1) + 1;
+                if (offset <= 0) {
+                    offset = maxOffset;
+                }
+            }
+            offset = Math.min(offset, maxOffset);
+            lastOffset += hint;
+            offset += hint;
+        } else {
+            int maxOffset = hint + 1;
+            while (offset < maxOffset && comparator.compare(key,
+                    arr[base + hint - offset]) <= 0) {
+                lastOffset = offset;
+                offset = (offset << 1) + 1;
+                if (offset <= 0) {
+                    offset = maxOffset;
+                }
+            }
+            offset = Math.min(offset, maxOffset);
+            int temp = lastOffset;
+            lastOffset = hint - offset;
+            offset = hint - temp;
+        }
+        lastOffset++;
+        while (lastOffset < offset) {
+            int mid = lastOffset + ((offset - lastOffset) >>> 1);
+            if (comparator.compare(key, arr[base + mid]) > 0) {
+                lastOffset = mid + 1;
+            } else {
+                offset = mid;
+            }
+        }
+        return offset;
+    }
+
+    /**
+     * Like {@link #gallopLeft}, but finds the position after any elements
+     * equal to the key.
+     *
+     * @param key the key to locate
+     * @param arr the array
+     * @param base the first index of the range
+     * @param length the length of the range
+     * @param hint the offset to start from, less than length
+     * @param comparator the Comparator used to compare the data
+     * @param <T> the type of data to sort
+     * @return the offset k with arr[base + k - 1] <= key < arr[base + k]
+     */
+    private static <T> int gallopRight(T key, T[] arr, int base, int length,
+                                       int hint, Comparator<T> comparator) {
+        int lastOffset = 0;
+        int offset = 1;
+        if (comparator.compare(key, arr[base + hint]) < 0) {
+            int maxOffset = hint + 1;
+            while (offset < maxOffset && comparator.compare(key,
+                    arr[base + hint - offset]) < 0) {
+                lastOffset = offset;
+                offset = (offset << 1) + 1;
+                if (offset <= 0) {
+                    offset = maxOffset;
+                }
+            }
+            offset = Math.min(offset, maxOffset);
+            int temp = lastOffset;
+            lastOffset = hint - offset;
+            offset = hint - temp;
+        } else {
+            int maxOffset = length - hint;
+            while (offset < maxOffset && comparator.compare(key,
+                    arr[base + hint + offset]) >= 0) {
+                lastOffset = offset;
+                offset = (offset << 1) + 1;
+                if (offset <= 0) {
+                    offset = maxOffset;
+                }
+            }
+            offset = Math.min(offset, maxOffset);
+            lastOffset += hint;
+            offset += hint;
+        }
+        lastOffset++;
+        while (lastOffset < offset) {
+            int mid = lastOffset + ((offset - lastOffset) >>> 1);
+            if (comparator.compare(key, arr[base + mid]) < 0) {
+                offset = mid;
+            } else {
+                lastOffset = mid + 1;
+            }
+        }
+        return offset;
+    }
+
+    /**
+     * The pending runs of one timSort call and the state shared by their
+     * merges: the scratch buffer and the current galloping threshold.
+     *
+     * @param <T> the type of data to sort
+     */
+    private static final class RunMerger<T> {
+
+        /**
+         * Enough room for the run stack of any int length array, because
+         * run lengths on the stack grow at least like Fibonacci numbers.
+         */
+        private static final int MAX_RUNS = 49;
+
+        private final T[] arr;
+        private final Comparator<T> comparator;
+        private final int[] runBase = new int[MAX_RUNS];
+        private final int[] runLength = new int[MAX_RUNS];
+        private int runs;
+        private T[] scratch;
+        private int minGallop = MIN_GALLOP;
+
+        /**
+         * Creates a merger for one array.
+         *
+         * @param arr the array being sorted
+         * @param comparator the Comparator used to compare the data
+         */
+        RunMerger(T[] arr, Comparator<T> comparator) {
+            this.arr = arr;
+            this.comparator = comparator;
+        }
+
+        /**
+         * Pushes a sorted run onto the stack.
+         *
+         * @param base the first index of the run
+         * @param length the length of the run
+         */
+        void push(int base, int length) {
+            runBase[runs] = base;
+            runLength[runs] = length;
+            runs++;
+        }
+
+        /**
+         * Merges runs until, from the top of the stack down, every run is
+         * longer than the next one and than the next two together.
+         */
+        void mergeCollapse() {
+            while (runs > 1) {
+                int n = runs - 2;
+                boolean lowerTooShort = n > 0
+                        && runLength[n - 1] <= runLength[n] + runLength[n + 1]
+                        || n > 1
+                        && runLength[n - 2] <= runLength[n - 1] + runLength[n];
+                if (lowerTooShort) {
+                    if (runLength[n - 1] < runLength[n + 1]) {
+                        n--;
+                    }
+                } else if (runLength[n] > runLength[n + 1]) {
+                    break;
+                }
+                mergeAt(n);
+            }
+        }
+
+        /**
+         * Merges all runs on the stack into one.
+         */
+        void mergeForceCollapse() {
+            while (runs > 1) {
+                int n = runs - 2;
+                if (n > 0 && runLength[n - 1] < runLength[n + 1]) {
+                    n--;
+                }
+                mergeAt(n);
+            }
+        }
+
+        /**
+         * Merges the runs at stack positions i and i + 1.
+         *
+         * @param i the stack position of the first run
+         */
+        private void mergeAt(int i) {
+            int base1 = runBase[i];
+            int length1 = runLength[i];
+            int base2 = runBase[i + 1];
+            int length2 = runLength[i + 1];
+            runLength[i] = length1 + length2;
+            if (i == runs - 3) {
+                runBase[i + 1] = runBase[i + 2];
+                runLength[i + 1] = runLength[i + 2];
+            }
+            runs--;
+
+            // Elements of the first run not greater than the second run's
+            // first element and elements of the second run not less than
+            // the first run's last element are already in place.
+            int skip = gallopRight(arr[base2], arr, base1, length1, 0,
+                    comparator);
+            base1 += skip;
+            length1 -= skip;
+            if (length1 == 0) {
+                return;
+            }
+            length2 = gallopLeft(arr[base1 + length1 - 1], arr, base2,
+                    length2, length2 - 1, comparator);
+            if (length2 == 0) {
+                return;
+            }
+            if (length1 <= length2) {
+                mergeLow(base1, length1, base2, length2);
+            } else {
+                mergeHigh(base1, length1, base2, length2);
+            }
+        }
+
+        /**
+         * Gets the scratch buffer, growing it to hold at least the given
+         * number of elements.
+         *
+         * @param capacity the number of elements needed
+         * @return the scratch buffer
+         */
+        @SuppressWarnings("unchecked")
+        private T[] scratch(int capacity) {
+            if (scratch == null || scratch.length < capacity) {
+                int length = scratch == null ? capacity
+                        : Math.max(capacity, scratch.length * 2);
+                scratch = (T[]) new Object[Math.min(length,
+                        arr.length / 2)];
+                allocated(scratch.length);
+            }
+            return scratch;
+        }
+
+        /**
+         * Merges two adjacent runs front to back, copying the first, shorter
+         * run into the scratch buffer. The first element of the second run
+         * must be less than the first element of the first run, and the last
+         * element of the first run greater than every element of the second.
+         *
+         * @param base1 the first index of the first run
+         * @param length1 the length of the first run
+         * @param base2 the first index of the second run
+         * @param length2 the length of the second run
+         */
+        private void mergeLow(int base1, int length1, int base2,
+                              int length2) {
+            T[] temp = scratch(length1);
+            moved(2L * length1 + length2);
+            System.arraycopy(arr, base1, temp, 0, length1);
+            int cursor1 = 0;
+            int cursor2 = base2;
+            int dest = base1;
+            arr[dest++] = arr[cursor2++];
+            if (--length2 == 0) {
+                System.arraycopy(temp, cursor1, arr, dest, length1);
+                return;
+            }
+            if (length1 == 1) {
+                System.arraycopy(arr, cursor2, arr, dest, length2);
+                arr[dest + length2] = temp[cursor1];
+                return;
+            }
+            int gallop = minGallop;
+            outer:
+            while (true) {
+                int wins1 = 0;
+                int wins2 = 0;
+                do {
+                    if (comparator.compare(arr[cursor2], temp[cursor1]) < 0) {
+                        arr[dest++] = arr[cursor2++];
+                        wins2++;
+                        wins1 = 0;
+                        if (--length2 == 0) {
+                            break outer;
+                        }
+                    } else {
+                        arr[dest++] = temp[cursor1++];
+                        wins1++;
+                        wins2 = 0;
+                        if (--length1 == 1) {
+                            break outer;
+                        }
+                    }
+                } while ((wins1 | wins2) < gallop);
+
+                do {
+                    wins1 = gallopRight(arr[cursor2], temp, cursor1, length1,
+                            0, comparator);
+                    if (wins1 != 0) {
+                        System.arraycopy(temp, cursor1, arr, dest, wins1);
+                        dest += wins1;
+                        cursor1 += wins1;
+                        length1 -= wins1;
+                        if (length1 <= 1) {
+                            break outer;
+                        }
+                    }
+                    arr[dest++] = arr[cursor2++];
+                    if (--length2 == 0) {
+                        break outer;
+                    }
+                    wins2 = gallopLeft(temp[cursor1], arr, cursor2, length2,
+                            0, comparator);
+                    if (wins2 != 0) {
+                        System.arraycopy(arr, cursor2, arr, dest, wins2);
+                        dest += wins2;
+                        cursor2 += wins2;
+                        length2 -= wins2;
+                        if (length2 == 0) {
+                            break outer;
+                        }
+                    }
+                    arr[dest++] = temp[cursor1++];
+                    if (--length1 == 1) {
+                        break outer;
+                    }
+                    gallop--;
+                } while (wins1 >= MIN_GALLOP || wins2 >= MIN_GALLOP);
+                // Galloping stopped paying off, so make it harder to start.
+                gallop = Math.max(gallop, 0) + 2;
+            }
+            minGallop = Math.max(gallop, 1);
+
+            if (length1 == 1) {
+                System.arraycopy(arr, cursor2, arr, dest, length2);
+                arr[dest + length2] = temp[cursor1];
+            } else if (length1 == 0) {
+                throw new IllegalArgumentException(
+                        "Comparator violates its general contract.");
+            } else {
+                System.arraycopy(temp, cursor1, arr, dest, length1);
+            }
+        }
+
+        /**
+         * Merges two adjacent runs back to front, copying the second,
+         * shorter run into the scratch buffer. The same conditions as for
+         * {@link #mergeLow} apply.
+         *
+         * @param base1 the first index of the first run
+         * @param length1 the length of the first run
+         * @param base2 the first index of the second run
+         * @param length2 the length of the second run
+         */
+        private void mergeHigh(int base1, int length1, int base2,
+                               int length2) {
+            T[] temp = scratch(length2);
+            moved(length1 + 2L * length2);
+            System.arraycopy(arr, base2, temp, 0, length2);
+            int cursor1 = base1 + length1 - 1;
+            int cursor2 = length2 - 1;
+            int dest = base2 + length2 - 1;
+            arr[dest--] = arr[cursor1--];
+            if (--length1 == 0) {
+                System.arraycopy(temp, 0, arr, dest - (length2 - 1), length2);
+                return;
+            }
+            if (length2 == 1) {
+                dest -= length1;
+                cursor1 -= length1;
+                System.arraycopy(arr, cursor1 + 1, arr, dest + 1, length1);
+                arr[dest] = temp[cursor2];
+                return;
+            }
+            int gallop = minGallop;
+            outer:
+            while (true) {
+                int wins1 = 0;
+                int wins2 = 0;
+                do {
+                    if (comparator.compare(temp[cursor2], arr[cursor1]) < 0) {
+                        arr[dest--] = arr[cursor1--];
+                        wins1++;
+                        wins2 = 0;
+                        if (--length1 == 0) {
+                            break outer;
+                        }
+                    } else {
+                        arr[dest--] = temp[cursor2--];
+                        wins2++;
+                        wins1 = 0;
+                        if (--length2 == 1) {
+                            break outer;
+                        }
+                    }
+                } while ((wins1 | wins2) < gallop);
+
+                do {
+                    wins1 = length1 - gallopRight(temp[cursor2], arr, base1,
+                            length1, length1 - 1, comparator);
+                    if (wins1 != 0) {
+                        dest -= wins1;
+                        cursor1 -= wins1;
+                        length1 -= wins1;
+                        System.arraycopy(arr, cursor1 + 1, arr, dest + 1,
+                                wins1);
+                        if (length1 == 0) {
+                            break outer;
+                        }
+                    }
+                    arr[dest--] = temp[cursor2--];
+                    if (--length2 == 1) {
+                        break outer;
+                    }
+                    wins2 = length2 - gallopLeft(arr[cursor1], temp, 0,
+                            length2, length2 - 1, comparator);
+                    if (wins2 != 0) {
+                        dest -= wins2;
+                        cursor2 -= wins2;
+                        length2 -= wins2;
+                        System.arraycopy(temp, cursor2 + 1, arr, dest + 1,
+                                wins2);
+                        if (length2 <= 1) {
+                            break outer;
+                        }
+                    }
+                    arr[dest--] = arr[cursor1--];
+                    if (--length1 == 0) {
+                        break outer;
+                    }
+                    gallop--;
+                } while (wins1 >= MIN_GALLOP || wins2 >= MIN_GALLOP);
+                gallop = Math.max(gallop, 0) + 2;
+            }
+            minGallop = Math.max(gallop, 1);
+
+            if (length2 == 1) {
+                dest -= length1;
+                cursor1 -= length1;
+                System.arraycopy(arr, cursor1 + 1, arr, dest + 1, length1);
+                arr[dest] = temp[cursor2];
+            } else if (length2 == 0) {
+                throw new IllegalArgumentException(
+                        "Comparator violates its general contract.");
+            } else {
+                System.arraycopy(temp, 0, arr, dest - (length2 - 1), length2);
+            }
+        }
+    }
+
+    /**
+     * Insertion sort specialized for int arrays, with no boxing and no
+     * comparator calls.
+     *
+     * It is:
+     *  in-place
+     *  stable
+     *
+     * @throws IllegalArgumentException if the array is null
+     * @param arr the array to be sorted
+     */
+    public static void insertionSort(int[] arr) {
+        if (arr == null) {
+            throw new IllegalArgumentException("Cannot accept null array.");
+        }
+        if (statsEnabled && record("insertionSort(int[])", arr.length,
+                () -> insertionSort(arr))) {
+            return;
+        }
+        insertionSort(arr, 0, arr.length);
+    }
+
+    /**
+     * Insertion sorts arr[lo, hi).
+     *
+     * @param arr the array
+     * @param lo the first index
+     * @param hi one past the last index
+     */
+    private static void insertionSort(int[] arr, int lo, int hi) {
+        for (int i = lo + 1; i < hi; i++) {
+            int item = arr[i];
+            int j = i;
+            while (j > lo && arr[j - 1] > item) {
+                arr[j] = arr[j - 1];
+                j--;
+            }
+            arr[j] = item;
+            moved(i - j + 1);
+        }
+    }
+
+    /**
+     * Quick sort specialized for int arrays, with three way partitioning
+     * around random pivots, so that duplicate keys cost no extra levels.
+     *
+     * It is:
+     *  in-place
+     *
+     * @throws IllegalArgumentException if the array or rand is null
+     * @param arr the array to be sorted
+     * @param rand the Random object used to select pivots
+     */
+    public static void quickSort(int[] arr, Random rand) {
+        if (arr == null || rand == null) {
+            throw new IllegalArgumentException(
+                    "Cannot accept null array or null random.");
+        }
+        if (statsEnabled && record("quickSort(int[])", arr.length,
+                () -> quickSort(arr, rand))) {
+            return;
+        }
+        if (arr.length > 1) {
+            quickSort(arr, rand, 0, arr.length);
+        }
+    }
+
+    /**
+     * Quick sorts arr[left, right).
+     *
+     * Each pass partitions three ways around a random pivot, into the keys
+     * below it, equal to it and above it, so runs of equal keys are done in
+     * one pass instead of one level each. Only the smaller of the outer
+     * parts is sorted recursively while the loop goes on with the larger,
+     * which keeps the recursion O(log n) deep on any input.
+     *
+     * @param arr the array
+     * @param rand the Random object used to select pivots
+     * @param left the left bound
+     * @param right the right bound
+     */
+    private static void quickSort(int[] arr, Random rand, int left,
+                                  int right) {
+        while (right - left > 1) {
+            int pivot = arr[rand.nextInt(right - left) + left];
+            int lt = left;
+            int i = left;
+            int gt = right;
+            // less in [left, lt), equal in [lt, i), greater in [gt, right)
+            while (i < gt) {
+                if (arr[i] < pivot) {
+                    swap(arr, lt++, i++);
+                } else if (arr[i] > pivot) {
+                    swap(arr, i, --gt);
+                } else {
+                    i++;
+                }
+            }
+            if (lt - left < right - gt) {
+                quickSort(arr, rand, left, lt);
+                left = gt;
+            } else {
+                quickSort(arr, rand, gt, right);
+                right = lt;
+            }
+        }
+    }
+
+    /**
+     * Merge sort specialized for int arrays. A single scratch array is
+     * allocated.
+     *
+     * It is:
+     *  stable
+     *
+     * @throws IllegalArgumentException if the array is null
+     * @param arr the array to be sorted
+     */
+    public static void mergeSort(int[] arr) {
+        if (arr == null) {
+            throw new IllegalArgumentException("Cannot accept null array.");
+        }
+        if (statsEnabled && record("mergeSort(int[])", arr.length,
+                () -> mergeSort(arr))) {
+            return;
+        }
+        allocated(arr.length);
+        moved(arr.length);
+        mergeSort(arr.clone(), arr, 0, arr.length);
+    }
+
+    /**
+     * Sorts src[lo, hi) into dst[lo, hi) like
+     * {@link #mergeSort(Object[], Object[], int, int, Comparator)}.
+     *
+     * @param src the array the halves are sorted into
+     * @param dst the array the range ends up sorted in
+     * @param lo the first index
+     * @param hi one past the last index
+     */
+    private static void mergeSort(int[] src, int[] dst, int lo, int hi) {
+        if (hi - lo <= INSERTION_CUTOFF) {
+            insertionSort(dst, lo, hi);
+            return;
+        }
+        int mid = (lo + hi) >>> 1;
+        mergeSort(dst, src, lo, mid);
+        mergeSort(dst, src, mid, hi);
+        int left = lo;
+        int right = mid;
+        int out = lo;
+        while (left < mid && right < hi) {
+            if (src[left] <= src[right]) {
+                dst[out++] = src[left++];
+            } else {
+                dst[out++] = src[right++];
+            }
+        }
+        System.arraycopy(src, left, dst, out, mid - left);
+        System.arraycopy(src, right, dst, out + mid - left, hi - right);
+        moved(hi - lo);
+    }
+
+    /**
+     * Swaps item at index1 with item at index2
+     * @param arr the array where the items are
+     * @param index1 the index of first item
+     * @param index2 the index of second item
+     */
+    private static void swap(int[] arr, int index1, int index2) {
+        int temp = arr[index1];
+        arr[index1] = arr[index2];
+        arr[index2] = temp;
+        moved(2);
+    }
+
+    /**
+     * Insertion sort specialized for long arrays, with no boxing and no
+     * comparator calls.
+     *
+     * It is:
+     *  in-place
+     *  stable
+     *
+     * @throws IllegalArgumentException if the array is null
+     * @param arr the array to be sorted
+     */
+    public static void insertionSort(long[] arr) {
+        if (arr == null) {
+            throw new IllegalArgumentException("Cannot accept null array.");
+        }
+        if (statsEnabled && record("insertionSort(long[])", arr.length,
+                () -> insertionSort(arr))) {
+            return;
+        }
+        insertionSort(arr, 0, arr.length);
+    }
+
+    /**
+     * Insertion sorts arr[lo, hi).
+     *
+     * @param arr the array
+     * @param lo the first index
+     * @param hi one past the last index
+     */
+    private static void insertionSort(long[] arr, int lo, int hi) {
+        for (int i = lo + 1; i < hi; i++) {
+            long item = arr[i];
+            int j = i;
+            while (j > lo && arr[j - 1] > item) {
+                arr[j] = arr[j - 1];
+                j--;
+            }
+            arr[j] = item;
+            moved(i - j + 1);
+        }
+    }
+
+    /**
+     * Quick sort specialized for long arrays, with three way partitioning
+     * around random pivots, so that duplicate keys cost no extra levels.
+     *
+     * It is:
+     *  in-place
+     *
+     * @throws IllegalArgumentException if the array or rand is null
+     * @param arr the array to be sorted
+     * @param rand the Random object used to select pivots
+     */
+    public static void quickSort(long[] arr, Random rand) {
+        if (arr == null || rand == null) {
+            throw new IllegalArgumentException(
+                    "Cannot accept null array or null random.");
+        }
+        if (statsEnabled && record("quickSort(long[])", arr.length,
+                () -> quickSort(arr, rand))) {
+            return;
+        }
+        if (arr.length > 1) {
+            quickSort(arr, rand, 0, arr.length);
+        }
+    }
+
+    /**
+     * Quick sorts arr[left, right).
+     *
+     * Each pass partitions three ways around a random pivot, into the keys
+     * below it, equal to it and above it, so runs of equal keys are done in
+     * one pass instead of one level each. Only the smaller of the outer
+     * parts is sorted recursively while the loop goes on with the larger,
+     * which keeps the recursion O(log n) deep on any input.
+     *
+     * @param arr the array
+     * @param rand the Random object used to select pivots
+     * @param left the left bound
+     * @param right the right bound
+     */
+    private static void quickSort(long[] arr, Random rand, int left,
+                                  int right) {
+        while (right - left > 1) {
+            long pivot = arr[rand.nextInt(right - left) + left];
+            int lt = left;
+            int i = left;
+            int gt = right;
+            // less in [left, lt), equal in [lt, i), greater in [gt, right)
+            while (i < gt) {
+                if (arr[i] < pivot) {
+                    swap(arr, lt++, i++);
+                } else if (arr[i] > pivot) {
+                    swap(arr, i, --gt);
+                } else {
+                    i++;
+                }
+            }
+            if (lt - left < right - gt) {
+                quickSort(arr, rand, left, lt);
+                left = gt;
+            } else {
+                quickSort(arr, rand, gt, right);
+                right = lt;
+            }
+        }
+    }
+
+    /**
+     * Merge sort specialized for long arrays. A single scratch array is
+     * allocated.
+     *
+     * It is:
+     *  stable
+     *
+     * @throws IllegalArgumentException if the array is null
+     * @param arr the array to be sorted
+     */
+    public static void mergeSort(long[] arr) {
+        if (arr == null) {
+            throw new IllegalArgumentException("Cannot accept null array.");
+        }
+        if (statsEnabled && record("mergeSort(long[])", arr.length,
+                () -> mergeSort(arr))) {
+            return;
+        }
+        allocated(arr.length);
+        moved(arr.length);
+        mergeSort(arr.clone(), arr, 0, arr.length);
+    }
+
+    /**
+     * Sorts src[lo, hi) into dst[lo, hi) like
+     * {@link #mergeSort(Object[], Object[], int, int, Comparator)}.
+     *
+     * @param src the array the halves are sorted into
+     * @param dst the array the range ends up sorted in
+     * @param lo the first index
+     * @param hi one past the last index
+     */
+    private static void mergeSort(long[] src, long[] dst, int lo, int hi) {
+        if (hi - lo <= INSERTION_CUTOFF) {
+            insertionSort(dst, lo, hi);
+            return;
+        }
+        int mid = (lo + hi) >>> 1;
+        mergeSort(dst, src, lo, mid);
+        mergeSort(dst, src, mid, hi);
+        int left = lo;
+        int right = mid;
+        int out = lo;
+        while (left < mid && right < hi) {
+            if (src[left] <= src[right]) {
+                dst[out++] = src[left++];
+            } else {
+                dst[out++] = src[right++];
+            }
+        }
+        System.arraycopy(src, left, dst, out, mid - left);
+        System.arraycopy(src, right, dst, out + mid - left, hi - right);
+        moved(hi - lo);
+    }
+
+    /**
+     * Swaps item at index1 with item at index2
+     * @param arr the array where the items are
+     * @param index1 the index of first item
+     * @param index2 the index of second item
+     */
+    private static void swap(long[] arr, int index1, int index2) {
+        long temp = arr[index1];
+        arr[index1] = arr[index2];
+        arr[index2] = temp;
+        moved(2);
+    }
+
+    /**
+     * Insertion sort specialized for double arrays, with no boxing and no
+     * comparator calls.
+     *
+     * Doubles are ordered like {@link Double#compare(double, double)}:
+     * -0.0 before 0.0 and NaN after everything else.
+     *
+     * It is:
+     *  in-place
+     *  stable
+     *
+     * @throws IllegalArgumentException if the array is null
+     * @param arr the array to be sorted
+     */
+    public static void insertionSort(double[] arr) {
+        if (arr == null) {
+            throw new IllegalArgumentException("Cannot accept null array.");
+        }
+        if (statsEnabled && record("insertionSort(double[])", arr.length,
+                () -> insertionSort(arr))) {
+            return;
+        }
+        insertionSort(arr, 0, arr.length);
+    }
+
+    /**
+     * Insertion sorts arr[lo, hi).
+     *
+     * @param arr the array
+     * @param lo the first index
+     * @param hi one past the last index
+     */
+    private static void insertionSort(double[] arr, int lo, int hi) {
+        for (int i = lo + 1; i < hi; i++) {
+            double item = arr[i];
+            int j = i;
+            while (j > lo && Double.compare(arr[j - 1], item) > 0) {
+                arr[j] = arr[j - 1];
+                j--;
+            }
+            arr[j] = item;
+            moved(i - j + 1);
+        }
+    }
+
+    /**
+     * Quick sort specialized for double arrays, with three way partitioning
+     * around random pivots, so that duplicate keys cost no extra levels.
+     *
+     * Doubles are ordered like {@link Double#compare(double, double)}:
+     * -0.0 before 0.0 and NaN after everything else.
+     *
+     * It is:
+     *  in-place
+     *
+     * @throws IllegalArgumentException if the array or rand is null
+     * @param arr the array to be sorted
+     * @param rand the Random object used to select pivots
+     */
+    public static void quickSort(double[] arr, Random rand) {
+        if (arr == null || rand == null) {
+            throw new IllegalArgumentException(
+                    "Cannot accept null array or null random.");
+        }
+        if (statsEnabled && record("quickSort(double[])", arr.length,
+                () -> quickSort(arr, rand))) {
+            return;
+        }
+        if (arr.length > 1) {
+            quickSort(arr, rand, 0, arr.length);
+        }
+    }
+
+    /**
+     * Quick sorts arr[left, right).
+     *
+     * Each pass partitions three ways around a random pivot, into the keys
+     * below it, equal to it and above it, so runs of equal keys are done in
+     * one pass instead of one level each. Only the smaller of the outer
+     * parts is sorted recursively while the loop goes on with the larger,
+     * which keeps the recursion O(log n) deep on any input.
+     *
+     * @param arr the array
+     * @param rand the Random object used to select pivots
+     * @param left the left bound
+     * @param right the right bound
+     */
+    private static void quickSort(double[] arr, Random rand, int left,
+                                  int right) {
+        while (right - left > 1) {
+            double pivot = arr[rand.nextInt(right - left) + left];
+            int lt = left;
+            int i = left;
+            int gt = right;
+            // less in [left, lt), equal in [lt, i), greater in [gt, right)
+            while (i < gt) {
+                if (Double.compare(arr[i], pivot) < 0) {
+                    swap(arr, lt++, i++);
+                } else if (Double.compare(arr[i], pivot) > 0) {
+                    swap(arr, i, --gt);
+                } else {
+                    i++;
+                }
+            }
+            if (lt - left < right - gt) {
+                quickSort(arr, rand, left, lt);
+                left = gt;
+            } else {
+                quickSort(arr, rand, gt, right);
+                right = lt;
+            }
+        }
+    }
+
+    /**
+     * Merge sort specialized for double arrays. A single scratch array is
+     * allocated.
+     *
+     * Doubles are ordered like {@link Double#compare(double, double)}:
+     * -0.0 before 0.0 and NaN after everything else.
+     *
+     * It is:
+     *  stable
+     *
+     * @throws IllegalArgumentException if the array is null
+     * @param arr the array to be sorted
+     */
+    public static void mergeSort(double[] arr) {
+        if (arr == null) {
+            throw new IllegalArgumentException("Cannot accept null array.");
+        }
+        if (statsEnabled && record("mergeSort(double[])", arr.length,
+                () -> mergeSort(arr))) {
+            return;
+        }
+        allocated(arr.length);
+        moved(arr.length);
+        mergeSort(arr.clone(), arr, 0, arr.length);
+    }
+
+    /**
+     * Sorts src[lo, hi) into dst[lo, hi) like
+     * {@link #mergeSort(Object[], Object[], int, int, Comparator)}.
+     *
+     * @param src the array the halves are sorted into
+     * @param dst the array the range ends up sorted in
+     * @param lo the first index
+     * @param hi one past the last index
+     */
+    private static void mergeSort(double[] src, double[] dst, int lo, int hi) {
+        if (hi - lo <= INSERTION_CUTOFF) {
+            insertionSort(dst, lo, hi);
+            return;
+        }
+        int mid = (lo + hi) >>> 1;
+        mergeSort(dst, src, lo, mid);
+        mergeSort(dst, src, mid, hi);
+        int left = lo;
+        int right = mid;
+        int out = lo;
+        while (left < mid && right < hi) {
+            if (Double.compare(src[left], src[right]) <= 0) {
+                dst[out++] = src[left++];
+            } else {
+                dst[out++] = src[right++];
+            }
+        }
+        System.arraycopy(src, left, dst, out, mid - left);
+        System.arraycopy(src, right, dst, out + mid - left, hi - right);
+        moved(hi - lo);
+    }
+
+    /**
+     * Swaps item at index1 with item at index2
+     * @param arr the array where the items are
+     * @param index1 the index of first item
+     * @param index2 the index of second item
+     */
+    private static void swap(double[] arr, int index1, int index2) {
+        double temp = arr[index1];
+        arr[index1] = arr[index2];
+        arr[index2] = temp;
+        moved(2);
+    }
+
+    /**
+     * Insertion sorts int keys and applies the same permutation to a
+     * parallel array of indices, so that {@code indices[i]} keeps telling
+     * where {@code keys[i]} came from.
+     *
+     * It is:
+     *  in-place
+     *  stable
+     *
+     * @throws IllegalArgumentException if either array is null or they have
+     * different lengths
+     * @param keys the keys to be sorted
+     * @param indices the indices moved along with their keys
+     */
+    public static void insertionSort(int[] keys, int[] indices) {
+        checkPairs(keys, indices);
+        if (statsEnabled && record("insertionSort(int[], int[])", keys.length,
+                () -> insertionSort(keys, indices))) {
+            return;
+        }
+        insertionSort(keys, indices, 0, keys.length);
+    }
+
+    /**
+     * Insertion sorts keys[lo, hi) together with indices[lo, hi).
+     *
+     * @param keys the keys
+     * @param indices the indices moved along with their keys
+     * @param lo the first index
+     * @param hi one past the last index
+     */
+    private static void insertionSort(int[] keys, int[] indices, int lo,
+                                      int hi) {
+        for (int i = lo + 1; i < hi; i++) {
+            int key = keys[i];
+            int index = indices[i];
+            int j = i;
+            while (j > lo && keys[j - 1] > key) {
+                keys[j] = keys[j - 1];
+                indices[j] = indices[j - 1];
+                j--;
+            }
+            keys[j] = key;
+            indices[j] = index;
+            moved(2L * (i - j + 1));
+        }
+    }
+
+    /**
+     * Quick sorts int keys together with a parallel array of indices, like
+     * {@link #insertionSort(int[], int[])}.
+     *
+     * It is:
+     *  in-place
+     *
+     * @throws IllegalArgumentException if either array or rand is null, or
+     * the arrays have different lengths
+     * @param keys the keys to be sorted
+     * @param indices the indices moved along with their keys
+     * @param rand the Random object used to select pivots
+     */
+    public static void quickSort(int[] keys, int[] indices, Random rand) {
+        checkPairs(keys, indices);
+        if (rand == null) {
+            throw new IllegalArgumentException("Cannot accept null random.");
+        }
+        if (statsEnabled && record("quickSort(int[], int[])", keys.length,
+                () -> quickSort(keys, indices, rand))) {
+            return;
+        }
+        if (keys.length > 1) {
+            quickSort(keys, indices, rand, 0, keys.length);
+        }
+    }
+
+    /**
+     * Quick sorts keys[left, right) together with indices[left, right),
+     * partitioning three ways and recursing on the smaller part like
+     * {@link #quickSort(int[], Random, int, int)}.
+     *
+     * @param keys the keys
+     * @param indices the indices moved along with their keys
+     * @param rand the Random object used to select pivots
+     * @param left the left bound
+     * @param right the right bound
+     */
+    private static void quickSort(int[] keys, int[] indices, Random rand,
+                                  int left, int right) {
+        while (right - left > 1) {
+            int pivot = keys[rand.nextInt(right - left) + left];
+            int lt = left;
+            int i = left;
+            int gt = right;
+            while (i < gt) {
+                if (keys[i] < pivot) {
+                    swap(indices, lt, i);
+                    swap(keys, lt++, i++);
+                } else if (keys[i] > pivot) {
+                    swap(indices, i, gt - 1);
+                    swap(keys, i, --gt);
+                } else {
+                    i++;
+                }
+            }
+            if (lt - left < right - gt) {
+                quickSort(keys, indices, rand, left, lt);
+                left = gt;
+            } else {
+                quickSort(keys, indices, rand, gt, right);
+                right = lt;
+            }
+        }
+    }
+
+    /**
+     * Merge sorts int keys together with a parallel array of indices, like
+     * {@link #insertionSort(int[], int[])}. One scratch array is allocated
+     * for each of the two.
+     *
+     * It is:
+     *  stable
+     *
+     * @throws IllegalArgumentException if either array is null or they have
+     * different lengths
+     * @param keys the keys to be sorted
+     * @param indices the indices moved along with their keys
+     */
+    public static void mergeSort(int[] keys, int[] indices) {
+        checkPairs(keys, indices);
+        if (statsEnabled && record("mergeSort(int[], int[])", keys.length,
+                () -> mergeSort(keys, indices))) {
+            return;
+        }
+        allocated(2L * keys.length);
+        moved(2L * keys.length);
+        mergeSort(keys.clone(), indices.clone(), keys, indices, 0,
+                keys.length);
+    }
+
+    /**
+     * Sorts the pairs in [lo, hi) of the src arrays into the dst arrays
+     * like {@link #mergeSort(Object[], Object[], int, int, Comparator)}.
+     *
+     * @param srcKeys the keys the halves are sorted into
+     * @param srcIndices the indices the halves are sorted into
+     * @param dstKeys the keys the range ends up sorted in
+     * @param dstIndices the indices the range ends up sorted in
+     * @param lo the first index
+     * @param hi one past the last index
+     */
+    private static void mergeSort(int[] srcKeys, int[] srcIndices,
+                                  int[] dstKeys, int[] dstIndices, int lo,
+                                  int hi) {
+        if (hi - lo <= INSERTION_CUTOFF) {
+            insertionSort(dstKeys, dstIndices, lo, hi);
+            return;
+        }
+        int mid = (lo + hi) >>> 1;
+        mergeSort(dstKeys, dstIndices, srcKeys, srcIndices, lo, mid);
+        mergeSort(dstKeys, dstIndices, srcKeys, srcIndices, mid, hi);
+        int left = lo;
+        int right = mid;
+        for (int out = lo; out < hi; out++) {
+            if (right == hi
+                    || (left < mid && srcKeys[left] <= srcKeys[right])) {
+                dstKeys[out] = srcKeys[left];
+                dstIndices[out] = srcIndices[left++];
+            } else {
+                dstKeys[out] = srcKeys[right];
+                dstIndices[out] = srcIndices[right++];
+            }
+        }
+        moved(2L * (hi - lo));
+    }
+
+    /**
+     * Checks the arrays passed to the key-index sorts.
+     *
+     * @param keys the keys
+     * @param indices the indices
+     * @throws IllegalArgumentException if either array is null or they have
+     * different lengths
+     */
+    private static void checkPairs(int[] keys, int[] indices) {
+        if (keys == null || indices == null) {
+            throw new IllegalArgumentException(
+                    "Cannot accept null keys or indices.");
+        }
+        if (keys.length != indices.length) {
+            throw new IllegalArgumentException(
+                    "Keys and indices must have the same length.");
+        }
+    }
+
+    /**
+     * Implement LSD (least significant digit) radix sort.
+     *
+     * The ints are sorted one byte at a time, least significant byte first,
+     * with a counting pass per byte that moves the elements between the
+     * array and a single buffer of the same length. The counts for all four
+     * bytes are taken in one scan up front, and a byte on which every
+     * element agrees is skipped. The sign bit is flipped in the most
+     * significant byte so that negative numbers come first; the whole int
+     * range, including {@code Integer.MIN_VALUE}, is supported.
+     *
+     * It should be:
+     *  stable
+     *
+     * Have a worst case running time of:
+     *  O(kn)
+     *
+     * And a best case running time of:
+     *  O(kn)
+     *
+     * Any duplicates in the array should be in the same relative position after
+     * sorting as they were before sorting. (stable)
+     *
+     * @throws IllegalArgumentException if the array is null
+     * @param arr the array to be sorted
+     * @return the sorted array
+     */
+    public static int[] lsdRadixSort(int[] arr) {
+        if (arr == null) {
+            throw new IllegalArgumentException("Cannot accept null array.");
+        }
+        if (statsEnabled && record("lsdRadixSort(int[])", arr.length,
+                () -> lsdRadixSort(arr))) {
+            return arr;
+        }
+        radixSort(arr);
+        return arr;
+    }
+
+    /**
+     * LSD radix sort for long arrays, eight bytes per long, otherwise like
+     * {@link #lsdRadixSort(int[])}.
+     *
+     * @throws IllegalArgumentException if the array is null
+     * @param arr the array to be sorted
+     * @return the sorted array
+     */
+    public static long[] lsdRadixSort(long[] arr) {
+        if (arr == null) {
+            throw new IllegalArgumentException("Cannot accept null array.");
+        }
+        if (statsEnabled && record("lsdRadixSort(long[])", arr.length,
+                () -> lsdRadixSort(arr))) {
+            return arr;
+        }
+        radixSort(arr);
+        return arr;
+    }
+
+    /**
+     * LSD radix sort for float arrays, in the order of
+     * {@link Float#compare(float, float)}: -0.0 before 0.0 and NaN last.
+     *
+     * The IEEE 754 bits of a float compare like a sign-magnitude integer.
+     * Flipping every bit but the sign bit of the negative ones turns them
+     * into ints that compare like the floats, which are then radix sorted
+     * and turned back.
+     *
+     * @throws IllegalArgumentException if the array is null
+     * @param arr the array to be sorted
+     * @return the sorted array
+     */
+    public static float[] lsdRadixSort(float[] arr) {
+        if (arr == null) {
+            throw new IllegalArgumentException("Cannot accept null array.");
+        }
+        if (statsEnabled && record("lsdRadixSort(float[])", arr.length,
+                () -> lsdRadixSort(arr))) {
+            return arr;
+        }
+        int[] keys = new int[arr.length];
+        allocated(arr.length);
+        moved(2L * arr.length);
+        for (int i = 0; i < arr.length; i++) {
+            int bits = Float.floatToIntBits(arr[i]);
+            keys[i] = bits ^ ((bits >> 31) & Integer.MAX_VALUE);
+        }
+        radixSort(keys);
+        for (int i = 0; i < arr.length; i++) {
+            int key = keys[i];
+            arr[i] = Float.intBitsToFloat(key ^ ((key >> 31)
+                    & Integer.MAX_VALUE));
+        }
+        return arr;
+    }
+
+    /**
+     * LSD radix sort for double arrays, in the order of
+     * {@link Double#compare(double, double)}, using the same bit transform
+     * as {@link #lsdRadixSort(float[])}.
+     *
+     * @throws IllegalArgumentException if the array is null
+     * @param arr the array to be sorted
+     * @return the sorted array
+     */
+    public static double[] lsdRadixSort(double[] arr) {
+        if (arr == null) {
+            throw new IllegalArgumentException("Cannot accept null array.");
+        }
+        if (statsEnabled && record("lsdRadixSort(double[])", arr.length,
+                () -> lsdRadixSort(arr))) {
+            return arr;
+        }
+        long[] keys = new long[arr.length];
+        allocated(arr.length);
+        moved(2L * arr.length);
+        for (int i = 0; i < arr.length; i++) {
+            long bits = Double.doubleToLongBits(arr[i]);
+            keys[i] = bits ^ ((bits >> 63) & Long.MAX_VALUE);
+        }
+        radixSort(keys);
+        for (int i = 0; i < arr.length; i++) {
+            long key = keys[i];
+            arr[i] = Double.longBitsToDouble(key ^ ((key >> 63)
+                    & Long.MAX_VALUE));
+        }
+        return arr;
+    }
+
+    /**
+     * Radix sorts signed ints by bytes.
+     *
+     * @param arr the array to be sorted
+     */
+    private static void radixSort(int[] arr) {
+        int[][] counts = new int[Integer.BYTES][RADIX];
+        for (int value : arr) {
+            value ^= Integer.MIN_VALUE;
+            for (int pass = 0; pass < Integer.BYTES; pass++) {
+                counts[pass][(value >>> (8 * pass)) & (RADIX - 1)]++;
+            }
+        }
+        int[] src = arr;
+        int[] dst = new int[arr.length];
+        allocated(arr.length);
+        for (int pass = 0; pass < Integer.BYTES; pass++) {
+            int[] starts = counts[pass];
+            if (!toStarts(starts, arr.length)) {
+                continue;
+            }
+            int shift = 8 * pass;
+            for (int value : src) {
+                dst[starts[((value ^ Integer.MIN_VALUE) >>> shift)
+                        & (RADIX - 1)]++] = value;
+            }
+            int[] temp = src;
+            src = dst;
+            dst = temp;
+            moved(arr.length);
+        }
+        if (src != arr) {
+            System.arraycopy(src, 0, arr, 0, arr.length);
+            moved(arr.length);
+        }
+    }
+
+    /**
+     * Radix sorts signed longs by bytes.
+     *
+     * @param arr the array to be sorted
+     */
+    private static void radixSort(long[] arr) {
+        int[][] counts = new int[Long.BYTES][RADIX];
+        for (long value : arr) {
+            value ^= Long.MIN_VALUE;
+            for (int pass = 0; pass < Long.BYTES; pass++) {
+                counts[pass][(int) (value >>> (8 * pass)) & (RADIX - 1)]++;
+            }
+        }
+        long[] src = arr;
+        long[] dst = new long[arr.length];
+        allocated(arr.length);
+        for (int pass = 0; pass < Long.BYTES; pass++) {
+            int[] starts = counts[pass];
+            if (!toStarts(starts, arr.length)) {
+                continue;
+            }
+            int shift = 8 * pass;
+            for (long value : src) {
+                dst[starts[(int) ((value ^ Long.MIN_VALUE) >>> shift)
+                        & (RADIX - 1)]++] = value;
+            }
+            long[] temp = src;
+            src = dst;
+            dst = temp;
+            moved(arr.length);
+        }
+        if (src != arr) {
+            System.arraycopy(src, 0, arr, 0, arr.length);
+            moved(arr.length);
+        }
+    }
+
+    /**
+     * Turns the counts of one digit into the index where each digit's first
+     * element goes.
+     *
+     * @param counts number of elements with each digit, overwritten with
+     * the start indices
+     * @param length number of elements
+     * @return false if every element has the same digit, so the pass can be
+     * skipped
+     */
+    private static boolean toStarts(int[] counts, int length) {
+        int start = 0;
+        for (int digit = 0; digit < counts.length; digit++) {
+            int count = counts[digit];
+            if (count == length) {
+                return false;
+            }
+            counts[digit] = start;
+            start += count;
+        }
+        return true;
+    }
+
+    /**
+     * Sorts strings with an MSD (most significant digit) radix sort, in the
+     * order of {@link String#compareTo(String)}: char by char, with a
+     * string that is a prefix of another coming first.
+     *
+     * The strings are distributed into buckets by their first char, then
+     * every bucket is sorted the same way by the next char, and so on.
+     * Ranges of up to {@code STRING_CUTOFF} strings are insertion sorted
+     * instead, comparing from the current char on. There is one bucket for
+     * every char below 255 and one more for all other chars, which is
+     * merge sorted comparing from the current char on, so text beyond
+     * Latin-1 stays correct and stable without 65536 buckets per pass.
+     *
+     * It is:
+     *  stable
+     *
+     * Have a worst case running time of:
+     *  O(n * w) for chars below 255, O(n * w * log(n)) otherwise, w being
+     *  the length of the longest string
+     *
+     * One buffer of the same length as the array is allocated. The
+     * recursion gets one level deeper per char of common prefix.
+     *
+     * @throws IllegalArgumentException if the array or any string in it is
+     * null
+     * @param <T> the type of strings to sort
+     * @param arr the array to be sorted
+     */
+    public static <T extends CharSequence> void msdRadixSort(T[] arr) {
+        checkStrings(arr);
+        if (statsEnabled && record("msdRadixSort", arr.length,
+                () -> msdRadixSort(arr))) {
+            return;
+        }
+        @SuppressWarnings("unchecked")
+        T[] aux = (T[]) new CharSequence[arr.length];
+        allocated(arr.length);
+        msdRadixSort(arr, aux, 0, arr.length, 0);
+    }
+
+    /**
+     * Sorts strings with a 3-way radix quick sort, in the same order as
+     * {@link #msdRadixSort(CharSequence[])}.
+     *
+     * Every partition step compares only the char at the current position
+     * against a random pivot's char and splits the range into the strings
+     * with a smaller, an equal and a greater char. Only the equal part moves
+     * on to the next char, so common prefixes are scanned once instead of on
+     * every comparison, which suits keys such as URLs.
+     *
+     * It is:
+     *  in-place
+     *
+     * @throws IllegalArgumentException if the array, any string in it or
+     * rand is null
+     * @param <T> the type of strings to sort
+     * @param arr the array to be sorted
+     * @param rand the Random object used to select pivots
+     */
+    public static <T extends CharSequence> void stringQuickSort(T[] arr,
+                                                                Random rand) {
+        checkStrings(arr);
+        if (rand == null) {
+            throw new IllegalArgumentException("Cannot accept null random.");
+        }
+        if (statsEnabled && record("stringQuickSort", arr.length,
+                () -> stringQuickSort(arr, rand))) {
+            return;
+        }
+        stringQuickSort(arr, 0, arr.length, 0, rand);
+    }
+
+    /**
+     * MSD radix sorts arr[lo, hi), whose strings all share their first d
+     * chars.
+     *
+     * @param arr the array
+     * @param aux the buffer, as long as arr
+     * @param lo the first index
+     * @param hi one past the last index
+     * @param d the position of the char to distribute by
+     * @param <T> the type of strings
+     */
+    private static <T extends CharSequence> void msdRadixSort(
+            T[] arr, T[] aux, int lo, int hi, int d) {
+        if (hi - lo <= STRING_CUTOFF) {
+            insertionSort(arr, lo, hi, d);
+            return;
+        }
+        // Digit 0 is the end of the string, digits 1 to RADIX - 1 are the
+        // chars below RADIX - 1 and digit RADIX holds every other char.
+        int[] ends = new int[RADIX + 2];
+        for (int i = lo; i < hi; i++) {
+            ends[digit(arr[i], d) + 1]++;
+        }
+        int first = digit(arr[lo], d);
+        if (ends[first + 1] == hi - lo) {
+            // One bucket holds everything, so skip the distribution and the
+            // rest of the common prefix.
+            if (first == 0) {
+                return;
+            } else if (first == RADIX) {
+                mergeSort(arr, aux, lo, hi, d);
+            } else {
+                msdRadixSort(arr, aux, lo, hi, commonPrefix(arr, lo, hi,
+                        d + 1));
+            }
+            return;
+        }
+        for (int r = 0; r <= RADIX; r++) {
+            ends[r + 1] += ends[r];
+        }
+        for (int i = lo; i < hi; i++) {
+            aux[ends[digit(arr[i], d)]++] = arr[i];
+        }
+        System.arraycopy(aux, 0, arr, lo, hi - lo);
+        moved(2L * (hi - lo));
+        for (int r = 1; r < RADIX; r++) {
+            if (ends[r] - ends[r - 1] > 1) {
+                msdRadixSort(arr, aux, lo + ends[r - 1], lo + ends[r], d + 1);
+            }
+        }
+        mergeSort(arr, aux, lo + ends[RADIX - 1], lo + ends[RADIX], d);
+    }
+
+    /**
+     * Stably merge sorts arr[lo, hi), whose strings all share their first d
+     * chars, comparing from position d on. Used for the bucket of chars
+     * that the MSD radix sort has no digit of their own for.
+     *
+     * @param arr the array
+     * @param aux the buffer, as long as arr
+     * @param lo the first index
+     * @param hi one past the last index
+     * @param d the number of chars the strings are known to share
+     * @param <T> the type of strings
+     */
+    private static <T extends CharSequence> void mergeSort(T[] arr, T[] aux,
+                                                           int lo, int hi,
+                                                           int d) {
+        if (hi - lo <= STRING_CUTOFF) {
+            insertionSort(arr, lo, hi, d);
+            return;
+        }
+        System.arraycopy(arr, lo, aux, lo, hi - lo);
+        moved(hi - lo);
+        mergeSort(aux, arr, lo, hi, (a, b) -> compareFrom(a, b, d));
+    }
+
+    /**
+     * Computes the MSD radix sort digit of a string.
+     *
+     * @param s the string
+     * @param d the position of the char
+     * @return 0 past the end of the string, otherwise the char plus one,
+     * capped at RADIX
+     */
+    private static int digit(CharSequence s, int d) {
+        return d < s.length() ? Math.min(s.charAt(d), RADIX - 1) + 1 : 0;
+    }
+
+    /**
+     * 3-way radix quick sorts arr[lo, hi), whose strings all share their
+     * first d chars.
+     *
+     * @param arr the array
+     * @param lo the first index
+     * @param hi one past the last index
+     * @param d the position of the char to partition by
+     * @param rand the Random object used to select pivots
+     * @param <T> the type of strings
+     */
+    private static <T extends CharSequence> void stringQuickSort(
+            T[] arr, int lo, int hi, int d, Random rand) {
+        while (hi - lo > STRING_CUTOFF) {
+            swap(arr, lo, rand.nextInt(hi - lo) + lo);
+            int pivot = charAt(arr[lo], d);
+            int lt = lo;
+            int gt = hi - 1;
+            int i = lo + 1;
+            while (i <= gt) {
+                int c = charAt(arr[i], d);
+                if (c < pivot) {
+                    swap(arr, lt++, i++);
+                } else if (c > pivot) {
+                    swap(arr, i, gt--);
+                } else {
+                    i++;
+                }
+            }
+            stringQuickSort(arr, lo, lt, d, rand);
+            stringQuickSort(arr, gt + 1, hi, d, rand);
+            if (pivot < 0) {
+                // The equal part holds identical strings that ended at d.
+                return;
+            }
+            boolean allEqual = lt == lo && gt == hi - 1;
+            lo = lt;
+            hi = gt + 1;
+            d = allEqual ? commonPrefix(arr, lo, hi, d + 1) : d + 1;
+        }
+        insertionSort(arr, lo, hi, d);
+    }
+
+    /**
+     * Finds how far the strings in arr[lo, hi) agree, given that they share
+     * their first d chars. Walking each string once is much cheaper than a
+     * distribution or partition pass per shared char, which has to fetch
+     * every string again.
+     *
+     * @param arr the array
+     * @param lo the first index
+     * @param hi one past the last index
+     * @param d the number of chars the strings are known to share
+     * @param <T> the type of strings
+     * @return the length of the longest common prefix
+     */
+    private static <T extends CharSequence> int commonPrefix(T[] arr, int lo,
+                                                             int hi, int d) {
+        T first = arr[lo];
+        int end = first.length();
+        for (int i = lo + 1; i < hi && end > d; i++) {
+            T s = arr[i];
+            int limit = Math.min(end, s.length());
+            int k = d;
+            while (k < limit && s.charAt(k) == first.charAt(k)) {
+                k++;
+            }
+            end = k;
+        }
+        return Math.max(end, d);
+    }
+
+    /**
+     * Gets a char of a string.
+     *
+     * @param s the string
+     * @param d the position of the char
+     * @return the char, or -1 past the end of the string
+     */
+    private static int charAt(CharSequence s, int d) {
+        return d < s.length() ? s.charAt(d) : -1;
+    }
+
+    /**
+     * Insertion sorts arr[lo, hi), whose strings all share their first d
+     * chars, comparing from position d on.
+     *
+     * @param arr the array
+     * @param lo the first index
+     * @param hi one past the last index
+     * @param d the number of chars the strings are known to share
+     * @param <T> the type of strings
+     */
+    private static <T extends CharSequence> void insertionSort(T[] arr,
+                                                               int lo, int hi,
+                                                               int d) {
+        for (int i = lo + 1; i < hi; i++) {
+            T item = arr[i];
+            int j = i;
+            while (j > lo && compareFrom(arr[j - 1], item, d) > 0) {
+                arr[j] = arr[j - 1];
+                j--;
+            }
+            arr[j] = item;
+            moved(i - j + 1);
+        }
+    }
+
+    /**
+     * Compares two strings from position d on.
+     *
+     * @param a the first string
+     * @param b the second string
+     * @param d the first position to compare
+     * @return negative, zero or positive like {@link String#compareTo}
+     */
+    private static int compareFrom(CharSequence a, CharSequence b, int d) {
+        int length = Math.min(a.length(), b.length());
+        for (int i = d; i < length; i++) {
+            int diff = a.charAt(i) - b.charAt(i);
+            if (diff != 0) {
+                return diff;
+            }
+        }
+        return a.length() - b.length();
+    }
+
+    /**
+     * Checks the array passed to the string sorts.
+     *
+     * @param arr the array
+     * @throws IllegalArgumentException if the array or any string in it is
+     * null
+     */
+    private static void checkStrings(CharSequence[] arr) {
+        if (arr == null) {
+            throw new IllegalArgumentException("Cannot accept null array.");
+        }
+        for (CharSequence s : arr) {
+            if (s == null) {
+                throw new IllegalArgumentException(
+                        "Cannot sort null strings.");
+            }
         }
     }
 }
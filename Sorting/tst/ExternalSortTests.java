@@ -0,0 +1,215 @@
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for ExternalSort.
+ *
+ * @author Karel Klein-Cardena
+ * @version 1.0
+ */
+public class ExternalSortTests {
+
+    private static final int TIMEOUT = 5000;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    /**
+     * Encodes longs in 8 bytes.
+     */
+    private static final RecordSerializer<Long> LONGS =
+        new RecordSerializer<Long>() {
+            @Override
+            public int maxRecordSize() {
+                return Long.BYTES;
+            }
+
+            @Override
+            public void write(Long record, ByteBuffer buffer) {
+                buffer.putLong(record);
+            }
+
+            @Override
+            public Long read(ByteBuffer buffer) {
+                return buffer.getLong();
+            }
+        };
+
+    /**
+     * Encodes strings of up to 100 bytes of UTF-8 behind a one byte length.
+     */
+    private static final RecordSerializer<String> STRINGS =
+        new RecordSerializer<String>() {
+            @Override
+            public int maxRecordSize() {
+                return 101;
+            }
+
+            @Override
+            public void write(String record, ByteBuffer buffer) {
+                byte[] bytes = record.getBytes(StandardCharsets.UTF_8);
+                buffer.put((byte) bytes.length);
+                buffer.put(bytes);
+            }
+
+            @Override
+            public String read(ByteBuffer buffer) {
+                byte[] bytes = new byte[buffer.get()];
+                buffer.get(bytes);
+                return new String(bytes, StandardCharsets.UTF_8);
+            }
+        };
+
+    private Path write(long[] values) throws IOException {
+        Path file = folder.newFile().toPath();
+        ByteBuffer buffer = ByteBuffer.allocate(values.length * Long.BYTES);
+        for (long value : values) {
+            buffer.putLong(value);
+        }
+        Files.write(file, buffer.array());
+        return file;
+    }
+
+    private long[] readLongs(Path file) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(file));
+        long[] values = new long[buffer.remaining() / Long.BYTES];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = buffer.getLong();
+        }
+        return values;
+    }
+
+    private ExternalSort<Long> longSort(int chunkBytes, int mergeFactor)
+        throws IOException {
+        return new ExternalSort<>(LONGS, Comparator.naturalOrder(),
+                chunkBytes, 4096, mergeFactor, folder.newFolder().toPath());
+    }
+
+    @Test(timeout = TIMEOUT)
+    public void testSingleRun() throws IOException {
+        long[] values = new Random(1332).longs(1000).toArray();
+        Path input = write(values);
+        Path output = folder.newFile().toPath();
+        ExternalSort<Long> sort = new ExternalSort<>(LONGS,
+                Comparator.naturalOrder());
+        sort.sort(input, output);
+
+        Arrays.sort(values);
+        assertArrayEquals(values, readLongs(output));
+        assertEquals(1, sort.getRunCount());
+        assertEquals(1, sort.getMergePasses());
+        assertEquals(8000, sort.getSplitBytesRead());
+        assertEquals(8000, sort.getSplitBytesWritten());
+        assertEquals(8000, sort.getMergeBytesRead());
+        assertEquals(8000, sort.getMergeBytesWritten());
+    }
+
+    @Test(timeout = TIMEOUT)
+    public void testMultiplePasses() throws IOException {
+        long[] values = new Random(2050).longs(100000, 0, 5000).toArray();
+        Path input = write(values);
+        Path output = folder.newFile().toPath();
+        ExternalSort<Long> sort = longSort(8000, 4);
+        sort.sort(input, output);
+
+        Arrays.sort(values);
+        assertArrayEquals(values, readLongs(output));
+        // 100 runs take passes merging into 25, 7 and 2 runs, then the output
+        assertEquals(100, sort.getRunCount());
+        assertEquals(4, sort.getMergePasses());
+        assertEquals(800000, sort.getSplitBytesRead());
+        assertEquals(800000, sort.getSplitBytesWritten());
+        assertEquals(4 * 800000, sort.getMergeBytesRead());
+        assertEquals(4 * 800000, sort.getMergeBytesWritten());
+    }
+
+    @Test(timeout = TIMEOUT)
+    public void testStability() throws IOException {
+        // sorted by the low byte only, so the order of the rest must stay
+        long[] values = new Random(1332).longs(20000).toArray();
+        Path input = write(values);
+        Path output = folder.newFile().toPath();
+        new ExternalSort<>(LONGS, Comparator.comparing(value -> value & 0xFF),
+                1000, 512, 3, folder.newFolder().toPath()).sort(input, output);
+
+        long[] sorted = readLongs(output);
+        Long[] expected = new Long[values.length];
+        for (int i = 0; i < values.length; i++) {
+            expected[i] = values[i];
+        }
+        Arrays.sort(expected, Comparator.comparing(value -> value & 0xFF));
+        for (int i = 0; i < values.length; i++) {
+            assertEquals(expected[i].longValue(), sorted[i]);
+        }
+    }
+
+    @Test(timeout = TIMEOUT)
+    public void testVariableLengthRecords() throws IOException {
+        Random random = new Random(1332);
+        String[] strings = new String[5000];
+        ByteBuffer buffer = ByteBuffer.allocate(strings.length * 101);
+        for (int i = 0; i < strings.length; i++) {
+            char[] chars = new char[random.nextInt(30)];
+            for (int j = 0; j < chars.length; j++) {
+                chars[j] = (char) ('a' + random.nextInt(26));
+            }
+            strings[i] = new String(chars);
+            STRINGS.write(strings[i], buffer);
+        }
+        Path input = folder.newFile().toPath();
+        Files.write(input, Arrays.copyOf(buffer.array(), buffer.position()));
+        Path output = folder.newFile().toPath();
+        Path runs = folder.newFolder().toPath();
+        ExternalSort<String> sort = new ExternalSort<>(STRINGS,
+                Comparator.naturalOrder(), 2000, 300, 8, runs);
+        sort.sort(input, output);
+
+        Arrays.sort(strings);
+        ByteBuffer sorted = ByteBuffer.wrap(Files.readAllBytes(output));
+        for (String string : strings) {
+            assertEquals(string, STRINGS.read(sorted));
+        }
+        assertEquals(0, sorted.remaining());
+        assertTrue(sort.getRunCount() > 8);
+        assertEquals(0, runs.toFile().list().length);
+    }
+
+    @Test(timeout = TIMEOUT)
+    public void testEmptyInput() throws IOException {
+        Path input = folder.newFile().toPath();
+        Path output = folder.newFile().toPath();
+        ExternalSort<Long> sort = longSort(64, 2);
+        sort.sort(input, output);
+        assertEquals(0, Files.size(output));
+        assertEquals(0, sort.getRunCount());
+    }
+
+    @Test(timeout = TIMEOUT, expected = IllegalArgumentException.class)
+    public void testChunkTooSmall() throws IOException {
+        longSort(4, 2);
+    }
+
+    @Test(timeout = TIMEOUT, expected = IllegalArgumentException.class)
+    public void testNullComparator() {
+        new ExternalSort<>(LONGS, null);
+    }
+
+    @Test(timeout = TIMEOUT, expected = IllegalArgumentException.class)
+    public void testNullInput() throws IOException {
+        longSort(64, 2).sort(null, folder.newFile().toPath());
+    }
+}
@@ -0,0 +1,176 @@
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for the SortStats instrumentation of Sorting.
+ *
+ * @author Karel Klein-Cardena
+ * @version 1.0
+ */
+public class SortStatsTests {
+
+    private static final int TIMEOUT = 2000;
+
+    private final List<SortStats> recorded = new ArrayList<>();
+
+    @After
+    public void tearDown() {
+        Sorting.setStatsListener(null);
+    }
+
+    private Integer[] reversed(int length) {
+        Integer[] arr = new Integer[length];
+        for (int i = 0; i < length; i++) {
+            arr[i] = length - i;
+        }
+        return arr;
+    }
+
+    @Test(timeout = TIMEOUT)
+    public void testDisabled() {
+        Sorting.setStatsListener(recorded::add);
+        Sorting.setStatsListener(null);
+        Sorting.insertionSort(reversed(100), Comparator.naturalOrder());
+        assertEquals(0, recorded.size());
+    }
+
+    @Test(timeout = TIMEOUT)
+    public void testInsertionSortCounts() {
+        Sorting.setStatsListener(recorded::add);
+        Sorting.insertionSort(reversed(100), Comparator.naturalOrder());
+
+        assertEquals(1, recorded.size());
+        SortStats stats = recorded.get(0);
+        assertEquals("insertionSort(T[])", stats.getAlgorithm());
+        assertEquals(100, stats.getLength());
+        // every pair is inverted, and each of the 99 insertions shifts all
+        // the elements before it and then writes the element itself
+        assertEquals(4950, stats.getComparisons());
+        assertEquals(4950 + 99, stats.getMoves());
+        assertEquals(0, stats.getAllocated());
+        assertTrue(stats.getNanos() > 0);
+    }
+
+    @Test(timeout = TIMEOUT)
+    public void testAdaptiveAndAllocatingSorts() {
+        Sorting.setStatsListener(recorded::add);
+        Integer[] sorted = new Integer[1000];
+        for (int i = 0; i < sorted.length; i++) {
+            sorted[i] = i;
+        }
+        Sorting.timSort(sorted, Comparator.naturalOrder());
+        Sorting.mergeSort(new Random(1332).ints(1000).toArray());
+        Sorting.lsdRadixSort(new Random(1332).ints(1000).toArray());
+
+        assertEquals(3, recorded.size());
+        SortStats tim = recorded.get(0);
+        assertEquals(999, tim.getComparisons());
+        assertEquals(0, tim.getMoves());
+        assertEquals(0, tim.getAllocated());
+
+        SortStats merge = recorded.get(1);
+        assertEquals("mergeSort(int[])", merge.getAlgorithm());
+        assertEquals(0, merge.getComparisons());
+        assertEquals(1000, merge.getAllocated());
+        assertTrue(merge.getMoves() >= 1000 * 7);
+
+        // four byte passes over random ints, ending in the array itself
+        SortStats radix = recorded.get(2);
+        assertEquals(1000, radix.getAllocated());
+        assertEquals(4000, radix.getMoves());
+    }
+
+    @Test(timeout = TIMEOUT)
+    public void testRecursiveSortReportedOnce() {
+        Sorting.setStatsListener(recorded::add);
+        long[] comparisons = new long[1];
+        Comparator<Integer> counting = (a, b) -> {
+            comparisons[0]++;
+            return a.compareTo(b);
+        };
+        Sorting.mergeSort(reversed(1000), counting);
+        Sorting.quickSort(reversed(1000), counting, new Random(1));
+
+        assertEquals(2, recorded.size());
+        assertEquals(comparisons[0], recorded.get(0).getComparisons()
+                + recorded.get(1).getComparisons());
+        // each of the 6 levels above the insertion sorted ranges copies
+        // the array once
+        assertEquals(1000 * 6, recorded.get(0).getAllocated());
+    }
+
+    @Test(timeout = TIMEOUT)
+    public void testParallelMergeSort() {
+        Sorting.setStatsListener(recorded::add);
+        Integer[] arr = new Integer[100000];
+        Random random = new Random(2050);
+        for (int i = 0; i < arr.length; i++) {
+            arr[i] = random.nextInt();
+        }
+        long[] comparisons = new long[1];
+        Sorting.parallelMergeSort(arr, (a, b) -> {
+            synchronized (comparisons) {
+                comparisons[0]++;
+            }
+            return a.compareTo(b);
+        });
+
+        assertEquals(1, recorded.size());
+        SortStats stats = recorded.get(0);
+        assertEquals(comparisons[0], stats.getComparisons());
+        assertEquals(arr.length, stats.getAllocated());
+        // the copy plus at least one write per element for each of the
+        // 13 merge levels above the insertion sorted ranges
+        assertTrue(stats.getMoves() >= 14L * arr.length);
+    }
+
+    @Test(timeout = TIMEOUT)
+    public void testTopK() {
+        Sorting.setStatsListener(recorded::add);
+        List<Integer> source = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            source.add(i);
+        }
+        long[] comparisons = new long[1];
+        List<Integer> top = Sorting.topK(source, 10, (a, b) -> {
+            comparisons[0]++;
+            return b.compareTo(a);
+        });
+
+        assertEquals(10, top.size());
+        assertEquals(Integer.valueOf(999), top.get(0));
+        assertEquals(1, recorded.size());
+        SortStats stats = recorded.get(0);
+        assertEquals("topK", stats.getAlgorithm());
+        assertEquals(1000, stats.getLength());
+        assertEquals(comparisons[0], stats.getComparisons());
+        // the heap of 10 elements is never grown
+        assertEquals(10, stats.getAllocated());
+        // in ascending input every element after the first 10 replaces the
+        // root of the heap
+        assertTrue(stats.getMoves() >= 1000);
+    }
+
+    @Test(timeout = TIMEOUT)
+    public void testFailedSortNotReported() {
+        Sorting.setStatsListener(recorded::add);
+        try {
+            Sorting.timSort(reversed(10), (a, b) -> {
+                throw new IllegalStateException("Broken comparator");
+            });
+        } catch (IllegalStateException e) {
+            assertEquals("Broken comparator", e.getMessage());
+        }
+        Sorting.introSort(reversed(10), Comparator.naturalOrder());
+        assertEquals(1, recorded.size());
+        assertEquals("introSort", recorded.get(0).getAlgorithm());
+    }
+}
@@ -0,0 +1,604 @@
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Rough timing harness for the sorts in this project.
+ *
+ * This is not a JUnit test. Run it with the benchmark names to execute as
+ * arguments, or no arguments to run all of them, e.g.
+ * {@code java SortingBenchmark parallel}.
+ *
+ * Every benchmark repeats its work a few times on fresh copies of the same
+ * input and reports the best run so that JIT warm-up does not dominate the
+ * numbers.
+ *
+ * @author Karel Klein-Cardena
+ * @version 1.0
+ */
+public class SortingBenchmark {
+
+    private static final int LENGTH = 1 << 22;
+    private static final int INSERTION_LENGTH = 1 << 14;
+    private static final int RADIX_LENGTH = 10000000;
+    private static final int STRING_LENGTH = 1 << 20;
+    private static final int DUPLICATES_LENGTH = 1 << 14;
+    private static final int CUTOFF_LENGTH = 1 << 20;
+    private static final int ROUNDS = 5;
+
+    /**
+     * Keeps results alive so the JIT cannot drop the measured work.
+     */
+    private static long sink;
+
+    /**
+     * A sort of an Integer array, for timing different sorts the same way.
+     */
+    private interface IntegerSort {
+        /**
+         * Sorts the array.
+         *
+         * @param arr the array to sort
+         */
+        void sort(Integer[] arr);
+    }
+
+    /**
+     * A sort of an int array, for timing different sorts the same way.
+     */
+    private interface IntSort {
+        /**
+         * Sorts the array.
+         *
+         * @param arr the array to sort
+         */
+        void sort(int[] arr);
+    }
+
+    /**
+     * A sort of a String array, for timing different sorts the same way.
+     */
+    private interface StringSort {
+        /**
+         * Sorts the array.
+         *
+         * @param arr the array to sort
+         */
+        void sort(String[] arr);
+    }
+
+    /**
+     * A way to get the k smallest elements of an Integer array in order, for
+     * timing selections the same way.
+     */
+    private interface IntegerSelection {
+        /**
+         * Selects the k smallest elements.
+         *
+         * @param arr the array to select from, which may be rearranged
+         * @param k the number of elements to select
+         * @return the k smallest elements, sorted
+         */
+        Integer[] select(Integer[] arr, int k);
+    }
+
+    /**
+     * Runs the requested benchmarks.
+     *
+     * @param args names of the benchmarks to run; all of them if empty
+     */
+    public static void main(String[] args) {
+        if (shouldRun(args, "parallel")) {
+            parallel();
+        }
+        if (shouldRun(args, "primitive")) {
+            primitive();
+        }
+        if (shouldRun(args, "radix")) {
+            radix();
+        }
+        if (shouldRun(args, "strings")) {
+            strings();
+        }
+        if (shouldRun(args, "intro")) {
+            intro();
+        }
+        if (shouldRun(args, "adaptive")) {
+            adaptive();
+        }
+        if (shouldRun(args, "select")) {
+            select();
+        }
+        if (shouldRun(args, "cutoff")) {
+            cutoff();
+        }
+        System.out.println("sink " + sink);
+    }
+
+    /**
+     * Checks whether the named benchmark was requested.
+     *
+     * @param args command line arguments
+     * @param name benchmark name
+     * @return true if args is empty or contains the name
+     */
+    private static boolean shouldRun(String[] args, String name) {
+        if (args.length == 0) {
+            return true;
+        }
+        for (String arg : args) {
+            if (arg.equals(name)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Builds an array of random Integers.
+     *
+     * @param length number of elements
+     * @param seed random seed
+     * @return the array
+     */
+    static Integer[] randomIntegers(int length, long seed) {
+        Random rand = new Random(seed);
+        Integer[] arr = new Integer[length];
+        for (int i = 0; i < length; i++) {
+            arr[i] = rand.nextInt();
+        }
+        return arr;
+    }
+
+    /**
+     * Times a sort on fresh copies of the input and checks the result.
+     *
+     * @param input the array to copy and sort
+     * @param sort the sort to time
+     * @return the best time in nanoseconds
+     */
+    static long time(Integer[] input, IntegerSort sort) {
+        long best = Long.MAX_VALUE;
+        for (int round = 0; round < ROUNDS; round++) {
+            Integer[] arr = input.clone();
+            long start = System.nanoTime();
+            sort.sort(arr);
+            best = Math.min(best, System.nanoTime() - start);
+            for (int i = 1; i < arr.length; i++) {
+                if (arr[i - 1] > arr[i]) {
+                    throw new IllegalStateException("Not sorted");
+                }
+            }
+            sink += arr[arr.length / 2];
+        }
+        return best;
+    }
+
+    /**
+     * Times a sort on fresh copies of an int array and checks the result.
+     *
+     * @param input the array to copy and sort
+     * @param sort the sort to time
+     * @return the best time in nanoseconds
+     */
+    static long time(int[] input, IntSort sort) {
+        long best = Long.MAX_VALUE;
+        for (int round = 0; round < ROUNDS; round++) {
+            int[] arr = input.clone();
+            long start = System.nanoTime();
+            sort.sort(arr);
+            best = Math.min(best, System.nanoTime() - start);
+            for (int i = 1; i < arr.length; i++) {
+                if (arr[i - 1] > arr[i]) {
+                    throw new IllegalStateException("Not sorted");
+                }
+            }
+            sink += arr[arr.length / 2];
+        }
+        return best;
+    }
+
+    /**
+     * Times a sort on fresh copies of a String array and checks the result.
+     *
+     * @param input the array to copy and sort
+     * @param sort the sort to time
+     * @return the best time in nanoseconds
+     */
+    static long time(String[] input, StringSort sort) {
+        long best = Long.MAX_VALUE;
+        for (int round = 0; round < ROUNDS; round++) {
+            String[] arr = input.clone();
+            long start = System.nanoTime();
+            sort.sort(arr);
+            best = Math.min(best, System.nanoTime() - start);
+            for (int i = 1; i < arr.length; i++) {
+                if (arr[i - 1].compareTo(arr[i]) > 0) {
+                    throw new IllegalStateException("Not sorted");
+                }
+            }
+            sink += arr[arr.length / 2].length();
+        }
+        return best;
+    }
+
+    /**
+     * Times a selection on fresh copies of the input and checks the result.
+     *
+     * @param input the array to copy and select from
+     * @param expected the smallest elements of the input, sorted
+     * @param selection the selection to time
+     * @return the best time in nanoseconds
+     */
+    static long time(Integer[] input, Integer[] expected,
+                     IntegerSelection selection) {
+        long best = Long.MAX_VALUE;
+        for (int round = 0; round < ROUNDS; round++) {
+            Integer[] arr = input.clone();
+            long start = System.nanoTime();
+            Integer[] top = selection.select(arr, expected.length);
+            best = Math.min(best, System.nanoTime() - start);
+            if (!Arrays.equals(expected, top)) {
+                throw new IllegalStateException("Wrong selection");
+            }
+            sink += top[top.length - 1];
+        }
+        return best;
+    }
+
+    /**
+     * Prints one result line.
+     *
+     * @param label what was measured
+     * @param nanos best time in nanoseconds
+     * @param baseline time to compare against in nanoseconds
+     */
+    static void report(String label, long nanos, long baseline) {
+        System.out.printf("%-32s %10.2f ms %6.2fx%n",
+                label, nanos / 1e6, (double) baseline / nanos);
+    }
+
+    /**
+     * Compares the sequential mergeSort with parallelMergeSort and
+     * {@code Arrays.parallelSort} on {@code LENGTH} random Integers.
+     * Speedups are relative to mergeSort.
+     */
+    private static void parallel() {
+        Integer[] input = randomIntegers(LENGTH, 1332);
+        Comparator<Integer> comparator = Comparator.naturalOrder();
+        System.out.println("parallelism "
+                + ForkJoinPool.commonPool().getParallelism());
+        long merge = time(input, arr -> Sorting.mergeSort(arr, comparator));
+        report("mergeSort", merge, merge);
+        report("parallelMergeSort", time(input,
+                arr -> Sorting.parallelMergeSort(arr, comparator)), merge);
+        report("Arrays.parallelSort", time(input,
+                arr -> Arrays.parallelSort(arr, comparator)), merge);
+        report("Arrays.sort", time(input,
+                arr -> Arrays.sort(arr, comparator)), merge);
+    }
+
+    /**
+     * Compares the boxed, comparator based quickSort, mergeSort and
+     * insertionSort with their int[] overloads on the same random values.
+     * Insertion sort runs on {@code INSERTION_LENGTH} elements only.
+     * Speedups are relative to the boxed version.
+     */
+    private static void primitive() {
+        Integer[] boxed = randomIntegers(LENGTH, 2050);
+        int[] ints = new int[LENGTH];
+        for (int i = 0; i < LENGTH; i++) {
+            ints[i] = boxed[i];
+        }
+        Comparator<Integer> comparator = Comparator.naturalOrder();
+
+        long quick = time(boxed,
+                arr -> Sorting.quickSort(arr, comparator, new Random(1)));
+        report("quickSort Integer[]", quick, quick);
+        report("quickSort int[]", time(ints,
+                arr -> Sorting.quickSort(arr, new Random(1))), quick);
+
+        long merge = time(boxed, arr -> Sorting.mergeSort(arr, comparator));
+        report("mergeSort Integer[]", merge, merge);
+        report("mergeSort int[]", time(ints, Sorting::mergeSort), merge);
+
+        int[] indices = new int[LENGTH];
+        report("mergeSort int[] + indices", time(ints, arr -> {
+            for (int i = 0; i < indices.length; i++) {
+                indices[i] = i;
+            }
+            Sorting.mergeSort(arr, indices);
+        }), merge);
+
+        Integer[] smallBoxed = Arrays.copyOf(boxed, INSERTION_LENGTH);
+        int[] smallInts = Arrays.copyOf(ints, INSERTION_LENGTH);
+        long insertion = time(smallBoxed,
+                arr -> Sorting.insertionSort(arr, comparator));
+        report("insertionSort Integer[]", insertion, insertion);
+        report("insertionSort int[]", time(smallInts,
+                Sorting::insertionSort), insertion);
+    }
+
+    /**
+     * Compares lsdRadixSort with the int[] quickSort and
+     * {@code Arrays.sort} on {@code RADIX_LENGTH} random ints, over the full
+     * int range and over small non-negative values. Speedups are relative
+     * to quickSort.
+     */
+    private static void radix() {
+        Random rand = new Random(4400);
+        int[] full = new int[RADIX_LENGTH];
+        int[] small = new int[RADIX_LENGTH];
+        for (int i = 0; i < RADIX_LENGTH; i++) {
+            full[i] = rand.nextInt();
+            small[i] = rand.nextInt(1 << 16);
+        }
+        for (int[] input : new int[][]{full, small}) {
+            String range = input == full ? " full range" : " 0..65535";
+            long quick = time(input,
+                    arr -> Sorting.quickSort(arr, new Random(1)));
+            report("quickSort" + range, quick, quick);
+            report("lsdRadixSort" + range,
+                    time(input, Sorting::lsdRadixSort), quick);
+            report("Arrays.sort" + range, time(input, Arrays::sort), quick);
+        }
+    }
+
+    /**
+     * Compares msdRadixSort and stringQuickSort with the comparator based
+     * quickSort and {@code Arrays.sort} on {@code STRING_LENGTH} strings:
+     * random lowercase words, and URLs that share long prefixes. Speedups
+     * are relative to quickSort.
+     */
+    private static void strings() {
+        Random rand = new Random(1332);
+        String[] words = new String[STRING_LENGTH];
+        String[] urls = new String[STRING_LENGTH];
+        String[] hosts = {"https://www.example.com/",
+            "https://www.example.org/", "https://api.example.com/v1/",
+            "https://cdn.example.net/static/"};
+        String[] paths = {"users/", "orders/", "products/", "images/",
+            "search?q=", "articles/2016/"};
+        for (int i = 0; i < STRING_LENGTH; i++) {
+            char[] chars = new char[5 + rand.nextInt(11)];
+            for (int j = 0; j < chars.length; j++) {
+                chars[j] = (char) ('a' + rand.nextInt(26));
+            }
+            words[i] = new String(chars);
+            urls[i] = hosts[rand.nextInt(hosts.length)]
+                    + paths[rand.nextInt(paths.length)]
+                    + rand.nextInt(STRING_LENGTH);
+        }
+        Comparator<String> comparator = Comparator.naturalOrder();
+        for (String[] input : new String[][]{words, urls}) {
+            String data = input == words ? " words" : " urls";
+            long quick = time(input,
+                    arr -> Sorting.quickSort(arr, comparator, new Random(1)));
+            report("quickSort" + data, quick, quick);
+            report("msdRadixSort" + data,
+                    time(input, Sorting::msdRadixSort), quick);
+            report("stringQuickSort" + data, time(input,
+                    arr -> Sorting.stringQuickSort(arr, new Random(1))), quick);
+            report("Arrays.sort" + data, time(input, Arrays::sort), quick);
+        }
+    }
+
+    /**
+     * Compares introSort with the random pivot quickSort and
+     * {@code Arrays.sort} on {@code LENGTH} Integers that are random, sorted
+     * or shaped like an organ pipe, and on {@code DUPLICATES_LENGTH}
+     * Integers with only four distinct values, which quickSort handles in
+     * quadratic time and recursion as deep as the array is long. Speedups
+     * are relative to quickSort.
+     */
+    private static void intro() {
+        Integer[] random = randomIntegers(LENGTH, 1332);
+        Integer[] sorted = new Integer[LENGTH];
+        Integer[] pipe = new Integer[LENGTH];
+        for (int i = 0; i < LENGTH; i++) {
+            sorted[i] = i;
+            pipe[i] = Math.min(i, LENGTH - i);
+        }
+        Integer[] duplicates = new Integer[DUPLICATES_LENGTH];
+        for (int i = 0; i < DUPLICATES_LENGTH; i++) {
+            duplicates[i] = random[i] & 3;
+        }
+        Comparator<Integer> comparator = Comparator.naturalOrder();
+        String[] names = {" random", " sorted", " organ pipe", " 4 values"};
+        Integer[][] inputs = {random, sorted, pipe, duplicates};
+        for (int i = 0; i < inputs.length; i++) {
+            long quick = time(inputs[i],
+                    arr -> Sorting.quickSort(arr, comparator, new Random(1)));
+            report("quickSort" + names[i], quick, quick);
+            report("introSort" + names[i], time(inputs[i],
+                    arr -> Sorting.introSort(arr, comparator)), quick);
+            report("Arrays.sort" + names[i], time(inputs[i],
+                    arr -> Arrays.sort(arr, comparator)), quick);
+        }
+    }
+
+    /**
+     * Compares timSort with mergeSort and {@code Arrays.sort} on
+     * {@code LENGTH} Integers that are sorted, reversed, a sawtooth of 64
+     * ascending runs, random, or sorted with 1% random values appended like
+     * a log that received a few late entries. Speedups are relative to
+     * mergeSort.
+     */
+    private static void adaptive() {
+        Integer[] random = randomIntegers(LENGTH, 1332);
+        Integer[] sorted = new Integer[LENGTH];
+        Integer[] reversed = new Integer[LENGTH];
+        Integer[] sawtooth = new Integer[LENGTH];
+        Integer[] appended = new Integer[LENGTH];
+        int tail = LENGTH - LENGTH / 100;
+        for (int i = 0; i < LENGTH; i++) {
+            sorted[i] = i;
+            reversed[i] = LENGTH - i;
+            sawtooth[i] = i % (LENGTH / 64);
+            appended[i] = i < tail ? i : random[i] & (LENGTH - 1);
+        }
+        Comparator<Integer> comparator = Comparator.naturalOrder();
+        String[] names = {" sorted", " reversed", " sawtooth", " random",
+            " appended"};
+        Integer[][] inputs = {sorted, reversed, sawtooth, random, appended};
+        for (int i = 0; i < inputs.length; i++) {
+            long merge = time(inputs[i],
+                    arr -> Sorting.mergeSort(arr, comparator));
+            report("mergeSort" + names[i], merge, merge);
+            report("timSort" + names[i], time(inputs[i],
+                    arr -> Sorting.timSort(arr, comparator)), merge);
+            report("Arrays.sort" + names[i], time(inputs[i],
+                    arr -> Arrays.sort(arr, comparator)), merge);
+        }
+    }
+
+    /**
+     * Compares ways of taking the k smallest of {@code LENGTH} random
+     * Integers, for k of 100 and of a hundredth of the array: a full
+     * quickSort or {@code Arrays.sort} followed by truncation, partialSort,
+     * and topK streaming over the array. Speedups are relative to
+     * quickSort.
+     */
+    private static void select() {
+        Integer[] random = randomIntegers(LENGTH, 1332);
+        Integer[] sorted = random.clone();
+        Arrays.sort(sorted);
+        Comparator<Integer> comparator = Comparator.naturalOrder();
+        for (int k : new int[]{100, LENGTH / 100}) {
+            Integer[] expected = Arrays.copyOf(sorted, k);
+            String name = " k=" + k;
+            long quick = time(random, expected, (arr, n) -> {
+                Sorting.quickSort(arr, comparator, new Random(1));
+                return Arrays.copyOf(arr, n);
+            });
+            report("quickSort" + name, quick, quick);
+            report("Arrays.sort" + name, time(random, expected, (arr, n) -> {
+                Arrays.sort(arr, comparator);
+                return Arrays.copyOf(arr, n);
+            }), quick);
+            report("partialSort" + name, time(random, expected, (arr, n) -> {
+                Sorting.partialSort(arr, n, comparator);
+                return Arrays.copyOf(arr, n);
+            }), quick);
+            report("topK" + name, time(random, expected, (arr, n) ->
+                    Sorting.topK(Arrays.asList(arr), n, comparator)
+                            .toArray(new Integer[n])), quick);
+        }
+    }
+
+    /**
+     * Times the quadratic sorts on {@code INSERTION_LENGTH} random Integers,
+     * then shows how the insertion sort cutoff of a merge sort changes its
+     * time on {@code CUTOFF_LENGTH} random Integers, for both the linear and
+     * the binary insertion sort as its base case, and for a comparator that
+     * is as cheap as possible and one that does some work per call.
+     * Speedups are relative to insertionSort and to the merge sort without
+     * a cutoff.
+     */
+    private static void cutoff() {
+        Integer[] small = randomIntegers(INSERTION_LENGTH, 1332);
+        Comparator<Integer> comparator = Comparator.naturalOrder();
+        long insertion = time(small,
+                arr -> Sorting.insertionSort(arr, comparator));
+        report("insertionSort", insertion, insertion);
+        report("binaryInsertionSort", time(small,
+                arr -> Sorting.binaryInsertionSort(arr, 0, arr.length,
+                        comparator)), insertion);
+        report("selectionSort", time(small,
+                arr -> Sorting.selectionSort(arr, comparator)), insertion);
+        report("cocktailSort", time(small,
+                arr -> Sorting.cocktailSort(arr, comparator)), insertion);
+
+        Integer[] random = randomIntegers(CUTOFF_LENGTH, 2050);
+        Comparator<Integer> costly = Comparator.comparing(
+                value -> Integer.toString(value));
+        String[] names = {" cheap", " costly"};
+        List<Comparator<Integer>> comparators = Arrays.asList(comparator,
+                costly);
+        for (int c = 0; c < comparators.size(); c++) {
+            long none = timeHybrid(random, comparators.get(c), 1, false);
+            report("mergeSort no cutoff" + names[c], none, none);
+            for (int cutoff = 4; cutoff <= 128; cutoff *= 2) {
+                report("linear cutoff " + cutoff + names[c],
+                        timeHybrid(random, comparators.get(c), cutoff, false),
+                        none);
+                report("binary cutoff " + cutoff + names[c],
+                        timeHybrid(random, comparators.get(c), cutoff, true),
+                        none);
+            }
+        }
+    }
+
+    /**
+     * Times a merge sort that insertion sorts ranges up to a cutoff, on
+     * fresh copies of the input, and checks the result.
+     *
+     * @param input the array to copy and sort
+     * @param comparator the order to sort in
+     * @param cutoff the longest range that is insertion sorted
+     * @param binary whether the ranges are binary insertion sorted
+     * @return the best time in nanoseconds
+     */
+    private static long timeHybrid(Integer[] input,
+                                   Comparator<Integer> comparator,
+                                   int cutoff, boolean binary) {
+        long best = Long.MAX_VALUE;
+        for (int round = 0; round < ROUNDS; round++) {
+            Integer[] arr = input.clone();
+            long start = System.nanoTime();
+            hybridMergeSort(input.clone(), arr, 0, arr.length, comparator,
+                    cutoff, binary);
+            best = Math.min(best, System.nanoTime() - start);
+            for (int i = 1; i < arr.length; i++) {
+                if (comparator.compare(arr[i - 1], arr[i]) > 0) {
+                    throw new IllegalStateException("Not sorted");
+                }
+            }
+            sink += arr[arr.length / 2];
+        }
+        return best;
+    }
+
+    /**
+     * Sorts src[lo, hi) into dst[lo, hi) like the merge sorts in Sorting,
+     * swapping the roles of the arrays at every level, but with the
+     * insertion sort cutoff and base case as parameters. Both arrays must
+     * hold the same elements when called.
+     *
+     * @param src the array the halves are sorted into
+     * @param dst the array the range ends up sorted in
+     * @param lo the first index
+     * @param hi one past the last index
+     * @param comparator the order to sort in
+     * @param cutoff the longest range that is insertion sorted
+     * @param binary whether the ranges are binary insertion sorted
+     */
+    private static void hybridMergeSort(Integer[] src, Integer[] dst, int lo,
+                                        int hi,
+                                        Comparator<Integer> comparator,
+                                        int cutoff, boolean binary) {
+        if (hi - lo <= cutoff) {
+            if (binary) {
+                Sorting.binaryInsertionSort(dst, lo, hi, comparator);
+            } else {
+                Sorting.insertionSort(dst, lo, hi, comparator);
+            }
+            return;
+        }
+        int mid = (lo + hi) >>> 1;
+        hybridMergeSort(dst, src, lo, mid, comparator, cutoff, binary);
+        hybridMergeSort(dst, src, mid, hi, comparator, cutoff, binary);
+        int left = lo;
+        int right = mid;
+        for (int out = lo; out < hi; out++) {
+            if (right == hi || (left < mid
+                    && comparator.compare(src[left], src[right]) <= 0)) {
+                dst[out] = src[left++];
+            } else {
+                dst[out] = src[right++];
+            }
+        }
+    }
+}
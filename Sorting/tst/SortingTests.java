@@ -1,3 +1,5 @@
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
@@ -5,8 +7,10 @@ import static org.junit.Assert.assertTrue;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.io.PrintStream;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Comparator;
+import java.util.List;
 import java.util.Random;
 import java.util.concurrent.TimeUnit;
 
@@ -345,12 +349,188 @@ public class SortingTests {
         assertDoesSort((array, comparator) -> Sorting.mergeSort(array, comparator), new TrickySignComparator());
     }
 
+    @Test
+    public void parallelMergeExceptions() {
+        assertStandardExceptions((array, comparator) -> Sorting.parallelMergeSort(array, comparator), "parallel mergesort");
+    }
+
+    @Test
+    public void parallelMergeSort() {
+        assertDoesSort((array, comparator) -> Sorting.parallelMergeSort(array, comparator));
+    }
+
+    @Test
+    public void parallelMergeStability() {
+        assertDoesSort((array, comparator) -> Sorting.parallelMergeSort(array, comparator), true);
+    }
+
+    @Test
+    public void parallelMergeComparatorSign() {
+        assertDoesSort((array, comparator) -> Sorting.parallelMergeSort(array, comparator), new TrickySignComparator());
+    }
+
+    @Test
+    public void parallelMergeLargeArrays() {
+        // large enough to be split into parallel tasks and parallel merges
+        Random random = new Random(1332);
+        for (int length : new int[]{0, 1, 100000, 300001}) {
+            StableInteger[] array = new StableInteger[length];
+            for (int j = 0; j < array.length; j++) {
+                array[j] = new StableInteger(random.nextInt(50), j);
+            }
+
+            Sorting.parallelMergeSort(array, Comparator.naturalOrder());
+
+            assertIsSortedStably(array);
+        }
+    }
+
+    @Test
+    public void primitiveExceptions() {
+        assertException("Passing a null array to a primitive sort should throw an IllegalArgumentException",
+                IllegalArgumentException.class, () -> Sorting.insertionSort((int[]) null));
+        assertException("Passing a null array to a primitive sort should throw an IllegalArgumentException",
+                IllegalArgumentException.class, () -> Sorting.mergeSort((long[]) null));
+        assertException("Passing a null random object to quicksort should throw an IllegalArgumentException",
+                IllegalArgumentException.class, () -> Sorting.quickSort(new double[4], null));
+        assertException("Passing arrays of different lengths should throw an IllegalArgumentException",
+                IllegalArgumentException.class, () -> Sorting.mergeSort(new int[4], new int[3]));
+    }
+
+    @Test
+    public void primitiveSorts() {
+        Random random = new Random(2050);
+        for (int length : new int[]{0, 1, 2, 17, 1000}) {
+            int[] ints = new int[length];
+            long[] longs = new long[length];
+            double[] doubles = new double[length];
+            for (int j = 0; j < length; j++) {
+                ints[j] = random.nextInt(200) - 100;
+                longs[j] = random.nextLong();
+                doubles[j] = random.nextGaussian();
+            }
+            if (length > 2) {
+                doubles[0] = Double.NaN;
+                doubles[1] = -0.0;
+                doubles[2] = 0.0;
+            }
+            int[] sortedInts = ints.clone();
+            Arrays.sort(sortedInts);
+            long[] sortedLongs = longs.clone();
+            Arrays.sort(sortedLongs);
+            double[] sortedDoubles = doubles.clone();
+            Arrays.sort(sortedDoubles);
+
+            int[] a = ints.clone();
+            Sorting.insertionSort(a);
+            assertArrayEquals(sortedInts, a);
+            a = ints.clone();
+            Sorting.quickSort(a, random);
+            assertArrayEquals(sortedInts, a);
+            a = ints.clone();
+            Sorting.mergeSort(a);
+            assertArrayEquals(sortedInts, a);
+
+            long[] b = longs.clone();
+            Sorting.insertionSort(b);
+            assertArrayEquals(sortedLongs, b);
+            b = longs.clone();
+            Sorting.quickSort(b, random);
+            assertArrayEquals(sortedLongs, b);
+            b = longs.clone();
+            Sorting.mergeSort(b);
+            assertArrayEquals(sortedLongs, b);
+
+            double[] c = doubles.clone();
+            Sorting.insertionSort(c);
+            assertArrayEquals(sortedDoubles, c, 0);
+            c = doubles.clone();
+            Sorting.quickSort(c, random);
+            assertArrayEquals(sortedDoubles, c, 0);
+            c = doubles.clone();
+            Sorting.mergeSort(c);
+            assertArrayEquals(sortedDoubles, c, 0);
+        }
+    }
+
+    @Test
+    public void keyIndexSorts() {
+        Random random = new Random(4400);
+        int[] keys = new int[1000];
+        for (int j = 0; j < keys.length; j++) {
+            keys[j] = random.nextInt(50);
+        }
+        for (int sort = 0; sort < 3; sort++) {
+            int[] sortedKeys = keys.clone();
+            int[] indices = new int[keys.length];
+            for (int j = 0; j < indices.length; j++) {
+                indices[j] = j;
+            }
+            if (sort == 0) {
+                Sorting.insertionSort(sortedKeys, indices);
+            } else if (sort == 1) {
+                Sorting.mergeSort(sortedKeys, indices);
+            } else {
+                Sorting.quickSort(sortedKeys, indices, random);
+            }
+            assertIsSorted(sortedKeys);
+            for (int j = 0; j < keys.length; j++) {
+                assertEquals(keys[indices[j]], sortedKeys[j]);
+                // insertion and merge sort are stable
+                if (sort < 2 && j > 0 && sortedKeys[j - 1] == sortedKeys[j]) {
+                    assertTrue("Sort was not stable", indices[j - 1] < indices[j]);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void primitiveQuickSortDuplicates() {
+        // One level per equal key used to overflow the stack on these.
+        Random random = new Random(1332);
+        int length = 200000;
+        for (int distinct : new int[]{1, 2, 100}) {
+            int[] ints = new int[length];
+            long[] longs = new long[length];
+            double[] doubles = new double[length];
+            int[] indices = new int[length];
+            for (int j = 0; j < length; j++) {
+                ints[j] = random.nextInt(distinct);
+                longs[j] = ints[j];
+                doubles[j] = ints[j];
+                indices[j] = j;
+            }
+            int[] sortedInts = ints.clone();
+            Arrays.sort(sortedInts);
+
+            int[] a = ints.clone();
+            Sorting.quickSort(a, random);
+            assertArrayEquals(sortedInts, a);
+            long[] b = longs.clone();
+            Sorting.quickSort(b, random);
+            for (int j = 0; j < length; j++) {
+                assertEquals(sortedInts[j], b[j]);
+            }
+            double[] c = doubles.clone();
+            Sorting.quickSort(c, random);
+            for (int j = 0; j < length; j++) {
+                assertEquals(sortedInts[j], c[j], 0);
+            }
+            a = ints.clone();
+            Sorting.quickSort(a, indices, random);
+            assertArrayEquals(sortedInts, a);
+            for (int j = 0; j < length; j++) {
+                assertEquals(ints[indices[j]], a[j]);
+            }
+        }
+    }
+
     @Test
     public void radixExceptions() {
         assertException(
                 "Passing a null array to radix short should throw an IllegalArgumentException",
                 IllegalArgumentException.class,
-                () -> Sorting.lsdRadixSort(null));
+                () -> Sorting.lsdRadixSort((int[]) null));
     }
 
     @Test
@@ -382,4 +562,437 @@ public class SortingTests {
             assertIsSorted(array);
         }
     }
-}
\ No newline at end of file
+
+    @Test
+    public void radixSortFullRange() {
+        Random random = new Random(1332);
+        int[] ints = new int[10000];
+        long[] longs = new long[10000];
+        for (int j = 0; j < ints.length; j++) {
+            ints[j] = random.nextInt();
+            longs[j] = random.nextLong();
+        }
+        ints[0] = Integer.MIN_VALUE;
+        ints[1] = Integer.MAX_VALUE;
+        ints[2] = 0;
+        ints[3] = -1;
+        longs[0] = Long.MIN_VALUE;
+        longs[1] = Long.MAX_VALUE;
+
+        int[] expectedInts = ints.clone();
+        Arrays.sort(expectedInts);
+        assertArrayEquals(expectedInts, Sorting.lsdRadixSort(ints));
+        long[] expectedLongs = longs.clone();
+        Arrays.sort(expectedLongs);
+        assertArrayEquals(expectedLongs, Sorting.lsdRadixSort(longs));
+
+        // every element sharing some bytes makes the sort skip passes
+        int[] narrow = new int[1000];
+        for (int j = 0; j < narrow.length; j++) {
+            narrow[j] = 0x12340000 | random.nextInt(256);
+        }
+        int[] expectedNarrow = narrow.clone();
+        Arrays.sort(expectedNarrow);
+        assertArrayEquals(expectedNarrow, Sorting.lsdRadixSort(narrow));
+    }
+
+    @Test
+    public void radixSortFloatingPoint() {
+        Random random = new Random(2050);
+        double[] doubles = new double[10000];
+        float[] floats = new float[10000];
+        for (int j = 0; j < doubles.length; j++) {
+            doubles[j] = random.nextGaussian() * 1e6;
+            floats[j] = (float) (random.nextGaussian() * 1e3);
+        }
+        double[] specialDoubles = {Double.NaN, -0.0, 0.0, Double.POSITIVE_INFINITY,
+            Double.NEGATIVE_INFINITY, Double.MIN_VALUE, -Double.MAX_VALUE};
+        float[] specialFloats = {Float.NaN, -0.0f, 0.0f, Float.POSITIVE_INFINITY,
+            Float.NEGATIVE_INFINITY, Float.MIN_VALUE, -Float.MAX_VALUE};
+        System.arraycopy(specialDoubles, 0, doubles, 100, specialDoubles.length);
+        System.arraycopy(specialFloats, 0, floats, 100, specialFloats.length);
+
+        double[] expectedDoubles = doubles.clone();
+        Arrays.sort(expectedDoubles);
+        // compare as strings so that -0.0 and 0.0 must be in order too
+        assertEquals(Arrays.toString(expectedDoubles), Arrays.toString(Sorting.lsdRadixSort(doubles)));
+        float[] expectedFloats = floats.clone();
+        Arrays.sort(expectedFloats);
+        assertEquals(Arrays.toString(expectedFloats), Arrays.toString(Sorting.lsdRadixSort(floats)));
+    }
+
+    @Test
+    public void stringExceptions() {
+        assertException("Passing a null array to msdRadixSort should throw an IllegalArgumentException",
+                IllegalArgumentException.class, () -> Sorting.msdRadixSort((String[]) null));
+        assertException("Passing a null string to msdRadixSort should throw an IllegalArgumentException",
+                IllegalArgumentException.class, () -> Sorting.msdRadixSort(new String[]{"a", null, "b"}));
+        assertException("Passing a null array to stringQuickSort should throw an IllegalArgumentException",
+                IllegalArgumentException.class, () -> Sorting.stringQuickSort((String[]) null, new Random()));
+        assertException("Passing a null random object to stringQuickSort should throw an IllegalArgumentException",
+                IllegalArgumentException.class, () -> Sorting.stringQuickSort(new String[]{"a"}, null));
+    }
+
+    private static String[] randomStrings(Random random, int length) {
+        String[] hosts = {"https://www.example.com/", "https://www.example.org/", "http://example.com/", ""};
+        char[] alphabet = {'a', 'b', 'c', '/', '\u00e9', '\u00ff', '\u0100', '\u4e2d', '\uffff'};
+        String[] strings = new String[length];
+        for (int i = 0; i < length; i++) {
+            StringBuilder builder = new StringBuilder(hosts[random.nextInt(hosts.length)]);
+            int chars = random.nextInt(8);
+            for (int j = 0; j < chars; j++) {
+                builder.append(alphabet[random.nextInt(random.nextBoolean() ? 3 : alphabet.length)]);
+            }
+            strings[i] = builder.toString();
+        }
+        return strings;
+    }
+
+    @Test
+    public void stringSorts() {
+        Random random = new Random(1332);
+        for (int length : new int[]{0, 1, 2, 15, 16, 17, 100, 10000}) {
+            String[] strings = randomStrings(random, length);
+            String[] expected = strings.clone();
+            Arrays.sort(expected);
+
+            String[] msd = strings.clone();
+            Sorting.msdRadixSort(msd);
+            assertArrayEquals(expected, msd);
+
+            String[] quick = strings.clone();
+            Sorting.stringQuickSort(quick, new Random(length));
+            assertArrayEquals(expected, quick);
+        }
+
+        CharSequence[] builders = {new StringBuilder("b"), "ab", new StringBuilder("a"), "", "abc"};
+        Sorting.msdRadixSort(builders);
+        assertEquals("[, a, ab, abc, b]", Arrays.toString(builders));
+    }
+
+    @Test
+    public void msdRadixSortStability() {
+        // Equal strings are different objects, so their order can be checked by identity.
+        Random random = new Random(2050);
+        String[] strings = new String[5000];
+        for (int i = 0; i < strings.length; i++) {
+            strings[i] = new String(random.nextBoolean() ? "same/prefix/" + random.nextInt(20) : "" + random.nextInt(5));
+        }
+        String[] expected = strings.clone();
+        Arrays.sort(expected);
+        String[] actual = strings.clone();
+        Sorting.msdRadixSort(actual);
+        for (int i = 0; i < actual.length; i++) {
+            assertTrue("msdRadixSort should be stable", expected[i] == actual[i]);
+        }
+    }
+
+    @Test
+    public void msdRadixSortStabilityBeyondLatin1() {
+        // Chars from U+00FF up share one bucket, which must keep equal strings in order too.
+        Random random = new Random(2050);
+        String[] strings = new String[5000];
+        for (int i = 0; i < strings.length; i++) {
+            int kind = random.nextInt(3);
+            if (kind == 0) {
+                strings[i] = new String("\u4e2d\u6587" + random.nextInt(20));
+            } else if (kind == 1) {
+                strings[i] = new String("" + (char) (0xff + random.nextInt(3)) + random.nextInt(5));
+            } else {
+                strings[i] = new String("\u00ff" + (char) (0x100 + random.nextInt(4)));
+            }
+        }
+        String[] expected = strings.clone();
+        Arrays.sort(expected);
+        String[] actual = strings.clone();
+        Sorting.msdRadixSort(actual);
+        for (int i = 0; i < actual.length; i++) {
+            assertTrue("msdRadixSort should be stable", expected[i] == actual[i]);
+        }
+    }
+
+    @Test
+    public void introExceptions() {
+        assertStandardExceptions((array, comparator) -> Sorting.introSort(array, comparator), "introsort");
+    }
+
+    @Test
+    public void introSort() {
+        assertDoesSort((array, comparator) -> Sorting.introSort(array, comparator));
+    }
+
+    @Test
+    public void introComparatorSign() {
+        assertDoesSort((array, comparator) -> Sorting.introSort(array, comparator), new TrickySignComparator());
+    }
+
+    @Test
+    public void introSortPatterns() {
+        int n = 100000;
+        Random random = new Random(1332);
+        int[][] patterns = new int[7][n];
+        for (int j = 0; j < n; j++) {
+            patterns[0][j] = random.nextInt();
+            patterns[1][j] = j;
+            patterns[2][j] = n - j;
+            patterns[3][j] = 7;
+            patterns[4][j] = random.nextInt(4);
+            patterns[5][j] = Math.min(j, n - j);
+            patterns[6][j] = j % 1000;
+        }
+        patterns[1][n / 2] = -1;
+        for (int[] pattern : patterns) {
+            Integer[] array = new Integer[n];
+            for (int j = 0; j < n; j++) {
+                array[j] = pattern[j];
+            }
+            long[] comparisons = new long[1];
+            Sorting.introSort(array, (a, b) -> {
+                comparisons[0]++;
+                return a.compareTo(b);
+            });
+            assertIsSorted(array);
+            // n log2 n is about 1.7 million
+            assertTrue("introSort made " + comparisons[0] + " comparisons", comparisons[0] < 3 * 1700000);
+        }
+
+        // sorted input and all equal elements are linear
+        for (int p : new int[]{1, 3}) {
+            Integer[] array = new Integer[n];
+            for (int j = 0; j < n; j++) {
+                array[j] = p == 1 ? j : patterns[p][j];
+            }
+            long[] comparisons = new long[1];
+            Sorting.introSort(array, (a, b) -> {
+                comparisons[0]++;
+                return a.compareTo(b);
+            });
+            assertTrue("introSort made " + comparisons[0] + " comparisons", comparisons[0] < 3 * n);
+        }
+    }
+
+    @Test
+    public void timExceptions() {
+        assertStandardExceptions((array, comparator) -> Sorting.timSort(array, comparator), "timsort");
+    }
+
+    @Test
+    public void timSort() {
+        assertDoesSort((array, comparator) -> Sorting.timSort(array, comparator));
+    }
+
+    @Test
+    public void timStability() {
+        assertDoesSort((array, comparator) -> Sorting.timSort(array, comparator), true);
+    }
+
+    @Test
+    public void timComparatorSign() {
+        assertDoesSort((array, comparator) -> Sorting.timSort(array, comparator), new TrickySignComparator());
+    }
+
+    @Test
+    public void timSortPatterns() {
+        // long runs of all kinds, so that runs get merged and merges gallop
+        Random random = new Random(1332);
+        int n = 200000;
+        int[][] patterns = new int[6][n];
+        for (int j = 0; j < n; j++) {
+            patterns[0][j] = random.nextInt(1000);
+            patterns[1][j] = j / 3;
+            patterns[2][j] = (n - j) / 3;
+            patterns[3][j] = j % 5000;
+            patterns[4][j] = (j / 7000) % 2 == 0 ? j % 7000 : 7000 - j % 7000;
+            patterns[5][j] = j < n - 1000 ? j : random.nextInt(n);
+        }
+        for (int[] pattern : patterns) {
+            StableInteger[] array = new StableInteger[n];
+            for (int j = 0; j < n; j++) {
+                array[j] = new StableInteger(pattern[j], j);
+            }
+
+            Sorting.timSort(array, Comparator.naturalOrder());
+
+            assertIsSortedStably(array);
+        }
+
+        // sorted and strictly descending input are a single run
+        for (int[] pattern : new int[][]{patterns[1], patterns[2]}) {
+            Integer[] array = new Integer[n];
+            for (int j = 0; j < n; j++) {
+                array[j] = pattern == patterns[1] ? j : n - j;
+            }
+            long[] comparisons = new long[1];
+            Sorting.timSort(array, (a, b) -> {
+                comparisons[0]++;
+                return a.compareTo(b);
+            });
+            assertIsSorted(array);
+            assertEquals(n - 1, comparisons[0]);
+        }
+    }
+
+    @Test
+    public void nthElementExceptions() {
+        assertStandardExceptions((array, comparator) -> Sorting.nthElement(array, 0, comparator), "nthElement");
+        assertStandardExceptions((array, comparator) -> Sorting.partialSort(array, 0, comparator), "partialSort");
+        assertException("Selecting past the end with nthElement should throw an IllegalArgumentException",
+                IllegalArgumentException.class, () -> Sorting.nthElement(new Integer[]{1, 2}, 2, Comparator.naturalOrder()));
+        assertException("Selecting a negative index with nthElement should throw an IllegalArgumentException",
+                IllegalArgumentException.class, () -> Sorting.nthElement(new Integer[]{1, 2}, -1, Comparator.naturalOrder()));
+        assertException("Sorting more elements than the array has with partialSort should throw an IllegalArgumentException",
+                IllegalArgumentException.class, () -> Sorting.partialSort(new Integer[]{1, 2}, 3, Comparator.naturalOrder()));
+        assertException("Passing a null source to topK should throw an IllegalArgumentException",
+                IllegalArgumentException.class, () -> Sorting.topK(null, 1, Comparator.<Integer>naturalOrder()));
+        assertException("Passing a null comparator to topK should throw an IllegalArgumentException",
+                IllegalArgumentException.class, () -> Sorting.topK(Arrays.asList(1, 2), 1, null));
+        assertException("Passing a negative k to topK should throw an IllegalArgumentException",
+                IllegalArgumentException.class, () -> Sorting.topK(Arrays.asList(1, 2), -1, Comparator.<Integer>naturalOrder()));
+    }
+
+    @Test
+    public void nthElementAndTopK() {
+        Random random = new Random(1332);
+        int n = 50000;
+        int[][] patterns = new int[6][n];
+        for (int j = 0; j < n; j++) {
+            patterns[0][j] = random.nextInt();
+            patterns[1][j] = j;
+            patterns[2][j] = n - j;
+            patterns[3][j] = 7;
+            patterns[4][j] = random.nextInt(4);
+            patterns[5][j] = Math.min(j, n - j);
+        }
+        for (int[] pattern : patterns) {
+            Integer[] sorted = new Integer[n];
+            for (int j = 0; j < n; j++) {
+                sorted[j] = pattern[j];
+            }
+            Arrays.sort(sorted);
+            for (int index : new int[]{0, 1, 99, n / 2, n - 1}) {
+                Integer[] array = new Integer[n];
+                for (int j = 0; j < n; j++) {
+                    array[j] = pattern[j];
+                }
+                long[] comparisons = new long[1];
+                Integer selected = Sorting.nthElement(array, index, (a, b) -> {
+                    comparisons[0]++;
+                    return a.compareTo(b);
+                });
+                assertEquals(sorted[index], selected);
+                assertEquals(sorted[index], array[index]);
+                for (int j = 0; j < n; j++) {
+                    assertTrue(j < index ? array[j] <= selected : array[j] >= selected);
+                }
+                assertTrue("nthElement made " + comparisons[0] + " comparisons", comparisons[0] < 6 * n);
+            }
+
+            Integer[] array = new Integer[n];
+            for (int j = 0; j < n; j++) {
+                array[j] = pattern[j];
+            }
+            Sorting.partialSort(array, 100, Comparator.naturalOrder());
+            assertArrayEquals(Arrays.copyOf(sorted, 100), Arrays.copyOf(array, 100));
+            for (int j = 100; j < n; j++) {
+                assertTrue(array[j] >= sorted[99]);
+            }
+
+            List<Integer> source = new ArrayList<>();
+            for (int value : pattern) {
+                source.add(value);
+            }
+            assertEquals(Arrays.asList(Arrays.copyOf(sorted, 100)), Sorting.topK(source, 100, Comparator.naturalOrder()));
+            List<Integer> largest = Sorting.topK(source, 100, Comparator.<Integer>reverseOrder());
+            for (int j = 0; j < 100; j++) {
+                assertEquals(sorted[n - 1 - j], largest.get(j));
+            }
+        }
+    }
+
+    @Test
+    public void nthElementEdgeCases() {
+        Integer[] array = {3, 1, 2};
+        Sorting.partialSort(array, 0, Comparator.naturalOrder());
+        assertArrayEquals(new Integer[]{3, 1, 2}, array);
+        Sorting.partialSort(array, 3, Comparator.naturalOrder());
+        assertArrayEquals(new Integer[]{1, 2, 3}, array);
+        assertEquals(Integer.valueOf(7), Sorting.nthElement(new Integer[]{7}, 0, Comparator.naturalOrder()));
+
+        List<Integer> source = Arrays.asList(5, 3, 9, 1);
+        assertEquals(Arrays.asList(), Sorting.topK(source, 0, Comparator.naturalOrder()));
+        assertEquals(Arrays.asList(1, 3, 5, 9), Sorting.topK(source, Integer.MAX_VALUE, Comparator.naturalOrder()));
+        assertEquals(Arrays.asList(1, 3), Sorting.topK(source, 2, new TrickySignComparator()));
+    }
+
+    @Test
+    public void rangeExceptions() {
+        assertStandardExceptions((array, comparator) -> Sorting.insertionSort(array, 0, 0, comparator), "insertion sort of a range");
+        assertStandardExceptions((array, comparator) -> Sorting.binaryInsertionSort(array, 0, 0, comparator), "binary insertion sort");
+        int[][] ranges = {{-1, 2}, {0, 5}, {3, 2}};
+        for (int[] range : ranges) {
+            assertException("Passing the range [" + range[0] + ", " + range[1] + ") of an array of length 4 should throw an IllegalArgumentException",
+                    IllegalArgumentException.class, () -> Sorting.insertionSort(new Integer[4], range[0], range[1], Comparator.naturalOrder()));
+            assertException("Passing the range [" + range[0] + ", " + range[1] + ") of an array of length 4 should throw an IllegalArgumentException",
+                    IllegalArgumentException.class, () -> Sorting.binaryInsertionSort(new Integer[4], range[0], range[1], Comparator.naturalOrder()));
+        }
+    }
+
+    @Test
+    public void rangeSorts() {
+        assertDoesSort((array, comparator) -> Sorting.binaryInsertionSort(array, 0, array.length, comparator));
+        assertDoesSort((array, comparator) -> Sorting.binaryInsertionSort(array, 0, array.length, comparator), true);
+        assertDoesSort((array, comparator) -> Sorting.binaryInsertionSort(array, 0, array.length, comparator), new TrickySignComparator());
+        assertDoesSort((array, comparator) -> Sorting.insertionSort(array, 0, array.length, comparator), true);
+
+        Random random = new Random(1332);
+        for (int i = 0; i < 100; i++) {
+            Integer[] array = new Integer[60];
+            for (int j = 0; j < array.length; j++) {
+                array[j] = random.nextInt(20);
+            }
+            int from = random.nextInt(array.length + 1);
+            int to = from + random.nextInt(array.length - from + 1);
+            Integer[] expected = array.clone();
+            Arrays.sort(expected, from, to);
+
+            Integer[] shifted = array.clone();
+            Sorting.insertionSort(shifted, from, to, Comparator.naturalOrder());
+            assertArrayEquals(expected, shifted);
+            Integer[] binary = array.clone();
+            Sorting.binaryInsertionSort(binary, from, to, Comparator.naturalOrder());
+            assertArrayEquals(expected, binary);
+        }
+
+        // binary insertion needs about log2 i comparisons per element
+        Integer[] array = new Integer[1000];
+        for (int j = 0; j < array.length; j++) {
+            array[j] = random.nextInt();
+        }
+        long[] comparisons = new long[1];
+        Sorting.binaryInsertionSort(array, 0, array.length, (a, b) -> {
+            comparisons[0]++;
+            return a.compareTo(b);
+        });
+        assertIsSorted(array);
+        assertTrue("binaryInsertionSort made " + comparisons[0] + " comparisons", comparisons[0] < 10 * array.length);
+    }
+
+    @Test
+    public void emptyArrays() {
+        List<SortFunction<Integer>> sorts = Arrays.asList(
+            Sorting::cocktailSort,
+            Sorting::insertionSort,
+            Sorting::selectionSort,
+            Sorting::mergeSort,
+            Sorting::introSort,
+            Sorting::timSort
+        );
+        for (SortFunction<Integer> sort : sorts) {
+            Integer[] array = new Integer[0];
+            sort.sort(array, Comparator.naturalOrder());
+            Integer[] single = {5};
+            sort.sort(single, Comparator.naturalOrder());
+            assertArrayEquals(new Integer[]{5}, single);
+        }
+    }
+}